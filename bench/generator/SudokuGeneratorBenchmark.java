@@ -0,0 +1,106 @@
+/*
+ * Copyright (C) 2021 Aarre Laakso
+ *
+ * This file is part of HoDoKu.
+ *
+ * HoDoKu is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * HoDoKu is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with HoDoKu. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package generator;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import sudoku.BenchmarkCorpus;
+import sudoku.DifficultyType;
+import sudoku.Sudoku2;
+
+/**
+ * Benchmarks {@link SudokuGenerator#generateSudoku(boolean, boolean[])} and
+ * {@link SudokuGenerator#getNumberOfSolutions(Sudoku2, int)} with every
+ * {@link GeneratorEngine}. The random generator is reseeded before every
+ * iteration, every iteration creates the same sequence of sudokus.
+ *
+ * @author Aarre Laakso
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(2)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class SudokuGeneratorBenchmark {
+	/** The seed for the random generator. */
+	private static final long SEED = 4711;
+
+	@Param
+	public GeneratorEngine engine;
+
+	/** The puzzles of all levels. */
+	private BenchmarkCorpus corpus;
+	private Sudoku2 sudoku;
+	private SudokuGenerator generator;
+
+	@Setup
+	public void setUp() {
+		corpus = new BenchmarkCorpus(DifficultyType.EASY, DifficultyType.MEDIUM, DifficultyType.HARD,
+				DifficultyType.UNFAIR, DifficultyType.EXTREME);
+		sudoku = new Sudoku2();
+		generator = SudokuGeneratorFactory.getInstance();
+		generator.setEngine(engine);
+	}
+
+	@Setup(Level.Iteration)
+	public void reseed() {
+		generator.setSeed(SEED);
+	}
+
+	@TearDown
+	public void tearDown() {
+		SudokuGeneratorFactory.giveBack(generator);
+	}
+
+	/**
+	 * Creates a symmetric sudoku (no pattern).
+	 *
+	 * @return
+	 */
+	@Benchmark
+	public Sudoku2 generateSudoku() {
+		return generator.generateSudoku(true, null);
+	}
+
+	/**
+	 * Checks the puzzles of the corpus for uniqueness.
+	 *
+	 * @return
+	 */
+	@Benchmark
+	public int getNumberOfSolutions() {
+		sudoku.set(corpus.next());
+		return generator.getNumberOfSolutions(sudoku, 2);
+	}
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright (C) 2021 Aarre Laakso
+ *
+ * This file is part of HoDoKu.
+ *
+ * HoDoKu is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * HoDoKu is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with HoDoKu. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package solver;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import sudoku.BenchmarkCorpus;
+import sudoku.DifficultyType;
+import sudoku.SolutionStep;
+import sudoku.SolutionType;
+import sudoku.Sudoku2;
+
+/**
+ * Benchmarks {@link SudokuStepFinder#getStep(SolutionType)} for at least one
+ * technique of every specialized solver (use <code>-p type=...</code> to
+ * select other techniques).<br>
+ * <br>
+ * The searches are done in the positions, in which the solver cannot proceed
+ * with singles for the first time (the puzzles from the corpus, all singles
+ * up to the first other step of the solution path are executed).
+ *
+ * @author Aarre Laakso
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(2)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class StepFinderBenchmark {
+	@Param({ "HARD", "UNFAIR", "EXTREME" })
+	public DifficultyType level;
+	@Param({ "HIDDEN_SINGLE", "LOCKED_CANDIDATES_1", "NAKED_PAIR", "HIDDEN_QUADRUPLE", "X_WING", "SWORDFISH",
+			"FINNED_JELLYFISH", "FRANKEN_SWORDFISH", "MUTANT_SWORDFISH", "KRAKEN_FISH", "SKYSCRAPER",
+			"EMPTY_RECTANGLE", "XY_WING", "W_WING", "UNIQUENESS_1", "BUG_PLUS_1", "SIMPLE_COLORS", "MULTI_COLORS",
+			"X_CHAIN", "XY_CHAIN", "NICE_LOOP", "GROUPED_NICE_LOOP", "SUE_DE_COQ", "ALS_XZ", "ALS_XY_WING",
+			"ALS_XY_CHAIN", "DEATH_BLOSSOM", "TEMPLATE_DEL", "FORCING_CHAIN", "FORCING_NET" })
+	public SolutionType type;
+
+	/** The positions after the singles. */
+	private Sudoku2[] positions;
+	/** The sudoku the step finder works on. */
+	private Sudoku2 sudoku;
+	private SudokuStepFinder finder;
+	/** The index of the position for the next invocation. */
+	private int actIndex = 0;
+
+	@Setup
+	public void setUp() {
+		BenchmarkCorpus corpus = new BenchmarkCorpus(level);
+		positions = new Sudoku2[corpus.size()];
+		SudokuSolver solver = new SudokuSolver();
+		for (int i = 0; i < positions.length; i++) {
+			positions[i] = getFirstNonSinglePosition(solver, corpus.getSudoku(i));
+		}
+		sudoku = new Sudoku2();
+		finder = new SudokuStepFinder();
+	}
+
+	/**
+	 * Solves <code>puzzle</code> and executes all singles until the first other
+	 * step in the solution path.
+	 *
+	 * @param solver
+	 * @param puzzle
+	 * @return
+	 */
+	static Sudoku2 getFirstNonSinglePosition(SudokuSolver solver, Sudoku2 puzzle) {
+		solver.setSudoku(puzzle.clone());
+		solver.solve();
+		Sudoku2 position = puzzle.clone();
+		List<SolutionStep> steps = solver.getSteps();
+		for (int i = 0; i < steps.size() && steps.get(i).getType().isSingle(); i++) {
+			solver.doStep(position, steps.get(i));
+		}
+		return position;
+	}
+
+	@Benchmark
+	public SolutionStep getStep() {
+		sudoku.set(positions[actIndex]);
+		actIndex = actIndex + 1 == positions.length ? 0 : actIndex + 1;
+		finder.setSudoku(sudoku);
+		return finder.getStep(type);
+	}
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright (C) 2021 Aarre Laakso
+ *
+ * This file is part of HoDoKu.
+ *
+ * HoDoKu is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * HoDoKu is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with HoDoKu. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package solver;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import sudoku.BenchmarkCorpus;
+import sudoku.DifficultyType;
+import sudoku.Sudoku2;
+
+/**
+ * Benchmarks {@link SudokuSolver#solve()} (rating a puzzle as done by
+ * <code>/bs</code>).
+ *
+ * @author Aarre Laakso
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(2)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class SudokuSolverBenchmark {
+	@Param({ "EASY", "MEDIUM", "HARD", "UNFAIR", "EXTREME" })
+	public DifficultyType level;
+
+	private BenchmarkCorpus corpus;
+	private Sudoku2 sudoku;
+	private SudokuSolver solver;
+
+	@Setup
+	public void setUp() {
+		corpus = new BenchmarkCorpus(level);
+		sudoku = new Sudoku2();
+		solver = new SudokuSolver();
+	}
+
+	@Benchmark
+	public int solve() {
+		sudoku.set(corpus.next());
+		solver.setSudoku(sudoku);
+		solver.solve();
+		return solver.getScore();
+	}
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright (C) 2021 Aarre Laakso
+ *
+ * This file is part of HoDoKu.
+ *
+ * HoDoKu is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * HoDoKu is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with HoDoKu. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package solver;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import sudoku.BenchmarkCorpus;
+import sudoku.DifficultyType;
+import sudoku.SolutionType;
+import sudoku.Sudoku2;
+import sudoku.SudokuSet;
+
+/**
+ * Benchmarks the initialization of the templates in {@link SudokuStepFinder}
+ * (valid templates per candidate; with <code>initLists</code> the templates
+ * are filtered against each other as needed by {@link TemplateSolver}). The
+ * positions are the same as in {@link StepFinderBenchmark}.
+ *
+ * @author Aarre Laakso
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(2)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class TemplateBenchmark {
+	@Param({ "HARD", "UNFAIR", "EXTREME" })
+	public DifficultyType level;
+
+	private Sudoku2[] positions;
+	private Sudoku2 sudoku;
+	private SudokuStepFinder finder;
+	private int actIndex = 0;
+
+	@Setup
+	public void setUp() {
+		BenchmarkCorpus corpus = new BenchmarkCorpus(level);
+		positions = new Sudoku2[corpus.size()];
+		SudokuSolver solver = new SudokuSolver();
+		for (int i = 0; i < positions.length; i++) {
+			positions[i] = StepFinderBenchmark.getFirstNonSinglePosition(solver, corpus.getSudoku(i));
+		}
+		sudoku = new Sudoku2();
+		finder = new SudokuStepFinder();
+		// the sets of the step finder are created by the first search
+		nextPosition();
+		finder.getStep(SolutionType.FULL_HOUSE);
+	}
+
+	/**
+	 * Sets the next position (all templates become invalid).
+	 */
+	private void nextPosition() {
+		sudoku.set(positions[actIndex]);
+		actIndex = actIndex + 1 == positions.length ? 0 : actIndex + 1;
+		finder.setSudoku(sudoku);
+	}
+
+	@Benchmark
+	public SudokuSet[] initTemplates() {
+		nextPosition();
+		return finder.getDelCandTemplates(false);
+	}
+
+	@Benchmark
+	public SudokuSet[] initTemplateLists() {
+		nextPosition();
+		return finder.getDelCandTemplates(true);
+	}
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright (C) 2021 Aarre Laakso
+ *
+ * This file is part of HoDoKu.
+ *
+ * HoDoKu is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * HoDoKu is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with HoDoKu. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package sudoku;
+
+import generator.SudokuGenerator;
+import generator.SudokuGeneratorFactory;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The fixed puzzle collections for the benchmarks: 15 puzzles per
+ * {@link DifficultyType} (rated with the default settings), stored in
+ * <code>corpus/&lt;level&gt;.txt</code> next to this class (one puzzle of 81
+ * characters per line).<br>
+ * <br>
+ * All benchmarks have to use the default {@link Options}: a config file of the
+ * user would change the steps the solver uses and therefore the results.
+ * Creating a corpus resets the options.
+ *
+ * @author Aarre Laakso
+ */
+public final class BenchmarkCorpus {
+	/** The puzzles as read from the corpus files. */
+	private final List<String> puzzles = new ArrayList<String>();
+	/** The puzzles, solutions are set. */
+	private final Sudoku2[] sudokus;
+	/** The index of the puzzle returned by the next call to {@link #next()}. */
+	private int nextIndex = 0;
+
+	/**
+	 * Reads the puzzles of all <code>levels</code> (in the given order).
+	 *
+	 * @param levels
+	 */
+	public BenchmarkCorpus(DifficultyType... levels) {
+		Options.resetAll();
+		for (DifficultyType level : levels) {
+			readPuzzles(level, puzzles);
+		}
+		SudokuGenerator generator = SudokuGeneratorFactory.getDefaultGeneratorInstance();
+		sudokus = new Sudoku2[puzzles.size()];
+		for (int i = 0; i < sudokus.length; i++) {
+			sudokus[i] = new Sudoku2();
+			sudokus[i].setSudoku(puzzles.get(i));
+			if (!generator.validSolution(sudokus[i])) {
+				throw new IllegalStateException("Invalid puzzle in corpus: " + puzzles.get(i));
+			}
+		}
+	}
+
+	/**
+	 * Reads the corpus file for <code>level</code>.
+	 *
+	 * @param level
+	 * @param puzzles
+	 */
+	private static void readPuzzles(DifficultyType level, List<String> puzzles) {
+		String name = "corpus/" + level.name().toLowerCase() + ".txt";
+		InputStream in = BenchmarkCorpus.class.getResourceAsStream(name);
+		if (in == null) {
+			throw new IllegalArgumentException("No corpus for level " + level);
+		}
+		BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.ISO_8859_1));
+		try {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				line = line.trim();
+				if (line.length() > 0) {
+					puzzles.add(line);
+				}
+			}
+		} catch (IOException ex) {
+			throw new IllegalStateException("Error reading " + name, ex);
+		} finally {
+			try {
+				reader.close();
+			} catch (IOException ex) {
+				// ignore
+			}
+		}
+	}
+
+	/**
+	 * Number of puzzles in the corpus.
+	 *
+	 * @return
+	 */
+	public int size() {
+		return sudokus.length;
+	}
+
+	/**
+	 * The puzzle <code>index</code> as read from the corpus file.
+	 *
+	 * @param index
+	 * @return
+	 */
+	public String getPuzzle(int index) {
+		return puzzles.get(index);
+	}
+
+	/**
+	 * The puzzle <code>index</code> with its solution set. The sudoku must not
+	 * be changed, use {@link Sudoku2#set(Sudoku2)} or {@link Sudoku2#clone()}.
+	 *
+	 * @param index
+	 * @return
+	 */
+	public Sudoku2 getSudoku(int index) {
+		return sudokus[index];
+	}
+
+	/**
+	 * The index of the next puzzle (the benchmarks cycle through all puzzles of
+	 * the corpus, one puzzle per invocation).
+	 *
+	 * @return
+	 */
+	public int nextIndex() {
+		int index = nextIndex;
+		nextIndex = index + 1 == sudokus.length ? 0 : index + 1;
+		return index;
+	}
+
+	/**
+	 * The next puzzle (see {@link #nextIndex()} and {@link #getSudoku(int)}).
+	 *
+	 * @return
+	 */
+	public Sudoku2 next() {
+		return sudokus[nextIndex()];
+	}
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright (C) 2021 Aarre Laakso
+ *
+ * This file is part of HoDoKu.
+ *
+ * HoDoKu is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * HoDoKu is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with HoDoKu. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package sudoku;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks "Find all steps" including the progress scores (as done by
+ * <code>/bsaf</code>) with the configured number of threads.
+ *
+ * @author Aarre Laakso
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(2)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class FindAllStepsBenchmark {
+	@Param({ "EASY", "HARD", "EXTREME" })
+	public DifficultyType level;
+	@Param({ "1", "4" })
+	public int threads;
+
+	private BenchmarkCorpus corpus;
+
+	@Setup
+	public void setUp() {
+		corpus = new BenchmarkCorpus(level);
+	}
+
+	@Benchmark
+	public List<SolutionStep> findAllSteps() {
+		List<SolutionStep> steps = new ArrayList<SolutionStep>();
+		FindAllSteps findAll = new FindAllSteps(steps, corpus.next().clone(), null);
+		findAll.setThreads(threads);
+		findAll.run();
+		return steps;
+	}
+}
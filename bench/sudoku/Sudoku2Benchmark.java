@@ -0,0 +1,109 @@
+/*
+ * Copyright (C) 2021 Aarre Laakso
+ *
+ * This file is part of HoDoKu.
+ *
+ * HoDoKu is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * HoDoKu is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with HoDoKu. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package sudoku;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for the basic operations of {@link Sudoku2}: parsing a puzzle,
+ * setting cells (candidates, free and the singles queues are updated) and
+ * deleting values again.
+ *
+ * @author Aarre Laakso
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(2)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class Sudoku2Benchmark {
+	@Param({ "EASY", "MEDIUM", "HARD", "UNFAIR", "EXTREME" })
+	public DifficultyType level;
+
+	private BenchmarkCorpus corpus;
+	/** The sudoku the benchmarks work on. */
+	private Sudoku2 sudoku;
+
+	@Setup
+	public void setUp() {
+		corpus = new BenchmarkCorpus(level);
+		sudoku = new Sudoku2();
+	}
+
+	/**
+	 * Parses a puzzle (all internal data is rebuilt).
+	 *
+	 * @return
+	 */
+	@Benchmark
+	public Sudoku2 setSudoku() {
+		sudoku.setSudoku(corpus.getPuzzle(corpus.nextIndex()));
+		return sudoku;
+	}
+
+	/**
+	 * Copies a puzzle and sets all unsolved cells to their solution values.
+	 *
+	 * @return
+	 */
+	@Benchmark
+	public Sudoku2 setCellSolve() {
+		Sudoku2 puzzle = corpus.next();
+		sudoku.set(puzzle);
+		for (int i = 0; i < Sudoku2.LENGTH; i++) {
+			if (sudoku.getValue(i) == 0) {
+				sudoku.setCell(i, puzzle.getSolution(i));
+			}
+		}
+		return sudoku;
+	}
+
+	/**
+	 * Copies a puzzle, sets every unsolved cell to its solution value and
+	 * deletes the value again.
+	 *
+	 * @return
+	 */
+	@Benchmark
+	public Sudoku2 setCellDelete() {
+		Sudoku2 puzzle = corpus.next();
+		sudoku.set(puzzle);
+		for (int i = 0; i < Sudoku2.LENGTH; i++) {
+			if (sudoku.getValue(i) == 0) {
+				sudoku.setCell(i, puzzle.getSolution(i));
+				sudoku.setCell(i, 0);
+			}
+		}
+		return sudoku;
+	}
+}
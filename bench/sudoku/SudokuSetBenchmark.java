@@ -0,0 +1,144 @@
+/*
+ * Copyright (C) 2021 Aarre Laakso
+ *
+ * This file is part of HoDoKu.
+ *
+ * HoDoKu is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * HoDoKu is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with HoDoKu. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package sudoku;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for the {@link SudokuSet} operations used in the inner loops of
+ * the solvers. The sets are random, but always the same (fixed seed).
+ *
+ * @author Aarre Laakso
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(2)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class SudokuSetBenchmark {
+	/** Number of sets, has to be a power of 2. */
+	private static final int ANZ_SETS = 256;
+	/** Every cell is contained in a set with a probability of 1/3. */
+	private static final int CELL_PROBABILITY = 3;
+
+	private final SudokuSet[] sets = new SudokuSet[ANZ_SETS];
+	private final SudokuSet result = new SudokuSet();
+	/** The index of the first set for the next invocation. */
+	private int actIndex = 0;
+
+	@Setup
+	public void setUp() {
+		Random rand = new Random(4711);
+		for (int i = 0; i < sets.length; i++) {
+			sets[i] = new SudokuSet();
+			for (int j = 0; j < Sudoku2.LENGTH; j++) {
+				if (rand.nextInt(CELL_PROBABILITY) == 0) {
+					sets[i].add(j);
+				}
+			}
+		}
+	}
+
+	/**
+	 * The index of the first of four sets for the next invocation.
+	 *
+	 * @return
+	 */
+	private int nextIndex() {
+		int index = actIndex;
+		actIndex = (actIndex + 1) & (ANZ_SETS - 1);
+		return index;
+	}
+
+	/**
+	 * <code>(a &amp; b | c) &amp; ~d</code>
+	 *
+	 * @return
+	 */
+	@Benchmark
+	public SudokuSet andOrAndNot() {
+		int index = nextIndex();
+		result.setAnd(sets[index], sets[(index + 1) & (ANZ_SETS - 1)]);
+		result.or(sets[(index + 2) & (ANZ_SETS - 1)]);
+		result.andNot(sets[(index + 3) & (ANZ_SETS - 1)]);
+		return result;
+	}
+
+	/**
+	 * Tests for empty intersections and subsets.
+	 *
+	 * @return
+	 */
+	@Benchmark
+	public boolean intersectsContains() {
+		int index = nextIndex();
+		SudokuSet a = sets[index];
+		SudokuSet b = sets[(index + 1) & (ANZ_SETS - 1)];
+		return a.intersects(b) && !a.contains(b) && !SudokuSetBase.andEmpty(a, sets[(index + 2) & (ANZ_SETS - 1)]);
+	}
+
+	/**
+	 * Copies a set and iterates over all its cells (the array of cells is
+	 * created lazily by {@link SudokuSet#size()}).
+	 *
+	 * @return
+	 */
+	@Benchmark
+	public int iterate() {
+		result.set(sets[nextIndex()]);
+		int sum = 0;
+		for (int i = 0; i < result.size(); i++) {
+			sum += result.get(i);
+		}
+		return sum;
+	}
+
+	/**
+	 * Adds and removes single cells.
+	 *
+	 * @return
+	 */
+	@Benchmark
+	public SudokuSet addRemove() {
+		int index = nextIndex();
+		result.set(sets[index]);
+		for (int i = 0; i < Sudoku2.LENGTH; i += 3) {
+			if (result.contains(i)) {
+				result.remove(i);
+			} else {
+				result.add(i);
+			}
+		}
+		return result;
+	}
+}
@@ -20,6 +20,8 @@
 package generator;
 
 import java.awt.EventQueue;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import solver.SudokuSolver;
 import solver.SudokuSolverFactory;
@@ -27,7 +29,6 @@ import sudoku.ClipboardMode;
 import sudoku.DifficultyLevel;
 import sudoku.GameMode;
 import sudoku.GenerateSudokuProgressDialog;
-import sudoku.Options;
 import sudoku.SolutionStep;
 import sudoku.Sudoku2;
 
@@ -117,23 +118,7 @@ public class BackgroundGenerator {
 				// impossible to create sudoku due to an invalid pattern
 				return null;
 			}
-			Sudoku2 solvedSudoku = sudoku.clone();
-			boolean ok = solver.solve(level, solvedSudoku, true, null, false, Options.getInstance().solverSteps, mode);
-			boolean containsTrainingStep = true;
-			if (mode != GameMode.PLAYING) {
-				containsTrainingStep = false;
-				List<SolutionStep> steps = solver.getSteps();
-				for (SolutionStep step : steps) {
-					if (step.getType().getStepConfig().isEnabledTraining()) {
-						containsTrainingStep = true;
-						break;
-					}
-				}
-			}
-			if (ok && containsTrainingStep
-					&& (solvedSudoku.getLevel().getOrdinal() == level.getOrdinal() || mode == GameMode.LEARNING)) {
-				sudoku.setLevel(solvedSudoku.getLevel());
-				sudoku.setScore(solvedSudoku.getScore());
+			if (checkSudoku(sudoku, level, mode, solver)) {
 				break;
 			}
 			setAnz(getAnz() + 1);
@@ -165,6 +150,94 @@ public class BackgroundGenerator {
 		return sudoku;
 	}
 
+	/**
+	 * Generates up to <code>count</code> sudokus with <code>threads</code>
+	 * threads (see {@link GeneratorPipeline}). The method returns, when
+	 * <code>count</code> puzzles have been found, when the current thread is
+	 * interrupted or when {@link #MAX_TRIES} tries in a row have failed.
+	 * 
+	 * @param level
+	 * @param mode
+	 * @param count
+	 * @param threads
+	 * @return The puzzles found (can be empty)
+	 */
+	public List<String> generate(final DifficultyLevel level, final GameMode mode, int count, int threads) {
+		List<String> puzzles = new ArrayList<String>(count);
+		List<GeneratorPipeline.Worker> workers = new ArrayList<GeneratorPipeline.Worker>(threads);
+		for (int i = 0; i < threads; i++) {
+			workers.add(new GeneratorPipeline.Worker() {
+				@Override
+				public List<String> next(SudokuGenerator generator, SudokuSolver solver) {
+					Sudoku2 sudoku = generator.generateSudoku(true);
+					if (sudoku == null) {
+						// impossible to create sudoku due to an invalid pattern
+						throw new IllegalStateException("Invalid generator pattern");
+					}
+					if (checkSudoku(sudoku, level, mode, solver)) {
+						return Collections.singletonList(sudoku.getSudoku(ClipboardMode.CLUES_ONLY));
+					}
+					return null;
+				}
+			});
+		}
+		GeneratorPipeline pipeline = new GeneratorPipeline(workers);
+		pipeline.start();
+		try {
+			int lastFound = 0;
+			while (puzzles.size() < count) {
+				String puzzle = pipeline.poll(100);
+				if (puzzle != null) {
+					puzzles.add(puzzle);
+					lastFound = pipeline.getAnz();
+				} else if (pipeline.getAnz() - lastFound > MAX_TRIES || !pipeline.isRunning()) {
+					// give up...
+					break;
+				}
+			}
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		} finally {
+			pipeline.stop();
+		}
+		setAnz(pipeline.getAnz());
+		return puzzles;
+	}
+
+	/**
+	 * Solves <code>sudoku</code> and checks, if it fits <code>level</code> and
+	 * <code>mode</code>. If it does, level and score are stored in
+	 * <code>sudoku</code>.
+	 * 
+	 * @param sudoku
+	 * @param level
+	 * @param mode
+	 * @param solver
+	 * @return
+	 */
+	private boolean checkSudoku(Sudoku2 sudoku, DifficultyLevel level, GameMode mode, SudokuSolver solver) {
+		Sudoku2 solvedSudoku = sudoku.clone();
+		boolean ok = solver.solve(level, solvedSudoku, true, null, false, solver.getConfig().getSolverSteps(), mode);
+		boolean containsTrainingStep = true;
+		if (mode != GameMode.PLAYING) {
+			containsTrainingStep = false;
+			List<SolutionStep> steps = solver.getSteps();
+			for (SolutionStep step : steps) {
+				if (step.getType().getStepConfig().isEnabledTraining()) {
+					containsTrainingStep = true;
+					break;
+				}
+			}
+		}
+		if (ok && containsTrainingStep
+				&& (solvedSudoku.getLevel().getOrdinal() == level.getOrdinal() || mode == GameMode.LEARNING)) {
+			sudoku.setLevel(solvedSudoku.getLevel());
+			sudoku.setScore(solvedSudoku.getScore());
+			return true;
+		}
+		return false;
+	}
+
 	/**
 	 * @return the anz
 	 */
@@ -19,6 +19,8 @@
 
 package generator;
 
+import java.util.Collections;
+import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import sudoku.DifficultyLevel;
@@ -314,8 +316,24 @@ public class BackgroundGeneratorThread implements Runnable {
 						System.out.println("  creating " + level.getName() + "/" + mode.name());
 					}
 					// ok, create the puzzle
-					String puzzle = generator.generate(level, mode);
-					if (puzzle == null) {
+					int threads = Options.getInstance().getGeneratorThreads();
+					if (threads <= 0) {
+						threads = Runtime.getRuntime().availableProcessors();
+					}
+					List<String> newPuzzles = null;
+					if (threads == 1) {
+						String puzzle = generator.generate(level, mode);
+						if (puzzle != null) {
+							newPuzzles = Collections.singletonList(puzzle);
+						}
+					} else {
+						// fill all empty slots for level/mode at once
+						newPuzzles = generator.generate(level, mode, getMissingAnz(level, mode), threads);
+						if (thread.isInterrupted()) {
+							break;
+						}
+					}
+					if (newPuzzles == null || newPuzzles.isEmpty()) {
 						// couldnt create one -> stop for now
 						// BUG: dont give up just now!
 						if (DEBUG) {
@@ -324,10 +342,12 @@ public class BackgroundGeneratorThread implements Runnable {
 						break;
 					}
 					// store it
-					setSudoku(level, mode, puzzle);
-					if (DEBUG) {
-						System.out.println(
-								"  created in background: " + level.getName() + "/" + mode.name() + "/" + puzzle);
+					for (String puzzle : newPuzzles) {
+						setSudoku(level, mode, puzzle);
+						if (DEBUG) {
+							System.out.println(
+									"  created in background: " + level.getName() + "/" + mode.name() + "/" + puzzle);
+						}
 					}
 					// and try again
 					level = null;
@@ -345,6 +365,25 @@ public class BackgroundGeneratorThread implements Runnable {
 		}
 	}
 
+	/**
+	 * Number of empty slots in the cache for <code>level</code> and
+	 * <code>mode</code>.
+	 * 
+	 * @param level
+	 * @param mode
+	 * @return
+	 */
+	private synchronized int getMissingAnz(DifficultyLevel level, GameMode mode) {
+		String[] puzzles = getPuzzleArray(level, mode);
+		int anz = 0;
+		for (int i = 0; i < puzzles.length; i++) {
+			if (puzzles[i] == null) {
+				anz++;
+			}
+		}
+		return anz;
+	}
+
 	/**
 	 * Gets the correct cache array from Options.
 	 * 
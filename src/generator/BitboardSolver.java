@@ -0,0 +1,279 @@
+/*
+ * Copyright (C) 2021 Aarre Laakso
+ *
+ * This file is part of HoDoKu.
+ *
+ * HoDoKu is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * HoDoKu is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with HoDoKu. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package generator;
+
+import sudoku.Sudoku2;
+
+/**
+ * Counts the solutions of a sudoku (used by {@link SudokuGenerator} if
+ * {@link GeneratorEngine#BITBOARD} is selected).<br>
+ * <br>
+ * The grid is held as one 9 bit candidate mask per cell. Cells are set in the
+ * order "fewest candidates first"; after every guess all Naked and Hidden
+ * Singles are set. Every change of a mask is recorded in a trail, backtracking
+ * simply rolls back the trail. All arrays are allocated once, solving a puzzle
+ * does not create any objects.<br>
+ * <br>
+ * Contrary to the backtracking solver in {@link SudokuGenerator} a grid that
+ * contains the same value twice in a house has no solution.
+ *
+ * @author Aarre Laakso
+ */
+final class BitboardSolver {
+	/** All buddies of every cell (20 per cell). */
+	private static final int[][] PEERS = new int[Sudoku2.LENGTH][];
+	/** All candidates set. */
+	private static final int ALL = Sudoku2.MAX_MASK;
+
+	/** The candidate masks; <code>0</code> for cells that are set. */
+	private final int[] cells = new int[Sudoku2.LENGTH];
+	/** The values of the cells; <code>0</code> for cells that are not set. */
+	private final int[] values = new int[Sudoku2.LENGTH];
+	/** Number of cells that are not set. */
+	private int unsolved;
+	/**
+	 * The cells changed since the start of the search: the index of the cell, if
+	 * a candidate was removed, <code>~index</code>, if the cell was set.
+	 */
+	private final int[] trailIndex = new int[Sudoku2.LENGTH * 21];
+	/** The masks of the cells in {@link #trailIndex} before the change. */
+	private final int[] trailMask = new int[Sudoku2.LENGTH * 21];
+	/** Number of entries in the trail. */
+	private int trailSize;
+	/** Number of solutions found. */
+	private int solutionCount;
+	/** The search stops, if more solutions than this are found. */
+	private int maxSolutionCount;
+	/** The values of the first solution. */
+	private int[] solution;
+
+	static {
+		for (int i = 0; i < PEERS.length; i++) {
+			PEERS[i] = new int[Sudoku2.buddies[i].size()];
+			for (int j = 0; j < PEERS[i].length; j++) {
+				PEERS[i][j] = Sudoku2.buddies[i].get(j);
+			}
+		}
+	}
+
+	/**
+	 * Counts the solutions of a sudoku. The search stops as soon as more than
+	 * <code>maxSolutionCount</code> solutions have been found.
+	 *
+	 * @param cellValues       The values of the cells (<code>0</code> for empty
+	 *                         cells)
+	 * @param candidates       The candidate masks of the empty cells (as in
+	 *                         {@link Sudoku2#getCell(int)}), <code>null</code> if
+	 *                         all candidates are allowed
+	 * @param maxSolutionCount
+	 * @param solution         Gets the first solution, if one is found
+	 * @return The number of solutions (at most <code>maxSolutionCount + 1</code>)
+	 */
+	int solve(int[] cellValues, short[] candidates, int maxSolutionCount, int[] solution) {
+		this.maxSolutionCount = maxSolutionCount;
+		this.solution = solution;
+		solutionCount = 0;
+		trailSize = 0;
+		unsolved = Sudoku2.LENGTH;
+		for (int i = 0; i < Sudoku2.LENGTH; i++) {
+			values[i] = 0;
+			int value = cellValues[i];
+			if (value >= 1 && value <= 9 || candidates == null) {
+				cells[i] = ALL;
+			} else {
+				cells[i] = candidates[i] & ALL;
+			}
+		}
+		for (int i = 0; i < Sudoku2.LENGTH; i++) {
+			int value = cellValues[i];
+			if (value >= 1 && value <= 9) {
+				if ((cells[i] & Sudoku2.MASKS[value]) == 0 || !setCell(i, Sudoku2.MASKS[value])) {
+					// same value twice in a house or no candidate left in a cell
+					return 0;
+				}
+			}
+		}
+		trailSize = 0;
+		search();
+		return solutionCount;
+	}
+
+	/**
+	 * One level of the search.
+	 *
+	 * @return <code>true</code>, if the search is finished
+	 */
+	private boolean search() {
+		int mark = trailSize;
+		if (!setSingles()) {
+			rollBack(mark);
+			return false;
+		}
+		if (unsolved == 0) {
+			solutionCount++;
+			if (solutionCount == 1 && solution != null) {
+				System.arraycopy(values, 0, solution, 0, Sudoku2.LENGTH);
+			}
+			rollBack(mark);
+			return solutionCount > maxSolutionCount;
+		}
+		// the cell with the fewest candidates
+		int index = -1;
+		int anzCand = 10;
+		for (int i = 0; i < Sudoku2.LENGTH; i++) {
+			if (values[i] == 0) {
+				int anz = Sudoku2.ANZ_VALUES[cells[i]];
+				if (anz < anzCand) {
+					index = i;
+					anzCand = anz;
+					if (anz == 2) {
+						break;
+					}
+				}
+			}
+		}
+		int cands = cells[index];
+		while (cands != 0) {
+			int bit = cands & -cands;
+			cands ^= bit;
+			int guessMark = trailSize;
+			if (setCell(index, bit) && search()) {
+				rollBack(mark);
+				return true;
+			}
+			rollBack(guessMark);
+		}
+		rollBack(mark);
+		return false;
+	}
+
+	/**
+	 * Sets all Naked and Hidden Singles until none are left.
+	 *
+	 * @return <code>false</code>, if the puzzle has become invalid
+	 */
+	private boolean setSingles() {
+		boolean changed = true;
+		while (changed) {
+			changed = false;
+			// Naked Singles
+			for (int i = 0; i < Sudoku2.LENGTH; i++) {
+				if (values[i] == 0) {
+					int mask = cells[i];
+					if (mask == 0) {
+						return false;
+					}
+					if ((mask & (mask - 1)) == 0) {
+						if (!setCell(i, mask)) {
+							return false;
+						}
+						changed = true;
+					}
+				}
+			}
+			// Hidden Singles
+			for (int i = 0; i < Sudoku2.ALL_UNITS.length; i++) {
+				int[] unit = Sudoku2.ALL_UNITS[i];
+				int once = 0;
+				int twice = 0;
+				int set = 0;
+				for (int j = 0; j < unit.length; j++) {
+					int index = unit[j];
+					if (values[index] != 0) {
+						set |= Sudoku2.MASKS[values[index]];
+					} else {
+						twice |= once & cells[index];
+						once |= cells[index];
+					}
+				}
+				if ((once | set) != ALL) {
+					// a value cannot be placed in the house
+					return false;
+				}
+				int singles = once & ~twice & ~set;
+				while (singles != 0) {
+					int bit = singles & -singles;
+					singles ^= bit;
+					for (int j = 0; j < unit.length; j++) {
+						int index = unit[j];
+						if (values[index] == 0 && (cells[index] & bit) != 0) {
+							if (!setCell(index, bit)) {
+								return false;
+							}
+							changed = true;
+							break;
+						}
+					}
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Sets <code>bit</code> in cell <code>index</code> and deletes it from all
+	 * buddies.
+	 *
+	 * @param index
+	 * @param bit
+	 * @return <code>false</code>, if a buddy has no candidate left
+	 */
+	private boolean setCell(int index, int bit) {
+		trailIndex[trailSize] = ~index;
+		trailMask[trailSize++] = cells[index];
+		cells[index] = 0;
+		values[index] = Sudoku2.CAND_FROM_MASK[bit];
+		unsolved--;
+		int[] peers = PEERS[index];
+		for (int i = 0; i < peers.length; i++) {
+			int peer = peers[i];
+			int mask = cells[peer];
+			if ((mask & bit) != 0) {
+				trailIndex[trailSize] = peer;
+				trailMask[trailSize++] = mask;
+				mask &= ~bit;
+				cells[peer] = mask;
+				if (mask == 0 && values[peer] == 0) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Undoes all changes after trail entry <code>mark</code>.
+	 *
+	 * @param mark
+	 */
+	private void rollBack(int mark) {
+		while (trailSize > mark) {
+			trailSize--;
+			int index = trailIndex[trailSize];
+			if (index < 0) {
+				index = ~index;
+				values[index] = 0;
+				unsolved++;
+			}
+			cells[index] = trailMask[trailSize];
+		}
+	}
+}
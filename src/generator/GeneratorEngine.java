@@ -0,0 +1,41 @@
+/*
+ * Copyright (C) 2021 Aarre Laakso
+ *
+ * This file is part of HoDoKu.
+ *
+ * HoDoKu is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * HoDoKu is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with HoDoKu. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package generator;
+
+/**
+ * The engines {@link SudokuGenerator} can use for counting the solutions of a
+ * sudoku.
+ *
+ * @author Aarre Laakso
+ */
+public enum GeneratorEngine {
+	/**
+	 * The original backtracking solver working on {@link sudoku.Sudoku2} (the
+	 * default).
+	 */
+	BACKTRACKING,
+	/**
+	 * {@link BitboardSolver}: candidate masks only, no allocations. The
+	 * generated puzzles can differ from the ones created by
+	 * {@link #BACKTRACKING}, so it has to be selected explicitly.
+	 */
+	BITBOARD;
+}
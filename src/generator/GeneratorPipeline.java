@@ -0,0 +1,207 @@
+/*
+ * Copyright (C) 2021 Aarre Laakso
+ *
+ * This file is part of HoDoKu.
+ *
+ * HoDoKu is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * HoDoKu is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with HoDoKu. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package generator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import solver.SolverConfig;
+import solver.SudokuSolver;
+import solver.SudokuSolverFactory;
+
+/**
+ * Generates puzzles in more than one thread. Every producer thread owns one
+ * {@link SudokuGenerator} and one {@link SudokuSolver} (from the factories) and
+ * repeatedly calls its {@link Worker}. All results are put into a bounded
+ * queue; if the consumer doesn't keep up, the producers wait.<br>
+ * <br>
+ * All solvers share one {@link SolverConfig}, that is created when the
+ * pipeline is started.
+ *
+ * @author Aarre Laakso
+ */
+public class GeneratorPipeline {
+	/** Number of results per thread that can be queued. */
+	private static final int QUEUE_PER_THREAD = 4;
+
+	/**
+	 * Generates and checks puzzles. Each producer thread has its own worker, so
+	 * workers may hold state.
+	 */
+	public interface Worker {
+		/**
+		 * Generates one puzzle and checks it.
+		 *
+		 * @param generator
+		 * @param solver
+		 * @return All results for the puzzle or <code>null</code>, if the puzzle
+		 *         was rejected
+		 */
+		List<String> next(SudokuGenerator generator, SudokuSolver solver);
+	}
+
+	/** The workers, one per thread. */
+	private final List<Worker> workers;
+	/** The producer threads. */
+	private final List<Thread> threads;
+	/** The results. */
+	private final BlockingQueue<String> queue;
+	/** Number of puzzles generated so far. */
+	private final AtomicInteger anz = new AtomicInteger();
+	/** Set by {@link #stop()}. */
+	private volatile boolean stopped = false;
+
+	/**
+	 * Creates a pipeline with one thread for every worker in
+	 * <code>workers</code>.
+	 *
+	 * @param workers
+	 */
+	public GeneratorPipeline(List<Worker> workers) {
+		this.workers = workers;
+		threads = new ArrayList<Thread>(workers.size());
+		queue = new ArrayBlockingQueue<String>(Math.max(1, workers.size() * QUEUE_PER_THREAD));
+	}
+
+	/**
+	 * Starts all producer threads.
+	 */
+	public void start() {
+		final SolverConfig config = SolverConfig.fromOptions();
+		for (int i = 0; i < workers.size(); i++) {
+			final Worker worker = workers.get(i);
+			Thread thread = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					produce(worker, config);
+				}
+			}, "GeneratorPipeline-" + i);
+			thread.setDaemon(true);
+			threads.add(thread);
+			thread.start();
+		}
+	}
+
+	/**
+	 * The main loop of a producer thread.
+	 *
+	 * @param worker
+	 * @param config
+	 */
+	private void produce(Worker worker, SolverConfig config) {
+		SudokuGenerator generator = SudokuGeneratorFactory.getInstance();
+		SudokuSolver solver = SudokuSolverFactory.getInstance();
+		solver.setConfig(config);
+		try {
+			while (!Thread.currentThread().isInterrupted()) {
+				List<String> results = worker.next(generator, solver);
+				anz.incrementAndGet();
+				if (results != null) {
+					for (String result : results) {
+						queue.put(result);
+					}
+				}
+			}
+		} catch (InterruptedException ex) {
+			// stop() was called
+		} catch (Exception ex) {
+			// the parallel sections of the solver rethrow an interrupt as
+			// RuntimeException: that's not an error, if stop() was called
+			if (!stopped && !Thread.currentThread().isInterrupted()) {
+				Logger.getLogger(getClass().getName()).log(Level.SEVERE, "Error generating puzzle", ex);
+			}
+		} finally {
+			solver.setConfig(null);
+			SudokuSolverFactory.giveBack(solver);
+			SudokuGeneratorFactory.giveBack(generator);
+		}
+	}
+
+	/**
+	 * Gets the next result, waits if necessary.
+	 *
+	 * @return
+	 * @throws InterruptedException
+	 */
+	public String take() throws InterruptedException {
+		return queue.take();
+	}
+
+	/**
+	 * Gets the next result, waits at most <code>timeout</code> milliseconds.
+	 *
+	 * @param timeout
+	 * @return The result or <code>null</code>, if none was available in time
+	 * @throws InterruptedException
+	 */
+	public String poll(long timeout) throws InterruptedException {
+		return queue.poll(timeout, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Stops all producer threads and waits for them to finish their current
+	 * puzzle. Results that are still queued are discarded.
+	 */
+	public void stop() {
+		stopped = true;
+		for (Thread thread : threads) {
+			thread.interrupt();
+		}
+		queue.clear();
+		for (Thread thread : threads) {
+			try {
+				thread.join();
+			} catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+				break;
+			}
+		}
+	}
+
+	/**
+	 * Checks, if at least one producer thread is still running (a producer stops,
+	 * if its worker throws an exception).
+	 *
+	 * @return
+	 */
+	public boolean isRunning() {
+		for (Thread thread : threads) {
+			if (thread.isAlive()) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Number of puzzles generated so far.
+	 *
+	 * @return
+	 */
+	public int getAnz() {
+		return anz.get();
+	}
+}
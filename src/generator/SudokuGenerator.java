@@ -53,8 +53,11 @@ public class SudokuGenerator {
 	 */
 	private class RecursionStackEntry {
 
-		/** The current state of the sudoku */
-		Sudoku2 sudoku = new Sudoku2();
+		/**
+		 * The mark in the journal of {@link SudokuGenerator#solverSudoku} before
+		 * the cell is set
+		 */
+		int mark;
 		/** The index of the cell thats being tried */
 		int index;
 		/** The candidates for cells {@link #index}. */
@@ -69,6 +72,11 @@ public class SudokuGenerator {
 	private int solutionCount = 0;
 	/** The recursion stack */
 	private RecursionStackEntry[] stack = new RecursionStackEntry[82];
+	/**
+	 * The sudoku of the backtracking solver; going back to a level is done by
+	 * rolling back its journal.
+	 */
+	private Sudoku2 solverSudoku = new Sudoku2();
 	/** The order in which cells are set when generating a full grid. */
 	private int[] generateIndices = new int[81];
 	/** The cells of a newly generated sudoku (full board) */
@@ -77,6 +85,14 @@ public class SudokuGenerator {
 	private int[] newValidSudoku = new int[81];
 	/** A random generator for creating new puzzles. */
 	private Random rand = new Random();
+	/** The engine used for counting the solutions of a sudoku. */
+	private GeneratorEngine engine = GeneratorEngine.BACKTRACKING;
+	/** The solver for {@link GeneratorEngine#BITBOARD}. */
+	private BitboardSolver bitboardSolver = new BitboardSolver();
+	/** The cell values for {@link #bitboardSolver}. */
+	private int[] bitboardValues = new int[Sudoku2.LENGTH];
+	/** The candidates for {@link #bitboardSolver}. */
+	private short[] bitboardCandidates = new short[Sudoku2.LENGTH];
 
 	private int anzTries = 0;
 	private int anzNS = 0;
@@ -152,8 +168,17 @@ public class SudokuGenerator {
 	 */
 	public void solve(Sudoku2 sudoku, int maxSolutionCount) {
 		
+		if (engine == GeneratorEngine.BITBOARD) {
+			for (int i = 0; i < Sudoku2.LENGTH; i++) {
+				bitboardCandidates[i] = sudoku.getCell(i);
+			}
+			solutionCount = bitboardSolver.solve(sudoku.getValues(), bitboardCandidates, maxSolutionCount, solution);
+			return;
+		}
+
 		// start with the current state of the sudoku
-		stack[0].sudoku.set(sudoku);
+		solverSudoku.clearJournal();
+		solverSudoku.set(sudoku);
 		stack[0].index = 0;
 		stack[0].candidates = null;
 		stack[0].candIndex = 0;
@@ -169,8 +194,21 @@ public class SudokuGenerator {
 	 */
 	public void solve(String sudokuString, int maxSolutionCount) {
 		
+		if (engine == GeneratorEngine.BITBOARD) {
+			Arrays.fill(bitboardValues, 0);
+			for (int i = 0; i < sudokuString.length() && i < Sudoku2.LENGTH; i++) {
+				int value = sudokuString.charAt(i) - '0';
+				if (value >= 1 && value <= 9) {
+					bitboardValues[i] = value;
+				}
+			}
+			solutionCount = bitboardSolver.solve(bitboardValues, null, maxSolutionCount, solution);
+			return;
+		}
+
 		// start with an empty sudoku
-		stack[0].sudoku.set(EMPTY_GRID);
+		solverSudoku.clearJournal();
+		solverSudoku.set(EMPTY_GRID);
 		stack[0].candidates = null;
 		stack[0].candIndex = 0;
 		
@@ -178,8 +216,8 @@ public class SudokuGenerator {
 		for (int i = 0; i < sudokuString.length() && i < Sudoku2.LENGTH; i++) {
 			int value = sudokuString.charAt(i) - '0';
 			if (value >= 1 && value <= 9) {
-				stack[0].sudoku.setCell(i, value, false, false);
-				setAllExposedSingles(stack[0].sudoku);
+				solverSudoku.setCell(i, value, false, false);
+				setAllExposedSingles(solverSudoku);
 			}
 		}
 		
@@ -195,8 +233,14 @@ public class SudokuGenerator {
 	public void solve(int[] cellValues, int maxSolutionCount) {
 //        System.out.println("start solving " + getSolutionAsString(cellValues));
 //        actSetNanos = System.nanoTime();
+		if (engine == GeneratorEngine.BITBOARD) {
+			solutionCount = bitboardSolver.solve(cellValues, null, maxSolutionCount, solution);
+			return;
+		}
+
 		// start with an empty sudoku
-		stack[0].sudoku.set(EMPTY_GRID);
+		solverSudoku.clearJournal();
+		solverSudoku.set(EMPTY_GRID);
 		stack[0].candidates = null;
 		stack[0].candIndex = 0;
 
@@ -204,8 +248,8 @@ public class SudokuGenerator {
 //        for (int i = 0; i < cellValues.length; i++) {
 //            int value = cellValues[i];
 //            if (value >= 1 && value <= 9) {
-//                stack[0].sudoku.setCell(i, value, false, false);
-//                setAllExposedSingles(stack[0].sudoku);
+//                solverSudoku.setCell(i, value, false, false);
+//                setAllExposedSingles(solverSudoku);
 //            }
 //        }
 		// set up the sudoku
@@ -213,11 +257,11 @@ public class SudokuGenerator {
 		for (int i = 0; i < cellValues.length; i++) {
 			int value = cellValues[i];
 			if (value >= 1 && value <= 9) {
-				stack[0].sudoku.setCellBS(i, value);
+				solverSudoku.setCellBS(i, value);
 			}
 		}
-		stack[0].sudoku.rebuildInternalData();
-		setAllExposedSingles(stack[0].sudoku);
+		solverSudoku.rebuildInternalData();
+		setAllExposedSingles(solverSudoku);
 //        System.out.println("and solve...");
 
 		// solve it
@@ -241,7 +285,7 @@ public class SudokuGenerator {
 		}
 		
 		// puzzle was invalid all along
-		if (!setAllExposedSingles(stack[0].sudoku)) {
+		if (!setAllExposedSingles(solverSudoku)) {
 			
 			if (DEBUG) {
 				System.out.println("  puzzle was invalid!");
@@ -251,9 +295,9 @@ public class SudokuGenerator {
 		}
 
 		// already solved, nothing to do
-		if (stack[0].sudoku.getUnsolvedCellsAnz() == 0) {
+		if (solverSudoku.getUnsolvedCellsAnz() == 0) {
 			
-			solution = Arrays.copyOf(stack[0].sudoku.getValues(), Sudoku2.LENGTH);
+			solution = Arrays.copyOf(solverSudoku.getValues(), Sudoku2.LENGTH);
 			solutionCount++;
 			
 			if (DEBUG) {
@@ -275,7 +319,7 @@ public class SudokuGenerator {
 			//System.out.println("Infinite While Loop");
 			
 			// get the next unsolved cells with the fewest number of candidates
-			if (stack[level].sudoku.getUnsolvedCellsAnz() == 0) {
+			if (solverSudoku.getUnsolvedCellsAnz() == 0) {
 				
 				// sudoku is solved
 				solutionCount++;
@@ -283,7 +327,7 @@ public class SudokuGenerator {
 				// count the solutions
 				if (solutionCount == 1) {
 					// first solution is recorded
-					solution = Arrays.copyOf(stack[level].sudoku.getValues(), Sudoku2.LENGTH);
+					solution = Arrays.copyOf(solverSudoku.getValues(), Sudoku2.LENGTH);
 				} else if (solutionCount > maxSolutionCount) {
 					
 					if (DEBUG) {
@@ -297,7 +341,7 @@ public class SudokuGenerator {
 				
 				int index = -1;
 				int anzCand = 9;
-				Sudoku2 sudoku = stack[level].sudoku;
+				Sudoku2 sudoku = solverSudoku;
 				
 				for (int i = 0; i < Sudoku2.LENGTH; i++) {
 
@@ -316,8 +360,9 @@ public class SudokuGenerator {
 				}
 				
 				stack[level].index = (short) index;
-				stack[level].candidates = Sudoku2.POSSIBLE_VALUES[stack[level - 1].sudoku.getCell(index)];
+				stack[level].candidates = Sudoku2.POSSIBLE_VALUES[solverSudoku.getCell(index)];
 				stack[level].candIndex = 0;
+				stack[level].mark = solverSudoku.mark();
 			}
 
 			// go to the next level
@@ -346,17 +391,17 @@ public class SudokuGenerator {
 				// try the next candidate
 				int nextCand = stack[level].candidates[stack[level].candIndex++];
 				
-				// start with a fresh sudoku
+				// start with the sudoku of the previous level
 				anzTries++;
-				stack[level].sudoku.setBS(stack[level - 1].sudoku);
+				solverSudoku.rollBack(stack[level].mark);
 				
 				// invalid -> try next candidate
-				if (!stack[level].sudoku.setCell(stack[level].index, nextCand, false, false)) {
+				if (!solverSudoku.setCell(stack[level].index, nextCand, false, false)) {
 					continue;
 				}				
 				
 				// valid move, break from the inner loop to advance to the next level
-				if (setAllExposedSingles(stack[level].sudoku)) {
+				if (setAllExposedSingles(solverSudoku)) {
 					break;
 				}
 				
@@ -482,18 +527,19 @@ public class SudokuGenerator {
 			generateIndices[index2] = dummy;
 		}
 		// first set a new empty Sudoku
-		stack[0].sudoku.set(EMPTY_GRID);
+		solverSudoku.clearJournal();
+		solverSudoku.set(EMPTY_GRID);
 		int level = 0;
 		stack[0].index = -1;
 		while (true) {
 			// get the next unsolved cell according to generateIndices
-			if (stack[level].sudoku.getUnsolvedCellsAnz() == 0) {
+			if (solverSudoku.getUnsolvedCellsAnz() == 0) {
 				// generation is complete
-				System.arraycopy(stack[level].sudoku.getValues(), 0, newFullSudoku, 0, newFullSudoku.length);
+				System.arraycopy(solverSudoku.getValues(), 0, newFullSudoku, 0, newFullSudoku.length);
 				return true;
 			} else {
 				int index = -1;
-				int[] actValues = stack[level].sudoku.getValues();
+				int[] actValues = solverSudoku.getValues();
 				for (int i = 0; i < Sudoku2.LENGTH; i++) {
 					int actTry = generateIndices[i];
 					if (actValues[actTry] == 0) {
@@ -503,8 +549,9 @@ public class SudokuGenerator {
 				}
 				level++;
 				stack[level].index = (short) index;
-				stack[level].candidates = Sudoku2.POSSIBLE_VALUES[stack[level - 1].sudoku.getCell(index)];
+				stack[level].candidates = Sudoku2.POSSIBLE_VALUES[solverSudoku.getCell(index)];
 				stack[level].candIndex = 0;
+				stack[level].mark = solverSudoku.mark();
 			}
 
 			// not too many tries...
@@ -533,14 +580,14 @@ public class SudokuGenerator {
 				}
 				// try the next candidate
 				int nextCand = stack[level].candidates[stack[level].candIndex++];
-				// start with a fresh sudoku
+				// start with the sudoku of the previous level
 				anzTries++;
-				stack[level].sudoku.setBS(stack[level - 1].sudoku);
-				if (!stack[level].sudoku.setCell(stack[level].index, nextCand, false, false)) {
+				solverSudoku.rollBack(stack[level].mark);
+				if (!solverSudoku.setCell(stack[level].index, nextCand, false, false)) {
 					// invalid -> try next candidate
 					continue;
 				}
-				if (setAllExposedSingles(stack[level].sudoku)) {
+				if (setAllExposedSingles(solverSudoku)) {
 					// valid move, break from the inner loop to advance to the next level
 					break;
 				}
@@ -696,6 +743,36 @@ public class SudokuGenerator {
 		return valid;
 	}
 
+	/**
+	 * The engine used for counting the solutions of a sudoku (the generation of
+	 * full grids always uses the backtracking solver).
+	 * 
+	 * @return
+	 */
+	public GeneratorEngine getEngine() {
+		return engine;
+	}
+
+	/**
+	 * Selects the engine for counting the solutions.
+	 * 
+	 * @param engine
+	 */
+	public void setEngine(GeneratorEngine engine) {
+		this.engine = engine;
+	}
+
+	/**
+	 * Sets the seed of the random generator used for creating full grids and
+	 * initial positions: with the same seed the same sequence of sudokus is
+	 * created (used by the benchmarks).
+	 *
+	 * @param seed
+	 */
+	public void setSeed(long seed) {
+		rand.setSeed(seed);
+	}
+
 	public int getSolutionCount() {
 		return solutionCount;
 	}
@@ -28,7 +28,10 @@ import java.util.List;
  * GUI. This instance is called the <b>defaultGenerator</b>. For use in
  * background threads an arbitrary number of additional generator instances can
  * be gotten from this factory.<br>
- * Generators have to be released after they are used.
+ * Generators have to be released after they are used.<br>
+ * <br>
+ * The {@link GeneratorEngine} used for counting solutions is set for all
+ * generators handed out by the factory ({@link #setEngine(GeneratorEngine)}).
  * 
  * @author hobiwan
  */
@@ -61,6 +64,11 @@ public class SudokuGeneratorFactory {
 	});
 	/** The default cleanup time for SudokuGenerator instances. */
 	private static final long GENERATOR_TIMEOUT = 5 * 60 * 1000;
+	/**
+	 * The engine for all generators. {@link GeneratorEngine#BITBOARD} has to be
+	 * selected explicitly.
+	 */
+	private static volatile GeneratorEngine engine = GeneratorEngine.BACKTRACKING;
 
 	/**
 	 * One entry in {@link #instances}.
@@ -122,10 +130,34 @@ public class SudokuGeneratorFactory {
 				ret = new SudokuGenerator();
 				instances.add(new generatorInstance(ret));
 			}
+			ret.setEngine(engine);
 		}
 		return ret;
 	}
 
+	/**
+	 * Get the engine used for counting solutions.
+	 * 
+	 * @return
+	 */
+	public static GeneratorEngine getEngine() {
+		return engine;
+	}
+
+	/**
+	 * Selects the engine used for counting solutions. The engine of the
+	 * {@link #defaultGenerator} is changed immediately, all other generators get
+	 * it when they are handed out the next time.
+	 * 
+	 * @param newEngine
+	 */
+	public static void setEngine(GeneratorEngine newEngine) {
+		synchronized (thread) {
+			engine = newEngine;
+			defaultGenerator.setEngine(newEngine);
+		}
+	}
+
 	/**
 	 * Gives a generator back to the factory.
 	 * 
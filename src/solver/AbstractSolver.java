@@ -89,4 +89,24 @@ public abstract class AbstractSolver {
 	protected void cleanUp() {
 		// do nothing
 	}
+
+	/**
+	 * The configuration for the current search. Solvers must not access
+	 * {@link sudoku.Options} directly.
+	 *
+	 * @return
+	 */
+	protected SolverConfig getConfig() {
+		return finder.getConfig();
+	}
+
+	/**
+	 * Long searches have to check this method in their loops and stop, if the
+	 * deadline of the finder has expired (see {@link SolverDeadline}).
+	 *
+	 * @return
+	 */
+	protected boolean isDeadlineExpired() {
+		return finder.isDeadlineExpired();
+	}
 }
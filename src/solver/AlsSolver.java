@@ -23,11 +23,8 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
-import java.util.SortedMap;
-import java.util.TreeMap;
 import sudoku.Candidate;
 import sudoku.Chain;
-import sudoku.Options;
 import sudoku.SolutionStep;
 import sudoku.SolutionType;
 import sudoku.Sudoku2;
@@ -47,20 +44,15 @@ public class AlsSolver extends AbstractSolver {
 	private static final int MAX_RC = 50;
 	/** A list holding all ALS present in the curent state of the gid. */
 	private List<Als> alses = new ArrayList<Als>(500);
-	/** A list with all restricted commons in the present grid. */
-	private List<RestrictedCommon> restrictedCommons = new ArrayList<RestrictedCommon>(2000);
 	/**
-	 * The indices of the first RC in {@link #restrictedCommons} for every ALS in
-	 * {@link #alses}.
+	 * All restricted commons in the present grid (including the indices of the
+	 * first and last RC for every ALS in {@link #alses}).
 	 */
-	private int[] startIndices = null;
-	/**
-	 * The indices of the last RC in {@link #restrictedCommons} for every ALS in
-	 * {@link #alses}.
-	 */
-	private int[] endIndices = null;
+	private RestrictedCommonTable restrictedCommons = null;
 	/** all chains that have been found so far: eliminations and number of links */
-	private SortedMap<String, Integer> deletesMap = new TreeMap<String, Integer>();
+	private EliminationMap deletesMap = new EliminationMap();
+	/** Key for {@link #deletesMap} (reused). */
+	private long[] deletesKey = EliminationMap.createKey();
 	/** A special comparator used to find the "best" step out of a list of steps. */
 	private static AlsComparator alsComparator = null;
 	/** A list with all steps found during the last run. */
@@ -68,17 +60,18 @@ public class AlsSolver extends AbstractSolver {
 	/** One step instance for optimization. */
 	private SolutionStep globalStep = new SolutionStep(SolutionType.HIDDEN_SINGLE);
 	/**
-	 * The current ALS Chain: The chain consists only of its RCs. A chain cannot be
-	 * longer than <code>chain.length</code>.
+	 * The current ALS Chain: The chain consists only of its RCs (indices into
+	 * {@link #restrictedCommons}). A chain cannot be longer than
+	 * <code>chain.length</code>.
 	 */
-	private RestrictedCommon[] chain = new RestrictedCommon[MAX_RC];
-	/** The index into {@link #chain} for the current search. */
-	private int chainIndex = -1;
+	private int[] chain = new int[MAX_RC];
 	/**
-	 * The first RC in the current chain (always is {@link #chain}[0]; needed for
-	 * test for eliminations, cached for performance reasons).
+	 * The actual RCs of the links in {@link #chain} (see
+	 * {@link RestrictedCommon#getActualRC()}).
 	 */
-	private RestrictedCommon firstRC = null;
+	private int[] chainActualRC = new int[MAX_RC];
+	/** The index into {@link #chain} for the current search. */
+	private int chainIndex = -1;
 	/**
 	 * Chain search: for every ALS already contained in the chain the respective
 	 * index is true.
@@ -162,7 +155,8 @@ public class AlsSolver extends AbstractSolver {
 			break;
 		case ALS_XY_CHAIN:
 			if (chain.length != MAX_RC) {
-				chain = new RestrictedCommon[MAX_RC];
+				chain = new int[MAX_RC];
+				chainActualRC = new int[MAX_RC];
 			}
 			result = getAlsXYChain();
 			break;
@@ -207,16 +201,17 @@ public class AlsSolver extends AbstractSolver {
 		sudoku = finder.getSudoku();
 		List<SolutionStep> oldSteps = steps;
 		List<SolutionStep> resultSteps = new ArrayList<SolutionStep>();
-		finder.setRcOnlyForward(Options.getInstance().isAllStepsAlsChainForwardOnly());
+		finder.setRcOnlyForward(getConfig().isAllStepsAlsChainForwardOnly());
 		if (chain.length == MAX_RC) {
-			chain = new RestrictedCommon[Options.getInstance().getAllStepsAlsChainLength()];
+			chain = new int[getConfig().getAllStepsAlsChainLength()];
+			chainActualRC = new int[getConfig().getAllStepsAlsChainLength()];
 		}
 		long millis1 = 0;
 		if (TIMING) {
 			millis1 = System.nanoTime();
 		}
 		collectAllAlses();
-		collectAllRestrictedCommons(Options.getInstance().isAllowAlsOverlap());
+		collectAllRestrictedCommons(getConfig().isAllowAlsOverlap());
 		if (doXz) {
 			steps.clear();
 			getAlsXZInt(false);
@@ -297,7 +292,7 @@ public class AlsSolver extends AbstractSolver {
 	private SolutionStep getAlsXYChain() {
 		steps.clear();
 		collectAllAlses();
-		collectAllRestrictedCommons(Options.getInstance().isAllowAlsOverlap());
+		collectAllRestrictedCommons(getConfig().isAllowAlsOverlap());
 		getAlsXYChainInt();
 		if (steps.size() > 0) {
 			Collections.sort(steps, alsComparator);
@@ -317,7 +312,7 @@ public class AlsSolver extends AbstractSolver {
 	private SolutionStep getAlsXYWing(boolean onlyOne) {
 		steps.clear();
 		collectAllAlses();
-		collectAllRestrictedCommons(Options.getInstance().isAllowAlsOverlap());
+		collectAllRestrictedCommons(getConfig().isAllowAlsOverlap());
 		SolutionStep step = getAlsXYWingInt(onlyOne);
 		if (!onlyOne && steps.size() > 0) {
 			Collections.sort(steps, alsComparator);
@@ -341,7 +336,7 @@ public class AlsSolver extends AbstractSolver {
 		anzCalls++;
 		steps.clear();
 		collectAllAlses();
-		collectAllRestrictedCommons(Options.getInstance().isAllowAlsOverlap());
+		collectAllRestrictedCommons(getConfig().isAllowAlsOverlap());
 		SolutionStep step = getAlsXZInt(onlyOne);
 		if (!onlyOne && steps.size() > 0) {
 			Collections.sort(steps, alsComparator);
@@ -369,20 +364,25 @@ public class AlsSolver extends AbstractSolver {
 	 */
 	private SolutionStep getAlsXZInt(boolean onlyOne) {
 		globalStep.reset();
-		for (int i = 0; i < restrictedCommons.size(); i++) {
-			RestrictedCommon rc = restrictedCommons.get(i);
+		RestrictedCommonTable rcs = restrictedCommons;
+		for (int i = 0; i < rcs.size(); i++) {
 			// only forward check necessary
-			if (rc.getAls1() > rc.getAls2()) {
+			if (rcs.getAls1(i) > rcs.getAls2(i)) {
 				continue;
 			}
-			Als als1 = alses.get(rc.getAls1());
-			Als als2 = alses.get(rc.getAls2());
-			checkCandidatesToDelete(als1, als2, rc.getCand1());
-			if (rc.getCand2() != 0) {
+			if ((i & 0xff) == 0 && isDeadlineExpired()) {
+				break;
+			}
+			Als als1 = alses.get(rcs.getAls1(i));
+			Als als2 = alses.get(rcs.getAls2(i));
+			int rcCand1 = rcs.getCand1(i);
+			int rcCand2 = rcs.getCand2(i);
+			checkCandidatesToDelete(als1, als2, rcCand1);
+			if (rcCand2 != 0) {
 				// als1 and als2 are doubly linked -> check for additional eliminations
-				checkCandidatesToDelete(als1, als2, rc.getCand2());
-				boolean d1 = checkDoublyLinkedAls(als1, als2, rc.getCand1(), rc.getCand2());
-				boolean d2 = checkDoublyLinkedAls(als2, als1, rc.getCand1(), rc.getCand2());
+				checkCandidatesToDelete(als1, als2, rcCand2);
+				boolean d1 = checkDoublyLinkedAls(als1, als2, rcCand1, rcCand2);
+				boolean d2 = checkDoublyLinkedAls(als2, als1, rcCand1, rcCand2);
 				if (d1 || d2) {
 					// no common candidates for doublylinked als-xz
 					globalStep.getFins().clear();
@@ -393,9 +393,9 @@ public class AlsSolver extends AbstractSolver {
 				globalStep.setType(SolutionType.ALS_XZ);
 				globalStep.addAls(als1.indices, als1.candidates);
 				globalStep.addAls(als2.indices, als2.candidates);
-				addRestrictedCommonToStep(als1, als2, rc.getCand1(), false);
-				if (rc.getCand2() != 0) {
-					addRestrictedCommonToStep(als1, als2, rc.getCand2(), false);
+				addRestrictedCommonToStep(als1, als2, rcCand1, false);
+				if (rcCand2 != 0) {
+					addRestrictedCommonToStep(als1, als2, rcCand2, false);
 				}
 				SolutionStep step = (SolutionStep) globalStep.clone();
 				if (onlyOne) {
@@ -426,23 +426,33 @@ public class AlsSolver extends AbstractSolver {
 	 */
 	private SolutionStep getAlsXYWingInt(boolean onlyOne) {
 		globalStep.reset();
-		for (int i = 0; i < restrictedCommons.size(); i++) {
-			RestrictedCommon rc1 = restrictedCommons.get(i);
-			for (int j = i + 1; j < restrictedCommons.size(); j++) {
-				RestrictedCommon rc2 = restrictedCommons.get(j);
+		RestrictedCommonTable rcs = restrictedCommons;
+		for (int i = 0; i < rcs.size(); i++) {
+			if (isDeadlineExpired()) {
+				break;
+			}
+			int rc1Als1 = rcs.getAls1(i);
+			int rc1Als2 = rcs.getAls2(i);
+			int rc1Cand1 = rcs.getCand1(i);
+			int rc1Cand2 = rcs.getCand2(i);
+			for (int j = i + 1; j < rcs.size(); j++) {
+				int rc2Als1 = rcs.getAls1(j);
+				int rc2Als2 = rcs.getAls2(j);
+				int rc2Cand1 = rcs.getCand1(j);
+				int rc2Cand2 = rcs.getCand2(j);
 				// at least two different candidates in rc1 and rc2!
 				// must always be true, if the two rcs have a different
 				// number of digits;
-				if (rc1.getCand2() == 0 && rc2.getCand2() == 0 && rc1.getCand1() == rc2.getCand1()) {
+				if (rc1Cand2 == 0 && rc2Cand2 == 0 && rc1Cand1 == rc2Cand1) {
 					// both RCs have only one digit and the digits dont differ
 					continue;
 				}
 				// the two RCs have to connect 3 different ALS; since
 				// rc1.als1 != rc1.als2 && rc2.als1 != rc2.als2 not many possibilites are left
-				if (!((rc1.getAls1() == rc2.getAls1() && rc1.getAls2() != rc2.getAls2())
-						|| (rc1.getAls2() == rc2.getAls1() && rc1.getAls1() != rc2.getAls2())
-						|| (rc1.getAls1() == rc2.getAls2() && rc1.getAls2() != rc2.getAls1())
-						|| (rc1.getAls2() == rc2.getAls2() && rc1.getAls1() != rc2.getAls1()))) {
+				if (!((rc1Als1 == rc2Als1 && rc1Als2 != rc2Als2)
+						|| (rc1Als2 == rc2Als1 && rc1Als1 != rc2Als2)
+						|| (rc1Als1 == rc2Als2 && rc1Als2 != rc2Als1)
+						|| (rc1Als2 == rc2Als2 && rc1Als1 != rc2Als1))) {
 					// cant be an XY-Wing
 					continue;
 				}
@@ -450,27 +460,27 @@ public class AlsSolver extends AbstractSolver {
 				Als a = null;
 				Als b = null;
 				Als c = null;
-				if (rc1.getAls1() == rc2.getAls1()) {
-					c = alses.get(rc1.getAls1());
-					a = alses.get(rc1.getAls2());
-					b = alses.get(rc2.getAls2());
+				if (rc1Als1 == rc2Als1) {
+					c = alses.get(rc1Als1);
+					a = alses.get(rc1Als2);
+					b = alses.get(rc2Als2);
 				}
-				if (rc1.getAls1() == rc2.getAls2()) {
-					c = alses.get(rc1.getAls1());
-					a = alses.get(rc1.getAls2());
-					b = alses.get(rc2.getAls1());
+				if (rc1Als1 == rc2Als2) {
+					c = alses.get(rc1Als1);
+					a = alses.get(rc1Als2);
+					b = alses.get(rc2Als1);
 				}
-				if (rc1.getAls2() == rc2.getAls1()) {
-					c = alses.get(rc1.getAls2());
-					a = alses.get(rc1.getAls1());
-					b = alses.get(rc2.getAls2());
+				if (rc1Als2 == rc2Als1) {
+					c = alses.get(rc1Als2);
+					a = alses.get(rc1Als1);
+					b = alses.get(rc2Als2);
 				}
-				if (rc1.getAls2() == rc2.getAls2()) {
-					c = alses.get(rc1.getAls2());
-					a = alses.get(rc1.getAls1());
-					b = alses.get(rc2.getAls1());
+				if (rc1Als2 == rc2Als2) {
+					c = alses.get(rc1Als2);
+					a = alses.get(rc1Als1);
+					b = alses.get(rc2Als1);
 				}
-				if (!Options.getInstance().isAllowAlsOverlap()) {
+				if (!getConfig().isAllowAlsOverlap()) {
 					// Check overlaps: the RCs have already been checked, a and b are missing:
 					tmpSet.set(a.indices);
 					if (!tmpSet.andEmpty(b.indices)) {
@@ -485,20 +495,20 @@ public class AlsSolver extends AbstractSolver {
 					continue;
 				}
 				// now check candidates of A and B
-				checkCandidatesToDelete(a, b, rc1.getCand1(), rc1.getCand2(), rc2.getCand1(), rc2.getCand2());
+				checkCandidatesToDelete(a, b, rc1Cand1, rc1Cand2, rc2Cand1, rc2Cand2);
 				if (globalStep.getCandidatesToDelete().size() > 0) {
 					// Step zusammenbauen
 					globalStep.setType(SolutionType.ALS_XY_WING);
 					globalStep.addAls(a.indices, a.candidates);
 					globalStep.addAls(b.indices, b.candidates);
 					globalStep.addAls(c.indices, c.candidates);
-					addRestrictedCommonToStep(a, c, rc1.getCand1(), false);
-					if (rc1.getCand2() != 0) {
-						addRestrictedCommonToStep(a, c, rc1.getCand2(), false);
+					addRestrictedCommonToStep(a, c, rc1Cand1, false);
+					if (rc1Cand2 != 0) {
+						addRestrictedCommonToStep(a, c, rc1Cand2, false);
 					}
-					addRestrictedCommonToStep(b, c, rc2.getCand1(), false);
-					if (rc2.getCand2() != 0) {
-						addRestrictedCommonToStep(b, c, rc2.getCand2(), false);
+					addRestrictedCommonToStep(b, c, rc2Cand1, false);
+					if (rc2Cand2 != 0) {
+						addRestrictedCommonToStep(b, c, rc2Cand2, false);
 					}
 					SolutionStep step = (SolutionStep) globalStep.clone();
 					if (onlyOne) {
@@ -554,6 +564,9 @@ public class AlsSolver extends AbstractSolver {
 //            if (i != 8) {
 //                continue;
 //            }
+			if (isDeadlineExpired()) {
+				break;
+			}
 			startAls = alses.get(i);
 			chainIndex = 0;
 			if (alsInChain == null || alsInChain.length < alses.size()) {
@@ -562,11 +575,10 @@ public class AlsSolver extends AbstractSolver {
 				Arrays.fill(alsInChain, false);
 			}
 			alsInChain[i] = true;
-			firstRC = null;
 			if (DEBUG) {
 				System.out.println("============== Start search: " + i + " " + startAls);
 			}
-			getAlsXYChainRecursive(i, null);
+			getAlsXYChainRecursive(i, -1);
 			if (DEBUG) {
 				System.out.println("               End search: " + alses.get(i));
 			}
@@ -587,9 +599,10 @@ public class AlsSolver extends AbstractSolver {
 	 * independently.
 	 * 
 	 * @param alsIndex index of the last added ALS
-	 * @param lastRC   RC of the last step (needed for adjacency check)
+	 * @param lastRC   RC of the last step (needed for adjacency check), -1 for the
+	 *                 start of the chain
 	 */
-	private void getAlsXYChainRecursive(int alsIndex, RestrictedCommon lastRC) {
+	private void getAlsXYChainRecursive(int alsIndex, int lastRC) {
 		// check for end of recursion
 		// wrong condition: the chain ends, when it becomes too long!
 //        if (alsIndex >= alses.size()) {
@@ -600,6 +613,10 @@ public class AlsSolver extends AbstractSolver {
 			// no space left -> stop it!
 			return;
 		}
+		if (isDeadlineExpired()) {
+			// out of time
+			return;
+		}
 		recDepth++;
 		if (recDepth > maxRecDepth) {
 			maxRecDepth = recDepth;
@@ -611,24 +628,34 @@ public class AlsSolver extends AbstractSolver {
 		}
 		// check all RCs; if none exist the loop is never entered
 		boolean firstTry = true;
-		for (int i = startIndices[alsIndex]; i < endIndices[alsIndex]; i++) {
-			RestrictedCommon rc = restrictedCommons.get(i);
-			if (chainIndex >= chain.length || !rc.checkRC(lastRC, firstTry)) {
-				// chain is full or RC doesnt adhere to the adjacency rules
+		RestrictedCommonTable rcs = restrictedCommons;
+		for (int i = rcs.getStartIndex(alsIndex); i < rcs.getEndIndex(alsIndex); i++) {
+			if (chainIndex >= chain.length) {
+				// chain is full
+				continue;
+			}
+			int actualRC = 0;
+			if (lastRC == -1) {
+				actualRC = RestrictedCommon.getActualRC(rcs.getCand1(i), rcs.getCand2(i), firstTry);
+			} else {
+				actualRC = RestrictedCommon.getActualRC(rcs.getCand1(lastRC), rcs.getCand2(lastRC),
+						chainActualRC[chainIndex - 1], rcs.getCand1(i), rcs.getCand2(i));
+			}
+			if (actualRC == 0) {
+				// RC doesnt adhere to the adjacency rules
 				continue;
 			}
-			if (alsInChain[rc.getAls2()]) {
+			int als2 = rcs.getAls2(i);
+			if (alsInChain[als2]) {
 				// ALS already part of the chain -> whips are not handled!
 				continue;
 			}
-			Als aktAls = alses.get(rc.getAls2());
+			Als aktAls = alses.get(als2);
 
 			// ok, ALS can be added
-			if (chainIndex == 0) {
-				firstRC = rc;
-			}
-			chain[chainIndex++] = rc;
-			alsInChain[rc.getAls2()] = true;
+			chainActualRC[chainIndex] = actualRC;
+			chain[chainIndex++] = i;
+			alsInChain[als2] = true;
 			if (DEBUG) {
 //                showActAlsChain(recDepth);
 			}
@@ -637,20 +664,20 @@ public class AlsSolver extends AbstractSolver {
 			if (chainIndex >= 3) {
 				globalStep.getCandidatesToDelete().clear();
 				int c1 = 0, c2 = 0, c3 = 0, c4 = 0;
-				c1 = firstRC.getCand1();
-				c2 = firstRC.getCand2();
-				if (firstRC.getActualRC() == 1) {
+				c1 = rcs.getCand1(chain[0]);
+				c2 = rcs.getCand2(chain[0]);
+				if (chainActualRC[0] == 1) {
 					c2 = 0;
-				} else if (firstRC.getActualRC() == 2) {
+				} else if (chainActualRC[0] == 2) {
 					c1 = 0;
 				}
-				if (rc.getActualRC() == 1) {
-					c3 = rc.getCand1();
-				} else if (rc.getActualRC() == 2) {
-					c3 = rc.getCand2();
-				} else if (rc.getActualRC() == 3) {
-					c3 = rc.getCand1();
-					c4 = rc.getCand2();
+				if (actualRC == 1) {
+					c3 = rcs.getCand1(i);
+				} else if (actualRC == 2) {
+					c3 = rcs.getCand2(i);
+				} else if (actualRC == 3) {
+					c3 = rcs.getCand1(i);
+					c4 = rcs.getCand2(i);
 				}
 				checkCandidatesToDelete(startAls, aktAls, c1, c2, c3, c4, null);
 				if (globalStep.getCandidatesToDelete().size() > 0) {
@@ -659,18 +686,18 @@ public class AlsSolver extends AbstractSolver {
 					globalStep.addAls(startAls.indices, startAls.candidates);
 					Als tmpAls = startAls;
 					for (int j = 0; j < chainIndex; j++) {
-						Als tmp = alses.get(chain[j].getAls2());
+						Als tmp = alses.get(rcs.getAls2(chain[j]));
 						globalStep.addAls(tmp.indices, tmp.candidates);
-						globalStep.addRestrictedCommon((RestrictedCommon) chain[j].clone());
+						globalStep.addRestrictedCommon(rcs.get(chain[j], chainActualRC[j]));
 
 						// write all RCs for this chain (nothing has been done yet)
 						// if (DEBUG) System.out.println("chain[" + j + "]: " + chain[j] + " (" + tmpAls
 						// + "/" + tmp + ")");
-						if (chain[j].getActualRC() == 1 || chain[j].getActualRC() == 3) {
-							addRestrictedCommonToStep(tmpAls, tmp, chain[j].getCand1(), true);
+						if (chainActualRC[j] == 1 || chainActualRC[j] == 3) {
+							addRestrictedCommonToStep(tmpAls, tmp, rcs.getCand1(chain[j]), true);
 						}
-						if (chain[j].getActualRC() == 2 || chain[j].getActualRC() == 3) {
-							addRestrictedCommonToStep(tmpAls, tmp, chain[j].getCand2(), true);
+						if (chainActualRC[j] == 2 || chainActualRC[j] == 3) {
+							addRestrictedCommonToStep(tmpAls, tmp, rcs.getCand2(chain[j]), true);
 						}
 						tmpAls = tmp;
 					}
@@ -679,11 +706,12 @@ public class AlsSolver extends AbstractSolver {
 					// if we do, the new chain is only written, if it is shorter than the old one.
 					boolean writeIt = true;
 					int replaceIndex = -1;
-					String elim = null;
-					if (Options.getInstance().isOnlyOneAlsPerStep()) {
-						elim = globalStep.getCandidateString();
-						Integer alreadyThere = deletesMap.get(elim);
-						if (alreadyThere != null) {
+					boolean elim = false;
+					if (getConfig().isOnlyOneAlsPerStep()) {
+						elim = true;
+						EliminationMap.setCandidatesKey(globalStep, deletesKey);
+						int alreadyThere = deletesMap.get(deletesKey, -1);
+						if (alreadyThere != -1) {
 							// a step already exists!
 							SolutionStep tmp = steps.get(alreadyThere);
 							if (tmp.getAlsesIndexCount() > globalStep.getAlsesIndexCount()) {
@@ -700,8 +728,8 @@ public class AlsSolver extends AbstractSolver {
 							steps.add(replaceIndex, (SolutionStep) globalStep.clone());
 						} else {
 							steps.add((SolutionStep) globalStep.clone());
-							if (elim != null) {
-								deletesMap.put(elim, steps.size() - 1);
+							if (elim) {
+								deletesMap.put(deletesKey, steps.size() - 1);
 							}
 						}
 					}
@@ -710,14 +738,14 @@ public class AlsSolver extends AbstractSolver {
 			}
 
 			// and to the next level...
-			getAlsXYChainRecursive(rc.getAls2(), rc);
+			getAlsXYChainRecursive(als2, i);
 
 			// and back one level
-			alsInChain[rc.getAls2()] = false;
+			alsInChain[als2] = false;
 			chainIndex--;
 
-			if (lastRC == null) {
-				if (rc.getCand2() != 0 && firstTry) {
+			if (lastRC == -1) {
+				if (rcs.getCand2(i) != 0 && firstTry) {
 					// first RC in chain and a second RC is present: try it!
 					firstTry = false;
 					i--;
@@ -737,23 +765,24 @@ public class AlsSolver extends AbstractSolver {
 	@SuppressWarnings("unused")
 	private void showActAlsChain(int recDepth) {
 		if (DEBUG) {
+			RestrictedCommonTable rcs = restrictedCommons;
 			globalStep.reset();
 			globalStep.setType(SolutionType.ALS_XY_CHAIN);
 			globalStep.addAls(startAls.indices, startAls.candidates);
 			Als tmpAls = startAls;
 			for (int j = 0; j < chainIndex; j++) {
-				Als tmp = alses.get(chain[j].getAls2());
+				Als tmp = alses.get(rcs.getAls2(chain[j]));
 				globalStep.addAls(tmp.indices, tmp.candidates);
-				globalStep.addRestrictedCommon((RestrictedCommon) chain[j].clone());
+				globalStep.addRestrictedCommon(rcs.get(chain[j], chainActualRC[j]));
 
 				// write all RCs for this chain (nothing has been done yet)
 				// if (DEBUG) System.out.println("chain[" + j + "]: " + chain[j] + " (" + tmpAls
 				// + "/" + tmp + ")");
-				if (chain[j].getActualRC() == 1 || chain[j].getActualRC() == 3) {
-					addRestrictedCommonToStep(tmpAls, tmp, chain[j].getCand1(), true);
+				if (chainActualRC[j] == 1 || chainActualRC[j] == 3) {
+					addRestrictedCommonToStep(tmpAls, tmp, rcs.getCand1(chain[j]), true);
 				}
-				if (chain[j].getActualRC() == 2 || chain[j].getActualRC() == 3) {
-					addRestrictedCommonToStep(tmpAls, tmp, chain[j].getCand2(), true);
+				if (chainActualRC[j] == 2 || chainActualRC[j] == 3) {
+					addRestrictedCommonToStep(tmpAls, tmp, rcs.getCand2(chain[j]), true);
 				}
 				tmpAls = tmp;
 			}
@@ -793,6 +822,9 @@ public class AlsSolver extends AbstractSolver {
 				// cells[i].getCandidateMask(candType));
 				continue;
 			}
+			if (isDeadlineExpired()) {
+				break;
+			}
 			// ok here it starts: try all combinations of ALS
 			stemCellIndex = i;
 			aktRcdb = rcdb[i];
@@ -837,7 +869,7 @@ public class AlsSolver extends AbstractSolver {
 				// if (DEBUG) System.out.println("cand = " + cand + ", i = " + i + ", ALS: " +
 				// als.toString());
 				// check for overlap
-				if (!Options.getInstance().isAllowAlsOverlap() && !als.indices.andNotEquals(aktDBIndices)) {
+				if (!getConfig().isAllowAlsOverlap() && !als.indices.andNotEquals(aktDBIndices)) {
 					// new ALS overlaps -> we dont need to look further
 					// if (DEBUG) System.out.println(" Overlap!");
 					continue;
@@ -931,11 +963,12 @@ public class AlsSolver extends AbstractSolver {
 
 						boolean writeIt = true;
 						int replaceIndex = -1;
-						String elim = null;
-						if (Options.getInstance().isOnlyOneAlsPerStep()) {
-							elim = globalStep.getCandidateString();
-							Integer alreadyThere = deletesMap.get(elim);
-							if (alreadyThere != null) {
+						boolean elim = false;
+						if (getConfig().isOnlyOneAlsPerStep()) {
+							elim = true;
+							EliminationMap.setCandidatesKey(globalStep, deletesKey);
+							int alreadyThere = deletesMap.get(deletesKey, -1);
+							if (alreadyThere != -1) {
 								// a step already exists!
 								SolutionStep tmp = steps.get(alreadyThere);
 								if (tmp.getAlsesIndexCount() > globalStep.getAlsesIndexCount()) {
@@ -956,8 +989,8 @@ public class AlsSolver extends AbstractSolver {
 									return step;
 								}
 								steps.add(step);
-								if (elim != null) {
-									deletesMap.put(elim, steps.size() - 1);
+								if (elim) {
+									deletesMap.put(deletesKey, steps.size() - 1);
 								}
 							}
 						}
@@ -1171,9 +1204,8 @@ public class AlsSolver extends AbstractSolver {
 	 * ALS with RC(s) may overlap as long as the overlapping area doesnt contain an
 	 * RC.<br>
 	 * Two ALS can have a maximum of two RCs.<br>
-	 * The index of the first RC for {@link #alses}[i] is written to
-	 * {@link #startIndices}[i], the index of the last RC is written to
-	 * {@link #endIndices}[i] (needed for chain search).
+	 * The indices of the first and the last RC for every ALS are stored in the
+	 * table as well (needed for chain search).
 	 *
 	 * @param withOverlap If <code>false</code> overlapping ALS are not allowed
 	 */
@@ -1184,8 +1216,6 @@ public class AlsSolver extends AbstractSolver {
 			ticks = System.nanoTime();
 		}
 		restrictedCommons = finder.getRestrictedCommons(alses, withOverlap);
-		startIndices = finder.getStartIndices();
-		endIndices = finder.getEndIndices();
 		if (TIMING) {
 			ticks = System.nanoTime() - ticks;
 			allRcsNanos += ticks;
@@ -19,6 +19,7 @@
 
 package solver;
 
+import generator.SudokuGenerator;
 import generator.SudokuGeneratorFactory;
 import sudoku.SolutionStep;
 import sudoku.SolutionType;
@@ -87,7 +88,10 @@ public class BruteForceSolver extends AbstractSolver {
 		// can happen, when command line mode is used (no brute force solving is done)
 		// sets the solution in the sudoku
 		if (!sudoku.isSolutionSet()) {
-			boolean isValid = SudokuGeneratorFactory.getDefaultGeneratorInstance().validSolution(sudoku);
+			// the default generator must not be used here: solvers can run in parallel
+			SudokuGenerator generator = SudokuGeneratorFactory.getInstance();
+			boolean isValid = generator.validSolution(sudoku);
+			SudokuGeneratorFactory.giveBack(generator);
 			if (!isValid) {
 				return null;
 			}
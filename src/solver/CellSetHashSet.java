@@ -0,0 +1,153 @@
+/*
+ * Copyright (C) 2021 Aarre Laakso
+ *
+ * This file is part of HoDoKu.
+ *
+ * HoDoKu is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * HoDoKu is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with HoDoKu. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package solver;
+
+import java.util.Arrays;
+import sudoku.SudokuSetBase;
+
+/**
+ * A set of cell sets (the two masks of a {@link SudokuSetBase}) without
+ * creating objects (open addressing with linear probing).<br>
+ * <br>
+ * Like in {@link IntIntHashMap} every slot carries a stamp, {@link #clear()} is
+ * O(1).
+ *
+ * @author Aarre Laakso
+ */
+final class CellSetHashSet {
+	/** Smallest capacity of the set (the load factor is at most 1/2). */
+	private static final int MIN_CAPACITY = 16;
+
+	/** The first masks (cells 0 - 63). */
+	private long[] masks1;
+	/** The second masks (cells 64 - 80), synchronized with {@link #masks1}. */
+	private long[] masks2;
+	/** The stamps, synchronized with {@link #masks1}. */
+	private int[] stamps;
+	/** The stamp of all valid slots. */
+	private int stamp = 1;
+	/** <code>masks1.length - 1</code> */
+	private int mask;
+	/** Number of valid entries. */
+	private int size = 0;
+
+	/**
+	 * Creates a set that can hold <code>expectedSize</code> entries without
+	 * rehashing.
+	 *
+	 * @param expectedSize
+	 */
+	CellSetHashSet(int expectedSize) {
+		int capacity = MIN_CAPACITY;
+		while (capacity < expectedSize * 2) {
+			capacity <<= 1;
+		}
+		allocate(capacity);
+	}
+
+	private void allocate(int capacity) {
+		masks1 = new long[capacity];
+		masks2 = new long[capacity];
+		stamps = new int[capacity];
+		mask = capacity - 1;
+		stamp = 1;
+		size = 0;
+	}
+
+	private int slot(long mask1, long mask2) {
+		long h = (mask1 * 0x9E3779B97F4A7C15L) ^ (mask2 * 0xC2B2AE3D27D4EB4FL);
+		return (int) (h ^ (h >>> 29) ^ (h >>> 47)) & mask;
+	}
+
+	/**
+	 * Removes all entries.
+	 */
+	void clear() {
+		size = 0;
+		stamp++;
+		if (stamp == 0) {
+			// overflow: old stamps could become valid again
+			Arrays.fill(stamps, 0);
+			stamp = 1;
+		}
+	}
+
+	/**
+	 * Adds a cell set.
+	 *
+	 * @param set
+	 * @return <code>true</code>, if <code>set</code> was not yet contained in the
+	 *         set
+	 */
+	boolean add(SudokuSetBase set) {
+		return add(set.getMask1(), set.getMask2());
+	}
+
+	/**
+	 * Adds the cell set given by its masks.
+	 *
+	 * @param mask1
+	 * @param mask2
+	 * @return <code>true</code>, if the cell set was not yet contained in the set
+	 */
+	boolean add(long mask1, long mask2) {
+		if ((size + 1) * 2 > masks1.length) {
+			rehash();
+		}
+		int i = slot(mask1, mask2);
+		while (stamps[i] == stamp) {
+			if (masks1[i] == mask1 && masks2[i] == mask2) {
+				return false;
+			}
+			i = (i + 1) & mask;
+		}
+		masks1[i] = mask1;
+		masks2[i] = mask2;
+		stamps[i] = stamp;
+		size++;
+		return true;
+	}
+
+	/**
+	 * The number of entries in the set.
+	 *
+	 * @return
+	 */
+	int size() {
+		return size;
+	}
+
+	/**
+	 * Doubles the capacity of the set.
+	 */
+	private void rehash() {
+		long[] oldMasks1 = masks1;
+		long[] oldMasks2 = masks2;
+		int[] oldStamps = stamps;
+		int oldStamp = stamp;
+		allocate(oldMasks1.length * 2);
+		for (int i = 0; i < oldMasks1.length; i++) {
+			if (oldStamps[i] == oldStamp) {
+				add(oldMasks1[i], oldMasks2[i]);
+			}
+		}
+	}
+}
@@ -23,13 +23,10 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
-import java.util.SortedMap;
-import java.util.TreeMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import sudoku.Candidate;
 import sudoku.Chain;
-import sudoku.Options;
 import sudoku.SolutionStep;
 import sudoku.SolutionType;
 import sudoku.Sudoku2;
@@ -136,10 +133,12 @@ public class ChainSolver extends AbstractSolver {
 	/** Additional checks for Remote Pairs */
 	private SudokuSet rpTmp = new SudokuSet();
 	/**
-	 * Contains all chains that have already be found. "String" are the
-	 * eliminations, "Integer" is the chain length
+	 * Contains all chains that have already be found. The keys are the
+	 * eliminations, the values are the chain lengths
 	 */
-	private SortedMap<String, Integer> deletesMap = new TreeMap<String, Integer>();
+	private EliminationMap deletesMap = new EliminationMap();
+	/** Key for {@link #deletesMap} (reused). */
+	private long[] deletesKey = EliminationMap.createKey();
 	/** One global step for optimization */
 	private SolutionStep globalStep = new SolutionStep(SolutionType.FULL_HOUSE);
 	/** A list for all chain steps */
@@ -370,11 +369,11 @@ public class ChainSolver extends AbstractSolver {
 
 		// calculate maximum length of chain
 		chainMaxLength = MAX_CHAIN_LENGTH - 1;
-		if (Options.getInstance().isRestrictChainSize()) {
+		if (getConfig().isRestrictChainSize()) {
 			if (type == NICE_LOOP) {
-				chainMaxLength = Options.getInstance().getRestrictNiceLoopLength();
+				chainMaxLength = getConfig().getRestrictNiceLoopLength();
 			} else {
-				chainMaxLength = Options.getInstance().getRestrictChainLength();
+				chainMaxLength = getConfig().getRestrictChainLength();
 			}
 		}
 		if (type == TURBOT_FISH) {
@@ -390,6 +389,9 @@ public class ChainSolver extends AbstractSolver {
 		}
 		// startIndex is an attribute of the class
 		for (startIndex = 0; startIndex < sudoku.getCells().length; startIndex++) {
+			if (isDeadlineExpired()) {
+				break;
+			}
 			if (sudoku.getValue(startIndex) != 0) {
 				// cell already set -> no chain possible
 				continue;
@@ -672,15 +674,15 @@ public class ChainSolver extends AbstractSolver {
 		// check if the chain has already been found
 		// dont do the check for Turbot fishes
 		if (isTurbot == false) {
-			String del = globalStep.getCandidateString();
-			Integer oldLength = deletesMap.get(del);
-			if (oldLength != null && oldLength.intValue() <= stackLevel) {
+			EliminationMap.setCandidatesKey(globalStep, deletesKey);
+			int oldLength = deletesMap.get(deletesKey, -1);
+			if (oldLength != -1 && oldLength <= stackLevel) {
 				// a chain already exists that delete the same candidate(s) and it was shorter
 				// than the new one
 
 				return;
 			}
-			deletesMap.put(del, stackLevel);
+			deletesMap.put(deletesKey, stackLevel);
 		}
 
 		// dont forget to copy the chain
@@ -714,14 +716,14 @@ public class ChainSolver extends AbstractSolver {
 		}
 
 		// check if the chain has already been found
-		String del = globalStep.getCandidateString();
-		Integer oldLength = deletesMap.get(del);
-		if (oldLength != null && oldLength.intValue() <= stackLevel) {
+		EliminationMap.setCandidatesKey(globalStep, deletesKey);
+		int oldLength = deletesMap.get(deletesKey, -1);
+		if (oldLength != -1 && oldLength <= stackLevel) {
 			// a chain for this set of eliminations already exists and is shorter than the
 			// new one
 			return;
 		}
-		deletesMap.put(del, stackLevel);
+		deletesMap.put(deletesKey, stackLevel);
 
 		// dont forget to copy the chain
 		int[] newChain = new int[stackLevel + 1];
@@ -789,14 +791,14 @@ public class ChainSolver extends AbstractSolver {
 		}
 
 		// check if the chain has already been found
-		String del = globalStep.getCandidateString();
-		Integer oldLength = deletesMap.get(del);
-		if (oldLength != null && oldLength.intValue() <= stackLevel) {
+		EliminationMap.setCandidatesKey(globalStep, deletesKey);
+		int oldLength = deletesMap.get(deletesKey, -1);
+		if (oldLength != -1 && oldLength <= stackLevel) {
 			// a chain for this set of eliminations already exists and is shorter than the
 			// new one
 			return;
 		}
-		deletesMap.put(del, stackLevel);
+		deletesMap.put(deletesKey, stackLevel);
 
 		// dont forget to copy the chain
 		int[] newChain = new int[stackLevel + 1];
@@ -930,14 +932,14 @@ public class ChainSolver extends AbstractSolver {
 		if (globalStep.getCandidatesToDelete().size() > 0) {
 			// ok, Loop ist nicht redundant -> einschreiben, wenn es die Kombination nicht
 			// schon gibt
-			String del = globalStep.getCandidateString();
-			Integer oldLength = deletesMap.get(del);
-			if (oldLength != null && oldLength.intValue() <= chainIndex) {
+			EliminationMap.setCandidatesKey(globalStep, deletesKey);
+			int oldLength = deletesMap.get(deletesKey, -1);
+			if (oldLength != -1 && oldLength <= chainIndex) {
 				// F�r diese Kandidaten gibt es schon eine Chain und sie ist k�rzer als die
 				// neue
 				return;
 			}
-			deletesMap.put(del, chainIndex);
+			deletesMap.put(deletesKey, chainIndex);
 			// Die Chain muss kopiert werden
 			int[] newChain = new int[chainIndex + 1];
 //            for (int i = 0; i < newChain.length; i++) {
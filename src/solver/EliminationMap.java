@@ -0,0 +1,287 @@
+/*
+ * Copyright (C) 2021 Aarre Laakso
+ *
+ * This file is part of HoDoKu.
+ *
+ * HoDoKu is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * HoDoKu is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with HoDoKu. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package solver;
+
+import java.util.Arrays;
+import java.util.List;
+import sudoku.Candidate;
+import sudoku.SolutionStep;
+import sudoku.Sudoku2;
+
+/**
+ * Maps the eliminations of a step to an <code>int</code> (an index into a
+ * list of steps or a chain length). Used by the solvers to find only one step
+ * per set of eliminations.<br>
+ * <br>
+ * A key is a <code>long[]</code> of {@link #KEY_LENGTH} words: one bit for
+ * every candidate (<code>(value - 1) * 81 + index</code>) and one additional
+ * word holding the type of the step and some flags. The keys are created by the
+ * <code>set...Key()</code> methods and replace the strings returned by
+ * {@link SolutionStep#getCandidateString()} and
+ * {@link SolutionStep#getSingleCandidateString()}: two steps get the same key
+ * if and only if they got the same string.<br>
+ * <br>
+ * Open addressing with linear probing; {@link #clear()} is O(1) (see
+ * {@link IntIntHashMap}). Keys are copied into the map, the caller can reuse
+ * its key array.
+ *
+ * @author Aarre Laakso
+ */
+final class EliminationMap {
+	/** Number of words needed for all candidates. */
+	private static final int CAND_WORDS = (Sudoku2.LENGTH * 9 + 63) >> 6;
+	/** Length of a key. */
+	static final int KEY_LENGTH = CAND_WORDS + 1;
+	/** Smallest capacity of the map (the load factor is at most 1/2). */
+	private static final int MIN_CAPACITY = 64;
+	/** Key type: eliminations only. */
+	private static final long MODE_ELIMINATIONS = 1;
+	/** Key type: eliminations and type of the step. */
+	private static final long MODE_CANDIDATES = 2;
+	/** Key type: cells that can be set, value and type of the step. */
+	private static final long MODE_CELLS = 3;
+	/** Flag for Siamese Fish. */
+	private static final long SIAMESE = 1 << 2;
+
+	/** The keys, {@link #KEY_LENGTH} words per slot. */
+	private long[] keys;
+	/** The hash codes of the keys. */
+	private int[] hashes;
+	/** The values, synchronized with {@link #hashes}. */
+	private int[] values;
+	/** The stamps, synchronized with {@link #hashes}. */
+	private int[] stamps;
+	/** The stamp of all valid slots. */
+	private int stamp = 1;
+	/** <code>hashes.length - 1</code> */
+	private int mask;
+	/** Number of valid entries. */
+	private int size = 0;
+
+	/**
+	 * Creates an empty map.
+	 */
+	EliminationMap() {
+		allocate(MIN_CAPACITY);
+	}
+
+	private void allocate(int capacity) {
+		keys = new long[capacity * KEY_LENGTH];
+		hashes = new int[capacity];
+		values = new int[capacity];
+		stamps = new int[capacity];
+		mask = capacity - 1;
+		stamp = 1;
+		size = 0;
+	}
+
+	/**
+	 * Creates a new key array.
+	 *
+	 * @return
+	 */
+	static long[] createKey() {
+		return new long[KEY_LENGTH];
+	}
+
+	/**
+	 * Builds a key from the eliminations of <code>step</code> only. Like
+	 * {@link SolutionStep#getCandidateString()} the candidates to delete are
+	 * sorted and duplicates are removed.
+	 *
+	 * @param step
+	 * @param key
+	 */
+	static void setEliminationsKey(SolutionStep step, long[] key) {
+		step.sortCandidatesToDelete();
+		Arrays.fill(key, 0);
+		List<Candidate> cands = step.getCandidatesToDelete();
+		for (int i = 0; i < cands.size(); i++) {
+			Candidate cand = cands.get(i);
+			int bit = (cand.getValue() - 1) * Sudoku2.LENGTH + cand.getIndex();
+			key[bit >> 6] |= 1L << bit;
+		}
+		key[CAND_WORDS] = MODE_ELIMINATIONS;
+	}
+
+	/**
+	 * Builds a key from the eliminations and the type of <code>step</code>
+	 * (equivalent to {@link SolutionStep#getCandidateString()}).
+	 *
+	 * @param step
+	 * @param key
+	 */
+	static void setCandidatesKey(SolutionStep step, long[] key) {
+		setEliminationsKey(step, key);
+		key[CAND_WORDS] = MODE_CANDIDATES | (step.isIsSiamese() ? SIAMESE : 0)
+				| ((long) step.getType().ordinal() << 8);
+	}
+
+	/**
+	 * Builds a key from the eliminations, the type and the first value of
+	 * <code>step</code> (used for Kraken Fish).
+	 *
+	 * @param step
+	 * @param key
+	 */
+	static void setCandidatesValueKey(SolutionStep step, long[] key) {
+		setCandidatesKey(step, key);
+		key[CAND_WORDS] |= (long) step.getValues().get(0) << 32;
+	}
+
+	/**
+	 * Builds a key from the cells, the first value and the type of
+	 * <code>step</code> (equivalent to
+	 * {@link SolutionStep#getSingleCandidateString()}).
+	 *
+	 * @param step
+	 * @param key
+	 */
+	static void setCellsKey(SolutionStep step, long[] key) {
+		Arrays.fill(key, 0);
+		List<Integer> indices = step.getIndices();
+		for (int i = 0; i < indices.size(); i++) {
+			int index = indices.get(i);
+			key[index >> 6] |= 1L << index;
+		}
+		key[CAND_WORDS] = MODE_CELLS | ((long) step.getType().ordinal() << 8)
+				| ((long) step.getValues().get(0) << 32);
+	}
+
+	private static int hash(long[] key) {
+		long h = 0;
+		for (int i = 0; i < KEY_LENGTH; i++) {
+			h = (h ^ key[i]) * 0x9E3779B97F4A7C15L;
+		}
+		return (int) (h ^ (h >>> 32));
+	}
+
+	/**
+	 * Checks whether the key in slot <code>slot</code> equals <code>key</code>.
+	 *
+	 * @param slot
+	 * @param key
+	 * @return
+	 */
+	private boolean equalsKey(int slot, long[] key) {
+		int offset = slot * KEY_LENGTH;
+		for (int i = 0; i < KEY_LENGTH; i++) {
+			if (keys[offset + i] != key[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Removes all entries.
+	 */
+	void clear() {
+		size = 0;
+		stamp++;
+		if (stamp == 0) {
+			// overflow: old stamps could become valid again
+			Arrays.fill(stamps, 0);
+			stamp = 1;
+		}
+	}
+
+	/**
+	 * Stores <code>value</code> for <code>key</code>. An existing value is
+	 * replaced.
+	 *
+	 * @param key
+	 * @param value
+	 */
+	void put(long[] key, int value) {
+		if ((size + 1) * 2 > hashes.length) {
+			rehash();
+		}
+		int h = hash(key);
+		int i = h & mask;
+		while (stamps[i] == stamp) {
+			if (hashes[i] == h && equalsKey(i, key)) {
+				values[i] = value;
+				return;
+			}
+			i = (i + 1) & mask;
+		}
+		System.arraycopy(key, 0, keys, i * KEY_LENGTH, KEY_LENGTH);
+		hashes[i] = h;
+		values[i] = value;
+		stamps[i] = stamp;
+		size++;
+	}
+
+	/**
+	 * Gets the value for <code>key</code>.
+	 *
+	 * @param key
+	 * @param missing The value that is returned, if <code>key</code> is not in
+	 *                the map
+	 * @return
+	 */
+	int get(long[] key, int missing) {
+		int h = hash(key);
+		int i = h & mask;
+		while (stamps[i] == stamp) {
+			if (hashes[i] == h && equalsKey(i, key)) {
+				return values[i];
+			}
+			i = (i + 1) & mask;
+		}
+		return missing;
+	}
+
+	/**
+	 * The number of entries in the map.
+	 *
+	 * @return
+	 */
+	int size() {
+		return size;
+	}
+
+	/**
+	 * Doubles the capacity of the map.
+	 */
+	private void rehash() {
+		long[] oldKeys = keys;
+		int[] oldHashes = hashes;
+		int[] oldValues = values;
+		int[] oldStamps = stamps;
+		int oldStamp = stamp;
+		allocate(oldHashes.length * 2);
+		for (int i = 0; i < oldHashes.length; i++) {
+			if (oldStamps[i] == oldStamp) {
+				int j = oldHashes[i] & mask;
+				while (stamps[j] == stamp) {
+					j = (j + 1) & mask;
+				}
+				System.arraycopy(oldKeys, i * KEY_LENGTH, keys, j * KEY_LENGTH, KEY_LENGTH);
+				hashes[j] = oldHashes[i];
+				values[j] = oldValues[i];
+				stamps[j] = stamp;
+				size++;
+			}
+		}
+	}
+}
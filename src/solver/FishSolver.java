@@ -22,12 +22,9 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
-import java.util.SortedMap;
-import java.util.TreeMap;
 import sudoku.Candidate;
 import sudoku.Chain;
 import sudoku.FindAllStepsProgressDialog;
-import sudoku.Options;
 import sudoku.SolutionStep;
 import sudoku.SolutionType;
 import sudoku.Sudoku2;
@@ -286,7 +283,9 @@ public class FishSolver extends AbstractSolver {
 	/** The index of the current level in the {@link #coverStack}. */
 	private int coverLevel = 0;
 	/** Contains one entry for every step (number and indices of eliminations) */
-	private SortedMap<String, Integer> deletesMap = new TreeMap<String, Integer>();
+	private EliminationMap deletesMap = new EliminationMap();
+	/** Key for {@link #deletesMap} (reused). */
+	private long[] deletesKey = EliminationMap.createKey();
 	/** A set to incrementally check for endo fins (low order DWORD) */
 	private long aktEndoFinSetM1;
 	/** A set to incrementally check for endo fins (high order DWORD) */
@@ -341,6 +340,13 @@ public class FishSolver extends AbstractSolver {
 	private boolean siamese;
 	/** Check for templates */
 	private boolean doTemplates;
+	/**
+	 * The configuration for special searches (fin limits and templates differ
+	 * from the solver configuration), <code>null</code> for normal searches.
+	 */
+	private SolverConfig searchConfig = null;
+	/** The configuration used by the current search. */
+	private SolverConfig fishConfig;
 	/** All steps found by the last search */
 	private List<SolutionStep> steps = new ArrayList<SolutionStep>();
 	/**
@@ -578,10 +584,7 @@ public class FishSolver extends AbstractSolver {
 			FindAllStepsProgressDialog dlg, int forCandidate, int type) {
 		this.dlg = dlg;
 		sudoku = finder.getSudoku();
-		int oldMaxFins = Options.getInstance().getMaxFins();
-		int oldEndoFins = Options.getInstance().getMaxEndoFins();
-		Options.getInstance().setMaxFins(maxFins);
-		Options.getInstance().setMaxEndoFins(maxEndoFins);
+		searchConfig = getConfig().withFins(maxFins, maxEndoFins);
 		List<SolutionStep> oldSteps = steps;
 		steps = new ArrayList<SolutionStep>();
 		kraken = false;
@@ -593,6 +596,9 @@ public class FishSolver extends AbstractSolver {
 				// not now
 				continue;
 			}
+			if (isDeadlineExpired()) {
+				break;
+			}
 //            /*K*/System.out.println("getAllFishes() for Candidate " + i);
 			long millis = System.currentTimeMillis();
 			baseGesamt = 0;
@@ -616,8 +622,7 @@ public class FishSolver extends AbstractSolver {
 			Collections.sort(result);
 		}
 		steps = oldSteps;
-		Options.getInstance().setMaxFins(oldMaxFins);
-		Options.getInstance().setMaxEndoFins(oldEndoFins);
+		searchConfig = null;
 		this.dlg = null;
 		return result;
 	}
@@ -662,7 +667,7 @@ public class FishSolver extends AbstractSolver {
 		steps.clear();
 		kraken = false;
 		SolutionStep step = null;
-		for (int cand = 1; cand <= 9; cand++) {
+		for (int cand = 1; cand <= 9 && !isDeadlineExpired(); cand++) {
 			step = getFishes(cand, size, size, withoutFins, withFins, sashimi, withEndoFins, fishType);
 			if (!searchAll && !siamese && step != null) {
 				return step;
@@ -697,12 +702,7 @@ public class FishSolver extends AbstractSolver {
 			// forCandidate);
 			this.dlg = dlg;
 			sudoku = finder.getSudoku();
-			boolean oldCheckTemplates = Options.getInstance().isCheckTemplates();
-			Options.getInstance().setCheckTemplates(false);
-			int oldMaxFins = Options.getInstance().getMaxFins();
-			int oldEndoFins = Options.getInstance().getMaxEndoFins();
-			Options.getInstance().setMaxFins(maxFins);
-			Options.getInstance().setMaxEndoFins(maxEndoFins);
+			searchConfig = getConfig().withFins(maxFins, maxEndoFins).withCheckTemplates(false);
 			List<SolutionStep> oldSteps = steps;
 			steps = new ArrayList<SolutionStep>();
 			kraken = true;
@@ -715,6 +715,10 @@ public class FishSolver extends AbstractSolver {
 					// not now
 					continue;
 				}
+				if (isDeadlineExpired()) {
+					// the tables could be incomplete
+					break;
+				}
 				long millis = System.currentTimeMillis();
 				baseGesamt = 0;
 				baseShowGesamt = 0;
@@ -738,9 +742,7 @@ public class FishSolver extends AbstractSolver {
 				Collections.sort(result);
 			}
 			steps = oldSteps;
-			Options.getInstance().setCheckTemplates(oldCheckTemplates);
-			Options.getInstance().setMaxFins(oldMaxFins);
-			Options.getInstance().setMaxEndoFins(oldEndoFins);
+			searchConfig = null;
 			kraken = false;
 			this.dlg = null;
 			// System.out.println(" " + result.size() + " steps!");
@@ -749,7 +751,7 @@ public class FishSolver extends AbstractSolver {
 	}
 
 	/**
-	 * Find a Kraken Fish. All options are taken from {@link Options}.
+	 * Find a Kraken Fish. All options are taken from the {@link SolverConfig}.
 	 * 
 	 * @return
 	 */
@@ -759,30 +761,24 @@ public class FishSolver extends AbstractSolver {
 			baseGesamt = 0;
 			baseShowGesamt = 0;
 			steps = new ArrayList<SolutionStep>();
-			boolean oldCheckTemplates = Options.getInstance().isCheckTemplates();
-			Options.getInstance().setCheckTemplates(false);
-			int oldMaxFins = Options.getInstance().getMaxFins();
-			int oldEndoFins = Options.getInstance().getMaxEndoFins();
-			Options.getInstance().setMaxFins(Options.getInstance().getMaxKrakenFins());
-			Options.getInstance().setMaxEndoFins(Options.getInstance().getMaxKrakenEndoFins());
+			SolverConfig config = getConfig();
+			searchConfig = config.withFins(config.getMaxKrakenFins(), config.getMaxKrakenEndoFins())
+					.withCheckTemplates(false);
 			kraken = true;
 //        fishType = UNDEFINED;
 			tablingSolver.initForKrakenSearch();
 			// Endo fins are only searched if the fish type is other than basic and if the
 			// max endo fin size > 0
-			withEndoFins = Options.getInstance().getMaxKrakenEndoFins() != 0
-					&& Options.getInstance().getKrakenMaxFishType() > 0;
-			int size = Options.getInstance().getKrakenMaxFishSize();
-			for (int i = 1; i <= 9; i++) {
-				getFishes(i, 2, size, false, true, true, withEndoFins, Options.getInstance().getKrakenMaxFishType());
+			withEndoFins = config.getMaxKrakenEndoFins() != 0 && config.getKrakenMaxFishType() > 0;
+			int size = config.getKrakenMaxFishSize();
+			for (int i = 1; i <= 9 && !isDeadlineExpired(); i++) {
+				getFishes(i, 2, size, false, true, true, withEndoFins, config.getKrakenMaxFishType());
 				if (steps.size() > 0) {
 					break;
 				}
 			}
 			kraken = false;
-			Options.getInstance().setCheckTemplates(oldCheckTemplates);
-			Options.getInstance().setMaxFins(oldMaxFins);
-			Options.getInstance().setMaxEndoFins(oldEndoFins);
+			searchConfig = null;
 			if (steps.size() > 0) {
 				findSiameseFish(steps);
 				Collections.sort(steps);
@@ -815,13 +811,14 @@ public class FishSolver extends AbstractSolver {
 			boolean sashimi, boolean withEndoFins, int fishType) {
 		// init attributes
 		this.deletesMap.clear();
-		this.siamese = Options.getInstance().isAllowDualsAndSiamese();
+		this.fishConfig = searchConfig != null ? searchConfig : getConfig();
+		this.siamese = fishConfig.isAllowDualsAndSiamese();
 		this.fishType = fishType;
 		this.candidate = candidate;
 //        this.candidates = finder.getCandidates()[candidate];
 		this.candidatesM1 = finder.getCandidates()[candidate].getMask1();
 		this.candidatesM2 = finder.getCandidates()[candidate].getMask2();
-		this.doTemplates = Options.getInstance().isCheckTemplates();
+		this.doTemplates = fishConfig.isCheckTemplates();
 		// put some restrictions on templates: they need a lot of time to be computed
 		// so only use them for really large fish
 		if ((fishType == BASIC && maxSize <= 5) || (fishType == FRANKEN && maxSize <= 4)
@@ -933,6 +930,10 @@ public class FishSolver extends AbstractSolver {
 			// make all necessary calculations
 			baseGesamt++; // counter for progress bar
 			baseShowGesamt++; // counter for progress bar
+			if ((baseGesamt & 0x3f) == 0 && isDeadlineExpired()) {
+				// out of time: keep what has been found so far
+				return steps.size() > 0 ? steps.get(0) : null;
+			}
 			if (dlg != null && baseShowGesamt % 100 == 0) {
 				dlg.updateFishProgressBar(baseShowGesamt);
 			}
@@ -947,7 +948,7 @@ public class FishSolver extends AbstractSolver {
 //                if (!withFins || !withEndoFins || (baseStack[baseLevel - 1].endoFins.size() + aktEndoFinSet.size()) > Options.getInstance().maxEndoFins) {
 				if (!withFins || !withEndoFins
 						|| (getSize(baseStack[baseLevel - 1].endoFinsM1, baseStack[baseLevel - 1].endoFinsM2)
-								+ getSize(aktEndoFinSetM1, aktEndoFinSetM2)) > Options.getInstance().getMaxEndoFins()) {
+								+ getSize(aktEndoFinSetM1, aktEndoFinSetM2)) > fishConfig.getMaxEndoFins()) {
 					// every invalid combination eliminates a lot of possibilities:
 					// (all non-zero baseUnits greater than i) over (maxSize - aktSize)
 					if (dlg != null) {
@@ -1154,7 +1155,7 @@ public class FishSolver extends AbstractSolver {
 						}
 					}
 				} else if (withFins && (finSize = getSize(finsM1, finsM2)) > 0
-						&& finSize <= Options.getInstance().getMaxFins()) {
+						&& finSize <= fishConfig.getMaxFins()) {
 //                    System.out.println("finned fish");
 					/*********** POSSIBLE FINNED/SASHIMI-FISCH **********/
 					versucheFins++;
@@ -1375,25 +1376,21 @@ public class FishSolver extends AbstractSolver {
 				return null;
 			}
 		}
-		if (Options.getInstance().isOnlyOneFishPerStep()) {
-			// String del = globalStep.getCandidateString() + " " +
-			// globalStep.getValues().get(0);
-			String delOrg = globalStep.getCandidateString();
-			int startIndex = delOrg.indexOf(')');
-			startIndex = delOrg.indexOf('(', startIndex);
-			String del = delOrg.substring(0, startIndex);
-			Integer oldIndex = deletesMap.get(del);
+		if (getConfig().isOnlyOneFishPerStep()) {
+			// only the eliminations count, not the type of the fish
+			EliminationMap.setEliminationsKey(globalStep, deletesKey);
+			int oldIndex = deletesMap.get(deletesKey, -1);
 			SolutionStep tmpStep = null;
-			if (oldIndex != null) {
-				tmpStep = steps.get(oldIndex.intValue());
+			if (oldIndex != -1) {
+				tmpStep = steps.get(oldIndex);
 			}
 			if (tmpStep == null || globalStep.getType().compare(tmpStep.getType()) < 0) {
-				if (oldIndex != null) {
-					steps.remove(oldIndex.intValue());
-					steps.add(oldIndex.intValue(), (SolutionStep) globalStep.clone());
+				if (oldIndex != -1) {
+					steps.remove(oldIndex);
+					steps.add(oldIndex, (SolutionStep) globalStep.clone());
 				} else {
 					steps.add((SolutionStep) globalStep.clone());
-					deletesMap.put(del, steps.size() - 1);
+					deletesMap.put(deletesKey, steps.size() - 1);
 				}
 			}
 		} else {
@@ -1410,17 +1407,17 @@ public class FishSolver extends AbstractSolver {
 	 * @return
 	 */
 	private SolutionStep addKrakenStep(SolutionStep step) {
-		String del = step.getCandidateString() + " " + step.getValues().get(0);
-		Integer oldIndex = deletesMap.get(del);
+		EliminationMap.setCandidatesValueKey(step, deletesKey);
+		int oldIndex = deletesMap.get(deletesKey, -1);
 		SolutionStep tmpStep = null;
-		if (oldIndex != null) {
+		if (oldIndex != -1) {
 			tmpStep = steps.get(oldIndex);
 		}
 		if (tmpStep == null || step.getSubType().compare(tmpStep.getSubType()) < 0
 				|| (step.getSubType().compare(tmpStep.getSubType()) == 0
 						&& step.getChainLength() < tmpStep.getChainLength())) {
 			steps.add(step);
-			deletesMap.put(del, steps.size() - 1);
+			deletesMap.put(deletesKey, steps.size() - 1);
 			return step;
 		}
 		return null;
@@ -1438,7 +1435,7 @@ public class FishSolver extends AbstractSolver {
 	 * @param fishes All available fishes
 	 */
 	private void findSiameseFish(List<SolutionStep> fishes) {
-		if (!Options.getInstance().isAllowDualsAndSiamese()) {
+		if (!getConfig().isAllowDualsAndSiamese()) {
 			// not allowed!
 			return;
 		}
@@ -40,9 +40,6 @@ public class GroupNode {
 	public int index2; // index of second cell
 	public int index3; // index of third cell or -1, if grouped node consists only of two cells
 
-	private static SudokuSet candInHouse = new SudokuSet(); // all positions for a given candidate in a given house
-	private static SudokuSet tmpSet = new SudokuSet(); // for check with blocks
-
 	/**
 	 * Creates a new instance of GroupNode
 	 * 
@@ -100,6 +97,9 @@ public class GroupNode {
 
 	private static void getGroupNodesForHouseType(List<GroupNode> groupNodes, SudokuStepFinder finder,
 			SudokuSet[] houses) {
+		// local sets: group nodes may be collected by more than one solver at a time
+		SudokuSet candInHouse = new SudokuSet(); // all positions for a given candidate in a given house
+		SudokuSet tmpSet = new SudokuSet(); // for check with blocks
 		for (int i = 0; i < houses.length; i++) {
 			for (int cand = 1; cand <= 9; cand++) {
 				candInHouse.set(houses[i]);
@@ -0,0 +1,185 @@
+/*
+ * Copyright (C) 2021 Aarre Laakso
+ *
+ * This file is part of HoDoKu.
+ *
+ * HoDoKu is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * HoDoKu is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with HoDoKu. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package solver;
+
+import java.util.Arrays;
+
+/**
+ * A map from <code>int</code> to <code>int</code> without boxing (open
+ * addressing with linear probing).<br>
+ * <br>
+ * Every slot carries a stamp; a slot is only valid if its stamp equals the
+ * current stamp of the map. {@link #clear()} just increments the current stamp,
+ * so clearing the map is O(1) regardless of its capacity.
+ *
+ * @author Aarre Laakso
+ */
+final class IntIntHashMap {
+	/** Smallest capacity of the map (the load factor is at most 1/2). */
+	private static final int MIN_CAPACITY = 16;
+
+	/** The keys. */
+	private int[] keys;
+	/** The values, synchronized with {@link #keys}. */
+	private int[] values;
+	/** The stamps, synchronized with {@link #keys}. */
+	private int[] stamps;
+	/** The stamp of all valid slots. */
+	private int stamp = 1;
+	/** <code>keys.length - 1</code> */
+	private int mask;
+	/** Number of valid entries. */
+	private int size = 0;
+
+	/**
+	 * Creates a map that can hold <code>expectedSize</code> entries without
+	 * rehashing.
+	 *
+	 * @param expectedSize
+	 */
+	IntIntHashMap(int expectedSize) {
+		int capacity = MIN_CAPACITY;
+		while (capacity < expectedSize * 2) {
+			capacity <<= 1;
+		}
+		allocate(capacity);
+	}
+
+	private void allocate(int capacity) {
+		keys = new int[capacity];
+		values = new int[capacity];
+		stamps = new int[capacity];
+		mask = capacity - 1;
+		stamp = 1;
+		size = 0;
+	}
+
+	/**
+	 * Spreads the bits of <code>key</code> (the entries of a {@link TableEntry}
+	 * differ mostly in the lower bits).
+	 *
+	 * @param key
+	 * @return
+	 */
+	private int slot(int key) {
+		int h = key * 0x9E3779B9;
+		return (h ^ (h >>> 16)) & mask;
+	}
+
+	/**
+	 * Removes all entries.
+	 */
+	void clear() {
+		size = 0;
+		stamp++;
+		if (stamp == 0) {
+			// overflow: old stamps could become valid again
+			Arrays.fill(stamps, 0);
+			stamp = 1;
+		}
+	}
+
+	/**
+	 * Stores <code>value</code> for <code>key</code>. An existing value is
+	 * replaced.
+	 *
+	 * @param key
+	 * @param value
+	 */
+	void put(int key, int value) {
+		if ((size + 1) * 2 > keys.length) {
+			rehash();
+		}
+		int i = slot(key);
+		while (stamps[i] == stamp) {
+			if (keys[i] == key) {
+				values[i] = value;
+				return;
+			}
+			i = (i + 1) & mask;
+		}
+		keys[i] = key;
+		values[i] = value;
+		stamps[i] = stamp;
+		size++;
+	}
+
+	/**
+	 * Gets the value for <code>key</code>.
+	 *
+	 * @param key
+	 * @param missing The value that is returned, if <code>key</code> is not in
+	 *                the map
+	 * @return
+	 */
+	int get(int key, int missing) {
+		int i = slot(key);
+		while (stamps[i] == stamp) {
+			if (keys[i] == key) {
+				return values[i];
+			}
+			i = (i + 1) & mask;
+		}
+		return missing;
+	}
+
+	/**
+	 * Checks whether <code>key</code> is in the map.
+	 *
+	 * @param key
+	 * @return
+	 */
+	boolean containsKey(int key) {
+		int i = slot(key);
+		while (stamps[i] == stamp) {
+			if (keys[i] == key) {
+				return true;
+			}
+			i = (i + 1) & mask;
+		}
+		return false;
+	}
+
+	/**
+	 * The number of entries in the map.
+	 *
+	 * @return
+	 */
+	int size() {
+		return size;
+	}
+
+	/**
+	 * Doubles the capacity of the map.
+	 */
+	private void rehash() {
+		int[] oldKeys = keys;
+		int[] oldValues = values;
+		int[] oldStamps = stamps;
+		int oldStamp = stamp;
+		allocate(oldKeys.length * 2);
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldStamps[i] == oldStamp) {
+				put(oldKeys[i], oldValues[i]);
+			}
+		}
+	}
+}
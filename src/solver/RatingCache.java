@@ -0,0 +1,575 @@
+/*
+ * Copyright (C) 2021 Aarre Laakso
+ *
+ * This file is part of HoDoKu.
+ *
+ * HoDoKu is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * HoDoKu is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with HoDoKu. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package solver;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import sudoku.DifficultyLevel;
+import sudoku.DifficultyType;
+import sudoku.SolutionStep;
+import sudoku.SolutionType;
+import sudoku.StepConfig;
+import sudoku.Sudoku2;
+
+/**
+ * A persistent cache for the ratings of {@link SudokuSolver#solve()}: for a
+ * sudoku (givens and candidates) and a solver configuration it stores level,
+ * score, the types of the steps of the solution path and the solution.<br>
+ * The ratings are appended to a memory mapped file (<code>ratings.dat</code>
+ * in the cache directory); an in-memory index maps the keys to the records.
+ * The index holds at most {@link #MAX_ENTRIES} entries, the least recently
+ * used entry is dropped first. Records that are no longer in the index are
+ * removed from the file, when the cache is opened the next time.<br>
+ * The key is the exact state of the sudoku and not its minlex form
+ * (see {@link sudoku.SudokuCanonicalizer}): the solver takes the first step it
+ * finds in cell order, so isomorphic puzzles can get different solution paths
+ * and scores.<br>
+ * Only one process can write to the cache; the other processes open it read
+ * only. The file is locked beyond its end: the process that writes to it
+ * holds an exclusive lock on {@link #WRITER_LOCK}, all readers hold a shared
+ * lock on {@link #READER_LOCK}. The file is compacted only, if no reader is
+ * active (exclusive lock on {@link #READER_LOCK}); a cache that is being
+ * compacted cannot be opened at all.<br>
+ * All methods are thread safe.
+ *
+ * @author Aarre Laakso
+ */
+public final class RatingCache {
+	/** The name of the data file in the cache directory. */
+	public static final String FILE_NAME = "ratings.dat";
+	/** Maximum number of entries in the index. */
+	public static final int MAX_ENTRIES = 1 << 18;
+	/** Magic number at the start of the file ("HRC1"). */
+	private static final int MAGIC = 0x48524331;
+	private static final int HEADER_SIZE = 4;
+	/** The mapped region is enlarged in steps of this size. */
+	private static final int MAP_CHUNK = 16 << 20;
+	/**
+	 * Size of a record without the solution path: length, puzzle hash, config
+	 * hash, score, level, path length, solution.
+	 */
+	private static final int RECORD_FIXED_SIZE = 4 + 8 + 8 + 8 + 4 + 1 + 2 + Sudoku2.LENGTH;
+	/** The byte locked by the process that writes to the cache. */
+	private static final long WRITER_LOCK = Long.MAX_VALUE - 2;
+	/** The byte locked by the readers (shared) and while compacting (exclusive). */
+	private static final long READER_LOCK = Long.MAX_VALUE - 1;
+
+	private final File file;
+	private final FileChannel channel;
+	/** Set, if another process writes to the cache: no ratings are added. */
+	private final boolean readOnly;
+	private MappedByteBuffer buffer;
+	/** End of the valid data in the file. */
+	private long end;
+	/** Key -> offset of the record in the file, in LRU order. */
+	private final LinkedHashMap<Key, Long> index = new LinkedHashMap<Key, Long>(1024, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Key, Long> eldest) {
+			return size() > MAX_ENTRIES;
+		}
+	};
+	private long hits = 0;
+	private long misses = 0;
+	private long added = 0;
+	/** Set when the file cannot grow any more (more than 2GB). */
+	private boolean full = false;
+
+	/**
+	 * The rating of one sudoku as stored in the cache.
+	 */
+	public static final class Entry {
+		private final int score;
+		private final int level;
+		private final SolutionType[] path;
+		private final byte[] solution;
+
+		private Entry(int score, int level, SolutionType[] path, byte[] solution) {
+			this.score = score;
+			this.level = level;
+			this.path = path;
+			this.solution = solution;
+		}
+
+		public int getScore() {
+			return score;
+		}
+
+		/**
+		 * The ordinal of the {@link DifficultyLevel}.
+		 *
+		 * @return
+		 */
+		public int getLevel() {
+			return level;
+		}
+
+		/**
+		 * The types of all steps in the solution path.
+		 *
+		 * @return
+		 */
+		public SolutionType[] getPath() {
+			return path;
+		}
+
+		/**
+		 * The values of all cells after the sudoku has been solved.
+		 *
+		 * @param index
+		 * @return
+		 */
+		public int getValue(int index) {
+			return solution[index];
+		}
+	}
+
+	/**
+	 * The key of an entry: 128 bit hash of the sudoku, 64 bit hash of the
+	 * configuration (see {@link RatingCache#createKey(Sudoku2, long)}).
+	 */
+	public static final class Key {
+		private final long high;
+		private final long low;
+		private final long config;
+
+		private Key(long high, long low, long config) {
+			this.high = high;
+			this.low = low;
+			this.config = config;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (!(o instanceof Key)) {
+				return false;
+			}
+			Key other = (Key) o;
+			return high == other.high && low == other.low && config == other.config;
+		}
+
+		@Override
+		public int hashCode() {
+			return (int) (low ^ (low >>> 32));
+		}
+	}
+
+	private RatingCache(File file) throws IOException {
+		this.file = file;
+		channel = new RandomAccessFile(file, "rw").getChannel();
+		try {
+			if (tryLock(WRITER_LOCK, false) != null) {
+				readOnly = false;
+			} else if (tryLock(READER_LOCK, true) != null) {
+				readOnly = true;
+			} else {
+				throw new IOException("Rating cache is being compacted by another process: " + file);
+			}
+			if (channel.size() < HEADER_SIZE) {
+				if (readOnly) {
+					throw new IOException("Invalid rating cache: " + file);
+				}
+				ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+				header.putInt(MAGIC).flip();
+				channel.write(header, 0);
+			}
+			map(Math.max(channel.size(), HEADER_SIZE));
+			if (buffer.getInt(0) != MAGIC) {
+				throw new IOException("Invalid rating cache: " + file);
+			}
+			readIndex();
+		} catch (IOException ex) {
+			channel.close();
+			throw ex;
+		}
+	}
+
+	/**
+	 * Tries to lock the byte at <code>position</code>. The lock is released,
+	 * when {@link #channel} is closed.
+	 *
+	 * @param position
+	 * @param shared
+	 * @return <code>null</code>, if the byte is locked by another process (or
+	 *         by another cache in this process)
+	 * @throws IOException
+	 */
+	private FileLock tryLock(long position, boolean shared) throws IOException {
+		try {
+			return channel.tryLock(position, 1, shared);
+		} catch (OverlappingFileLockException ex) {
+			return null;
+		}
+	}
+
+	/**
+	 * Opens the cache in <code>dir</code> (the directory is created, if
+	 * necessary). If the file contains too many records that are not used any
+	 * more, it is compacted first.<br>
+	 * If another process writes to the cache, it is opened read only (see
+	 * {@link #isReadOnly()}); if another process compacts it at the moment, an
+	 * <code>IOException</code> is thrown. The file is not compacted, while
+	 * other processes read it.
+	 *
+	 * @param dir
+	 * @return
+	 * @throws IOException
+	 */
+	public static RatingCache open(File dir) throws IOException {
+		if (!dir.isDirectory() && !dir.mkdirs()) {
+			throw new IOException("Cannot create directory " + dir);
+		}
+		File file = new File(dir, FILE_NAME);
+		RatingCache cache = new RatingCache(file);
+		if (!cache.readOnly && cache.end > HEADER_SIZE + MAP_CHUNK && cache.getLiveBytes() * 2 < cache.end) {
+			try {
+				// no other process may have the file mapped while it is compacted
+				FileLock readers = cache.tryLock(READER_LOCK, false);
+				if (readers != null) {
+					try {
+						cache.compact();
+					} finally {
+						readers.release();
+					}
+				}
+			} catch (IOException ex) {
+				cache.close();
+				throw ex;
+			}
+		}
+		return cache;
+	}
+
+	/**
+	 * Maps at least <code>size</code> bytes of the file (rounded up to
+	 * {@link #MAP_CHUNK}). The file grows accordingly, the new part is filled
+	 * with zeros. In read only mode the file is mapped as it is.
+	 *
+	 * @param size
+	 * @throws IOException
+	 */
+	private void map(long size) throws IOException {
+		if (readOnly) {
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(Integer.MAX_VALUE, size));
+			return;
+		}
+		long mapSize = Math.min(Integer.MAX_VALUE, Math.max(1, (size + MAP_CHUNK - 1) / MAP_CHUNK) * MAP_CHUNK);
+		buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, mapSize);
+	}
+
+	/**
+	 * Reads all records into the index. The data ends with the first record of
+	 * length 0 (the unused part of the mapped region or a record, that was not
+	 * written completely).
+	 */
+	private void readIndex() {
+		int pos = HEADER_SIZE;
+		while (pos + 4 <= buffer.capacity()) {
+			int length = buffer.getInt(pos);
+			if (length <= 0 || pos + length > buffer.capacity()) {
+				break;
+			}
+			Key key = new Key(buffer.getLong(pos + 4), buffer.getLong(pos + 12), buffer.getLong(pos + 20));
+			index.put(key, Long.valueOf(pos));
+			pos += length;
+		}
+		end = pos;
+	}
+
+	private long getLiveBytes() {
+		long live = HEADER_SIZE;
+		for (Long offset : index.values()) {
+			live += buffer.getInt(offset.intValue());
+		}
+		return live;
+	}
+
+	/**
+	 * Writes all records of the index (in LRU order) to a temporary file and
+	 * copies them back to the start of the data file. The data file is
+	 * written through {@link #channel} and neither replaced nor truncated: a
+	 * file that is still mapped cannot be deleted or shortened on all
+	 * platforms (Windows). The length of the first record is written last, so
+	 * an interrupted copy leaves an empty cache; the rest of the old data is
+	 * overwritten with zeros.
+	 *
+	 * @throws IOException
+	 */
+	private void compact() throws IOException {
+		File tmpFile = new File(file.getPath() + ".tmp");
+		RandomAccessFile tmp = new RandomAccessFile(tmpFile, "rw");
+		try {
+			FileChannel out = tmp.getChannel();
+			out.truncate(0);
+			for (Long offset : index.values()) {
+				ByteBuffer record = buffer.duplicate();
+				record.position(offset.intValue());
+				record.limit(offset.intValue() + buffer.getInt(offset.intValue()));
+				out.write(record);
+			}
+			long size = out.size();
+			ByteBuffer zeros = ByteBuffer.allocate(64 << 10);
+			zeros.limit(4);
+			channel.write(zeros, HEADER_SIZE);
+			channel.force(false);
+			long done = Math.min(4, size);
+			out.position(done);
+			while (done < size) {
+				done += channel.transferFrom(out, HEADER_SIZE + done, size - done);
+			}
+			for (long pos = HEADER_SIZE + size; pos < end; pos += zeros.limit()) {
+				zeros.clear();
+				zeros.limit((int) Math.min(zeros.capacity(), end - pos));
+				channel.write(zeros, pos);
+			}
+			channel.force(false);
+			if (size > 0) {
+				ByteBuffer length = ByteBuffer.allocate(4);
+				out.read(length, 0);
+				length.flip();
+				channel.write(length, HEADER_SIZE);
+				channel.force(false);
+			}
+		} finally {
+			tmp.close();
+			if (!tmpFile.delete()) {
+				Logger.getLogger(getClass().getName()).log(Level.WARNING, "Cannot delete {0}", tmpFile);
+			}
+		}
+		// the mapping shows the new contents
+		index.clear();
+		readIndex();
+	}
+
+	/**
+	 * Looks up a rating. The key stored in the record has to match
+	 * <code>key</code>, otherwise the lookup counts as miss.
+	 *
+	 * @param key
+	 * @return <code>null</code> if the rating is not in the cache
+	 */
+	public synchronized Entry get(Key key) {
+		Long offset = index.get(key);
+		if (offset == null) {
+			misses++;
+			return null;
+		}
+		int pos = offset.intValue();
+		if (buffer.getLong(pos + 4) != key.high || buffer.getLong(pos + 12) != key.low
+				|| buffer.getLong(pos + 20) != key.config) {
+			// the record does not belong to the key (file damaged)
+			index.remove(key);
+			misses++;
+			return null;
+		}
+		hits++;
+		int score = buffer.getInt(pos + 28);
+		int level = buffer.get(pos + 32);
+		int pathLength = buffer.getShort(pos + 33);
+		byte[] solution = new byte[Sudoku2.LENGTH];
+		for (int i = 0; i < solution.length; i++) {
+			solution[i] = buffer.get(pos + 35 + i);
+		}
+		SolutionType[] types = SolutionType.values();
+		SolutionType[] path = new SolutionType[pathLength];
+		for (int i = 0; i < pathLength; i++) {
+			path[i] = types[buffer.get(pos + RECORD_FIXED_SIZE + i) & 0xff];
+		}
+		return new Entry(score, level, path, solution);
+	}
+
+	/**
+	 * Stores the rating of a solved sudoku. <code>key</code> has to be created
+	 * before the sudoku is solved, <code>solved</code> is the state after
+	 * solving. Does nothing in read only mode.
+	 *
+	 * @param key
+	 * @param score
+	 * @param level
+	 * @param path
+	 * @param solved
+	 */
+	public synchronized void put(Key key, int score, DifficultyLevel level, List<SolutionStep> path,
+			Sudoku2 solved) {
+		if (readOnly || full || index.containsKey(key)) {
+			return;
+		}
+		int length = RECORD_FIXED_SIZE + path.size();
+		try {
+			if (end + length > buffer.capacity()) {
+				if (end + length > Integer.MAX_VALUE - MAP_CHUNK) {
+					full = true;
+					Logger.getLogger(getClass().getName()).log(Level.WARNING, "Rating cache is full: {0}", file);
+					return;
+				}
+				map(end + length);
+			}
+		} catch (IOException ex) {
+			full = true;
+			Logger.getLogger(getClass().getName()).log(Level.SEVERE, "Error enlarging rating cache", ex);
+			return;
+		}
+		int pos = (int) end;
+		buffer.putLong(pos + 4, key.high);
+		buffer.putLong(pos + 12, key.low);
+		buffer.putLong(pos + 20, key.config);
+		buffer.putInt(pos + 28, score);
+		buffer.put(pos + 32, (byte) level.getOrdinal());
+		buffer.putShort(pos + 33, (short) path.size());
+		for (int i = 0; i < Sudoku2.LENGTH; i++) {
+			buffer.put(pos + 35 + i, (byte) solved.getValue(i));
+		}
+		for (int i = 0; i < path.size(); i++) {
+			buffer.put(pos + RECORD_FIXED_SIZE + i, (byte) path.get(i).getType().ordinal());
+		}
+		// the length is written last: a record is valid only when it is complete
+		buffer.putInt(pos, length);
+		end += length;
+		index.put(key, Long.valueOf(pos));
+		added++;
+	}
+
+	/**
+	 * Writes all changes to disk and closes the file.
+	 */
+	public synchronized void close() {
+		try {
+			if (buffer != null) {
+				buffer.force();
+			}
+			if (channel.isOpen()) {
+				channel.close();
+			}
+		} catch (IOException ex) {
+			Logger.getLogger(getClass().getName()).log(Level.SEVERE, "Error closing rating cache", ex);
+		}
+	}
+
+	/**
+	 * Set, if the cache was opened while another process was writing to it: the
+	 * ratings in the file can be used, but no new ratings are added.
+	 *
+	 * @return
+	 */
+	public boolean isReadOnly() {
+		return readOnly;
+	}
+
+	public synchronized long getHits() {
+		return hits;
+	}
+
+	public synchronized long getMisses() {
+		return misses;
+	}
+
+	/**
+	 * Number of ratings added since the cache was opened.
+	 *
+	 * @return
+	 */
+	public synchronized long getAdded() {
+		return added;
+	}
+
+	public synchronized int size() {
+		return index.size();
+	}
+
+	/**
+	 * Creates the key for the current state of <code>sudoku</code>: a 128 bit
+	 * hash over values and candidates of all cells.
+	 *
+	 * @param sudoku
+	 * @param configHash see {@link #getConfigHash(SolverConfig, StepConfig[])}
+	 * @return
+	 */
+	public static Key createKey(Sudoku2 sudoku, long configHash) {
+		long high = 0x9E3779B97F4A7C15L;
+		long low = 0xC2B2AE3D27D4EB4FL;
+		for (int i = 0; i < Sudoku2.LENGTH; i++) {
+			long word = ((long) sudoku.getValue(i) << 16) | (sudoku.getCell(i) & 0xffff);
+			high = mix(high ^ word);
+			low = mix(low + word * 0x165667B19E3779F9L);
+		}
+		return new Key(high, low, configHash);
+	}
+
+	/**
+	 * The hash of all settings, that can change the result of the solver:
+	 * <code>steps</code> (order, enabled, level, score), the difficulty levels
+	 * and all step specific options of <code>config</code>.
+	 *
+	 * @param config
+	 * @param steps
+	 * @return
+	 */
+	public static long getConfigHash(SolverConfig config, StepConfig[] steps) {
+		long hash = 0x2545F4914F6CDD1DL;
+		for (StepConfig step : steps) {
+			hash = mix(hash ^ step.getType().ordinal());
+			hash = mix(hash ^ step.getIndex());
+			hash = mix(hash ^ step.getLevel());
+			hash = mix(hash ^ step.getBaseScore());
+			hash = mix(hash ^ (step.isEnabled() ? 1 : 0));
+		}
+		for (int i = 0; i < DifficultyType.values().length; i++) {
+			hash = mix(hash ^ config.getDifficultyLevel(i).getMaxScore());
+		}
+		int[] options = { config.getMaxFins(), config.getMaxEndoFins(), config.isCheckTemplates() ? 1 : 0,
+				config.isAllowDualsAndSiamese() ? 1 : 0, config.isOnlyOneFishPerStep() ? 1 : 0,
+				config.getKrakenMaxFishType(), config.getKrakenMaxFishSize(), config.getMaxKrakenFins(),
+				config.getMaxKrakenEndoFins(), config.isAllowErsWithOnlyTwoCandidates() ? 1 : 0,
+				config.isAllowUniquenessMissingCandidates() ? 1 : 0, config.isRestrictChainSize() ? 1 : 0,
+				config.getRestrictChainLength(), config.getRestrictNiceLoopLength(), config.getMaxTableEntryLength(),
+				config.getAnzTableLookAhead(), config.isAllowAlsInTablingChains() ? 1 : 0,
+				config.isOnlyOneChainPerStep() ? 1 : 0, config.isAllowAlsOverlap() ? 1 : 0,
+				config.isOnlyOneAlsPerStep() ? 1 : 0 };
+		for (int option : options) {
+			hash = mix(hash ^ option);
+		}
+		return hash;
+	}
+
+	/**
+	 * The finalizer of SplitMix64.
+	 *
+	 * @param z
+	 * @return
+	 */
+	static long mix(long z) {
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+}
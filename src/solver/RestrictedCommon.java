@@ -128,32 +128,54 @@ public class RestrictedCommon implements Comparable<RestrictedCommon>, Cloneable
 	 * @return true if an actual RC remains, false otherwise
 	 */
 	public boolean checkRC(RestrictedCommon rc, boolean firstTry) {
-		actualRC = cand2 == 0 ? 1 : 3;
-		// rc is not provided
 		if (rc == null) {
+			actualRC = getActualRC(cand1, cand2, firstTry);
+		} else {
+			actualRC = getActualRC(rc.cand1, rc.cand2, rc.actualRC, cand1, cand2);
+		}
+		return actualRC != 0;
+	}
+
+	/**
+	 * Like {@link #checkRC(solver.RestrictedCommon, boolean)} for the first link
+	 * in a chain, but without an instance (see {@link RestrictedCommonTable}).
+	 * 
+	 * @param cand1
+	 * @param cand2
+	 * @param firstTry If set, <code>cand1</code> is used else <code>cand2</code>
+	 * @return The new actual RC (never 0)
+	 */
+	static int getActualRC(int cand1, int cand2, boolean firstTry) {
+		if (cand2 != 0) {
 			// start of chain: pick your RC
-			if (cand2 != 0) {
-				actualRC = firstTry ? 1 : 2;
-			}
-			return actualRC != 0;
+			return firstTry ? 1 : 2;
 		}
-		switch (rc.actualRC) {
-		case 0:
-			// already done
-			break;
+		return 1;
+	}
+
+	/**
+	 * Like {@link #checkRC(solver.RestrictedCommon, boolean)} for all other links
+	 * in a chain, but without an instance (see {@link RestrictedCommonTable}).
+	 * 
+	 * @param lastCand1    <code>cand1</code> of the previous link
+	 * @param lastCand2    <code>cand2</code> of the previous link
+	 * @param lastActualRC <code>actualRC</code> of the previous link
+	 * @param cand1
+	 * @param cand2
+	 * @return The new actual RC; if <code>0</code>, the chain cannot be continued
+	 */
+	static int getActualRC(int lastCand1, int lastCand2, int lastActualRC, int cand1, int cand2) {
+		switch (lastActualRC) {
 		case 1:
-			actualRC = checkRCInt(rc.cand1, 0, cand1, cand2);
-			break;
+			return checkRCInt(lastCand1, 0, cand1, cand2);
 		case 2:
-			actualRC = checkRCInt(rc.cand2, 0, cand1, cand2);
-			break;
+			return checkRCInt(lastCand2, 0, cand1, cand2);
 		case 3:
-			actualRC = checkRCInt(rc.cand1, rc.cand1, cand1, cand2);
-			break;
+			return checkRCInt(lastCand1, lastCand1, cand1, cand2);
 		default:
-			break;
+			// already done
+			return cand2 == 0 ? 1 : 3;
 		}
-		return actualRC != 0;
 	}
 
 	/**
@@ -166,7 +188,7 @@ public class RestrictedCommon implements Comparable<RestrictedCommon>, Cloneable
 	 * @param c22 Second PRC of second link (may be 0)
 	 * @return
 	 */
-	private int checkRCInt(int c11, int c12, int c21, int c22) {
+	private static int checkRCInt(int c11, int c12, int c21, int c22) {
 		if (c12 == 0) {
 			// one ARC
 			if (c22 == 0) {
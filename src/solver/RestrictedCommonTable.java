@@ -0,0 +1,185 @@
+/*
+ * Copyright (C) 2021 Aarre Laakso
+ *
+ * This file is part of HoDoKu.
+ *
+ * HoDoKu is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * HoDoKu is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with HoDoKu. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package solver;
+
+import java.util.Arrays;
+
+/**
+ * All {@link RestrictedCommon RCs} between the ALS of a
+ * <code>List&lt;{@link Als}&gt;</code>, stored in parallel arrays instead of one
+ * object per RC.<br>
+ * <br>
+ * The RCs are sorted by their first ALS: all RCs of ALS <code>i</code> are
+ * stored from {@link #getStartIndex(int)} (inclusive) to
+ * {@link #getEndIndex(int)} (exclusive).<br>
+ * <br>
+ * A table is reused by {@link SudokuStepFinder}; its contents are only valid
+ * until the next call to
+ * {@link SudokuStepFinder#getRestrictedCommons(java.util.List, boolean)}.
+ *
+ * @author Aarre Laakso
+ */
+public final class RestrictedCommonTable {
+	/** Index of the first ALS for every RC. */
+	private int[] als1 = new int[2000];
+	/** Index of the second ALS for every RC. */
+	private int[] als2 = new int[2000];
+	/** First RC candidate. */
+	private int[] cand1 = new int[2000];
+	/** Second RC candidate or <code>0</code>. */
+	private int[] cand2 = new int[2000];
+	/** Number of RCs in the table. */
+	private int size = 0;
+	/** Index of the first RC for every ALS. */
+	private int[] startIndices = new int[500];
+	/** Index of the last RC + 1 for every ALS. */
+	private int[] endIndices = new int[500];
+
+	/**
+	 * Creates an empty table.
+	 */
+	RestrictedCommonTable() {
+	}
+
+	/**
+	 * Deletes all RCs and makes room for the indices of <code>anzAls</code> ALS.
+	 *
+	 * @param anzAls
+	 */
+	void clear(int anzAls) {
+		size = 0;
+		if (startIndices.length < anzAls) {
+			startIndices = new int[(int) (anzAls * 1.5)];
+			endIndices = new int[(int) (anzAls * 1.5)];
+		}
+	}
+
+	/**
+	 * Adds a new RC.
+	 *
+	 * @param a1
+	 * @param a2
+	 * @param c1
+	 * @param c2
+	 */
+	void add(int a1, int a2, int c1, int c2) {
+		if (size == als1.length) {
+			int newLength = size * 2;
+			als1 = Arrays.copyOf(als1, newLength);
+			als2 = Arrays.copyOf(als2, newLength);
+			cand1 = Arrays.copyOf(cand1, newLength);
+			cand2 = Arrays.copyOf(cand2, newLength);
+		}
+		als1[size] = a1;
+		als2[size] = a2;
+		cand1[size] = c1;
+		cand2[size] = c2;
+		size++;
+	}
+
+	/**
+	 * Sets the start and end index of ALS <code>alsIndex</code>.
+	 *
+	 * @param alsIndex
+	 * @param start
+	 * @param end
+	 */
+	void setIndices(int alsIndex, int start, int end) {
+		startIndices[alsIndex] = start;
+		endIndices[alsIndex] = end;
+	}
+
+	/**
+	 * Appends the RCs of the ALS <code>fromAls</code> (inclusive) to
+	 * <code>toAls</code> (exclusive) of <code>src</code>.
+	 *
+	 * @param src
+	 * @param fromAls
+	 * @param toAls
+	 */
+	void append(RestrictedCommonTable src, int fromAls, int toAls) {
+		int offset = size;
+		for (int i = 0; i < src.size; i++) {
+			add(src.als1[i], src.als2[i], src.cand1[i], src.cand2[i]);
+		}
+		for (int i = fromAls; i < toAls; i++) {
+			startIndices[i] = src.startIndices[i] + offset;
+			endIndices[i] = src.endIndices[i] + offset;
+		}
+	}
+
+	/**
+	 * Number of RCs.
+	 *
+	 * @return
+	 */
+	public int size() {
+		return size;
+	}
+
+	public int getAls1(int index) {
+		return als1[index];
+	}
+
+	public int getAls2(int index) {
+		return als2[index];
+	}
+
+	public int getCand1(int index) {
+		return cand1[index];
+	}
+
+	public int getCand2(int index) {
+		return cand2[index];
+	}
+
+	/**
+	 * The index of the first RC of ALS <code>alsIndex</code>.
+	 *
+	 * @param alsIndex
+	 * @return
+	 */
+	public int getStartIndex(int alsIndex) {
+		return startIndices[alsIndex];
+	}
+
+	/**
+	 * The index of the last RC of ALS <code>alsIndex</code> + 1.
+	 *
+	 * @param alsIndex
+	 * @return
+	 */
+	public int getEndIndex(int alsIndex) {
+		return endIndices[alsIndex];
+	}
+
+	/**
+	 * Creates a {@link RestrictedCommon} for RC <code>index</code> (needed for
+	 * {@link sudoku.SolutionStep}).
+	 *
+	 * @param index
+	 * @param actualRC
+	 * @return
+	 */
+	public RestrictedCommon get(int index, int actualRC) {
+		return new RestrictedCommon(als1[index], als2[index], cand1[index], cand2[index], actualRC);
+	}
+}
@@ -214,10 +214,10 @@ public class SingleDigitPatternSolver extends AbstractSolver {
 	protected SolutionStep findEmptyRectangle() {
 		steps.clear();
 		SolutionStep step = findEmptyRectangles(true);
-		if (step != null && !Options.getInstance().isAllowDualsAndSiamese()) {
+		if (step != null && !getConfig().isAllowDualsAndSiamese()) {
 			return step;
 		}
-		if (steps.size() > 0 && Options.getInstance().isAllowDualsAndSiamese()) {
+		if (steps.size() > 0 && getConfig().isAllowDualsAndSiamese()) {
 			findDualEmptyRectangles(steps);
 			Collections.sort(steps);
 			return steps.get(0);
@@ -236,7 +236,7 @@ public class SingleDigitPatternSolver extends AbstractSolver {
 	private SolutionStep findEmptyRectangles(boolean onlyOne) {
 		for (int i = 1; i <= 9; i++) {
 			SolutionStep step = findEmptyRectanglesForCandidate(i, onlyOne);
-			if (step != null && onlyOne && !Options.getInstance().isAllowDualsAndSiamese()) {
+			if (step != null && onlyOne && !getConfig().isAllowDualsAndSiamese()) {
 				return step;
 			}
 		}
@@ -303,7 +303,7 @@ public class SingleDigitPatternSolver extends AbstractSolver {
 					continue;
 				}
 				erCol = erCols[i][j];
-				if (notEnoughCandidates && Options.getInstance().isAllowErsWithOnlyTwoCandidates() == false) {
+				if (notEnoughCandidates && getConfig().isAllowErsWithOnlyTwoCandidates() == false) {
 					// both row and col have only one candidate -> invalid
 					continue;
 				}
@@ -312,12 +312,12 @@ public class SingleDigitPatternSolver extends AbstractSolver {
 				// a candidate, check whether it forms a conjugate pair in the respective col
 				SolutionStep step = checkEmptyRectangle(cand, i, blockCands, Sudoku2.ROWS[erLine],
 						Sudoku2.ROW_TEMPLATES, Sudoku2.COL_TEMPLATES, erCol, false, onlyOne);
-				if (onlyOne && step != null && !Options.getInstance().isAllowDualsAndSiamese()) {
+				if (onlyOne && step != null && !getConfig().isAllowDualsAndSiamese()) {
 					return step;
 				}
 				step = checkEmptyRectangle(cand, i, blockCands, Sudoku2.COLS[erCol], Sudoku2.COL_TEMPLATES,
 						Sudoku2.ROW_TEMPLATES, erLine, true, onlyOne);
-				if (onlyOne && step != null && !Options.getInstance().isAllowDualsAndSiamese()) {
+				if (onlyOne && step != null && !getConfig().isAllowDualsAndSiamese()) {
 					return step;
 				}
 			}
@@ -407,7 +407,7 @@ public class SingleDigitPatternSolver extends AbstractSolver {
 							globalStep.addCandidateToDelete(indexDel, cand);
 							SolutionStep step = (SolutionStep) globalStep.clone();
 							// only one elimination per conjugate pair possible
-							if (onlyOne && !Options.getInstance().isAllowDualsAndSiamese()) {
+							if (onlyOne && !getConfig().isAllowDualsAndSiamese()) {
 								return step;
 							} else {
 								steps.add(step);
@@ -433,7 +433,7 @@ public class SingleDigitPatternSolver extends AbstractSolver {
 	 * @param kites All available 2-String-Kites
 	 */
 	private void findDualEmptyRectangles(List<SolutionStep> ers) {
-		if (!Options.getInstance().isAllowDualsAndSiamese()) {
+		if (!getConfig().isAllowDualsAndSiamese()) {
 			// do nothing
 			return;
 		}
@@ -615,7 +615,7 @@ public class SingleDigitPatternSolver extends AbstractSolver {
 						for (int k = 0; k < firstUnit.size(); k++) {
 							step.addCandidateToDelete(firstUnit.get(k), cand);
 						}
-//                        if (onlyOne && ! Options.getInstance().isAllowDualsAndSiamese()) {
+//                        if (onlyOne && ! getConfig().isAllowDualsAndSiamese()) {
 						if (onlyOne) {
 							return step;
 						} else {
@@ -639,7 +639,7 @@ public class SingleDigitPatternSolver extends AbstractSolver {
 		List<SolutionStep> newList = new ArrayList<SolutionStep>();
 		steps = newList;
 		findTwoStringKite(false);
-		if (Options.getInstance().isAllowDualsAndSiamese()) {
+		if (getConfig().isAllowDualsAndSiamese()) {
 			findDualTwoStringKites(steps);
 		}
 		Collections.sort(steps);
@@ -655,7 +655,7 @@ public class SingleDigitPatternSolver extends AbstractSolver {
 	protected SolutionStep findTwoStringKite() {
 		steps.clear();
 		SolutionStep step = findTwoStringKite(true);
-		if (step != null && !Options.getInstance().isAllowDualsAndSiamese()) {
+		if (step != null && !getConfig().isAllowDualsAndSiamese()) {
 			return step;
 		}
 		findDualTwoStringKites(steps);
@@ -755,7 +755,7 @@ public class SingleDigitPatternSolver extends AbstractSolver {
 						// in a different color)
 						step.addFin(only2Indices[i][0], cand);
 						step.addFin(only2Indices[j][0], cand);
-						if (onlyOne && !Options.getInstance().isAllowDualsAndSiamese()) {
+						if (onlyOne && !getConfig().isAllowDualsAndSiamese()) {
 							return step;
 						} else {
 							steps.add(step);
@@ -778,7 +778,7 @@ public class SingleDigitPatternSolver extends AbstractSolver {
 	 * @param kites All available 2-String-Kites
 	 */
 	private void findDualTwoStringKites(List<SolutionStep> kites) {
-		if (!Options.getInstance().isAllowDualsAndSiamese()) {
+		if (!getConfig().isAllowDualsAndSiamese()) {
 			// do nothing
 			return;
 		}
@@ -0,0 +1,426 @@
+/*
+ * Copyright (C) 2021 Aarre Laakso
+ *
+ * This file is part of HoDoKu.
+ *
+ * HoDoKu is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * HoDoKu is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with HoDoKu. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package solver;
+
+import sudoku.DifficultyLevel;
+import sudoku.Options;
+import sudoku.StepConfig;
+
+/**
+ * An immutable snapshot of all {@link Options} the solvers depend on.<br>
+ * {@link Options} is a global singleton that can be changed by the GUI at any
+ * time; some searches (e.g. "find all fishes") even changed it temporarily.
+ * Solvers running in more than one thread need a private, consistent view of
+ * the configuration, which is provided by this class.<br>
+ * <br>
+ * The step configurations and difficulty levels are deep copies, they must not
+ * be changed by the caller. Variants of a configuration can be created with
+ * the <code>with...()</code> methods.
+ *
+ * @author Aarre Laakso
+ */
+public final class SolverConfig {
+	/** The steps for normal solving (sorted by index). */
+	private final StepConfig[] solverSteps;
+	/** The steps for progress measurement (sorted by progress index). */
+	private final StepConfig[] solverStepsProgress;
+	/** The difficulty levels (index == ordinal). */
+	private final DifficultyLevel[] difficultyLevels;
+	// fishes
+	private final int maxFins;
+	private final int maxEndoFins;
+	private final boolean checkTemplates;
+	private final int templateThreads;
+	private final boolean allowDualsAndSiamese;
+	private final boolean onlyOneFishPerStep;
+	private final int krakenMaxFishType;
+	private final int krakenMaxFishSize;
+	private final int maxKrakenFins;
+	private final int maxKrakenEndoFins;
+	// single digit patterns, uniqueness
+	private final boolean allowErsWithOnlyTwoCandidates;
+	private final boolean allowUniquenessMissingCandidates;
+	// chains and tabling
+	private final boolean restrictChainSize;
+	private final int restrictChainLength;
+	private final int restrictNiceLoopLength;
+	private final int maxTableEntryLength;
+	private final int anzTableLookAhead;
+	private final int tableThreads;
+	private final boolean allowAlsInTablingChains;
+	private final boolean onlyOneChainPerStep;
+	// ALS
+	private final int allStepsAlsChainLength;
+	private final boolean allStepsAlsChainForwardOnly;
+	private final boolean allowAlsOverlap;
+	private final boolean onlyOneAlsPerStep;
+	private final int rcThreads;
+
+	/** The last snapshot of the global {@link Options}, shared by all solvers. */
+	private static volatile SolverConfig current;
+
+	/**
+	 * Creates a snapshot of the current values in <code>options</code>.
+	 *
+	 * @param options
+	 */
+	public SolverConfig(Options options) {
+		solverSteps = options.copyStepConfigs(options.solverSteps, false, false, true);
+		solverStepsProgress = options.copyStepConfigs(options.solverStepsProgress, false, false, true);
+		difficultyLevels = options.copyDifficultyLevels(options.getDifficultyLevels());
+		maxFins = options.getMaxFins();
+		maxEndoFins = options.getMaxEndoFins();
+		checkTemplates = options.isCheckTemplates();
+		templateThreads = options.getTemplateThreads();
+		allowDualsAndSiamese = options.isAllowDualsAndSiamese();
+		onlyOneFishPerStep = options.isOnlyOneFishPerStep();
+		krakenMaxFishType = options.getKrakenMaxFishType();
+		krakenMaxFishSize = options.getKrakenMaxFishSize();
+		maxKrakenFins = options.getMaxKrakenFins();
+		maxKrakenEndoFins = options.getMaxKrakenEndoFins();
+		allowErsWithOnlyTwoCandidates = options.isAllowErsWithOnlyTwoCandidates();
+		allowUniquenessMissingCandidates = options.isAllowUniquenessMissingCandidates();
+		restrictChainSize = options.isRestrictChainSize();
+		restrictChainLength = options.getRestrictChainLength();
+		restrictNiceLoopLength = options.getRestrictNiceLoopLength();
+		maxTableEntryLength = options.getMaxTableEntryLength();
+		anzTableLookAhead = options.getAnzTableLookAhead();
+		tableThreads = options.getTableThreads();
+		allowAlsInTablingChains = options.isAllowAlsInTablingChains();
+		onlyOneChainPerStep = options.isOnlyOneChainPerStep();
+		allStepsAlsChainLength = options.getAllStepsAlsChainLength();
+		allStepsAlsChainForwardOnly = options.isAllStepsAlsChainForwardOnly();
+		allowAlsOverlap = options.isAllowAlsOverlap();
+		onlyOneAlsPerStep = options.isOnlyOneAlsPerStep();
+		rcThreads = options.getRcThreads();
+	}
+
+	/**
+	 * Copies <code>src</code> but replaces the fin limits and the template
+	 * flag. The (immutable) arrays are shared.
+	 *
+	 * @param src
+	 * @param maxFins
+	 * @param maxEndoFins
+	 * @param checkTemplates
+	 */
+	private SolverConfig(SolverConfig src, int maxFins, int maxEndoFins, boolean checkTemplates) {
+		solverSteps = src.solverSteps;
+		solverStepsProgress = src.solverStepsProgress;
+		difficultyLevels = src.difficultyLevels;
+		this.maxFins = maxFins;
+		this.maxEndoFins = maxEndoFins;
+		this.checkTemplates = checkTemplates;
+		templateThreads = src.templateThreads;
+		allowDualsAndSiamese = src.allowDualsAndSiamese;
+		onlyOneFishPerStep = src.onlyOneFishPerStep;
+		krakenMaxFishType = src.krakenMaxFishType;
+		krakenMaxFishSize = src.krakenMaxFishSize;
+		maxKrakenFins = src.maxKrakenFins;
+		maxKrakenEndoFins = src.maxKrakenEndoFins;
+		allowErsWithOnlyTwoCandidates = src.allowErsWithOnlyTwoCandidates;
+		allowUniquenessMissingCandidates = src.allowUniquenessMissingCandidates;
+		restrictChainSize = src.restrictChainSize;
+		restrictChainLength = src.restrictChainLength;
+		restrictNiceLoopLength = src.restrictNiceLoopLength;
+		maxTableEntryLength = src.maxTableEntryLength;
+		anzTableLookAhead = src.anzTableLookAhead;
+		tableThreads = src.tableThreads;
+		allowAlsInTablingChains = src.allowAlsInTablingChains;
+		onlyOneChainPerStep = src.onlyOneChainPerStep;
+		allStepsAlsChainLength = src.allStepsAlsChainLength;
+		allStepsAlsChainForwardOnly = src.allStepsAlsChainForwardOnly;
+		allowAlsOverlap = src.allowAlsOverlap;
+		onlyOneAlsPerStep = src.onlyOneAlsPerStep;
+		rcThreads = src.rcThreads;
+	}
+
+	/**
+	 * Creates a snapshot of the global {@link Options}. The last snapshot is
+	 * reused as long as the options have not been changed, so that asking for
+	 * the current configuration once per step doesn't copy all step
+	 * configurations again.
+	 *
+	 * @return
+	 */
+	public static SolverConfig fromOptions() {
+		Options options = Options.getInstance();
+		SolverConfig act = current;
+		if (act == null || !act.isSnapshotOf(options)) {
+			act = new SolverConfig(options);
+			current = act;
+		}
+		return act;
+	}
+
+	/**
+	 * Checks, if this configuration still reflects all values in
+	 * <code>options</code>. No objects are created.
+	 *
+	 * @param options
+	 * @return
+	 */
+	public boolean isSnapshotOf(Options options) {
+		return sameSteps(solverSteps, options.solverSteps)
+				&& sameSteps(solverStepsProgress, options.solverStepsProgress)
+				&& sameLevels(difficultyLevels, options.getDifficultyLevels())
+				&& maxFins == options.getMaxFins()
+				&& maxEndoFins == options.getMaxEndoFins()
+				&& checkTemplates == options.isCheckTemplates()
+				&& templateThreads == options.getTemplateThreads()
+				&& allowDualsAndSiamese == options.isAllowDualsAndSiamese()
+				&& onlyOneFishPerStep == options.isOnlyOneFishPerStep()
+				&& krakenMaxFishType == options.getKrakenMaxFishType()
+				&& krakenMaxFishSize == options.getKrakenMaxFishSize()
+				&& maxKrakenFins == options.getMaxKrakenFins()
+				&& maxKrakenEndoFins == options.getMaxKrakenEndoFins()
+				&& allowErsWithOnlyTwoCandidates == options.isAllowErsWithOnlyTwoCandidates()
+				&& allowUniquenessMissingCandidates == options.isAllowUniquenessMissingCandidates()
+				&& restrictChainSize == options.isRestrictChainSize()
+				&& restrictChainLength == options.getRestrictChainLength()
+				&& restrictNiceLoopLength == options.getRestrictNiceLoopLength()
+				&& maxTableEntryLength == options.getMaxTableEntryLength()
+				&& anzTableLookAhead == options.getAnzTableLookAhead()
+				&& tableThreads == options.getTableThreads()
+				&& allowAlsInTablingChains == options.isAllowAlsInTablingChains()
+				&& onlyOneChainPerStep == options.isOnlyOneChainPerStep()
+				&& allStepsAlsChainLength == options.getAllStepsAlsChainLength()
+				&& allStepsAlsChainForwardOnly == options.isAllStepsAlsChainForwardOnly()
+				&& allowAlsOverlap == options.isAllowAlsOverlap()
+				&& onlyOneAlsPerStep == options.isOnlyOneAlsPerStep()
+				&& rcThreads == options.getRcThreads();
+	}
+
+	private static boolean sameSteps(StepConfig[] copy, StepConfig[] src) {
+		if (src == null || copy.length != src.length) {
+			return false;
+		}
+		for (int i = 0; i < copy.length; i++) {
+			StepConfig c = copy[i];
+			StepConfig s = src[i];
+			if (c.getIndex() != s.getIndex() || c.getType() != s.getType() || c.getLevel() != s.getLevel()
+					|| c.getCategory() != s.getCategory() || c.getBaseScore() != s.getBaseScore()
+					|| c.getAdminScore() != s.getAdminScore() || c.isEnabled() != s.isEnabled()
+					|| c.isAllStepsEnabled() != s.isAllStepsEnabled() || c.getIndexProgress() != s.getIndexProgress()
+					|| c.isEnabledProgress() != s.isEnabledProgress()
+					|| c.isEnabledTraining() != s.isEnabledTraining()) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static boolean sameLevels(DifficultyLevel[] copy, DifficultyLevel[] src) {
+		if (src == null || copy.length != src.length) {
+			return false;
+		}
+		for (int i = 0; i < copy.length; i++) {
+			DifficultyLevel c = copy[i];
+			DifficultyLevel s = src[i];
+			if (c.getType() != s.getType() || c.getMaxScore() != s.getMaxScore() || c.getName() != s.getName()
+					|| c.getBackgroundColor() != s.getBackgroundColor()
+					|| c.getForegroundColor() != s.getForegroundColor()) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Returns a configuration that differs from this one only in the fin
+	 * limits.
+	 *
+	 * @param maxFins
+	 * @param maxEndoFins
+	 * @return
+	 */
+	public SolverConfig withFins(int maxFins, int maxEndoFins) {
+		if (maxFins == this.maxFins && maxEndoFins == this.maxEndoFins) {
+			return this;
+		}
+		return new SolverConfig(this, maxFins, maxEndoFins, checkTemplates);
+	}
+
+	/**
+	 * Returns a configuration that differs from this one only in the
+	 * <code>checkTemplates</code> flag.
+	 *
+	 * @param checkTemplates
+	 * @return
+	 */
+	public SolverConfig withCheckTemplates(boolean checkTemplates) {
+		if (checkTemplates == this.checkTemplates) {
+			return this;
+		}
+		return new SolverConfig(this, maxFins, maxEndoFins, checkTemplates);
+	}
+
+	/**
+	 * The steps for normal solving. The array must not be changed.
+	 *
+	 * @return
+	 */
+	public StepConfig[] getSolverSteps() {
+		return solverSteps;
+	}
+
+	/**
+	 * The steps for progress measurement. The array must not be changed.
+	 *
+	 * @return
+	 */
+	public StepConfig[] getSolverStepsProgress() {
+		return solverStepsProgress;
+	}
+
+	/**
+	 * Find a {@link DifficultyLevel} via its ordinal.
+	 *
+	 * @param ordinal
+	 * @return
+	 */
+	public DifficultyLevel getDifficultyLevel(int ordinal) {
+		for (int i = 0; i < difficultyLevels.length; i++) {
+			if (ordinal == difficultyLevels[i].getOrdinal()) {
+				return difficultyLevels[i];
+			}
+		}
+		return null;
+	}
+
+	public int getMaxFins() {
+		return maxFins;
+	}
+
+	public int getMaxEndoFins() {
+		return maxEndoFins;
+	}
+
+	public boolean isCheckTemplates() {
+		return checkTemplates;
+	}
+
+	/**
+	 * The number of threads for the template check (<code>0</code> means one
+	 * thread per processor).
+	 *
+	 * @return
+	 */
+	public int getTemplateThreads() {
+		return templateThreads;
+	}
+
+	public boolean isAllowDualsAndSiamese() {
+		return allowDualsAndSiamese;
+	}
+
+	public boolean isOnlyOneFishPerStep() {
+		return onlyOneFishPerStep;
+	}
+
+	public int getKrakenMaxFishType() {
+		return krakenMaxFishType;
+	}
+
+	public int getKrakenMaxFishSize() {
+		return krakenMaxFishSize;
+	}
+
+	public int getMaxKrakenFins() {
+		return maxKrakenFins;
+	}
+
+	public int getMaxKrakenEndoFins() {
+		return maxKrakenEndoFins;
+	}
+
+	public boolean isAllowErsWithOnlyTwoCandidates() {
+		return allowErsWithOnlyTwoCandidates;
+	}
+
+	public boolean isAllowUniquenessMissingCandidates() {
+		return allowUniquenessMissingCandidates;
+	}
+
+	public boolean isRestrictChainSize() {
+		return restrictChainSize;
+	}
+
+	public int getRestrictChainLength() {
+		return restrictChainLength;
+	}
+
+	public int getRestrictNiceLoopLength() {
+		return restrictNiceLoopLength;
+	}
+
+	public int getMaxTableEntryLength() {
+		return maxTableEntryLength;
+	}
+
+	public int getAnzTableLookAhead() {
+		return anzTableLookAhead;
+	}
+
+	/**
+	 * The number of threads for building the tables of forcing nets
+	 * (<code>0</code> means one thread per processor).
+	 *
+	 * @return
+	 */
+	public int getTableThreads() {
+		return tableThreads;
+	}
+
+	public boolean isAllowAlsInTablingChains() {
+		return allowAlsInTablingChains;
+	}
+
+	public boolean isOnlyOneChainPerStep() {
+		return onlyOneChainPerStep;
+	}
+
+	public int getAllStepsAlsChainLength() {
+		return allStepsAlsChainLength;
+	}
+
+	public boolean isAllStepsAlsChainForwardOnly() {
+		return allStepsAlsChainForwardOnly;
+	}
+
+	public boolean isAllowAlsOverlap() {
+		return allowAlsOverlap;
+	}
+
+	public boolean isOnlyOneAlsPerStep() {
+		return onlyOneAlsPerStep;
+	}
+
+	/**
+	 * The number of threads for the RC search (<code>0</code> means one thread
+	 * per processor).
+	 *
+	 * @return
+	 */
+	public int getRcThreads() {
+		return rcThreads;
+	}
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright (C) 2021 Aarre Laakso
+ *
+ * This file is part of HoDoKu.
+ *
+ * HoDoKu is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * HoDoKu is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with HoDoKu. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package solver;
+
+/**
+ * A time budget for a search. The deadline is set in a {@link SudokuSolver}
+ * (or directly in a {@link SudokuStepFinder}); the expensive solvers (tabling,
+ * fish, ALS and chains) check it in their loops and stop searching, when it
+ * has expired. The {@link SudokuSolver} then finishes the puzzle with singles
+ * and brute force and reports the time-out (see
+ * {@link SudokuSolver#isTimedOut()}).<br>
+ * A deadline can be cancelled from any thread.
+ *
+ * @author Aarre Laakso
+ */
+public final class SolverDeadline {
+	/** Point in time (System.nanoTime()), when the deadline expires. */
+	private final long endNanos;
+	/** <code>false</code> if the deadline can only be cancelled. */
+	private final boolean limited;
+	/** Set when the deadline has expired or has been cancelled. */
+	private volatile boolean expired = false;
+
+	/**
+	 * Creates a deadline that expires <code>timeoutMillis</code> ms from now. A
+	 * value less than or equal to 0 creates a deadline that never expires by
+	 * itself but can be cancelled.
+	 *
+	 * @param timeoutMillis
+	 */
+	public SolverDeadline(long timeoutMillis) {
+		limited = timeoutMillis > 0;
+		endNanos = System.nanoTime() + (limited ? timeoutMillis * 1000000L : 0);
+	}
+
+	/**
+	 * Stops all searches using this deadline as soon as possible.
+	 */
+	public void cancel() {
+		expired = true;
+	}
+
+	/**
+	 * Checks the deadline. Once expired, it stays expired.
+	 *
+	 * @return
+	 */
+	public boolean isExpired() {
+		if (expired) {
+			return true;
+		}
+		if (limited && System.nanoTime() - endNanos >= 0) {
+			expired = true;
+		}
+		return expired;
+	}
+
+	/**
+	 * The remaining time in ms (<code>Long.MAX_VALUE</code> if the deadline has
+	 * no time limit).
+	 *
+	 * @return
+	 */
+	public long getRemainingMillis() {
+		if (isExpired()) {
+			return 0;
+		}
+		if (!limited) {
+			return Long.MAX_VALUE;
+		}
+		return Math.max(0, (endNanos - System.nanoTime()) / 1000000L);
+	}
+}
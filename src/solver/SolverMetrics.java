@@ -0,0 +1,148 @@
+/*
+ * Copyright (C) 2021 Aarre Laakso
+ *
+ * This file is part of HoDoKu.
+ *
+ * HoDoKu is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * HoDoKu is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with HoDoKu. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package solver;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import sudoku.SolutionType;
+
+/**
+ * The JMX bean for the metrics of all solvers, registered as
+ * {@link #OBJECT_NAME}. Every call works on a new snapshot of the metrics.
+ *
+ * @author Aarre Laakso
+ */
+public class SolverMetrics implements SolverMetricsMXBean {
+	/** The name of the bean. */
+	public static final String OBJECT_NAME = "hodoku:type=SolverMetrics";
+
+	/**
+	 * Registers the bean with the platform MBean server. The bean is only
+	 * registered when the metrics are actually requested (/metrics, /server);
+	 * calling the method more than once does no harm.
+	 */
+	public static void register() {
+		try {
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			ObjectName name = new ObjectName(OBJECT_NAME);
+			if (!server.isRegistered(name)) {
+				server.registerMBean(new SolverMetrics(), name);
+			}
+		} catch (Exception ex) {
+			Logger.getLogger(SolverMetrics.class.getName()).log(Level.WARNING, "Error registering MBean", ex);
+		}
+	}
+
+	private static SolutionType getType(String technique) {
+		return SolutionType.valueOf(technique);
+	}
+
+	private static int getCache(String cache) {
+		for (int i = 0; i < StepMetrics.getCacheAnz(); i++) {
+			if (StepMetrics.getCacheName(i).equalsIgnoreCase(cache)) {
+				return i;
+			}
+		}
+		throw new IllegalArgumentException("Unknown cache: " + cache);
+	}
+
+	@Override
+	public String[] getTechniques() {
+		StepMetrics metrics = SudokuSolverFactory.getMetrics();
+		List<String> result = new ArrayList<String>();
+		for (SolutionType type : SolutionType.values()) {
+			if (metrics.getCalls(type) > 0) {
+				result.add(type.name());
+			}
+		}
+		return result.toArray(new String[result.size()]);
+	}
+
+	@Override
+	public String getReport() {
+		return SudokuSolverFactory.getMetrics().getReport();
+	}
+
+	@Override
+	public boolean isAllocationTracking() {
+		return StepMetrics.isAllocationTracking();
+	}
+
+	@Override
+	public void setAllocationTracking(boolean tracking) {
+		StepMetrics.setAllocationTracking(tracking);
+	}
+
+	@Override
+	public long getCalls(String technique) {
+		return SudokuSolverFactory.getMetrics().getCalls(getType(technique));
+	}
+
+	@Override
+	public long getHits(String technique) {
+		return SudokuSolverFactory.getMetrics().getHits(getType(technique));
+	}
+
+	@Override
+	public long getPercentileNanos(String technique, double percentile) {
+		return SudokuSolverFactory.getMetrics().getPercentileNanos(getType(technique), percentile);
+	}
+
+	@Override
+	public long getMaxNanos(String technique) {
+		return SudokuSolverFactory.getMetrics().getMaxNanos(getType(technique));
+	}
+
+	@Override
+	public long getTotalNanos(String technique) {
+		return SudokuSolverFactory.getMetrics().getTotalNanos(getType(technique));
+	}
+
+	@Override
+	public long getAllocatedBytes(String technique) {
+		return SudokuSolverFactory.getMetrics().getAllocatedBytes(getType(technique));
+	}
+
+	@Override
+	public long getCacheCalls(String cache) {
+		return SudokuSolverFactory.getMetrics().getCacheCalls(getCache(cache));
+	}
+
+	@Override
+	public long getCacheNanos(String cache) {
+		return SudokuSolverFactory.getMetrics().getCacheNanos(getCache(cache));
+	}
+
+	@Override
+	public long getCachePercentileNanos(String cache, double percentile) {
+		return SudokuSolverFactory.getMetrics().getCachePercentileNanos(getCache(cache), percentile);
+	}
+
+	@Override
+	public void reset() {
+		SudokuSolverFactory.resetMetrics();
+	}
+}
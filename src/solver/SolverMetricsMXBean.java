@@ -0,0 +1,73 @@
+/*
+ * Copyright (C) 2021 Aarre Laakso
+ *
+ * This file is part of HoDoKu.
+ *
+ * HoDoKu is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * HoDoKu is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with HoDoKu. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package solver;
+
+/**
+ * JMX interface for the {@link StepMetrics} of all solvers (see
+ * {@link SudokuSolverFactory#getMetrics()}). Techniques are given by the names
+ * of the {@link sudoku.SolutionType} constants (e.g. <code>XY_WING</code>),
+ * caches by the names used in the report (<code>ALS</code>, <code>RC</code>,
+ * <code>Templates</code>, <code>Tables</code>). All times are in nanoseconds.
+ *
+ * @author Aarre Laakso
+ */
+public interface SolverMetricsMXBean {
+	/**
+	 * All techniques that have been searched for.
+	 *
+	 * @return
+	 */
+	String[] getTechniques();
+
+	/**
+	 * The complete report as printed by <code>/metrics</code>.
+	 *
+	 * @return
+	 */
+	String getReport();
+
+	boolean isAllocationTracking();
+
+	void setAllocationTracking(boolean tracking);
+
+	long getCalls(String technique);
+
+	long getHits(String technique);
+
+	long getPercentileNanos(String technique, double percentile);
+
+	long getMaxNanos(String technique);
+
+	long getTotalNanos(String technique);
+
+	long getAllocatedBytes(String technique);
+
+	long getCacheCalls(String cache);
+
+	long getCacheNanos(String cache);
+
+	long getCachePercentileNanos(String cache, double percentile);
+
+	/**
+	 * Deletes all metrics.
+	 */
+	void reset();
+}
@@ -0,0 +1,498 @@
+/*
+ * Copyright (C) 2021 Aarre Laakso
+ *
+ * This file is part of HoDoKu.
+ *
+ * HoDoKu is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * HoDoKu is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with HoDoKu. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package solver;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import sudoku.SolutionType;
+
+/**
+ * Runtime metrics of a {@link SudokuStepFinder}: for every {@link SolutionType}
+ * the number of calls to {@link SudokuStepFinder#getStep(SolutionType)}, the
+ * number of calls that found a step, a latency {@link Histogram} and the bytes
+ * allocated by the searches. For the caches shared between the specialized
+ * solvers (ALS, RCs, templates, tables) the time needed to build them is
+ * recorded.<br>
+ * <br>
+ * Every step finder has its own instance; all methods are synchronized, the
+ * metrics can be read while the step finder is working. The metrics of all
+ * solvers are combined by {@link SudokuSolverFactory#getMetrics()}.<br>
+ * <br>
+ * Counting allocated bytes needs support by the JVM and costs some time, it
+ * has to be switched on with {@link #setAllocationTracking(boolean)}.
+ *
+ * @author Aarre Laakso
+ */
+public final class StepMetrics {
+	/** Cache index: ALS ({@link SudokuStepFinder#getAlses()}). */
+	public static final int CACHE_ALS = 0;
+	/** Cache index: RCs between ALS. */
+	public static final int CACHE_RC = 1;
+	/** Cache index: templates. */
+	public static final int CACHE_TEMPLATES = 2;
+	/** Cache index: the tables of {@link TablingSolver}. */
+	public static final int CACHE_TABLES = 3;
+	/** Names of the caches for output. */
+	private static final String[] CACHE_NAMES = { "ALS", "RC", "Templates", "Tables" };
+
+	/** The JVM's thread bean, if it can count allocated bytes. */
+	private static final com.sun.management.ThreadMXBean ALLOCATION_BEAN = getAllocationBean();
+	/** If set, the allocated bytes are counted. */
+	private static volatile boolean allocationTracking = false;
+
+	/** Number of searches per type. */
+	private final long[] calls = new long[SolutionType.values().length];
+	/** Number of searches per type that found a step. */
+	private final long[] hits = new long[calls.length];
+	/** Allocated bytes per type. */
+	private final long[] allocatedBytes = new long[calls.length];
+	/** Latencies per type (created when the first search is recorded). */
+	private final Histogram[] histograms = new Histogram[calls.length];
+	/** Time needed for building the caches. */
+	private final Histogram[] cacheHistograms = new Histogram[CACHE_NAMES.length];
+
+	/**
+	 * Creates an empty instance.
+	 */
+	public StepMetrics() {
+		for (int i = 0; i < cacheHistograms.length; i++) {
+			cacheHistograms[i] = new Histogram();
+		}
+	}
+
+	private static com.sun.management.ThreadMXBean getAllocationBean() {
+		try {
+			ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+			if (bean instanceof com.sun.management.ThreadMXBean) {
+				com.sun.management.ThreadMXBean allocationBean = (com.sun.management.ThreadMXBean) bean;
+				if (allocationBean.isThreadAllocatedMemorySupported()) {
+					return allocationBean;
+				}
+			}
+		} catch (Throwable ex) {
+			// not available on this JVM
+		}
+		return null;
+	}
+
+	/**
+	 * Can allocated bytes be counted on this JVM?
+	 *
+	 * @return
+	 */
+	public static boolean isAllocationTrackingSupported() {
+		return ALLOCATION_BEAN != null;
+	}
+
+	/**
+	 * Are allocated bytes counted?
+	 *
+	 * @return
+	 */
+	public static boolean isAllocationTracking() {
+		return allocationTracking;
+	}
+
+	/**
+	 * Switches counting of allocated bytes on or off (for all step finders). If
+	 * the JVM does not support it, the call is ignored.
+	 *
+	 * @param tracking
+	 */
+	public static void setAllocationTracking(boolean tracking) {
+		if (tracking && ALLOCATION_BEAN != null) {
+			if (!ALLOCATION_BEAN.isThreadAllocatedMemoryEnabled()) {
+				ALLOCATION_BEAN.setThreadAllocatedMemoryEnabled(true);
+			}
+			allocationTracking = true;
+		} else {
+			allocationTracking = false;
+		}
+	}
+
+	/**
+	 * The number of bytes allocated by the current thread or <code>-1</code>,
+	 * if allocations are not counted.
+	 *
+	 * @return
+	 */
+	static long getAllocatedBytes() {
+		if (!allocationTracking) {
+			return -1;
+		}
+		return ALLOCATION_BEAN.getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+
+	/**
+	 * Records one search.
+	 *
+	 * @param type
+	 * @param nanos
+	 * @param bytes Allocated bytes or <code>-1</code>
+	 * @param hit   <code>true</code>, if a step was found
+	 */
+	synchronized void recordStep(SolutionType type, long nanos, long bytes, boolean hit) {
+		int index = type.ordinal();
+		calls[index]++;
+		if (hit) {
+			hits[index]++;
+		}
+		if (bytes > 0) {
+			allocatedBytes[index] += bytes;
+		}
+		if (histograms[index] == null) {
+			histograms[index] = new Histogram();
+		}
+		histograms[index].record(nanos);
+	}
+
+	/**
+	 * Records the time for building a cache.
+	 *
+	 * @param cache One of the <code>CACHE_...</code> constants
+	 * @param nanos
+	 */
+	synchronized void recordCache(int cache, long nanos) {
+		cacheHistograms[cache].record(nanos);
+	}
+
+	/**
+	 * Adds all metrics of <code>other</code> to this instance.
+	 *
+	 * @param other
+	 */
+	public void add(StepMetrics other) {
+		// never hold both locks
+		StepMetrics src = other.copy();
+		synchronized (this) {
+			for (int i = 0; i < calls.length; i++) {
+				calls[i] += src.calls[i];
+				hits[i] += src.hits[i];
+				allocatedBytes[i] += src.allocatedBytes[i];
+				if (src.histograms[i] != null) {
+					if (histograms[i] == null) {
+						histograms[i] = new Histogram();
+					}
+					histograms[i].add(src.histograms[i]);
+				}
+			}
+			for (int i = 0; i < cacheHistograms.length; i++) {
+				cacheHistograms[i].add(src.cacheHistograms[i]);
+			}
+		}
+	}
+
+	/**
+	 * Creates a copy of the current metrics.
+	 *
+	 * @return
+	 */
+	public synchronized StepMetrics copy() {
+		StepMetrics result = new StepMetrics();
+		System.arraycopy(calls, 0, result.calls, 0, calls.length);
+		System.arraycopy(hits, 0, result.hits, 0, hits.length);
+		System.arraycopy(allocatedBytes, 0, result.allocatedBytes, 0, allocatedBytes.length);
+		for (int i = 0; i < histograms.length; i++) {
+			if (histograms[i] != null) {
+				result.histograms[i] = new Histogram();
+				result.histograms[i].add(histograms[i]);
+			}
+		}
+		for (int i = 0; i < cacheHistograms.length; i++) {
+			result.cacheHistograms[i].add(cacheHistograms[i]);
+		}
+		return result;
+	}
+
+	/**
+	 * Deletes all metrics.
+	 */
+	public synchronized void clear() {
+		for (int i = 0; i < calls.length; i++) {
+			calls[i] = 0;
+			hits[i] = 0;
+			allocatedBytes[i] = 0;
+			histograms[i] = null;
+		}
+		for (int i = 0; i < cacheHistograms.length; i++) {
+			cacheHistograms[i].clear();
+		}
+	}
+
+	public synchronized long getCalls(SolutionType type) {
+		return calls[type.ordinal()];
+	}
+
+	public synchronized long getHits(SolutionType type) {
+		return hits[type.ordinal()];
+	}
+
+	public synchronized long getAllocatedBytes(SolutionType type) {
+		return allocatedBytes[type.ordinal()];
+	}
+
+	public synchronized long getTotalNanos(SolutionType type) {
+		Histogram histogram = histograms[type.ordinal()];
+		return histogram == null ? 0 : histogram.getTotal();
+	}
+
+	public synchronized long getMaxNanos(SolutionType type) {
+		Histogram histogram = histograms[type.ordinal()];
+		return histogram == null ? 0 : histogram.getMax();
+	}
+
+	/**
+	 * The latency of the searches for <code>type</code> at
+	 * <code>percentile</code> (see {@link Histogram#getValueAtPercentile(double)}).
+	 *
+	 * @param type
+	 * @param percentile
+	 * @return
+	 */
+	public synchronized long getPercentileNanos(SolutionType type, double percentile) {
+		Histogram histogram = histograms[type.ordinal()];
+		return histogram == null ? 0 : histogram.getValueAtPercentile(percentile);
+	}
+
+	/**
+	 * Number of caches (see the <code>CACHE_...</code> constants).
+	 *
+	 * @return
+	 */
+	public static int getCacheAnz() {
+		return CACHE_NAMES.length;
+	}
+
+	/**
+	 * The name of cache <code>cache</code>.
+	 *
+	 * @param cache
+	 * @return
+	 */
+	public static String getCacheName(int cache) {
+		return CACHE_NAMES[cache];
+	}
+
+	public synchronized long getCacheCalls(int cache) {
+		return cacheHistograms[cache].getCount();
+	}
+
+	public synchronized long getCacheNanos(int cache) {
+		return cacheHistograms[cache].getTotal();
+	}
+
+	public synchronized long getCacheMaxNanos(int cache) {
+		return cacheHistograms[cache].getMax();
+	}
+
+	public synchronized long getCachePercentileNanos(int cache, double percentile) {
+		return cacheHistograms[cache].getValueAtPercentile(percentile);
+	}
+
+	/**
+	 * Prints all metrics (techniques in the order of {@link SolutionType}, only
+	 * techniques that have been searched for).
+	 *
+	 * @param out
+	 */
+	public synchronized void print(PrintWriter out) {
+		out.println("Metrics:");
+		out.printf("  %-40s %10s %10s %10s %10s %10s %12s %12s%n", "Technique", "calls", "hits", "p50[us]", "p99[us]",
+				"max[us]", "total[ms]", "alloc[KB]");
+		SolutionType[] types = SolutionType.values();
+		for (int i = 0; i < types.length; i++) {
+			if (calls[i] > 0) {
+				printLine(out, types[i].getStepName(), calls[i], hits[i], histograms[i], allocatedBytes[i]);
+			}
+		}
+		out.println("Caches:");
+		for (int i = 0; i < cacheHistograms.length; i++) {
+			if (cacheHistograms[i].getCount() > 0) {
+				printLine(out, CACHE_NAMES[i], cacheHistograms[i].getCount(), -1, cacheHistograms[i], -1);
+			}
+		}
+		if (!allocationTracking) {
+			out.println("(allocations are not counted)");
+		}
+	}
+
+	private void printLine(PrintWriter out, String name, long anzCalls, long anzHits, Histogram histogram,
+			long bytes) {
+		out.printf("  %-40s %10d %10s %10.1f %10.1f %10.1f %12.2f %12s%n", name, anzCalls,
+				anzHits < 0 ? "-" : Long.toString(anzHits), histogram.getValueAtPercentile(50) / 1000.0,
+				histogram.getValueAtPercentile(99) / 1000.0, histogram.getMax() / 1000.0,
+				histogram.getTotal() / 1000000.0, bytes < 0 ? "-" : Long.toString(bytes / 1024));
+	}
+
+	/**
+	 * The output of {@link #print(PrintWriter)} as string.
+	 *
+	 * @return
+	 */
+	public String getReport() {
+		StringWriter buffer = new StringWriter();
+		PrintWriter out = new PrintWriter(buffer);
+		print(out);
+		out.flush();
+		return buffer.toString();
+	}
+
+	/**
+	 * A histogram for latencies in nanoseconds with logarithmic buckets (like a
+	 * HDR histogram): every power of 2 is split into {@link #SUB_BUCKET_ANZ}
+	 * linear buckets, the relative error of a recorded value is at most 1/32.
+	 * Values above 2^{@link #MAX_EXPONENT} ns (about 18 minutes) go into the last
+	 * bucket. Not thread safe.
+	 */
+	public static final class Histogram {
+		/** log2 of {@link #SUB_BUCKET_ANZ}. */
+		private static final int SUB_BUCKET_BITS = 5;
+		/** Number of buckets per power of 2. */
+		private static final int SUB_BUCKET_ANZ = 1 << SUB_BUCKET_BITS;
+		/** The largest power of 2 with its own buckets. */
+		private static final int MAX_EXPONENT = 40;
+		/** Number of buckets. */
+		private static final int BUCKET_ANZ = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKET_ANZ;
+
+		/** The number of values per bucket. */
+		private final long[] counts = new long[BUCKET_ANZ];
+		/** Number of values. */
+		private long count;
+		/** Sum of all values. */
+		private long total;
+		/** The largest value. */
+		private long max;
+
+		/**
+		 * The index of the bucket for <code>value</code>.
+		 *
+		 * @param value
+		 * @return
+		 */
+		private static int getBucket(long value) {
+			if (value < SUB_BUCKET_ANZ) {
+				return value < 0 ? 0 : (int) value;
+			}
+			int exponent = 63 - Long.numberOfLeadingZeros(value);
+			if (exponent > MAX_EXPONENT) {
+				return BUCKET_ANZ - 1;
+			}
+			int shift = exponent - SUB_BUCKET_BITS;
+			return (shift + 1) * SUB_BUCKET_ANZ + (int) ((value >>> shift) - SUB_BUCKET_ANZ);
+		}
+
+		/**
+		 * The largest value that is stored in bucket <code>bucket</code>.
+		 *
+		 * @param bucket
+		 * @return
+		 */
+		private static long getBucketMax(int bucket) {
+			if (bucket < SUB_BUCKET_ANZ) {
+				return bucket;
+			}
+			int shift = bucket / SUB_BUCKET_ANZ - 1;
+			long sub = bucket % SUB_BUCKET_ANZ + SUB_BUCKET_ANZ;
+			return ((sub + 1) << shift) - 1;
+		}
+
+		/**
+		 * Records one value.
+		 *
+		 * @param value
+		 */
+		public void record(long value) {
+			counts[getBucket(value)]++;
+			count++;
+			total += value;
+			if (value > max) {
+				max = value;
+			}
+		}
+
+		/**
+		 * Adds all values of <code>other</code>.
+		 *
+		 * @param other
+		 */
+		public void add(Histogram other) {
+			for (int i = 0; i < counts.length; i++) {
+				counts[i] += other.counts[i];
+			}
+			count += other.count;
+			total += other.total;
+			if (other.max > max) {
+				max = other.max;
+			}
+		}
+
+		/**
+		 * Deletes all values.
+		 */
+		public void clear() {
+			for (int i = 0; i < counts.length; i++) {
+				counts[i] = 0;
+			}
+			count = 0;
+			total = 0;
+			max = 0;
+		}
+
+		/**
+		 * The value below which <code>percentile</code> percent of all values
+		 * lie (the upper bound of the bucket, never more than {@link #getMax()}).
+		 *
+		 * @param percentile 0 - 100
+		 * @return
+		 */
+		public long getValueAtPercentile(double percentile) {
+			if (count == 0) {
+				return 0;
+			}
+			long target = (long) Math.ceil(percentile / 100.0 * count);
+			if (target < 1) {
+				target = 1;
+			}
+			long sum = 0;
+			for (int i = 0; i < counts.length; i++) {
+				sum += counts[i];
+				if (sum >= target) {
+					return Math.min(getBucketMax(i), max);
+				}
+			}
+			return max;
+		}
+
+		public long getCount() {
+			return count;
+		}
+
+		public long getTotal() {
+			return total;
+		}
+
+		public long getMax() {
+			return max;
+		}
+	}
+}
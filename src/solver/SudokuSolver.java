@@ -23,9 +23,20 @@ import java.io.BufferedWriter;
 import java.io.PrintStream;
 import java.io.PrintWriter;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import sudoku.Candidate;
 import sudoku.DifficultyLevel;
 import sudoku.DifficultyType;
 import sudoku.FindAllStepsProgressDialog;
@@ -55,6 +66,16 @@ public class SudokuSolver {
 	private int[] anzSteps = new int[Options.getInstance().solverSteps.length];
 	private int[] anzStepsProgress = new int[Options.getInstance().solverSteps.length];
 	private long[] stepsNanoTime = new long[Options.getInstance().solverSteps.length];
+	/**
+	 * <code>true</code> if the deadline of the step finder expired during the
+	 * last run of the solver: the solution path was finished with singles and
+	 * brute force.
+	 */
+	private boolean timedOut = false;
+	/** The configuration, for which {@link #ratingConfigHash} was calculated. */
+	private SolverConfig ratingConfig = null;
+	/** See {@link #getRatingConfigHash(SolverConfig, StepConfig[], DifficultyLevel, boolean, GameMode)}. */
+	private long ratingConfigHash;
 
 	/** Creates a new instance of SudokuSolver */
 	public SudokuSolver() {
@@ -103,8 +124,7 @@ public class SudokuSolver {
 	 * @return
 	 */
 	public boolean solve() {
-		return solve(Options.getInstance().getDifficultyLevel(DifficultyType.EXTREME.ordinal()), null, false, null,
-				false);
+		return solve(getConfig().getDifficultyLevel(DifficultyType.EXTREME.ordinal()), null, false, null, false);
 	}
 
 	/**
@@ -121,8 +141,8 @@ public class SudokuSolver {
 		setSudoku(newSudoku);
 		steps = tmpSteps;
 		SudokuUtil.clearStepListWithNullify(steps);
-		boolean solved = solve(Options.getInstance().getDifficultyLevel(DifficultyType.EXTREME.ordinal()), null, false,
-				null, true);
+		boolean solved = solve(getConfig().getDifficultyLevel(DifficultyType.EXTREME.ordinal()), null, false, null,
+				true);
 		steps = oldList;
 		// sudoku = tmpSudoku;
 		setSudoku(tmpSudoku);
@@ -145,8 +165,8 @@ public class SudokuSolver {
 		steps = tmpSteps;
 		SudokuUtil.clearStepListWithNullify(steps);
 //        boolean solved = solve(Options.getInstance().getDifficultyLevels()[DifficultyType.EXTREME.ordinal()], null, false, null, true);
-		boolean solved = solve(Options.getInstance().getDifficultyLevel(DifficultyType.EXTREME.ordinal()), null, false,
-				null, false, stepConfigs, GameMode.PLAYING);
+		boolean solved = solve(getConfig().getDifficultyLevel(DifficultyType.EXTREME.ordinal()), null, false, null,
+				false, stepConfigs, GameMode.PLAYING);
 		steps = oldList;
 		// sudoku = tmpSudoku;
 		setSudoku(tmpSudoku);
@@ -179,7 +199,7 @@ public class SudokuSolver {
 	 */
 	public boolean solve(DifficultyLevel maxLevel, Sudoku2 tmpSudoku, boolean rejectTooLowScore,
 			final SolverProgressDialog dlg, boolean singlesOnly) {
-		return solve(maxLevel, tmpSudoku, rejectTooLowScore, dlg, singlesOnly, Options.getInstance().solverSteps,
+		return solve(maxLevel, tmpSudoku, rejectTooLowScore, dlg, singlesOnly, getConfig().getSolverSteps(),
 				GameMode.PLAYING);
 	}
 
@@ -188,8 +208,9 @@ public class SudokuSolver {
 	 * {@link DifficultyLevel} doesnt match or if the score of the sudoku is too
 	 * low. If a progress dialog is passed in, the counters in the dialog are
 	 * updated.<br>
-	 * If <code>stepConfig</code> is {@link Options#solverStepsProgress}, the method
-	 * can be used to measure progress or find backdoors.<br>
+	 * If <code>stepConfig</code> is {@link Options#solverStepsProgress} (or
+	 * {@link SolverConfig#getSolverStepsProgress()}), the method can be used to
+	 * measure progress or find backdoors.<br>
 	 * If the <code>gameMode</code> is any other than <code>PLAYING</code>, any
 	 * puzzle is accepted, that contains at least one step with
 	 * <code>StepConfig.isEnabledTraining()</code> true.
@@ -222,9 +243,11 @@ public class SudokuSolver {
 			dlg.initializeProgressState(anzCand);
 		}
 
+		SolverConfig config = getConfig();
 		this.maxLevel = maxLevel;
+		timedOut = false;
 		score = 0;
-		level = Options.getInstance().getDifficultyLevel(DifficultyType.EASY.ordinal());
+		level = config.getDifficultyLevel(DifficultyType.EASY.ordinal());
 
 		// SudokuUtil.clearStepList(steps);
 		SolutionStep step = null;
@@ -236,33 +259,52 @@ public class SudokuSolver {
 		boolean acceptAnyway = false;
 //        System.out.println("Start solving (" + gameMode + ")!");
 
-		do {
-			// show progress if progress dialog is enabled
-			if (dlg != null) {
-				dlg.setProgressState(sudoku.getUnsolvedCellsAnz(), sudoku.getUnsolvedCandidatesAnz());
-			}
+		// ratings for normal solving can be taken from the cache
+		RatingCache cache = SudokuSolverFactory.getRatingCache();
+		RatingCache.Key cacheKey = null;
+		RatingCache.Entry cached = null;
+		if (cache != null && stepConfigs != config.getSolverStepsProgress()
+				&& stepConfigs != Options.getInstance().solverStepsProgress) {
+			cacheKey = RatingCache.createKey(sudoku,
+					getRatingConfigHash(config, stepConfigs, maxLevel, singlesOnly, gameMode));
+			cached = cache.get(cacheKey);
+		}
 
-			// jetzt eine Methode nach der anderen, aber immer nur einmal; wenn etwas
-			// gefunden wurde continue
-			step = getHint(singlesOnly, stepConfigs, acceptAnyway);
-			if (step != null) {
+		if (cached != null) {
+			acceptAnyway = restoreRating(cached, stepConfigs, gameMode);
+		} else {
+			int firstStep = steps.size();
+			do {
+				// show progress if progress dialog is enabled
+				if (dlg != null) {
+					dlg.setProgressState(sudoku.getUnsolvedCellsAnz(), sudoku.getUnsolvedCandidatesAnz());
+				}
+
+				// jetzt eine Methode nach der anderen, aber immer nur einmal; wenn etwas
+				// gefunden wurde continue
+				step = getHint(singlesOnly, stepConfigs, acceptAnyway);
+				if (step != null) {
 //                System.out.println("Step: " + step.toString(2));
-				// System.out.println(sudoku.getSudoku(ClipboardMode.LIBRARY, step));
-				if (gameMode != GameMode.PLAYING && step.getType().getStepConfig().isEnabledTraining()) {
+					// System.out.println(sudoku.getSudoku(ClipboardMode.LIBRARY, step));
+					if (gameMode != GameMode.PLAYING && step.getType().getStepConfig().isEnabledTraining()) {
 //                    System.out.println("        acceptAnyway = true!");
-					acceptAnyway = true;
-				}
-				steps.add(step);
-				getStepFinder().doStep(step);
-				if (step.getType() == SolutionType.GIVE_UP) {
-					step = null;
+						acceptAnyway = true;
+					}
+					steps.add(step);
+					getStepFinder().doStep(step);
+					if (step.getType() == SolutionType.GIVE_UP) {
+						step = null;
+					}
 				}
+			} while (step != null);
+			if (cacheKey != null && !timedOut && sudoku.isSolved()) {
+				cache.put(cacheKey, score, level, steps.subList(firstStep, steps.size()), sudoku);
 			}
-		} while (step != null);
+		}
 		// wenn der Score größer als der MaxScore der aktuellen Stufe, dann wird das
 		// Puzzle höhergestuft.
 		while (score > level.getMaxScore()) {
-			level = Options.getInstance().getDifficultyLevel(level.getOrdinal() + 1);
+			level = config.getDifficultyLevel(level.getOrdinal() + 1);
 		}
 		// Puzzle zu schwer -> ungültig
 		if (level.getOrdinal() > maxLevel.getOrdinal() && acceptAnyway == false) {
@@ -274,7 +316,7 @@ public class SudokuSolver {
 		// als der MaxScore einer geringeren Stufe
 		if (rejectTooLowScore && level.getOrdinal() > DifficultyType.EASY.ordinal() && acceptAnyway == false) {
 
-			if (score < Options.getInstance().getDifficultyLevel(level.getOrdinal() - 1).getMaxScore()) {
+			if (score < config.getDifficultyLevel(level.getOrdinal() - 1).getMaxScore()) {
 //                System.out.println("        rejected: score too low");
 				return false;
 			}
@@ -285,12 +327,79 @@ public class SudokuSolver {
 //            System.out.println("        puzzle accepted!");
 			return true;
 		} else {
-			sudoku.setLevel(Options.getInstance().getDifficultyLevel(DifficultyType.EXTREME.ordinal()));
+			sudoku.setLevel(config.getDifficultyLevel(DifficultyType.EXTREME.ordinal()));
 //            System.out.println("        rejected: puzzle not solved!");
 			return false;
 		}
 	}
 
+	/**
+	 * The hash of everything besides the sudoku itself, that can change the
+	 * result of {@link #solve(DifficultyLevel, Sudoku2, boolean, SolverProgressDialog, boolean, StepConfig[], GameMode)}.
+	 * The hash of the configuration is calculated only once for the step
+	 * configurations of a {@link SolverConfig} (they cannot change).
+	 * 
+	 * @param config
+	 * @param stepConfigs
+	 * @param maxLevel
+	 * @param singlesOnly
+	 * @param gameMode
+	 * @return
+	 */
+	private long getRatingConfigHash(SolverConfig config, StepConfig[] stepConfigs, DifficultyLevel maxLevel,
+			boolean singlesOnly, GameMode gameMode) {
+		long hash;
+		if (stepConfigs != config.getSolverSteps()) {
+			hash = RatingCache.getConfigHash(config, stepConfigs);
+		} else {
+			if (config != ratingConfig) {
+				ratingConfigHash = RatingCache.getConfigHash(config, stepConfigs);
+				ratingConfig = config;
+			}
+			hash = ratingConfigHash;
+		}
+		hash = RatingCache.mix(hash ^ maxLevel.getOrdinal());
+		hash = RatingCache.mix(hash ^ maxLevel.getMaxScore());
+		hash = RatingCache.mix(hash ^ (singlesOnly ? 1 : 0));
+		return RatingCache.mix(hash ^ gameMode.ordinal());
+	}
+
+	/**
+	 * Sets the result of a solver run from the {@link RatingCache}: score,
+	 * level and step counts are restored, the sudoku is solved. The steps in
+	 * the solution path contain only their types.
+	 * 
+	 * @param entry
+	 * @param stepConfigs
+	 * @param gameMode
+	 * @return <code>true</code>, if the path contains a training step (see
+	 *         <code>acceptAnyway</code> in
+	 *         {@link #solve(DifficultyLevel, Sudoku2, boolean, SolverProgressDialog, boolean, StepConfig[], GameMode)})
+	 */
+	private boolean restoreRating(RatingCache.Entry entry, StepConfig[] stepConfigs, GameMode gameMode) {
+		boolean acceptAnyway = false;
+		for (SolutionType type : entry.getPath()) {
+			steps.add(new SolutionStep(type));
+			for (int i = 0; i < stepConfigs.length; i++) {
+				if (stepConfigs[i].getType() == type) {
+					anzSteps[i]++;
+					break;
+				}
+			}
+			if (gameMode != GameMode.PLAYING && type.getStepConfig().isEnabledTraining()) {
+				acceptAnyway = true;
+			}
+		}
+		score = entry.getScore();
+		level = getConfig().getDifficultyLevel(entry.getLevel());
+		for (int i = 0; i < Sudoku2.LENGTH; i++) {
+			if (sudoku.getValue(i) == 0) {
+				sudoku.setCell(i, entry.getValue(i));
+			}
+		}
+		return acceptAnyway;
+	}
+
 	/**
 	 * Calculates the progress scores of all steps in <code>steps</code> (see
 	 * {@link #getProgressScoreSingles(sudoku.Sudoku2, sudoku.SolutionStep) }).
@@ -300,42 +409,182 @@ public class SudokuSolver {
 	 * @param dlg
 	 */
 	public void getProgressScore(Sudoku2 tmpSudoku, List<SolutionStep> stepsTocheck, FindAllStepsProgressDialog dlg) {
+		getProgressScore(tmpSudoku, stepsTocheck, dlg, 1);
+	}
+
+	/**
+	 * Calculates the progress scores of all steps in <code>steps</code> using
+	 * up to <code>threads</code> solvers from {@link SudokuSolverFactory}. Every
+	 * solver works on its own copy of <code>tmpSudoku</code>.<br>
+	 * Steps with the same type and the same effect on the grid (same cells set,
+	 * same candidates deleted) get the same score: only the first of them is
+	 * solved, the others are copied.
+	 * 
+	 * @param tmpSudoku
+	 * @param stepsTocheck
+	 * @param dlg
+	 * @param threads
+	 */
+	public void getProgressScore(final Sudoku2 tmpSudoku, List<SolutionStep> stepsTocheck,
+			final FindAllStepsProgressDialog dlg, int threads) {
+		resetProgressStepCounters();
+		// steps with equal effect are solved only once
+		final List<SolutionStep> uniqueSteps = new ArrayList<SolutionStep>();
+		List<SolutionStep> duplicates = new ArrayList<SolutionStep>();
+		List<SolutionStep> originals = new ArrayList<SolutionStep>();
+		Map<String, SolutionStep> stepsByEffect = new HashMap<String, SolutionStep>();
+		for (SolutionStep step : stepsTocheck) {
+			String key = getEffectKey(step);
+			SolutionStep original = stepsByEffect.get(key);
+			if (original == null) {
+				stepsByEffect.put(key, step);
+				uniqueSteps.add(step);
+			} else {
+				duplicates.add(step);
+				originals.add(original);
+			}
+		}
 		if (dlg != null) {
-			dlg.resetFishProgressBar(stepsTocheck.size());
+			dlg.resetFishProgressBar(uniqueSteps.size());
 		}
-		resetProgressStepCounters();
-		int delta = stepsTocheck.size() / 10;
+		int delta = uniqueSteps.size() / 10;
 		if (delta == 0) {
 			// avoid exceptions
 			delta = 1;
 		}
-		boolean oldCheckTemplates = Options.getInstance().isCheckTemplates();
-		Options.getInstance().setCheckTemplates(false);
-		long nanos = System.nanoTime();
+		// no templates for progress measurement; the global options are not touched
+		final SolverConfig config = getConfig().withCheckTemplates(false);
+		if (threads <= 1 || uniqueSteps.size() < 2) {
+			SolverConfig oldConfig = stepFinder.isConfigPinned() ? stepFinder.getConfig() : null;
+			stepFinder.setConfig(config);
+			getProgressScore(tmpSudoku, uniqueSteps, new AtomicInteger(), new AtomicInteger(), delta, dlg);
+			stepFinder.setConfig(oldConfig);
+		} else {
+			threads = Math.min(threads, uniqueSteps.size());
+			final AtomicInteger nextStep = new AtomicInteger();
+			final AtomicInteger stepsDone = new AtomicInteger();
+			final int progressDelta = delta;
+			final Object statisticsLock = new Object();
+			ExecutorService pool = Executors.newFixedThreadPool(threads);
+			try {
+				List<Future<Void>> results = new ArrayList<Future<Void>>();
+				for (int i = 0; i < threads; i++) {
+					results.add(pool.submit(new Callable<Void>() {
+						@Override
+						public Void call() {
+							SudokuSolver solver = SudokuSolverFactory.getInstance();
+							try {
+								solver.resetProgressStepCounters();
+								solver.stepFinder.setConfig(config);
+								solver.getProgressScore(tmpSudoku, uniqueSteps, nextStep, stepsDone, progressDelta, dlg);
+								// the counters have to be merged before the solver can be
+								// handed out again
+								synchronized (statisticsLock) {
+									addStatistics(solver);
+								}
+								return null;
+							} finally {
+								solver.stepFinder.setConfig(null);
+								SudokuSolverFactory.giveBack(solver);
+							}
+						}
+					}));
+				}
+				for (Future<Void> result : results) {
+					result.get();
+				}
+			} catch (InterruptedException ex) {
+				// search was cancelled
+				Thread.currentThread().interrupt();
+				return;
+			} catch (ExecutionException ex) {
+				Logger.getLogger(getClass().getName()).log(Level.SEVERE, "Error in getProgressScore()", ex.getCause());
+				return;
+			} finally {
+				pool.shutdownNow();
+			}
+		}
+		for (int i = 0; i < duplicates.size(); i++) {
+			SolutionStep original = originals.get(i);
+			SolutionStep step = duplicates.get(i);
+			step.setProgressScoreSingles(original.getProgressScoreSingles());
+			step.setProgressScoreSinglesOnly(original.getProgressScoreSinglesOnly());
+			step.setProgressScore(original.getProgressScore());
+		}
+	}
+
+	/**
+	 * Calculates the progress scores for steps from <code>stepsTocheck</code>
+	 * until all steps have been taken: the next step is always taken from
+	 * <code>nextStep</code>, so that several solvers can work on the same list.
+	 * The configuration has to be set by the caller.
+	 * 
+	 * @param tmpSudoku
+	 * @param stepsTocheck
+	 * @param nextStep
+	 * @param stepsDone
+	 * @param delta
+	 * @param dlg
+	 */
+	private void getProgressScore(Sudoku2 tmpSudoku, List<SolutionStep> stepsTocheck, AtomicInteger nextStep,
+			AtomicInteger stepsDone, int delta, FindAllStepsProgressDialog dlg) {
 		Sudoku2 workingSudoku = tmpSudoku.clone();
-		for (int i = 0; i < stepsTocheck.size(); i++) {
+		// every step starts with tmpSudoku: undo the changes of the last step
+		int mark = workingSudoku.mark();
+		int i;
+		while ((i = nextStep.getAndIncrement()) < stepsTocheck.size() && !Thread.currentThread().isInterrupted()) {
 			SolutionStep step = stepsTocheck.get(i);
-			workingSudoku.set(tmpSudoku);
+			if (!workingSudoku.rollBack(mark)) {
+				// the sudoku was replaced as a whole -> copy it
+				workingSudoku.set(tmpSudoku);
+				mark = workingSudoku.mark();
+			}
 			getProgressScore(workingSudoku, step);
-			if ((i % delta) == 0 && dlg != null) {
-				dlg.updateFishProgressBar(i);
+			int done = stepsDone.getAndIncrement();
+			if ((done % delta) == 0 && dlg != null) {
+				synchronized (dlg) {
+					dlg.updateFishProgressBar(done);
+				}
 			}
 		}
-		Options.getInstance().setCheckTemplates(oldCheckTemplates);
-		workingSudoku = null;
-		nanos = System.nanoTime() - nanos;
-//        System.out.println("getProgressScore(): " + (nanos / 1000000) + "ms (" + steps.size() + ")");
-//        for (SolutionStep step : steps) {
-//            System.out.println("progressScore: " + step.getProgressScoreSinglesOnly() + "/" +
-//                    step.getProgressScoreSingles() + "/" + step.getProgressScore() + " (" + step + ")");
-//        }
-//        System.out.println("Timing:");
-//        for (int i = 0; i < Options.getInstance().solverStepsProgress.length; i++) {
-//            if (anzStepsProgress[i] > 0) {
-//                System.out.printf("  %5d/%8.2fus/%12.2fms: %s\r\n", anzStepsProgress[i], (stepsNanoTime[i] / anzStepsProgress[i] / 1000.0),
-//                        (stepsNanoTime[i] / 1000000.0), Options.getInstance().solverStepsProgress[i].getType().getStepName());
-//            }
-//        }
+	}
+
+	/**
+	 * Builds a key for the effect of <code>step</code> on the grid: type, cells
+	 * and values set (as sorted <code>index * 10 + value</code> pairs) and
+	 * candidates deleted. Steps with equal keys have equal progress scores.
+	 * 
+	 * @param step
+	 * @return
+	 */
+	private static String getEffectKey(SolutionStep step) {
+		StringBuilder key = new StringBuilder();
+		key.append(step.getType().ordinal());
+		// cells and values as pairs, combined as in doStep(): one value per
+		// cell or the first value for all cells
+		List<Integer> indices = step.getIndices();
+		List<Integer> values = step.getValues();
+		int[] cells = new int[indices.size()];
+		for (int i = 0; i < cells.length; i++) {
+			int value = values.isEmpty() ? 0 : values.get(values.size() == cells.length ? i : 0);
+			cells[i] = indices.get(i) * 10 + value;
+		}
+		Arrays.sort(cells);
+		key.append(':').append(Arrays.toString(cells));
+		if (values.size() != indices.size()) {
+			// the values do not belong to single cells (patterns)
+			List<Integer> sortedValues = new ArrayList<Integer>(values);
+			Collections.sort(sortedValues);
+			key.append(':').append(sortedValues);
+		}
+		int[] candidates = new int[step.getCandidatesToDelete().size()];
+		for (int i = 0; i < candidates.length; i++) {
+			Candidate cand = step.getCandidatesToDelete().get(i);
+			candidates[i] = cand.getIndex() * 10 + cand.getValue();
+		}
+		Arrays.sort(candidates);
+		key.append(':').append(Arrays.toString(candidates));
+		return key.toString();
 	}
 
 	/**
@@ -373,7 +622,7 @@ public class SudokuSolver {
 		do {
 			// jetzt eine Methode nach der anderen, aber immer nur einmal; wenn etwas
 			// gefunden wurde continue
-			step = getHint(false, Options.getInstance().solverStepsProgress, false);
+			step = getHint(false, getConfig().getSolverStepsProgress(), false);
 			if (step != null) {
 //                System.out.println("   step = " + step.toString(2));
 //                System.out.println("       " + tmpSudoku.getSudoku(ClipboardMode.LIBRARY));
@@ -416,10 +665,10 @@ public class SudokuSolver {
 		Sudoku2 save = this.sudoku;
 		DifficultyLevel oldMaxLevel = maxLevel;
 		DifficultyLevel oldLevel = level;
-		maxLevel = Options.getInstance().getDifficultyLevel(DifficultyType.EXTREME.ordinal());
-		level = Options.getInstance().getDifficultyLevel(DifficultyType.EASY.ordinal());
 		
 		setSudoku(sudoku);
+		maxLevel = getConfig().getDifficultyLevel(DifficultyType.EXTREME.ordinal());
+		level = getConfig().getDifficultyLevel(DifficultyType.EASY.ordinal());
 		
 		SolutionStep step = getHint(singlesOnly);
 		maxLevel = oldMaxLevel;
@@ -438,7 +687,7 @@ public class SudokuSolver {
 	 * @return
 	 */
 	private SolutionStep getHint(boolean singlesOnly) {
-		return getHint(singlesOnly, Options.getInstance().solverSteps, false);
+		return getHint(singlesOnly, getConfig().getSolverSteps(), false);
 	}
 
 	/**
@@ -460,11 +709,26 @@ public class SudokuSolver {
 			return null;
 		}
 		SolutionStep hint = null;
+		SolverConfig config = getConfig();
+		boolean progress = solverSteps == config.getSolverStepsProgress()
+				|| solverSteps == Options.getInstance().solverStepsProgress;
+		boolean degraded = false;
 		// System.out.println(" sudoku: " +
 		// getStepFinder().getSudoku().getSudoku(ClipboardMode.VALUES_ONLY));
 
 		for (int i = 0; i < solverSteps.length; i++) {
-			if (solverSteps == Options.getInstance().solverStepsProgress) {
+			if (!degraded && getStepFinder().isDeadlineExpired()) {
+				// out of time: only cheap techniques from now on
+				degraded = true;
+				timedOut = true;
+			}
+			SolutionType type = solverSteps[i].getType();
+			if (degraded) {
+				if (type != SolutionType.HIDDEN_SINGLE && type != SolutionType.NAKED_SINGLE
+						&& type != SolutionType.FULL_HOUSE && type != SolutionType.BRUTE_FORCE) {
+					continue;
+				}
+			} else if (progress) {
 				if (solverSteps[i].isEnabledProgress() == false) {
 					continue;
 				}
@@ -474,7 +738,6 @@ public class SudokuSolver {
 					continue;
 				}
 			}
-			SolutionType type = solverSteps[i].getType();
 			if (singlesOnly && (type != SolutionType.HIDDEN_SINGLE && type != SolutionType.NAKED_SINGLE
 					&& type != SolutionType.FULL_HOUSE)) {
 				continue;
@@ -493,9 +756,9 @@ public class SudokuSolver {
 			if (hint != null) {
 				anzSteps[i]++;
 				score += solverSteps[i].getBaseScore();
-				if (Options.getInstance().getDifficultyLevels()[solverSteps[i].getLevel()].getOrdinal() > level
-						.getOrdinal()) {
-					level = Options.getInstance().getDifficultyLevels()[solverSteps[i].getLevel()];
+				DifficultyLevel stepLevel = config.getDifficultyLevel(solverSteps[i].getLevel());
+				if (stepLevel.getOrdinal() > level.getOrdinal()) {
+					level = stepLevel;
 				}
 				// Wenn das Puzzle zu schwer ist, gleich abbrechen
 				if (!acceptAnyway) {
@@ -575,7 +838,7 @@ public class SudokuSolver {
 	}
 
 	public SolutionCategory getCategory(SolutionType type) {
-		for (StepConfig configStep : Options.getInstance().solverSteps) {
+		for (StepConfig configStep : getConfig().getSolverSteps()) {
 			if (type == configStep.getType()) {
 				return configStep.getCategory();
 			}
@@ -666,6 +929,20 @@ public class SudokuSolver {
 		}
 	}
 
+	/**
+	 * Adds the runtime statistics of <code>other</code> to the statistics of this
+	 * solver. Used to combine the statistics of solvers that worked on the same
+	 * batch in parallel.
+	 * 
+	 * @param other
+	 */
+	public void addStatistics(SudokuSolver other) {
+		for (int i = 0; i < anzStepsProgress.length && i < other.anzStepsProgress.length; i++) {
+			anzStepsProgress[i] += other.anzStepsProgress[i];
+			stepsNanoTime[i] += other.stepsNanoTime[i];
+		}
+	}
+
 	/**
 	 * @return the stepsNanoTime
 	 */
@@ -731,4 +1008,56 @@ public class SudokuSolver {
 	public SudokuStepFinder getStepFinder() {
 		return stepFinder;
 	}
+
+	/**
+	 * The configuration used by this solver (see
+	 * {@link SudokuStepFinder#getConfig()}).
+	 * 
+	 * @return
+	 */
+	public SolverConfig getConfig() {
+		return stepFinder.getConfig();
+	}
+
+	/**
+	 * Sets a fixed configuration for this solver. If <code>config</code> is
+	 * <code>null</code>, a snapshot of the global {@link Options} is taken
+	 * whenever a new sudoku is set.
+	 * 
+	 * @param config
+	 */
+	public void setConfig(SolverConfig config) {
+		stepFinder.setConfig(config);
+	}
+
+	/**
+	 * Sets a time budget for all further runs of the solver (<code>null</code>:
+	 * no limit). When it expires, the expensive techniques stop searching and the
+	 * puzzle is finished with singles and brute force (see {@link #isTimedOut()}).
+	 * The deadline is shared with the step finder.
+	 * 
+	 * @param deadline
+	 */
+	public void setDeadline(SolverDeadline deadline) {
+		stepFinder.setDeadline(deadline);
+	}
+
+	/**
+	 * @return the deadline (can be <code>null</code>)
+	 */
+	public SolverDeadline getDeadline() {
+		return stepFinder.getDeadline();
+	}
+
+	/**
+	 * <code>true</code> if the deadline expired during the last run of the
+	 * solver. From that point on the solution path ({@link #getSteps()})
+	 * consists only of singles and brute force steps, score and level are
+	 * therefore not reliable.
+	 * 
+	 * @return
+	 */
+	public boolean isTimedOut() {
+		return timedOut;
+	}
 }
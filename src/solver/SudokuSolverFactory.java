@@ -37,6 +37,8 @@ public class SudokuSolverFactory {
 	private static final SudokuSolver defaultSolver = new SudokuSolver();
 	/** All SudokuSolver instances created by this factory. */
 	private static List<SolverInstance> instances = new ArrayList<SolverInstance>();
+	/** The metrics of all solvers that have been removed by the cleanup. */
+	private static final StepMetrics retiredMetrics = new StepMetrics();
 	/** A background thread that cleans up unused SudokuSolver instances. */
 	private static final Thread thread = new Thread(new Runnable() {
 		@Override
@@ -51,6 +53,7 @@ public class SudokuSolverFactory {
 					while (iterator.hasNext()) {
 						SolverInstance act = iterator.next();
 						if (act.inUse == false && (System.currentTimeMillis() - act.lastUsedAt) > SOLVER_TIMEOUT) {
+							retiredMetrics.add(act.instance.getStepFinder().getMetrics());
 							iterator.remove();
 						} else {
 							act.instance.getStepFinder().cleanUp();
@@ -65,6 +68,8 @@ public class SudokuSolverFactory {
 			}
 		}
 	});
+	/** The persistent rating cache, <code>null</code> if it is not used. */
+	private static volatile RatingCache ratingCache = null;
 	/** The default cleanup time for SudokuSolver instances. */
 	private static final long SOLVER_TIMEOUT = 5 * 60 * 1000;
 
@@ -138,6 +143,8 @@ public class SudokuSolverFactory {
 	 * @param solver
 	 */
 	public static void giveBack(SudokuSolver solver) {
+		// a deadline is valid only for the user of the solver
+		solver.setDeadline(null);
 		synchronized (thread) {
 			for (SolverInstance act : instances) {
 				if (act.instance == solver) {
@@ -148,4 +155,55 @@ public class SudokuSolverFactory {
 			}
 		}
 	}
+
+	/**
+	 * Combines the metrics of all solvers created by the factory (including the
+	 * {@link #defaultSolver} and solvers, that have already been removed).
+	 * 
+	 * @return A snapshot of the metrics
+	 */
+	public static StepMetrics getMetrics() {
+		StepMetrics result = new StepMetrics();
+		synchronized (thread) {
+			result.add(retiredMetrics);
+			result.add(defaultSolver.getStepFinder().getMetrics());
+			for (SolverInstance act : instances) {
+				result.add(act.instance.getStepFinder().getMetrics());
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Deletes the metrics of all solvers.
+	 */
+	public static void resetMetrics() {
+		synchronized (thread) {
+			retiredMetrics.clear();
+			defaultSolver.getStepFinder().getMetrics().clear();
+			for (SolverInstance act : instances) {
+				act.instance.getStepFinder().getMetrics().clear();
+			}
+		}
+	}
+
+	/**
+	 * Sets the {@link RatingCache} used by all solvers
+	 * (<code>null</code>: no cache).
+	 * 
+	 * @param cache
+	 */
+	public static void setRatingCache(RatingCache cache) {
+		ratingCache = cache;
+	}
+
+	/**
+	 * The {@link RatingCache} used by all solvers, <code>null</code> if no
+	 * cache is used.
+	 * 
+	 * @return
+	 */
+	public static RatingCache getRatingCache() {
+		return ratingCache;
+	}
 }
@@ -20,13 +20,17 @@
 package solver;
 
 import java.util.ArrayList;
-import java.util.LinkedList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
-import java.util.ListIterator;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 import sudoku.FindAllStepsProgressDialog;
 import sudoku.SolutionStep;
 import sudoku.SolutionType;
-import sudoku.StepConfig;
 import sudoku.Sudoku2;
 import sudoku.SudokuSet;
 import sudoku.SudokuSetBase;
@@ -76,15 +80,29 @@ public class SudokuStepFinder {
 	private AbstractSolver[] solvers;
 	/** The sudoku for which steps should be found. */
 	private Sudoku2 sudoku;
-	/** The step configuration for searches. */
-	@SuppressWarnings("unused")
-	private StepConfig[] stepConfigs;
+	/**
+	 * The configuration for searches. If {@link #configPinned} is not set, this
+	 * is a snapshot of the global {@link sudoku.Options}, that is taken lazily
+	 * and checked against the options, whenever a new sudoku is set.
+	 */
+	private SolverConfig config;
+	/** <code>true</code> if {@link #config} was set explicitly. */
+	private boolean configPinned = false;
+	/**
+	 * <code>false</code> if an unpinned {@link #config} has to be checked against
+	 * the global options before it is used again.
+	 */
+	private boolean configChecked = false;
 	/**
 	 * A status counter that changes every time a new step has been found.
 	 * Specialized solvers can use this counter to use cached steps instead of
 	 * searching for them if no step was found since the last search.
 	 */
 	private int stepNumber = 0;
+	/** Latencies of all searches and of building the caches. */
+	private final StepMetrics metrics = new StepMetrics();
+	/** Time budget for all searches, <code>null</code> if unlimited. */
+	private volatile SolverDeadline deadline;
 	/** for timing */
 	@SuppressWarnings("unused")
 	private long templateNanos;
@@ -123,26 +141,28 @@ public class SudokuStepFinder {
 	 * eliminated immediately.
 	 */
 	private SudokuSet[] delCandTemplates = new SudokuSet[10];
-	/** The lists with all valid templates for each candidate. */
-	private List<List<SudokuSetBase>> candTemplates;
+	/** Number of words in a bitmap over all templates. */
+	private static final int TEMPLATE_WORDS = (Sudoku2.TEMPLATE_ANZ + 63) >> 6;
+	/**
+	 * One bitmap per candidate: bit <code>i</code> is set, if template
+	 * <code>i</code> is valid for the candidate.
+	 */
+	private long[][] candTemplates = new long[10][TEMPLATE_WORDS];
 	/** Dirty flag for templates (without refinements). */
 	private boolean templatesDirty = true;
 	/** Dirty flag for templates (with refinements). */
 	private boolean templatesListDirty = true;
+	/**
+	 * If more houses than this have changed since the last ALS search, all ALS
+	 * are searched again.
+	 */
+	private static final int ALS_REFRESH_MAX_HOUSES = 18;
 	/** Cache for ALS entries (only ALS with more than one cell). */
-	private List<Als> alsesOnlyLargerThanOne = null;
-	/** Step number for which {@link #alsesOnlyLargerThanOne} was computed. */
-	private int alsesOnlyLargerThanOneStepNumber = -1;
+	private AlsCache alsesOnlyLargerThanOne = new AlsCache();
 	/** Cache for ALS entries (ALS with one cell allowed). */
-	private List<Als> alsesWithOne = null;
-	/** Step number for which {@link #alsesWithOne} was computed. */
-	private int alsesWithOneStepNumber = -1;
+	private AlsCache alsesWithOne = new AlsCache();
 	/** Cache for RC entries. */
-	private List<RestrictedCommon> restrictedCommons = null;
-	/** start indices into {@link #restrictedCommons} for all ALS. */
-	private int[] startIndices = null;
-	/** end indices into {@link #restrictedCommons} for all ALS. */
-	private int[] endIndices = null;
+	private RestrictedCommonTable restrictedCommons = new RestrictedCommonTable();
 	/** Overlap status at last RC search. */
 	private boolean lastRcAllowOverlap;
 	/** Step number for which {@link #restrictedCommons} was computed. */
@@ -159,6 +179,12 @@ public class SudokuStepFinder {
 	private SudokuSet indexSet = new SudokuSet();
 	/** Temporary set for recursion: all numbers contained in {@link #indexSet}. */
 	private short[] candSets = new short[10];
+	/** Temporary set for ALS refresh: all cells changed since the last search. */
+	private SudokuSet alsChangedCells = new SudokuSet();
+	/** Temporary set for ALS refresh: all buddies of {@link #alsChangedCells}. */
+	private SudokuSet alsChangedBuddies = new SudokuSet();
+	/** Temporary array for ALS refresh: all houses containing changed cells. */
+	private boolean[] alsChangedHouses = new boolean[Sudoku2.ALL_UNITS.length];
 	/** statistics: total time for all calls */
 	private long alsNanos;
 	/** statistics: number of calls */
@@ -168,17 +194,13 @@ public class SudokuStepFinder {
 	/** statistics: number of ALS found more than once */
 	private int doubleAls;
 
-	/** All candidates common to two ALS. */
-	private short possibleRestrictedCommonsSet = 0;
 	/**
-	 * Holds all buddies of all candidate cells for one RC (including the candidate
-	 * cells themselves).
+	 * One bitmap over the indices of the ALS for every candidate: bit
+	 * <code>i</code> is set, if ALS <code>i</code> contains the candidate.
 	 */
-	private SudokuSet restrictedCommonBuddiesSet = new SudokuSet();
-	/** All cells containing a specific candidate in two ALS. */
-	private SudokuSet restrictedCommonIndexSet = new SudokuSet();
-	/** Contains the indices of all overlapping cells in two ALS. */
-	private SudokuSet intersectionSet = new SudokuSet();
+	private long[][] alsCandBitmaps = new long[10][0];
+	/** The searches for the RCs (one per part of the ALS list). */
+	private List<RcSearch> rcSearches = new ArrayList<RcSearch>();
 	/** statistics: total time for all calls */
 	private long rcNanos;
 	/** statistics: number of calls */
@@ -215,11 +237,9 @@ public class SudokuStepFinder {
 			candidatesAllowed[i] = new SudokuSet();
 		}
 		// Create all templates
-		candTemplates = new ArrayList<List<SudokuSetBase>>(10);
 		for (int i = 0; i < setValueTemplates.length; i++) {
 			setValueTemplates[i] = new SudokuSet();
 			delCandTemplates[i] = new SudokuSet();
-			candTemplates.add(i, new LinkedList<SudokuSetBase>());
 		}
 		// Create the solvers
 		simpleSolver = new SimpleSolver(this);
@@ -273,13 +293,24 @@ public class SudokuStepFinder {
 	public SolutionStep getStep(SolutionType type) {
 		initialize();
 		SolutionStep result = null;
+		long bytes = StepMetrics.getAllocatedBytes();
+		long nanos = System.nanoTime();
 		for (int i = 0; i < solvers.length; i++) {
 			if ((result = solvers[i].getStep(type)) != null) {
 				// step has been found!
 				stepNumber++;
-				return result;
+				break;
 			}
 		}
+		nanos = System.nanoTime() - nanos;
+		if (bytes >= 0) {
+			bytes = StepMetrics.getAllocatedBytes() - bytes;
+		}
+		if (result == null && isDeadlineExpired()) {
+			// the search was aborted: data cached by the solvers could be incomplete
+			stepNumber++;
+		}
+		metrics.recordStep(type, nanos, bytes, result != null);
 		return result;
 	}
 
@@ -322,6 +353,8 @@ public class SudokuStepFinder {
 		}
 		// even if the reference is the same, the content could have been changed
 		setSudokuDirty();
+		// pick up changes in the global options (only, if there are any)
+		configChecked = false;
 	}
 
 	/**
@@ -334,12 +367,76 @@ public class SudokuStepFinder {
 	}
 
 	/**
-	 * Sets the stepConfigs.
+	 * Sets the time budget for all further searches (<code>null</code>: no
+	 * limit).
+	 *
+	 * @param deadline
+	 */
+	public void setDeadline(SolverDeadline deadline) {
+		this.deadline = deadline;
+	}
+
+	/**
+	 * Gets the time budget for the searches.
+	 *
+	 * @return
+	 */
+	public SolverDeadline getDeadline() {
+		return deadline;
+	}
+
+	/**
+	 * Checks the time budget of the searches.
+	 *
+	 * @return <code>true</code> if a deadline is set and has expired
+	 */
+	public boolean isDeadlineExpired() {
+		SolverDeadline act = deadline;
+		return act != null && act.isExpired();
+	}
+
+	/**
+	 * The runtime metrics of this step finder.
+	 * 
+	 * @return
+	 */
+	public StepMetrics getMetrics() {
+		return metrics;
+	}
+
+	/**
+	 * Gets the configuration for all searches. If no configuration has been set
+	 * explicitly, a snapshot of the global options is used.
 	 * 
-	 * @param stepConfigs
+	 * @return
+	 */
+	public SolverConfig getConfig() {
+		if (!configPinned && !configChecked) {
+			config = SolverConfig.fromOptions();
+			configChecked = true;
+		}
+		return config;
+	}
+
+	/**
+	 * Sets a fixed configuration for all searches. If <code>config</code> is
+	 * <code>null</code>, the global options are used again.
+	 * 
+	 * @param config
+	 */
+	public void setConfig(SolverConfig config) {
+		this.config = config;
+		configPinned = config != null;
+		configChecked = false;
+	}
+
+	/**
+	 * Checks, if a configuration has been set explicitly.
+	 * 
+	 * @return
 	 */
-	public void setStepConfigs(StepConfig[] stepConfigs) {
-		this.stepConfigs = stepConfigs;
+	public boolean isConfigPinned() {
+		return configPinned;
 	}
 
 	/**
@@ -966,81 +1063,204 @@ public class SudokuStepFinder {
 		if ((initLists && templatesListDirty) || (!initLists && templatesDirty)) {
 			SudokuSetBase[] allowedPositions = getCandidates();
 			SudokuSet[] setPositions = getPositions();
-			SudokuSetBase[] templates = Sudoku2.templates;
-			SudokuSetBase[] forbiddenPositions = new SudokuSetBase[10]; // eine 1 an jeder Position, an der Wert nicht
-																		// mehr sein darf
+			// Template i: mask1 at 2 * i, mask2 at 2 * i + 1
+			long[] templates = Sudoku2.getTemplates();
+			// the sets are handled as primitive masks (no method calls in the inner loop)
+			long[] setMask1 = new long[10];
+			long[] setMask2 = new long[10];
+			// eine 1 an jeder Position, an der Wert nicht mehr sein darf
+			long[] forbiddenMask1 = new long[10];
+			long[] forbiddenMask2 = new long[10];
+			long[] andMask1 = new long[10];
+			long[] andMask2 = new long[10];
+			long[] orMask1 = new long[10];
+			long[] orMask2 = new long[10];
 
-//        SudokuSetBase setMask = new SudokuSetBase();
-//        SudokuSetBase delMask = new SudokuSetBase();
-//        SudokuSetBase temp = new SudokuSetBase();
 			for (int i = 1; i <= 9; i++) {
-				setValueTemplates[i].setAll();
-				delCandTemplates[i].clear();
-				candTemplates.get(i).clear();
+				setMask1[i] = setPositions[i].getMask1();
+				setMask2[i] = setPositions[i].getMask2();
 
 				// eine 1 an jeder verbotenen Position ~(positions | allowedPositions)
-				forbiddenPositions[i] = new SudokuSetBase();
-				forbiddenPositions[i].set(setPositions[i]);
-				forbiddenPositions[i].or(allowedPositions[i]);
-				forbiddenPositions[i].not();
+				forbiddenMask1[i] = ~(setMask1[i] | allowedPositions[i].getMask1());
+				forbiddenMask2[i] = ~(setMask2[i] | allowedPositions[i].getMask2()) & SudokuSetBase.MAX_MASK2;
+				andMask1[i] = SudokuSetBase.MAX_MASK1;
+				andMask2[i] = SudokuSetBase.MAX_MASK2;
 			}
-			for (int i = 0; i < templates.length; i++) {
-				for (int j = 1; j <= 9; j++) {
-					if (!setPositions[j].andEquals(templates[i])) {
-						// Template hat keine 1 an einer bereits gesetzten Position
-						continue;
-					}
-					if (!forbiddenPositions[j].andEmpty(templates[i])) {
-						// Template hat eine 1 an einer verbotenen Position
-						continue;
-					}
-					// Template ist für Kandidaten erlaubt!
-					setValueTemplates[j].and(templates[i]);
-					delCandTemplates[j].or(templates[i]);
-					if (initLists) {
-						candTemplates.get(j).add(templates[i]);
+
+			// alle Templates für alle Kandidaten in einem Durchlauf prüfen; die
+			// Ranges der Threads enthalten immer ganze Worte der Bitmaps
+			int threads = getConfig().getTemplateThreads();
+			if (threads <= 0) {
+				threads = Runtime.getRuntime().availableProcessors();
+			}
+			threads = Math.min(threads, TEMPLATE_WORDS);
+			List<TemplateFilter> filters = new ArrayList<TemplateFilter>(threads);
+			for (int i = 0; i < threads; i++) {
+				filters.add(new TemplateFilter(templates, candTemplates, i * TEMPLATE_WORDS / threads,
+						(i + 1) * TEMPLATE_WORDS / threads, setMask1, setMask2, forbiddenMask1, forbiddenMask2));
+			}
+			if (threads == 1) {
+				filters.get(0).call();
+			} else {
+				try {
+					for (Future<Void> future : ForkJoinPool.commonPool().invokeAll(filters)) {
+						future.get();
 					}
+				} catch (InterruptedException ex) {
+					Thread.currentThread().interrupt();
+					throw new RuntimeException(ex);
+				} catch (ExecutionException ex) {
+					throw new RuntimeException(ex.getCause());
+				}
+			}
+			for (TemplateFilter filter : filters) {
+				for (int j = 1; j <= 9; j++) {
+					andMask1[j] &= filter.andMask1[j];
+					andMask2[j] &= filter.andMask2[j];
+					orMask1[j] |= filter.orMask1[j];
+					orMask2[j] |= filter.orMask2[j];
 				}
 			}
 
-			// verfeinern
+			// verfeinern: Ein Template, das eine 1 an einer Position hat, die für
+			// einen anderen Kandidaten sicher gesetzt werden kann, ist verboten
 			if (initLists) {
 				int removals = 0;
 				do {
 					removals = 0;
 					for (int j = 1; j <= 9; j++) {
-						setValueTemplates[j].setAll();
-						delCandTemplates[j].clear();
-						ListIterator<SudokuSetBase> it = candTemplates.get(j).listIterator();
-						while (it.hasNext()) {
-							SudokuSetBase template = it.next();
-							boolean removed = false;
-							for (int k = 1; k <= 9; k++) {
-								if (k != j && !template.andEmpty(setValueTemplates[k])) {
-									it.remove();
-									removed = true;
+						long others1 = 0;
+						long others2 = 0;
+						for (int k = 1; k <= 9; k++) {
+							if (k != j) {
+								others1 |= andMask1[k];
+								others2 |= andMask2[k];
+							}
+						}
+						andMask1[j] = SudokuSetBase.MAX_MASK1;
+						andMask2[j] = SudokuSetBase.MAX_MASK2;
+						orMask1[j] = 0;
+						orMask2[j] = 0;
+						long[] bitmap = candTemplates[j];
+						for (int w = 0; w < bitmap.length; w++) {
+							long bits = bitmap[w];
+							while (bits != 0) {
+								long bit = bits & -bits;
+								bits ^= bit;
+								int index = ((w << 6) + Long.numberOfTrailingZeros(bit)) << 1;
+								long t1 = templates[index];
+								long t2 = templates[index + 1];
+								if ((t1 & others1) != 0 || (t2 & others2) != 0) {
+									bitmap[w] &= ~bit;
 									removals++;
-									break;
+								} else {
+									andMask1[j] &= t1;
+									andMask2[j] &= t2;
+									orMask1[j] |= t1;
+									orMask2[j] |= t2;
 								}
 							}
-							if (!removed) {
-								setValueTemplates[j].and(template);
-								delCandTemplates[j].or(template);
-							}
 						}
 					}
 				} while (removals > 0);
 			}
 
 			for (int i = 1; i <= 9; i++) {
-				delCandTemplates[i].not();
+				setValueTemplates[i].set(andMask1[i], andMask2[i]);
+				delCandTemplates[i].set(~orMask1[i], ~orMask2[i] & SudokuSetBase.MAX_MASK2);
 			}
 			templatesDirty = false;
 			if (initLists) {
 				templatesListDirty = false;
 			}
 		}
-		templateNanos += System.nanoTime() - nanos;
+		nanos = System.nanoTime() - nanos;
+		templateNanos += nanos;
+		metrics.recordCache(StepMetrics.CACHE_TEMPLATES, nanos);
+	}
+
+	/**
+	 * Checks a range of templates for all candidates in one pass. The valid
+	 * templates are recorded in the bitmaps; the AND and OR of the valid templates
+	 * of the range are collected in {@link #andMask1} etc.<br>
+	 * Filters for disjoint ranges can run in parallel, since they write to
+	 * different words of the bitmaps.
+	 */
+	private static class TemplateFilter implements Callable<Void> {
+		private final long[] templates;
+		private final long[][] bitmaps;
+		private final int fromWord;
+		private final int toWord;
+		private final long[] setMask1;
+		private final long[] setMask2;
+		private final long[] forbiddenMask1;
+		private final long[] forbiddenMask2;
+		final long[] andMask1 = new long[10];
+		final long[] andMask2 = new long[10];
+		final long[] orMask1 = new long[10];
+		final long[] orMask2 = new long[10];
+
+		/**
+		 * Creates a filter for the templates <code>fromWord * 64</code> to
+		 * <code>toWord * 64 - 1</code>.
+		 * 
+		 * @param templates
+		 * @param bitmaps
+		 * @param fromWord
+		 * @param toWord
+		 * @param setMask1
+		 * @param setMask2
+		 * @param forbiddenMask1
+		 * @param forbiddenMask2
+		 */
+		TemplateFilter(long[] templates, long[][] bitmaps, int fromWord, int toWord, long[] setMask1,
+				long[] setMask2, long[] forbiddenMask1, long[] forbiddenMask2) {
+			this.templates = templates;
+			this.bitmaps = bitmaps;
+			this.fromWord = fromWord;
+			this.toWord = toWord;
+			this.setMask1 = setMask1;
+			this.setMask2 = setMask2;
+			this.forbiddenMask1 = forbiddenMask1;
+			this.forbiddenMask2 = forbiddenMask2;
+		}
+
+		@Override
+		public Void call() {
+			for (int j = 1; j <= 9; j++) {
+				andMask1[j] = SudokuSetBase.MAX_MASK1;
+				andMask2[j] = SudokuSetBase.MAX_MASK2;
+			}
+			int end = Math.min(toWord << 6, Sudoku2.TEMPLATE_ANZ);
+			for (int w = fromWord; w < toWord; w++) {
+				for (int j = 1; j <= 9; j++) {
+					bitmaps[j][w] = 0;
+				}
+			}
+			for (int i = fromWord << 6; i < end; i++) {
+				long t1 = templates[i << 1];
+				long t2 = templates[(i << 1) + 1];
+				int w = i >> 6;
+				long bit = 1L << (i & 63);
+				for (int j = 1; j <= 9; j++) {
+					if ((setMask1[j] & t1) != setMask1[j] || (setMask2[j] & t2) != setMask2[j]) {
+						// Template hat keine 1 an einer bereits gesetzten Position
+						continue;
+					}
+					if ((forbiddenMask1[j] & t1) != 0 || (forbiddenMask2[j] & t2) != 0) {
+						// Template hat eine 1 an einer verbotenen Position
+						continue;
+					}
+					// Template ist für Kandidaten erlaubt!
+					andMask1[j] &= t1;
+					andMask2[j] &= t2;
+					orMask1[j] |= t1;
+					orMask2[j] |= t2;
+					bitmaps[j][w] |= bit;
+				}
+			}
+			return null;
+		}
 	}
 
 	/**
@@ -1069,8 +1289,7 @@ public class SudokuStepFinder {
 	/**
 	 * Gets all ALS from {@link #sudoku}. If <code>onlyLargerThanOne</code> is set,
 	 * ALS of size 1 (cells containing two candidates) are ignored.<br>
-	 * The work is delegated to
-	 * {@link #collectAllAlsesForHouse(int[][], sudoku.Sudoku2, java.util.List, boolean)}.<br>
+	 * The work is delegated to {@link #doGetAlses(AlsCache, boolean)}.<br>
 	 * <br>
 	 * The list is cached in {@link #alsesOnlyLargerThanOne} or
 	 * {@link #alsesWithOne} respectively and only recomputed if necessary.
@@ -1079,56 +1298,113 @@ public class SudokuStepFinder {
 	 * @return
 	 */
 	public List<Als> getAlses(boolean onlyLargerThanOne) {
-		if (onlyLargerThanOne) {
-			if (alsesOnlyLargerThanOneStepNumber == stepNumber) {
-				return alsesOnlyLargerThanOne;
-			} else {
-				alsesOnlyLargerThanOne = doGetAlses(onlyLargerThanOne);
-				alsesOnlyLargerThanOneStepNumber = stepNumber;
-				return alsesOnlyLargerThanOne;
-			}
-		} else {
-			if (alsesWithOneStepNumber == stepNumber) {
-				return alsesWithOne;
-			} else {
-				alsesWithOne = doGetAlses(onlyLargerThanOne);
-				alsesWithOneStepNumber = stepNumber;
-				return alsesWithOne;
-			}
+		AlsCache cache = onlyLargerThanOne ? alsesOnlyLargerThanOne : alsesWithOne;
+		if (cache.stepNumber != stepNumber) {
+			doGetAlses(cache, onlyLargerThanOne);
+			cache.stepNumber = stepNumber;
 		}
+		return cache.alses;
 	}
 
 	/**
-	 * Does some statistics and starts the recursive search for every house.
+	 * Does some statistics and brings the ALS in <code>cache</code> up to date.
+	 * Only the cells that have changed since the last search are checked: ALS
+	 * containing them are dropped and the houses containing them are searched
+	 * again. ALS whose buddies have changed get new fields. If too many houses are
+	 * affected, all ALS are searched again.<br>
+	 * <br>
+	 * The resulting list has the same order as a search from scratch (sorted by
+	 * {@link #ALS_ORDER}).
 	 * 
+	 * @param cache
 	 * @param onlyLargerThanOne
-	 * @return
 	 */
-	private List<Als> doGetAlses(boolean onlyLargerThanOne) {
+	private void doGetAlses(AlsCache cache, boolean onlyLargerThanOne) {
 		long actNanos = System.nanoTime();
 
-		// this is the list we will be working with
-		List<Als> alses = new ArrayList<Als>(300);
-		alses.clear();
+		// which cells have changed since the last search?
+		alsChangedCells.clear();
+		alsChangedBuddies.clear();
+		Arrays.fill(alsChangedHouses, false);
+		int anzHouses = 0;
+		if (cache.alses != null) {
+			for (int i = 0; i < Sudoku2.LENGTH; i++) {
+				if (sudoku.getValue(i) != cache.values[i] || sudoku.getCell(i) != cache.cells[i]) {
+					alsChangedCells.add(i);
+					alsChangedBuddies.or(Sudoku2.buddies[i]);
+					for (int j = 0; j < Sudoku2.CONSTRAINTS[i].length; j++) {
+						if (!alsChangedHouses[Sudoku2.CONSTRAINTS[i][j]]) {
+							alsChangedHouses[Sudoku2.CONSTRAINTS[i][j]] = true;
+							anzHouses++;
+						}
+					}
+				}
+			}
+		}
+
+		if (cache.alses != null && anzHouses == 0) {
+			// nothing to do
+		} else if (cache.alses == null || anzHouses > ALS_REFRESH_MAX_HOUSES) {
+			// this is the list we will be working with
+			List<Als> alses = new ArrayList<Als>(300);
+			cache.known.clear();
 
-		// recursion is started once for every cell in every house
-		for (int i = 0; i < Sudoku2.ALL_UNITS.length; i++) {
-			for (int j = 0; j < Sudoku2.ALL_UNITS[i].length; j++) {
+			// recursion is started once for every house
+			for (int i = 0; i < Sudoku2.ALL_UNITS.length; i++) {
 				indexSet.clear();
 				candSets[0] = 0;
-				checkAlsRecursive(0, j, Sudoku2.ALL_UNITS[i], alses, onlyLargerThanOne);
+				checkAlsRecursive(0, 0, Sudoku2.ALL_UNITS[i], alses, cache.known, onlyLargerThanOne);
+			}
+
+			// compute fields
+			for (Als als : alses) {
+				als.computeFields(this);
+			}
+			cache.alses = alses;
+		} else {
+			// keep all ALS that dont contain changed cells
+			List<Als> alses = new ArrayList<Als>(cache.alses.size() + 50);
+			cache.known.clear();
+			for (Als als : cache.alses) {
+				if (als.indices.intersects(alsChangedCells)) {
+					continue;
+				}
+				if (als.indices.intersects(alsChangedBuddies)) {
+					// the candidates of the buddies could have changed: new fields
+					// (the old ALS could still be in use)
+					als = new Als(als.indices, als.candidates);
+					als.computeFields(this);
+				}
+				alses.add(als);
+				cache.known.add(als.indices);
+			}
+
+			// search the changed houses again
+			int oldAnz = alses.size();
+			for (int i = 0; i < Sudoku2.ALL_UNITS.length; i++) {
+				if (alsChangedHouses[i]) {
+					indexSet.clear();
+					candSets[0] = 0;
+					checkAlsRecursive(0, 0, Sudoku2.ALL_UNITS[i], alses, cache.known, onlyLargerThanOne);
+				}
+			}
+			for (int i = oldAnz; i < alses.size(); i++) {
+				alses.get(i).computeFields(this);
 			}
+			Collections.sort(alses, ALS_ORDER);
+			cache.alses = alses;
 		}
 
-		// compute fields
-		for (Als als : alses) {
-			als.computeFields(this);
+		// remember the state of the sudoku
+		for (int i = 0; i < Sudoku2.LENGTH; i++) {
+			cache.values[i] = sudoku.getValue(i);
+			cache.cells[i] = sudoku.getCell(i);
 		}
 
-		alsNanos += (System.nanoTime() - actNanos);
+		actNanos = System.nanoTime() - actNanos;
+		alsNanos += actNanos;
+		metrics.recordCache(StepMetrics.CACHE_ALS, actNanos);
 		anzAlsCalls++;
-
-		return alses;
 	}
 
 	/**
@@ -1139,9 +1415,10 @@ public class SudokuStepFinder {
 	 * @param startIndex        First index in <code>indexe</code> to check.
 	 * @param indexe            Array with all the cells of the current house.
 	 * @param alses             List for all newly found ALS
+	 * @param known             The cells of all ALS in <code>alses</code>
 	 * @param onlyLargerThanOne Allow ALS with only one cell (bivalue cells)
 	 */
-	private void checkAlsRecursive(int anzahl, int startIndex, int[] indexe, List<Als> alses,
+	private void checkAlsRecursive(int anzahl, int startIndex, int[] indexe, List<Als> alses, CellSetHashSet known,
 			boolean onlyLargerThanOne) {
 		anzahl++;
 		if (anzahl > indexe.length - 1) {
@@ -1163,9 +1440,8 @@ public class SudokuStepFinder {
 				if (!onlyLargerThanOne || indexSet.size() > 1) {
 					// found one -> save it if it doesnt exist already
 					anzAls++;
-					Als newAls = new Als(indexSet, candSets[anzahl]);
-					if (!alses.contains(newAls)) {
-						alses.add(newAls);
+					if (known.add(indexSet)) {
+						alses.add(new Als(indexSet, candSets[anzahl]));
 					} else {
 						doubleAls++;
 					}
@@ -1173,13 +1449,77 @@ public class SudokuStepFinder {
 			}
 
 			// continue recursion
-			checkAlsRecursive(anzahl, i + 1, indexe, alses, onlyLargerThanOne);
+			checkAlsRecursive(anzahl, i + 1, indexe, alses, known, onlyLargerThanOne);
 
 			// remove current cell
 			indexSet.remove(houseIndex);
 		}
 	}
 
+	/**
+	 * The first house in {@link Sudoku2#ALL_UNITS} that contains all cells of an
+	 * ALS (that is the house in which a search from scratch finds the ALS).
+	 * 
+	 * @param indices
+	 * @return
+	 */
+	private static int getAlsHouse(SudokuSet indices) {
+		int first = indices.get(0);
+		for (int c = 0; c < 2; c++) {
+			int house = Sudoku2.CONSTRAINTS[first][c];
+			boolean all = true;
+			for (int i = 1; i < indices.size(); i++) {
+				if (Sudoku2.CONSTRAINTS[indices.get(i)][c] != house) {
+					all = false;
+					break;
+				}
+			}
+			if (all) {
+				return house;
+			}
+		}
+		return Sudoku2.CONSTRAINTS[first][2];
+	}
+
+	/**
+	 * The order of the ALS in a search from scratch: by house (see
+	 * {@link #getAlsHouse(sudoku.SudokuSet)}), then lexicographically by cells.
+	 */
+	private static final Comparator<Als> ALS_ORDER = new Comparator<Als>() {
+		@Override
+		public int compare(Als a1, Als a2) {
+			int ret = getAlsHouse(a1.indices) - getAlsHouse(a2.indices);
+			if (ret != 0) {
+				return ret;
+			}
+			int anz = Math.min(a1.indices.size(), a2.indices.size());
+			for (int i = 0; i < anz; i++) {
+				ret = a1.indices.get(i) - a2.indices.get(i);
+				if (ret != 0) {
+					return ret;
+				}
+			}
+			return a1.indices.size() - a2.indices.size();
+		}
+	};
+
+	/**
+	 * The ALS of one search type together with the state of the sudoku they were
+	 * computed for.
+	 */
+	private static class AlsCache {
+		/** The ALS. */
+		List<Als> alses = null;
+		/** Step number for which {@link #alses} was computed. */
+		int stepNumber = -1;
+		/** The values of the cells when {@link #alses} was computed. */
+		int[] values = new int[Sudoku2.LENGTH];
+		/** The candidates of the cells when {@link #alses} was computed. */
+		short[] cells = new short[Sudoku2.LENGTH];
+		/** The cells of all ALS in {@link #alses}. */
+		CellSetHashSet known = new CellSetHashSet(300);
+	}
+
 	/**
 	 * Do some statistics.
 	 * 
@@ -1194,21 +1534,19 @@ public class SudokuStepFinder {
 
 	/**
 	 * Lists of all RCs of the current sudoku are needed by more than one solver,
-	 * but caching them can greatly increase performance.
+	 * but caching them can greatly increase performance.<br>
+	 * <br>
+	 * The table is reused: it is only valid until the next call of this method.
 	 *
 	 * @param alses
 	 * @param allowOverlap
 	 * @return
 	 */
-	public List<RestrictedCommon> getRestrictedCommons(List<Als> alses, boolean allowOverlap) {
+	public RestrictedCommonTable getRestrictedCommons(List<Als> alses, boolean allowOverlap) {
 		if (lastRcStepNumber != stepNumber || lastRcAllowOverlap != allowOverlap || lastRcAlsList != alses
 				|| lastRcOnlyForward != rcOnlyForward) {
 			// recompute
-			if (startIndices == null || startIndices.length < alses.size()) {
-				startIndices = new int[(int) (alses.size() * 1.5)];
-				endIndices = new int[(int) (alses.size() * 1.5)];
-			}
-			restrictedCommons = doGetRestrictedCommons(alses, allowOverlap);
+			doGetRestrictedCommons(alses, allowOverlap);
 			// store caching flags
 			lastRcStepNumber = stepNumber;
 			lastRcAllowOverlap = allowOverlap;
@@ -1218,24 +1556,6 @@ public class SudokuStepFinder {
 		return restrictedCommons;
 	}
 
-	/**
-	 * Getter for {@link #startIndices}.
-	 * 
-	 * @return
-	 */
-	public int[] getStartIndices() {
-		return startIndices;
-	}
-
-	/**
-	 * Getter for {@link #endIndices}.
-	 * 
-	 * @return
-	 */
-	public int[] getEndIndices() {
-		return endIndices;
-	}
-
 	/**
 	 * Setter for {@link #rcOnlyForward}.
 	 * 
@@ -1261,9 +1581,8 @@ public class SudokuStepFinder {
 	 * ALS with RC(s) may overlap as long as the overlapping area doesnt contain an
 	 * RC.<br>
 	 * Two ALS can have a maximum of two RCs.<br>
-	 * The index of the first RC for {@link #alses}[i] is written to
-	 * {@link #startIndices}[i], the index of the last RC + 1 is written to
-	 * {@link #endIndices}[i] (needed for chain search).<br>
+	 * The RCs are written to {@link #restrictedCommons} (sorted by the index of
+	 * the first ALS).<br>
 	 * <br>
 	 * 
 	 * If {@link #rcOnlyForward} is set to <code>true</code>, only RCs with
@@ -1271,90 +1590,218 @@ public class SudokuStepFinder {
 	 * ALS-XY-Wing this is irrelevant. For ALS-Chains it greatly improves
 	 * performance, but not all chains are found. This is the default when solving
 	 * puzzles, {@link #rcOnlyForward} <code>false</code> is the default for search
-	 * for all steps.
+	 * for all steps.<br>
+	 * <br>
+	 * Only ALS with common candidates are paired (see {@link #alsCandBitmaps}). If
+	 * more than one thread is configured, the ALS list is split into parts that
+	 * are searched in parallel.
 	 *
+	 * @param alses
 	 * @param withOverlap If <code>false</code> overlapping ALS are not allowed
 	 */
-	private List<RestrictedCommon> doGetRestrictedCommons(List<Als> alses, boolean withOverlap) {
+	private void doGetRestrictedCommons(List<Als> alses, boolean withOverlap) {
 		rcAnzCalls++;
 		long actNanos = 0;
 		actNanos = System.nanoTime();
 		// store the calculation mode
 		lastRcOnlyForward = rcOnlyForward;
-		// delete all RCs from the last run
-		List<RestrictedCommon> rcs = new ArrayList<RestrictedCommon>(2000);
-		// Try all combinations of alses
-		for (int i = 0; i < alses.size(); i++) {
-			Als als1 = alses.get(i);
-			startIndices[i] = rcs.size();
-			// if (DEBUG) System.out.println("als1: " + SolutionStep.getAls(als1));
-			int start = 0;
-			if (rcOnlyForward) {
-				start = i + 1;
+
+		// which ALS contain which candidates?
+		int anzAls = alses.size();
+		int words = (anzAls + 63) >> 6;
+		if (alsCandBitmaps[1].length < words) {
+			for (int i = 1; i <= 9; i++) {
+				alsCandBitmaps[i] = new long[words];
 			}
-			for (int j = start; j < alses.size(); j++) {
-				if (i == j) {
-					continue;
-				}
-				Als als2 = alses.get(j);
-				// check whether the ALS overlap (intersectionSet is needed later on anyway)
-				intersectionSet.set(als1.indices);
-				intersectionSet.and(als2.indices);
-				if (!withOverlap && !intersectionSet.isEmpty()) {
-					// overlap is not allowed!
-					continue;
+		} else {
+			for (int i = 1; i <= 9; i++) {
+				Arrays.fill(alsCandBitmaps[i], 0, words, 0);
+			}
+		}
+		for (int i = 0; i < anzAls; i++) {
+			int[] cands = Sudoku2.POSSIBLE_VALUES[alses.get(i).candidates];
+			for (int j = 0; j < cands.length; j++) {
+				alsCandBitmaps[cands[j]][i >> 6] |= 1L << i;
+			}
+		}
+
+		int threads = getConfig().getRcThreads();
+		if (threads <= 0) {
+			threads = Runtime.getRuntime().availableProcessors();
+		}
+		// more parts than threads: with forward search the first parts are more work
+		int parts = threads == 1 ? 1 : Math.max(1, Math.min(threads * 4, anzAls));
+		while (rcSearches.size() < parts) {
+			rcSearches.add(new RcSearch());
+		}
+		List<RcSearch> searches = rcSearches.subList(0, parts);
+		for (int i = 0; i < parts; i++) {
+			searches.get(i).init(alses, alsCandBitmaps, i * anzAls / parts, (i + 1) * anzAls / parts, withOverlap,
+					rcOnlyForward);
+		}
+		if (parts == 1) {
+			searches.get(0).call();
+		} else {
+			try {
+				for (Future<Void> future : ForkJoinPool.commonPool().invokeAll(searches)) {
+					future.get();
 				}
-				// if (DEBUG) System.out.println("als2: " + SolutionStep.getAls(als2));
-				// restricted common: all buddies + the positions of the candidates themselves
-				// ANDed
-				// check whether als1 and als2 have common candidates
-				possibleRestrictedCommonsSet = als1.candidates;
-				possibleRestrictedCommonsSet &= als2.candidates;
-				// possibleRestrictedCommons now contains all candidates common to both ALS
-				if (possibleRestrictedCommonsSet == 0) {
-					// nothing to do!
-					continue;
+			} catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+				throw new RuntimeException(ex);
+			} catch (ExecutionException ex) {
+				throw new RuntimeException(ex.getCause());
+			}
+		}
+		restrictedCommons.clear(anzAls);
+		for (RcSearch search : searches) {
+			restrictedCommons.append(search.rcs, search.from, search.to);
+			search.alses = null;
+		}
+		anzRcs += restrictedCommons.size();
+		actNanos = System.nanoTime() - actNanos;
+		rcNanos += actNanos;
+		metrics.recordCache(StepMetrics.CACHE_RC, actNanos);
+	}
+
+	/**
+	 * Searches the RCs for a range of ALS (the ALS in the range are the first ALS
+	 * of the RCs). Searches for disjoint ranges can run in parallel.
+	 */
+	private static class RcSearch implements Callable<Void> {
+		/** All ALS. */
+		List<Als> alses;
+		/** See {@link SudokuStepFinder#alsCandBitmaps}. */
+		private long[][] alsCandBitmaps;
+		/** First ALS of the range. */
+		int from;
+		/** Last ALS of the range + 1. */
+		int to;
+		private boolean withOverlap;
+		private boolean onlyForward;
+		/** The RCs found. */
+		final RestrictedCommonTable rcs = new RestrictedCommonTable();
+		/** All ALS that have a candidate in common with the current ALS. */
+		private long[] partners = new long[0];
+		/**
+		 * Holds all buddies of all candidate cells for one RC (including the
+		 * candidate cells themselves).
+		 */
+		private SudokuSet restrictedCommonBuddiesSet = new SudokuSet();
+		/** All cells containing a specific candidate in two ALS. */
+		private SudokuSet restrictedCommonIndexSet = new SudokuSet();
+		/** Contains the indices of all overlapping cells in two ALS. */
+		private SudokuSet intersectionSet = new SudokuSet();
+
+		/**
+		 * Sets up a new search.
+		 *
+		 * @param alses
+		 * @param alsCandBitmaps
+		 * @param from
+		 * @param to
+		 * @param withOverlap
+		 * @param onlyForward
+		 */
+		void init(List<Als> alses, long[][] alsCandBitmaps, int from, int to, boolean withOverlap,
+				boolean onlyForward) {
+			this.alses = alses;
+			this.alsCandBitmaps = alsCandBitmaps;
+			this.from = from;
+			this.to = to;
+			this.withOverlap = withOverlap;
+			this.onlyForward = onlyForward;
+		}
+
+		@Override
+		public Void call() {
+			int anzAls = alses.size();
+			int words = (anzAls + 63) >> 6;
+			if (partners.length < words) {
+				partners = new long[words];
+			}
+			rcs.clear(anzAls);
+			for (int i = from; i < to; i++) {
+				Als als1 = alses.get(i);
+				int startRc = rcs.size();
+				int start = 0;
+				if (onlyForward) {
+					start = i + 1;
 				}
-				// number of RC candidates found for this ALS combination
-				int rcAnz = 0;
-				RestrictedCommon newRC = null;
-				int[] prcs = Sudoku2.POSSIBLE_VALUES[possibleRestrictedCommonsSet];
-				for (int k = 0; k < prcs.length; k++) {
-					int cand = prcs[k];
-					// Get all positions of cand in both ALS
-					restrictedCommonIndexSet.set(als1.indicesPerCandidat[cand]);
-					restrictedCommonIndexSet.or(als2.indicesPerCandidat[cand]);
-					// non of these positions may be in the overlapping area of the two ALS
-					if (!restrictedCommonIndexSet.andEmpty(intersectionSet)) {
-						// at least on occurence of cand is in overlap -> forbidden
-						continue;
+				// only ALS that have at least one candidate in common with als1
+				int[] cands = Sudoku2.POSSIBLE_VALUES[als1.candidates];
+				int firstWord = start >> 6;
+				for (int w = firstWord; w < words; w++) {
+					long bits = 0;
+					for (int k = 0; k < cands.length; k++) {
+						bits |= alsCandBitmaps[cands[k]][w];
 					}
-					// now check if all those candidates see each other
-					restrictedCommonBuddiesSet.setAnd(als1.buddiesAlsPerCandidat[cand],
-							als2.buddiesAlsPerCandidat[cand]);
-					// we now know all common buddies, all common candidates must be in that set
-					if (restrictedCommonIndexSet.andEquals(restrictedCommonBuddiesSet)) {
-						// found -> cand is RC
-						if (rcAnz == 0) {
-							newRC = new RestrictedCommon(i, j, cand);
-							rcs.add(newRC);
-							anzRcs++;
-						} else {
-							newRC.setCand2(cand);
+					partners[w] = bits;
+				}
+				if (firstWord < words) {
+					partners[firstWord] &= -1L << (start & 63);
+				}
+				for (int w = firstWord; w < words; w++) {
+					long bits = partners[w];
+					while (bits != 0) {
+						int j = (w << 6) + Long.numberOfTrailingZeros(bits);
+						bits &= bits - 1;
+						if (j != i) {
+							checkRestrictedCommons(i, als1, j, alses.get(j));
 						}
-						rcAnz++;
 					}
 				}
-				if (rcAnz > 0) {
-					// if (DEBUG) System.out.println(newRC + ": " + rcAnz + " RCs for ALS " +
-					// SolutionStep.getAls(als1) + "/" + SolutionStep.getAls(als2));
+				rcs.setIndices(i, startRc, rcs.size());
+			}
+			return null;
+		}
+
+		/**
+		 * Checks two ALS for RCs.
+		 *
+		 * @param i
+		 * @param als1
+		 * @param j
+		 * @param als2
+		 */
+		private void checkRestrictedCommons(int i, Als als1, int j, Als als2) {
+			// check whether the ALS overlap (intersectionSet is needed later on anyway)
+			intersectionSet.set(als1.indices);
+			intersectionSet.and(als2.indices);
+			if (!withOverlap && !intersectionSet.isEmpty()) {
+				// overlap is not allowed!
+				return;
+			}
+			// all candidates common to both ALS
+			int[] prcs = Sudoku2.POSSIBLE_VALUES[als1.candidates & als2.candidates];
+			int cand1 = 0;
+			int cand2 = 0;
+			for (int k = 0; k < prcs.length; k++) {
+				int cand = prcs[k];
+				// Get all positions of cand in both ALS
+				restrictedCommonIndexSet.set(als1.indicesPerCandidat[cand]);
+				restrictedCommonIndexSet.or(als2.indicesPerCandidat[cand]);
+				// non of these positions may be in the overlapping area of the two ALS
+				if (!restrictedCommonIndexSet.andEmpty(intersectionSet)) {
+					// at least on occurence of cand is in overlap -> forbidden
+					continue;
 				}
+				// now check if all those candidates see each other
+				restrictedCommonBuddiesSet.setAnd(als1.buddiesAlsPerCandidat[cand], als2.buddiesAlsPerCandidat[cand]);
+				// we now know all common buddies, all common candidates must be in that set
+				if (restrictedCommonIndexSet.andEquals(restrictedCommonBuddiesSet)) {
+					// found -> cand is RC
+					if (cand1 == 0) {
+						cand1 = cand;
+					} else {
+						cand2 = cand;
+					}
+				}
+			}
+			if (cand1 != 0) {
+				rcs.add(i, j, cand1, cand2);
 			}
-			endIndices[i] = rcs.size();
 		}
-		actNanos = System.nanoTime() - actNanos;
-		rcNanos += actNanos;
-		return rcs;
 	}
 
 	/**
@@ -19,12 +19,10 @@
 
 package solver;
 
-import java.util.SortedMap;
-import java.util.TreeMap;
+import java.util.Arrays;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import sudoku.Chain;
-import sudoku.Options;
 import sudoku.SudokuSet;
 
 /**
@@ -115,18 +113,27 @@ public class TableEntry {
 	private static final long EXTENDED_TABLE = 0x8000000000000000L;
 //    private static final long RAW_ENTRY      = 0x1fffffffffffffffL;
 
+	/** Initial length of {@link #entries} and {@link #retIndices}. */
+	private static final int INITIAL_LENGTH = 128;
+
 	/** Index into {@link #entries} and {@link #retIndices}. */
 	int index = 0;
+	/**
+	 * The maximum number of entries in the table (from the solver's
+	 * {@link SolverConfig}).
+	 */
+	private int maxLength;
 	/**
 	 * The actual table, holding all resulting links. Synchronized with
-	 * {@link #retIndices}.
+	 * {@link #retIndices}. The array grows as needed up to {@link #maxLength};
+	 * all slots from {@link #index} on are always 0.
 	 */
-	int[] entries = new int[Options.getInstance().getMaxTableEntryLength()];
+	int[] entries;
 	/**
 	 * Contains up to 5 reverse indices plus the distance of the entry to the root
 	 * assumption. Synchronized with {@link #entries}.
 	 */
-	long[] retIndices = new long[Options.getInstance().getMaxTableEntryLength()];
+	long[] retIndices;
 	/**
 	 * Array of sets holding all cells for every candidate that can be set as a
 	 * result of the assumption.
@@ -141,10 +148,17 @@ public class TableEntry {
 	 * Reverse lookup cache: hold the index in {@link #entries} for every entry.
 	 * Used when constructing the chain from the result and when expanding tables.
 	 */
-	SortedMap<Integer, Integer> indices = new TreeMap<Integer, Integer>();
+	IntIntHashMap indices = new IntIntHashMap(INITIAL_LENGTH);
 
-	/** Creates a new instance. */
-	TableEntry() {
+	/**
+	 * Creates a new instance.
+	 *
+	 * @param maxLength The maximum number of entries in the table
+	 */
+	TableEntry(int maxLength) {
+		this.maxLength = maxLength;
+		entries = new int[Math.min(INITIAL_LENGTH, maxLength)];
+		retIndices = new long[entries.length];
 		for (int i = 0; i < onSets.length; i++) {
 			onSets[i] = new SudokuSet();
 			offSets[i] = new SudokuSet();
@@ -152,21 +166,22 @@ public class TableEntry {
 	}
 
 	/**
-	 * Clears the whole table.
+	 * Clears the whole table. Only the slots used since the last reset are
+	 * touched.
+	 *
+	 * @param maxLength The maximum number of entries in the table from now on
 	 */
-	void reset() {
+	void reset(int maxLength) {
+		this.maxLength = maxLength;
+		int used = Math.max(index, 1);
+		Arrays.fill(entries, 0, used, 0);
+		Arrays.fill(retIndices, 0, used, 0);
 		index = 0;
-		entries[0] = 0;
-		retIndices[0] = 0;
 		indices.clear();
 		for (int i = 0; i < onSets.length; i++) {
 			onSets[i].clear();
 			offSets[i].clear();
 		}
-		for (int i = 0; i < entries.length; i++) {
-			entries[i] = 0;
-			retIndices[i] = 0;
-		}
 	}
 
 	/**
@@ -276,7 +291,7 @@ public class TableEntry {
 	 */
 	void addEntry(int cellIndex1, int cellIndex2, int cellIndex3, int nodeType, int cand, boolean set, int ri1, int ri2,
 			int ri3, int ri4, int ri5, int penalty) {
-		if (index >= entries.length) {
+		if (index >= maxLength) {
 			// already full, some possible outcomes will be missed...
 			Logger.getLogger(getClass().getName()).log(Level.WARNING, "addEntry(): TableEntry is already full!");
 			return;
@@ -290,6 +305,11 @@ public class TableEntry {
 				return;
 			}
 		}
+		if (index == entries.length) {
+			int newLength = Math.min(entries.length * 2, maxLength);
+			entries = Arrays.copyOf(entries, newLength);
+			retIndices = Arrays.copyOf(retIndices, newLength);
+		}
 		// construct the entry and store it
 		int entry = Chain.makeSEntry(cellIndex1, cellIndex2, cellIndex3, cand, set, nodeType);
 		entries[index] = entry;
@@ -300,8 +320,9 @@ public class TableEntry {
 		// are expanding or not, we just try to avoid exceptions
 		// NOTE: for initial entries the code works correctly; for expanded entries
 		// the distance is overridden immediately by the expansion code.
-		if (ri1 < retIndices.length) {
-			setDistance(index, getDistance(ri1) + 1);
+		if (ri1 < maxLength) {
+			// slots that are not allocated yet are 0
+			setDistance(index, (ri1 < retIndices.length ? getDistance(ri1) : 0) + 1);
 		}
 
 		// chains end only in normal links (in this implementation)
@@ -347,15 +368,7 @@ public class TableEntry {
 	 */
 	int getEntryIndex(int cellIndex, boolean set, int cand) {
 		/// *K*/ returns null???
-		Integer ret = indices.get(Chain.makeSEntry(cellIndex, cand, set));
-		if (ret == null) {
-			// Logger.getLogger(getClass().getName()).log(Level.SEVERE, "entry not found: "
-			// + cellIndex + ", " + cand + ", " + set);
-			return 0;
-		} else {
-			return ret.intValue();
-		}
-//        return indices.get(Chain.makeSEntry(cellIndex, cand, set));
+		return indices.get(Chain.makeSEntry(cellIndex, cand, set), 0);
 	}
 
 	/**
@@ -366,11 +379,12 @@ public class TableEntry {
 	 * @return
 	 */
 	int getEntryIndex(int entry) {
-		Integer tmp = indices.get(entry);
-		if (tmp == null) {
+		int tmp = indices.get(entry, -1);
+		if (tmp == -1) {
 			Logger.getLogger(getClass().getName()).log(Level.SEVERE, "tmp == null: {0}", entry);
+			return 0;
 		}
-		return indices.get(entry);
+		return tmp;
 	}
 
 	/**
@@ -379,7 +393,7 @@ public class TableEntry {
 	 * @return
 	 */
 	boolean isFull() {
-		return index == entries.length;
+		return index >= maxLength;
 	}
 
 	/**
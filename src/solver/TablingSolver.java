@@ -24,6 +24,10 @@ import java.util.Comparator;
 import java.util.List;
 import java.util.SortedMap;
 import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import sudoku.Candidate;
@@ -134,7 +138,9 @@ public class TablingSolver extends AbstractSolver {
 	/**
 	 * All chains already found: eliminations + index in {@link #steps}.
 	 */
-	private SortedMap<String, Integer> deletesMap = new TreeMap<String, Integer>();
+	private EliminationMap deletesMap = new EliminationMap();
+	/** Key for {@link #deletesMap} (reused). */
+	private long[] deletesKey = EliminationMap.createKey();
 	/**
 	 * Search only for chains, not for nets.
 	 */
@@ -151,6 +157,18 @@ public class TablingSolver extends AbstractSolver {
 	 * Accept steps only if they contain group nodes/ALS nodes.
 	 */
 	private boolean onlyGroupedNiceLoops = false;
+	/**
+	 * The step number ({@link SudokuStepFinder#getStepNumber()}) for which
+	 * {@link #onTable} and {@link #offTable} have been filled and expanded, -1 if
+	 * the tables are invalid.
+	 */
+	private int tablesStepNumber = -1;
+	/** {@link #withGroupNodes} when the tables were built. */
+	private boolean tablesWithGroupNodes = false;
+	/** {@link #withAlsNodes} when the tables were built. */
+	private boolean tablesWithAlsNodes = false;
+	/** {@link #chainsOnly} when the tables were built. */
+	private boolean tablesChainsOnly = true;
 	/**
 	 * One table for every premise. Indices are in format "nnm" with "nn" the index
 	 * of the cell and "m" the candidate. This table holds all entries for
@@ -201,21 +219,20 @@ public class TablingSolver extends AbstractSolver {
 	 */
 	private TreeMap<Integer, Integer> chainAlses = new TreeMap<Integer, Integer>();
 	private Sudoku2 savedSudoku; // Sudoku2 im Ausgangszustand (für Erstellen der Tables)
-	private int[][] retIndices = new int[MAX_REC_DEPTH][5]; // indices ermitteln
 //    private int[][] retIndices1 = new int[MAX_REC_DEPTH][5]; // indices ermitteln
 	private List<GroupNode> groupNodes = null; // a list with all group nodes for a given sudoku
 	private List<Als> alses = null; // a list with all available ALS for a given sudoku
 //    private SudokuSet alsBuddies = new SudokuSet(); // cells that can see all the cells of the als
 	private SudokuSet[] alsEliminations = new SudokuSet[10]; // all cells with elminations for an als, sorted by
 																// candidate
-	private SudokuStepFinder simpleFinder;
-	private List<SolutionStep> singleSteps = new ArrayList<SolutionStep>(); // für Naked und Hidden Singles
-	private int[] chain = new int[Options.getInstance().getMaxTableEntryLength()]; // globale chain für buildChain()
+	/** The builders for the tables of forcing nets, reused between searches. */
+	private List<NetTableBuilder> netTableBuilders = new ArrayList<NetTableBuilder>();
+	private int[] chain = new int[getConfig().getMaxTableEntryLength()]; // globale chain für buildChain()
 	private int chainIndex = 0; // Index des nächsten Elements in chain[]
-	private int[][] mins = new int[200][Options.getInstance().getMaxTableEntryLength()]; // globale chains für networks
+	private int[][] mins = new int[200][getConfig().getMaxTableEntryLength()]; // globale chains für networks
 	private int[] minIndexes = new int[mins.length]; // Indexe der nächsten Elemente in mins[]
 	private int actMin = 0; // derzeit aktuelles min
-	private int[] tmpChain = new int[Options.getInstance().getMaxTableEntryLength()]; // globale chain für addChain()
+	private int[] tmpChain = new int[getConfig().getMaxTableEntryLength()]; // globale chain für addChain()
 	private Chain[] tmpChains = new Chain[9];
 	private int tmpChainsIndex = 0;
 	private SudokuSet lassoSet = new SudokuSet(); // für addChain: enthält alle Zellen-Indices der Chain
@@ -233,8 +250,6 @@ public class TablingSolver extends AbstractSolver {
 	public TablingSolver(SudokuStepFinder finder) {
 		super(finder);
 
-		simpleFinder = new SudokuStepFinder(true);
-
 		for (int i = 0; i < tmpOnSets.length; i++) {
 			tmpOnSets[i] = new SudokuSet();
 			tmpOffSets[i] = new SudokuSet();
@@ -245,7 +260,7 @@ public class TablingSolver extends AbstractSolver {
 		}
 		for (int i = 0; i < tmpChains.length; i++) {
 			tmpChains[i] = new Chain();
-			tmpChains[i].setChain(new int[Options.getInstance().getMaxTableEntryLength()]);
+			tmpChains[i].setChain(new int[getConfig().getMaxTableEntryLength()]);
 		}
 
 		for (int i = 0; i < alsEliminations.length; i++) {
@@ -266,13 +281,14 @@ public class TablingSolver extends AbstractSolver {
 			onTable = new TableEntry[810];
 			offTable = new TableEntry[810];
 			for (int i = 0; i < onTable.length; i++) {
-				onTable[i] = new TableEntry();
-				offTable[i] = new TableEntry();
+				onTable[i] = new TableEntry(getConfig().getMaxTableEntryLength());
+				offTable[i] = new TableEntry(getConfig().getMaxTableEntryLength());
 			}
 
 			extendedTable = new ArrayList<TableEntry>();
 			extendedTableMap = new TreeMap<Integer, Integer>();
 			extendedTableIndex = 0;
+			tablesStepNumber = -1;
 
 			initialized = true;
 		}
@@ -310,6 +326,7 @@ public class TablingSolver extends AbstractSolver {
 				extendedTableMap = null;
 			}
 			extendedTableIndex = 0;
+			tablesStepNumber = -1;
 
 			initialized = false;
 		}
@@ -343,7 +360,7 @@ public class TablingSolver extends AbstractSolver {
 		case GROUPED_DISCONTINUOUS_NICE_LOOP:
 		case GROUPED_AIC:
 			withGroupNodes = true;
-			withAlsNodes = Options.getInstance().isAllowAlsInTablingChains();
+			withAlsNodes = getConfig().isAllowAlsInTablingChains();
 			result = getNiceLoops();
 			break;
 		case FORCING_CHAIN:
@@ -351,7 +368,7 @@ public class TablingSolver extends AbstractSolver {
 		case FORCING_CHAIN_VERITY:
 			steps.clear();
 			withGroupNodes = true;
-			withAlsNodes = Options.getInstance().isAllowAlsInTablingChains();
+			withAlsNodes = getConfig().isAllowAlsInTablingChains();
 			getForcingChains();
 			if (steps.size() > 0) {
 				Collections.sort(steps, tablingComparator);
@@ -363,7 +380,7 @@ public class TablingSolver extends AbstractSolver {
 		case FORCING_NET_VERITY:
 			steps.clear();
 			withGroupNodes = true;
-			withAlsNodes = Options.getInstance().isAllowAlsInTablingChains();
+			withAlsNodes = getConfig().isAllowAlsInTablingChains();
 			getForcingNets();
 			if (steps.size() > 0) {
 				Collections.sort(steps, tablingComparator);
@@ -449,7 +466,7 @@ public class TablingSolver extends AbstractSolver {
 		long ticks = System.currentTimeMillis();
 		steps = new ArrayList<SolutionStep>();
 		withGroupNodes = true;
-		withAlsNodes = Options.getInstance().isAllowAlsInTablingChains();
+		withAlsNodes = getConfig().isAllowAlsInTablingChains();
 		onlyGroupedNiceLoops = true;
 		doGetNiceLoops();
 		onlyGroupedNiceLoops = false;
@@ -473,7 +490,7 @@ public class TablingSolver extends AbstractSolver {
 		steps = new ArrayList<SolutionStep>();
 		long millis1 = System.currentTimeMillis();
 		withGroupNodes = true;
-		withAlsNodes = Options.getInstance().isAllowAlsInTablingChains();
+		withAlsNodes = getConfig().isAllowAlsInTablingChains();
 		getForcingChains();
 		Collections.sort(steps, tablingComparator);
 		millis1 = System.currentTimeMillis() - millis1;
@@ -498,7 +515,7 @@ public class TablingSolver extends AbstractSolver {
 		long millis1 = System.currentTimeMillis();
 		// withGroupNodes = true;
 		withGroupNodes = true;
-		withAlsNodes = Options.getInstance().isAllowAlsInTablingChains();
+		withAlsNodes = getConfig().isAllowAlsInTablingChains();
 		getForcingNets();
 		Collections.sort(steps, tablingComparator);
 		millis1 = System.currentTimeMillis() - millis1;
@@ -521,34 +538,11 @@ public class TablingSolver extends AbstractSolver {
 		initialize();
 		sudoku = finder.getSudoku();
 		deletesMap.clear();
-		// fill tables
-		long ticks = System.currentTimeMillis();
 		chainsOnly = true;
 		// search for everything
-		fillTables();
-		fillTablesWithGroupNodes();
-		if (Options.getInstance().isAllowAlsInTablingChains()) {
-			fillTablesWithAls();
-		}
-		ticks = System.currentTimeMillis() - ticks;
-		if (DEBUG) {
-			System.out.println("fillTables(): " + ticks + "ms");
-		}
-		printTableAnz();
-		// printTable("r1c6=6 fill", onTable[56]);
-		// printTable("r3c2<>8 fill", offTable[198]);
-
-		// expand tables
-		ticks = System.currentTimeMillis();
-		expandTables(onTable);
-		expandTables(offTable);
-		ticks = System.currentTimeMillis() - ticks;
-		if (DEBUG) {
-			System.out.println("expandTables(): " + ticks + "ms");
-		}
-		printTableAnz();
-		// printTable("r1c6=6 expand", onTable[56]);
-		// printTable("r3c2<>8 expand", offTable[198]);
+		withGroupNodes = true;
+		withAlsNodes = getConfig().isAllowAlsInTablingChains();
+		fillAndExpandTables();
 	}
 
 	/**
@@ -649,38 +643,15 @@ public class TablingSolver extends AbstractSolver {
 	 */
 	private void doGetNiceLoops() {
 		deletesMap.clear();
-		// fill tables
-		long ticks = System.currentTimeMillis();
 		chainsOnly = true;
-		fillTables();
-		if (withGroupNodes) {
-			fillTablesWithGroupNodes();
-		}
-		if (withAlsNodes) {
-			fillTablesWithAls();
-		}
-		ticks = System.currentTimeMillis() - ticks;
-		if (DEBUG) {
-			System.out.println("fillTables(): " + ticks + "ms");
-		}
-		printTableAnz();
-		// printTable("r5c6=2 fill", onTable[412]);
-		// printTable("r8c6<>4 fill", offTable[684]);
-
-		// expand the tables
-		ticks = System.currentTimeMillis();
-		expandTables(onTable);
-		expandTables(offTable);
-		ticks = System.currentTimeMillis() - ticks;
-		if (DEBUG) {
-			System.out.println("expandTables(): " + ticks + "ms");
+		fillAndExpandTables();
+		if (isDeadlineExpired()) {
+			// tables are incomplete
+			return;
 		}
-		printTableAnz();
-		// printTable("r5c6=2 expand", onTable[412]);
-		// printTable("r8c6<>4 expand", offTable[684]);
 
 		// ok, here it starts!
-		ticks = System.currentTimeMillis();
+		long ticks = System.currentTimeMillis();
 		checkNiceLoops(onTable);
 		checkNiceLoops(offTable);
 		checkAics(offTable);
@@ -696,6 +667,50 @@ public class TablingSolver extends AbstractSolver {
 	 */
 	private void doGetForcingChains() {
 		deletesMap.clear();
+		fillAndExpandTables();
+		if (isDeadlineExpired()) {
+			// tables are incomplete
+			return;
+		}
+
+		// ok, hier beginnt der Spass!
+		long ticks = System.currentTimeMillis();
+		checkForcingChains();
+//        // TODO: DEBUG
+//        for (SolutionStep step : steps) {
+//            if (step.getCandidatesToDelete().get(0).getIndex() == 3 && step.getCandidatesToDelete().get(0).getValue() == 5) {
+//                System.out.println("==================================");
+//                System.out.println("   " + step.toString(2));
+//                List<Chain> chains = step.getChains();
+//                for (Chain chain : chains) {
+//                    System.out.println("   chain: " + chain);
+//                }
+//                System.out.println("==================================");
+//            }
+//        }
+		ticks = System.currentTimeMillis() - ticks;
+		if (DEBUG) {
+			System.out.println("checkChains(): " + ticks + "ms");
+		}
+	}
+
+	/**
+	 * Fills and expands {@link #onTable} and {@link #offTable} according to
+	 * {@link #chainsOnly}, {@link #withGroupNodes} and {@link #withAlsNodes}.<br>
+	 * The tables depend only on the sudoku and on those three flags, the checks
+	 * never change them. If they have already been built for the current step
+	 * number of the finder with the same flags, they are reused: within one
+	 * solver step Grouped Nice Loops, Kraken Fish and Forcing Chains all work on
+	 * the same tables.
+	 */
+	private void fillAndExpandTables() {
+		if (tablesStepNumber == finder.getStepNumber() && tablesChainsOnly == chainsOnly
+				&& tablesWithGroupNodes == withGroupNodes && tablesWithAlsNodes == withAlsNodes) {
+			// nothing has changed since the last run
+			return;
+		}
+		tablesStepNumber = -1;
+		long nanos = System.nanoTime();
 		// fill tables
 		long ticks = System.currentTimeMillis();
 		fillTables();
@@ -705,6 +720,10 @@ public class TablingSolver extends AbstractSolver {
 		if (withAlsNodes) {
 			fillTablesWithAls();
 		}
+		if (isDeadlineExpired()) {
+			// out of time: the tables stay invalid
+			return;
+		}
 		ticks = System.currentTimeMillis() - ticks;
 		if (DEBUG) {
 			System.out.println("fillTables(): " + ticks + "ms");
@@ -721,29 +740,18 @@ public class TablingSolver extends AbstractSolver {
 		if (DEBUG) {
 			System.out.println("expandTables(): " + ticks + "ms");
 		}
+		if (isDeadlineExpired()) {
+			return;
+		}
 		printTableAnz();
 		// printTable("r6c8=1 expand", onTable[521]);
 		// printTable("r6c8<>1 expand", offTable[521]);
 
-		// ok, hier beginnt der Spass!
-		ticks = System.currentTimeMillis();
-		checkForcingChains();
-//        // TODO: DEBUG
-//        for (SolutionStep step : steps) {
-//            if (step.getCandidatesToDelete().get(0).getIndex() == 3 && step.getCandidatesToDelete().get(0).getValue() == 5) {
-//                System.out.println("==================================");
-//                System.out.println("   " + step.toString(2));
-//                List<Chain> chains = step.getChains();
-//                for (Chain chain : chains) {
-//                    System.out.println("   chain: " + chain);
-//                }
-//                System.out.println("==================================");
-//            }
-//        }
-		ticks = System.currentTimeMillis() - ticks;
-		if (DEBUG) {
-			System.out.println("checkChains(): " + ticks + "ms");
-		}
+		tablesStepNumber = finder.getStepNumber();
+		tablesChainsOnly = chainsOnly;
+		tablesWithGroupNodes = withGroupNodes;
+		tablesWithAlsNodes = withAlsNodes;
+		finder.getMetrics().recordCache(StepMetrics.CACHE_TABLES, System.nanoTime() - nanos);
 	}
 
 	/**
@@ -763,6 +771,9 @@ public class TablingSolver extends AbstractSolver {
 		for (int i = 0; i < onTable.length; i++) {
 			checkTwoChains(onTable[i], offTable[i]);
 		}
+		if (isDeadlineExpired()) {
+			return;
+		}
 		// all possible solutions for chains originating
 		// in the same house.
 		checkAllChainsForHouse(null);
@@ -1035,19 +1046,20 @@ public class TablingSolver extends AbstractSolver {
 		// adjust the ALS nodes
 		adjustChains(globalStep);
 //        System.out.println("replaceorcopystep: " + globalStep.toString(2));
-		String del = null;
-		if (Options.getInstance().isOnlyOneChainPerStep()) {
+		boolean del = false;
+		if (getConfig().isOnlyOneChainPerStep()) {
+			del = true;
 			if (globalStep.getCandidatesToDelete().size() > 0) {
 				// candidates can be deleted
-				del = globalStep.getCandidateString();
+				EliminationMap.setCandidatesKey(globalStep, deletesKey);
 			} else {
 				// cells can be set
-				del = globalStep.getSingleCandidateString();
+				EliminationMap.setCellsKey(globalStep, deletesKey);
 			}
-			Integer oldIndex = deletesMap.get(del);
+			int oldIndex = deletesMap.get(deletesKey, -1);
 			SolutionStep actStep = null;
-			if (oldIndex != null) {
-				actStep = steps.get(oldIndex.intValue());
+			if (oldIndex != -1) {
+				actStep = steps.get(oldIndex);
 			}
 			if (actStep != null) {
 				if (actStep.getChainLength() > globalStep.getChainLength()) {
@@ -1067,9 +1079,9 @@ public class TablingSolver extends AbstractSolver {
 			oldChains.add((Chain) tmpChains[i].clone());
 		}
 		steps.add((SolutionStep) globalStep.clone());
-		if (del != null) {
+		if (del) {
 			// "only one chain" is set -> store the new step
-			deletesMap.put(del, steps.size() - 1);
+			deletesMap.put(deletesKey, steps.size() - 1);
 		}
 	}
 
@@ -1365,6 +1377,9 @@ public class TablingSolver extends AbstractSolver {
 	private void checkNiceLoops(TableEntry[] tables) {
 		// check all table entries
 		for (int i = 0; i < tables.length; i++) {
+			if (isDeadlineExpired()) {
+				return;
+			}
 			int startIndex = tables[i].getCellIndex(0);
 			for (int j = 1; j < tables[i].index; j++) {
 				if (tables[i].getNodeType(j) == Chain.NORMAL_NODE && tables[i].getCellIndex(j) == startIndex) {
@@ -1390,6 +1405,9 @@ public class TablingSolver extends AbstractSolver {
 	 */
 	private void checkAics(TableEntry[] tables) {
 		for (int i = 0; i < tables.length; i++) {
+			if (isDeadlineExpired()) {
+				return;
+			}
 			int startIndex = tables[i].getCellIndex(0);
 			int startCandidate = tables[i].getCandidate(0);
 			SudokuSetBase buddies = Sudoku2.buddies[startIndex];
@@ -1710,13 +1728,13 @@ public class TablingSolver extends AbstractSolver {
 				return;
 			}
 			// only one Nice Loop per set of eliminations
-			String del = globalStep.getCandidateString();
-			Integer oldIndex = deletesMap.get(del);
-			if (oldIndex != null && steps.get(oldIndex.intValue()).getChainLength() <= nlChainLength) {
+			EliminationMap.setCandidatesKey(globalStep, deletesKey);
+			int oldIndex = deletesMap.get(deletesKey, -1);
+			if (oldIndex != -1 && steps.get(oldIndex).getChainLength() <= nlChainLength) {
 				// an eqivalent does exist and is shorter than the new one
 				return;
 			}
-			deletesMap.put(del, steps.size());
+			deletesMap.put(deletesKey, steps.size());
 			// the chain has to be copied
 			newChain = (Chain) globalStep.getChains().get(0).clone();
 			globalStep.getChains().clear();
@@ -1805,14 +1823,14 @@ public class TablingSolver extends AbstractSolver {
 			return;
 		}
 		// check for steps with the same eliminations
-		String del = globalStep.getCandidateString();
-		Integer oldIndex = deletesMap.get(del);
-		if (oldIndex != null
-				&& steps.get(oldIndex.intValue()).getChainLength() <= globalStep.getChains().get(0).getLength()) {
+		EliminationMap.setCandidatesKey(globalStep, deletesKey);
+		int oldIndex = deletesMap.get(deletesKey, -1);
+		if (oldIndex != -1
+				&& steps.get(oldIndex).getChainLength() <= globalStep.getChains().get(0).getLength()) {
 			// a similar chain already exists and is shorter than the new one -> ignore it
 			return;
 		}
-		deletesMap.put(del, steps.size());
+		deletesMap.put(deletesKey, steps.size());
 		// chain must be copied
 		newChain = (Chain) globalStep.getChains().get(0).clone();
 		globalStep.getChains().clear();
@@ -1825,8 +1843,7 @@ public class TablingSolver extends AbstractSolver {
 	 * Fills the tables with all initial consequences. One table exists for every
 	 * outcome (set/not set) of every candidate in the sudoku. If
 	 * {@link #chainsOnly} is set, only direct dependencies are recorded. If it is
-	 * not set, {@link #getTableEntry(solver.TableEntry, int, int, boolean) } is
-	 * used to dig a little deeper.<br>
+	 * not set, {@link NetTableBuilder} is used to dig a little deeper.<br>
 	 * <br>
 	 *
 	 * All consequences depend on the original sudoku. Especially when searching for
@@ -1836,9 +1853,10 @@ public class TablingSolver extends AbstractSolver {
 	 */
 	private void fillTables() {
 		// initalize tables
+		int maxLength = getConfig().getMaxTableEntryLength();
 		for (int i = 0; i < onTable.length; i++) {
-			onTable[i].reset();
-			offTable[i].reset();
+			onTable[i].reset(maxLength);
+			offTable[i].reset(maxLength);
 		}
 		extendedTableMap.clear();
 		extendedTableIndex = 0;
@@ -1915,33 +1933,57 @@ public class TablingSolver extends AbstractSolver {
 			// we are looking for nets!
 			// iterate through all cells and candidates: set and delete the
 			// candidate and record all dependencies (look ahead more than one iteration).
-			// one copy is enough, Sudoku2.set() copies the contents of the sudoku
+			// every premise is independent: the cells are split between several
+			// builders, each of them works on its own copy of the sudoku
 			savedSudoku = sudoku.clone();
-			simpleFinder.setSudoku(savedSudoku);
-			for (int i = 0; i < savedSudoku.getCells().length; i++) {
-//            if (i != 52) {
-//                // debugging only
-//                continue;
-//            }
-				if (savedSudoku.getValue(i) != 0) {
-					// cell is already set -> ignore it
-					continue;
+			int threads = getConfig().getTableThreads();
+			if (threads <= 0) {
+				threads = Runtime.getRuntime().availableProcessors();
+			}
+			int parts = threads == 1 ? 1 : threads * 4;
+			while (netTableBuilders.size() < parts) {
+				netTableBuilders.add(new NetTableBuilder());
+			}
+			List<NetTableBuilder> builders = netTableBuilders.subList(0, parts);
+			// every part gets roughly the same number of premises
+			int anzPremises = 0;
+			for (int i = 0; i < Sudoku2.LENGTH; i++) {
+				if (savedSudoku.getValue(i) == 0) {
+					anzPremises += savedSudoku.getAnzCandidates(i);
+				}
+			}
+			SudokuSet[] candidates = finder.getCandidates();
+			int cellIndex = 0;
+			int premises = 0;
+			for (int i = 0; i < parts; i++) {
+				int from = cellIndex;
+				int limit = (i + 1) * anzPremises / parts;
+				while (cellIndex < Sudoku2.LENGTH && (premises < limit || i == parts - 1)) {
+					if (savedSudoku.getValue(cellIndex) == 0) {
+						premises += savedSudoku.getAnzCandidates(cellIndex);
+					}
+					cellIndex++;
 				}
-				int[] cands = savedSudoku.getAllCandidates(i);
-				for (int j = 0; j < cands.length; j++) {
-					// once for every candidate
-					int cand = cands[j];
-					// candidate is ON
-					sudoku.set(savedSudoku);
-					simpleFinder.setSudoku(sudoku);
-					getTableEntry(onTable[i * 10 + cand], i, cand, true);
-					// candidate is OFF
-					sudoku.set(savedSudoku);
-					simpleFinder.setSudoku(sudoku);
-					getTableEntry(offTable[i * 10 + cand], i, cand, false);
+				builders.get(i).init(savedSudoku, candidates, onTable, offTable, from, cellIndex,
+						getConfig().getAnzTableLookAhead(), finder.getDeadline());
+			}
+			if (parts == 1) {
+				builders.get(0).call();
+			} else {
+				try {
+					for (Future<Void> future : ForkJoinPool.commonPool().invokeAll(builders)) {
+						future.get();
+					}
+				} catch (InterruptedException ex) {
+					Thread.currentThread().interrupt();
+					throw new RuntimeException(ex);
+				} catch (ExecutionException ex) {
+					throw new RuntimeException(ex.getCause());
 				}
 			}
-			sudoku.set(savedSudoku);
+			for (NetTableBuilder builder : builders) {
+				builder.release();
+			}
 		}
 	}
 
@@ -2429,178 +2471,15 @@ public class TablingSolver extends AbstractSolver {
 	private TableEntry getNextExtendedTableEntry(int tableIndex) {
 		TableEntry entry = null;
 		if (tableIndex >= extendedTable.size()) {
-			entry = new TableEntry();
+			entry = new TableEntry(getConfig().getMaxTableEntryLength());
 			extendedTable.add(entry);
 		} else {
 			entry = extendedTable.get(tableIndex);
-			entry.reset();
+			entry.reset(getConfig().getMaxTableEntryLength());
 		}
 		return entry;
 	}
 
-	/**
-	 * Collects all dependencies on one specific action (cell is set/candidate is
-	 * deleted). To detect nets, the whole operation is repeated
-	 * {@link Options#anzTableLookAhead} times.<br>
-	 *
-	 * All operations have to be done on a copy of the original sudoku. The
-	 * candidates in the {@link #finder} are not updated (they are not used and
-	 * after the operation the sudoku has not changed).
-	 *
-	 * If <code>set</code> is <code>true</code>, the cell is set and all newly
-	 * created Hidden and Naked Singles are collected and executed. If it is
-	 * <code>false</code>, it is eliminated. If that creates single(s), they are
-	 * executed and handled as well.<br>
-	 *
-	 * If a cell is set, this is delegated to
-	 * {@link #setCell(int, int, solver.TableEntry, boolean, boolean, int) }.
-	 *
-	 * @param entry     The {@link TableEntry}
-	 * @param cellIndex the index of the current cell
-	 * @param cand      The current candidate
-	 * @param set       <code>true</code> if the candidate is to be set, else
-	 *                  <code>false</code>
-	 */
-	private void getTableEntry(TableEntry entry, int cellIndex, int cand, boolean set) {
-		if (set) {
-			// set the cell and record all dependencies
-			setCell(cellIndex, cand, entry, false, false);
-		} else {
-			// eliminate the candidate and set the cell if necessary
-			sudoku.delCandidate(cellIndex, cand);
-			entry.addEntry(cellIndex, cand, false, 0);
-			if (sudoku.getAnzCandidates(cellIndex) == 1) {
-				int setCand = sudoku.getAllCandidates(cellIndex)[0];
-				// getRetIndices == false causes retIndex == 0
-				setCell(cellIndex, setCand, entry, false, true);
-			}
-		}
-		// now look ahead
-		for (int j = 0; j < Options.getInstance().getAnzTableLookAhead(); j++) {
-			singleSteps.clear();
-			List<SolutionStep> dummyList = simpleFinder.findAllNakedSingles(sudoku);
-			singleSteps.addAll(dummyList);
-			dummyList = simpleFinder.findAllHiddenSingles(sudoku);
-			singleSteps.addAll(dummyList);
-			for (int i = 0; i < singleSteps.size(); i++) {
-				SolutionStep step = singleSteps.get(i);
-				int index = step.getIndices().get(0);
-				setCell(index, step.getValues().get(0), entry, true, step.getType() == SolutionType.NAKED_SINGLE);
-			}
-		}
-	}
-
-	/**
-	 * Setting a value in a cell is surprisingly complicated: Not only must all
-	 * consequences be found but the sources of all actions have to be recorded as
-	 * well (from the ORIGINAL sudoku!).
-	 *
-	 * @param cellIndex
-	 * @param cand
-	 * @param entry
-	 * @param getRetIndices
-	 * @param nakedSingle
-	 */
-	private void setCell(int cellIndex, int cand, TableEntry entry, boolean getRetIndices, boolean nakedSingle) {
-		// find all candidates that are eliminated by the set operation (dont forget
-		// the candidates in the cell itself). The reason for the elimination is the
-		// ON entry.
-		// finder.getCandidates() gets the original candidates (even in a net search)
-		tmpSet.set(finder.getCandidates()[cand]);
-		tmpSet.remove(cellIndex);
-		tmpSet.and(Sudoku2.buddies[cellIndex]);
-		int[] cands = sudoku.getAllCandidates(cellIndex);
-		// get the house with the smallest number of original candidates (needed for ret
-		// indices,
-		// but must be done before the cell is set)
-		int entityType = Sudoku2.ROW;
-		int entityNumberFree = sudoku.getFree()[Sudoku2.CONSTRAINTS[cellIndex][0]][cand];
-		int dummy = sudoku.getFree()[Sudoku2.CONSTRAINTS[cellIndex][1]][cand];
-		if (dummy < entityNumberFree) {
-			entityType = Sudoku2.COL;
-			entityNumberFree = dummy;
-		}
-		dummy = sudoku.getFree()[Sudoku2.CONSTRAINTS[cellIndex][2]][cand];
-		if (dummy < entityNumberFree) {
-			entityType = Sudoku2.BLOCK;
-			entityNumberFree = dummy;
-		}
-		// now set the cell
-		sudoku.setCell(cellIndex, cand);
-		int retIndex = entry.index;
-		if (getRetIndices) {
-			// find the candidate(s) that are responsible for the ON operation
-			for (int i = 0; i < retIndices[0].length; i++) {
-				retIndices[0][i] = 0;
-			}
-			if (nakedSingle) {
-				// all other candidates in the cell
-				int[] cellCands = savedSudoku.getAllCandidates(cellIndex);
-				if (cellCands.length > retIndices[0].length + 1) {
-					Logger.getLogger(getClass().getName()).log(Level.WARNING,
-							"Too many candidates (setCell() - Naked Single");
-				}
-				int ri = 0;
-				for (int i = 0; i < cellCands.length && ri < retIndices[0].length; i++) {
-					if (cellCands[i] == cand) {
-						continue;
-					}
-					retIndices[0][ri++] = entry.getEntryIndex(cellIndex, false, cellCands[i]);
-				}
-			} else {
-				// all other candidates in the house with the smallest number of original
-				// candidates
-				if (entityType == Sudoku2.ROW) {
-					getRetIndicesForHouse(cellIndex, cand, Sudoku2.ROW_TEMPLATES[Sudoku2.getRow(cellIndex)], entry);
-				} else if (entityType == Sudoku2.COL) {
-					getRetIndicesForHouse(cellIndex, cand, Sudoku2.COL_TEMPLATES[Sudoku2.getCol(cellIndex)], entry);
-				} else {
-					getRetIndicesForHouse(cellIndex, cand, Sudoku2.BLOCK_TEMPLATES[Sudoku2.getBlock(cellIndex)], entry);
-				}
-			}
-			// ON entry for set operation including retIndices
-			entry.addEntry(cellIndex, cand, true, retIndices[0][0], retIndices[0][1], retIndices[0][2],
-					retIndices[0][3], retIndices[0][4]);
-		} else {
-			// ON entry for set operation without retIndices
-			entry.addEntry(cellIndex, cand, true);
-		}
-		// OFF entries for all candidates that can see cellIndex
-		for (int i = 0; i < tmpSet.size(); i++) {
-			entry.addEntry(tmpSet.get(i), cand, false, retIndex);
-		}
-		// OFF entries for all other candidates in the cell
-		for (int i = 0; i < cands.length; i++) {
-			if (cands[i] != cand) {
-				entry.addEntry(cellIndex, cands[i], false, retIndex);
-			}
-		}
-	}
-
-	/**
-	 * Collect the entries for all candidates in a given house. All those canddiates
-	 * have to be eliminated before the cell can be set. Used by
-	 * {@link #setCell(int, int, solver.TableEntry, boolean, boolean) }.
-	 *
-	 * @param cellIndex
-	 * @param cand
-	 * @param houseSet
-	 * @param entry
-	 */
-	private void getRetIndicesForHouse(int cellIndex, int cand, SudokuSet houseSet, TableEntry entry) {
-		// get all original candidates in the house (cell itself excluded)
-		tmpSet1.set(finder.getCandidates()[cand]);
-		tmpSet1.remove(cellIndex);
-		tmpSet1.and(houseSet);
-		if (tmpSet1.size() > retIndices[0].length + 1) {
-			Logger.getLogger(getClass().getName()).log(Level.WARNING, "Too many candidates (setCell() - Hidden Single");
-		}
-		int ri = 0;
-		for (int i = 0; i < tmpSet1.size() && ri < retIndices[0].length; i++) {
-			retIndices[0][ri++] = entry.getEntryIndex(tmpSet1.get(i), false, cand);
-		}
-	}
-
 	/**
 	 * Expands the tables: every {@link TableEntry } contains all direct
 	 * implications for a given premise. Now every implication is expanded with all
@@ -2626,6 +2505,10 @@ public class TablingSolver extends AbstractSolver {
 	private void expandTables(TableEntry[] table) {
 		// for every entry in tables do...
 		for (int i = 0; i < table.length; i++) {
+			if (isDeadlineExpired()) {
+				// the tables are dropped anyway
+				return;
+			}
 //            if (i != 521) {
 //                continue;
 //            }
@@ -2639,11 +2522,8 @@ public class TablingSolver extends AbstractSolver {
 			boolean isFromOnTable = false;
 			boolean isFromExtendedTable = false;
 			// check every entry except the first (thats the premise)
-			for (int j = 1; j < dest.entries.length; j++) {
-				if (dest.entries[j] == 0) {
-					// ok -> done
-					break;
-				}
+			// (dest grows while it is expanded)
+			for (int j = 1; j < dest.index; j++) {
 				if (dest.isFull()) {
 					// nothing left to do...
 					Logger.getLogger(getClass().getName()).log(Level.WARNING, "TableEntry full!");
@@ -2890,7 +2770,7 @@ public class TablingSolver extends AbstractSolver {
 		chainIndex = 0;
 		int chainEntry = Chain.makeSEntry(cellIndex, cand, set);
 		int index = -1;
-		for (int i = 0; i < entry.entries.length; i++) {
+		for (int i = 0; i < entry.index; i++) {
 			if (entry.entries[i] == chainEntry) {
 				index = i;
 				break;
@@ -3082,6 +2962,261 @@ public class TablingSolver extends AbstractSolver {
 				+ " Implikationen (" + maxEntryAnz + " max)");
 	}
 
+	/**
+	 * Builds the tables of a forcing net search for all premises in a range of
+	 * cells (see {@link TablingSolver#fillTables()}). Every premise is
+	 * independent, builders for disjoint ranges can run in parallel: every builder
+	 * works on its own copy of the sudoku, the original sudoku and the candidates
+	 * are only read.
+	 */
+	private static class NetTableBuilder implements Callable<Void> {
+		/** The sudoku in its original state. */
+		private Sudoku2 savedSudoku;
+		/** The original candidates (see {@link SudokuStepFinder#getCandidates()}). */
+		private SudokuSet[] candidates;
+		private TableEntry[] onTable;
+		private TableEntry[] offTable;
+		/** First cell of the range. */
+		private int from;
+		/** Last cell of the range + 1. */
+		private int to;
+		private int anzTableLookAhead;
+		/** Time budget of the search, <code>null</code> if unlimited. */
+		private SolverDeadline deadline;
+		/** The sudoku the premises are executed in. */
+		private Sudoku2 sudoku = new Sudoku2();
+		/** Finds the singles. */
+		private SudokuStepFinder simpleFinder = new SudokuStepFinder(true);
+		private List<SolutionStep> singleSteps = new ArrayList<SolutionStep>(); // für Naked und Hidden Singles
+		private int[] retIndices = new int[5]; // indices ermitteln
+		private SudokuSet tmpSet = new SudokuSet();
+		private SudokuSet tmpSet1 = new SudokuSet();
+
+		/**
+		 * Sets up the builder for the cells <code>from</code> (inclusive) to
+		 * <code>to</code> (exclusive).
+		 *
+		 * @param savedSudoku
+		 * @param candidates
+		 * @param onTable
+		 * @param offTable
+		 * @param from
+		 * @param to
+		 * @param anzTableLookAhead
+		 * @param deadline
+		 */
+		void init(Sudoku2 savedSudoku, SudokuSet[] candidates, TableEntry[] onTable, TableEntry[] offTable,
+				int from, int to, int anzTableLookAhead, SolverDeadline deadline) {
+			this.savedSudoku = savedSudoku;
+			this.candidates = candidates;
+			this.onTable = onTable;
+			this.offTable = offTable;
+			this.from = from;
+			this.to = to;
+			this.anzTableLookAhead = anzTableLookAhead;
+			this.deadline = deadline;
+		}
+
+		/**
+		 * Drops all references to the data of the solver.
+		 */
+		void release() {
+			savedSudoku = null;
+			candidates = null;
+			onTable = null;
+			offTable = null;
+			deadline = null;
+		}
+
+		@Override
+		public Void call() {
+			for (int i = from; i < to; i++) {
+				if (deadline != null && deadline.isExpired()) {
+					break;
+				}
+				if (savedSudoku.getValue(i) != 0) {
+					// cell is already set -> ignore it
+					continue;
+				}
+				int[] cands = savedSudoku.getAllCandidates(i);
+				for (int j = 0; j < cands.length; j++) {
+					// once for every candidate
+					int cand = cands[j];
+					// candidate is ON
+					sudoku.set(savedSudoku);
+					simpleFinder.setSudoku(sudoku);
+					getTableEntry(onTable[i * 10 + cand], i, cand, true);
+					// candidate is OFF
+					sudoku.set(savedSudoku);
+					simpleFinder.setSudoku(sudoku);
+					getTableEntry(offTable[i * 10 + cand], i, cand, false);
+				}
+			}
+			return null;
+		}
+
+		/**
+		 * Collects all dependencies on one specific action (cell is set/candidate is
+		 * deleted). To detect nets, the whole operation is repeated
+		 * {@link SolverConfig#getAnzTableLookAhead()} times.<br>
+		 *
+		 * All operations are done on {@link #sudoku}, a copy of the original sudoku.
+		 *
+		 * If <code>set</code> is <code>true</code>, the cell is set and all newly
+		 * created Hidden and Naked Singles are collected and executed. If it is
+		 * <code>false</code>, it is eliminated. If that creates single(s), they are
+		 * executed and handled as well.<br>
+		 *
+		 * If a cell is set, this is delegated to
+		 * {@link #setCell(int, int, solver.TableEntry, boolean, boolean) }.
+		 *
+		 * @param entry     The {@link TableEntry}
+		 * @param cellIndex the index of the current cell
+		 * @param cand      The current candidate
+		 * @param set       <code>true</code> if the candidate is to be set, else
+		 *                  <code>false</code>
+		 */
+		private void getTableEntry(TableEntry entry, int cellIndex, int cand, boolean set) {
+			if (set) {
+				// set the cell and record all dependencies
+				setCell(cellIndex, cand, entry, false, false);
+			} else {
+				// eliminate the candidate and set the cell if necessary
+				sudoku.delCandidate(cellIndex, cand);
+				entry.addEntry(cellIndex, cand, false, 0);
+				if (sudoku.getAnzCandidates(cellIndex) == 1) {
+					int setCand = sudoku.getAllCandidates(cellIndex)[0];
+					// getRetIndices == false causes retIndex == 0
+					setCell(cellIndex, setCand, entry, false, true);
+				}
+			}
+			// now look ahead
+			for (int j = 0; j < anzTableLookAhead; j++) {
+				singleSteps.clear();
+				List<SolutionStep> dummyList = simpleFinder.findAllNakedSingles(sudoku);
+				singleSteps.addAll(dummyList);
+				dummyList = simpleFinder.findAllHiddenSingles(sudoku);
+				singleSteps.addAll(dummyList);
+				for (int i = 0; i < singleSteps.size(); i++) {
+					SolutionStep step = singleSteps.get(i);
+					int index = step.getIndices().get(0);
+					setCell(index, step.getValues().get(0), entry, true, step.getType() == SolutionType.NAKED_SINGLE);
+				}
+			}
+		}
+
+		/**
+		 * Setting a value in a cell is surprisingly complicated: Not only must all
+		 * consequences be found but the sources of all actions have to be recorded as
+		 * well (from the ORIGINAL sudoku!).
+		 *
+		 * @param cellIndex
+		 * @param cand
+		 * @param entry
+		 * @param getRetIndices
+		 * @param nakedSingle
+		 */
+		private void setCell(int cellIndex, int cand, TableEntry entry, boolean getRetIndices, boolean nakedSingle) {
+			// find all candidates that are eliminated by the set operation (dont forget
+			// the candidates in the cell itself). The reason for the elimination is the
+			// ON entry.
+			// candidates gets the original candidates (even in a net search)
+			tmpSet.set(candidates[cand]);
+			tmpSet.remove(cellIndex);
+			tmpSet.and(Sudoku2.buddies[cellIndex]);
+			int[] cands = sudoku.getAllCandidates(cellIndex);
+			// get the house with the smallest number of original candidates (needed for ret
+			// indices,
+			// but must be done before the cell is set)
+			int entityType = Sudoku2.ROW;
+			int entityNumberFree = sudoku.getFree()[Sudoku2.CONSTRAINTS[cellIndex][0]][cand];
+			int dummy = sudoku.getFree()[Sudoku2.CONSTRAINTS[cellIndex][1]][cand];
+			if (dummy < entityNumberFree) {
+				entityType = Sudoku2.COL;
+				entityNumberFree = dummy;
+			}
+			dummy = sudoku.getFree()[Sudoku2.CONSTRAINTS[cellIndex][2]][cand];
+			if (dummy < entityNumberFree) {
+				entityType = Sudoku2.BLOCK;
+				entityNumberFree = dummy;
+			}
+			// now set the cell
+			sudoku.setCell(cellIndex, cand);
+			int retIndex = entry.index;
+			if (getRetIndices) {
+				// find the candidate(s) that are responsible for the ON operation
+				for (int i = 0; i < retIndices.length; i++) {
+					retIndices[i] = 0;
+				}
+				if (nakedSingle) {
+					// all other candidates in the cell
+					int[] cellCands = savedSudoku.getAllCandidates(cellIndex);
+					if (cellCands.length > retIndices.length + 1) {
+						Logger.getLogger(TablingSolver.class.getName()).log(Level.WARNING,
+								"Too many candidates (setCell() - Naked Single");
+					}
+					int ri = 0;
+					for (int i = 0; i < cellCands.length && ri < retIndices.length; i++) {
+						if (cellCands[i] == cand) {
+							continue;
+						}
+						retIndices[ri++] = entry.getEntryIndex(cellIndex, false, cellCands[i]);
+					}
+				} else {
+					// all other candidates in the house with the smallest number of original
+					// candidates
+					if (entityType == Sudoku2.ROW) {
+						getRetIndicesForHouse(cellIndex, cand, Sudoku2.ROW_TEMPLATES[Sudoku2.getRow(cellIndex)], entry);
+					} else if (entityType == Sudoku2.COL) {
+						getRetIndicesForHouse(cellIndex, cand, Sudoku2.COL_TEMPLATES[Sudoku2.getCol(cellIndex)], entry);
+					} else {
+						getRetIndicesForHouse(cellIndex, cand, Sudoku2.BLOCK_TEMPLATES[Sudoku2.getBlock(cellIndex)], entry);
+					}
+				}
+				// ON entry for set operation including retIndices
+				entry.addEntry(cellIndex, cand, true, retIndices[0], retIndices[1], retIndices[2],
+						retIndices[3], retIndices[4]);
+			} else {
+				// ON entry for set operation without retIndices
+				entry.addEntry(cellIndex, cand, true);
+			}
+			// OFF entries for all candidates that can see cellIndex
+			for (int i = 0; i < tmpSet.size(); i++) {
+				entry.addEntry(tmpSet.get(i), cand, false, retIndex);
+			}
+			// OFF entries for all other candidates in the cell
+			for (int i = 0; i < cands.length; i++) {
+				if (cands[i] != cand) {
+					entry.addEntry(cellIndex, cands[i], false, retIndex);
+				}
+			}
+		}
+
+		/**
+		 * Collect the entries for all candidates in a given house. All those canddiates
+		 * have to be eliminated before the cell can be set. Used by
+		 * {@link #setCell(int, int, solver.TableEntry, boolean, boolean) }.
+		 *
+		 * @param cellIndex
+		 * @param cand
+		 * @param houseSet
+		 * @param entry
+		 */
+		private void getRetIndicesForHouse(int cellIndex, int cand, SudokuSet houseSet, TableEntry entry) {
+			// get all original candidates in the house (cell itself excluded)
+			tmpSet1.set(candidates[cand]);
+			tmpSet1.remove(cellIndex);
+			tmpSet1.and(houseSet);
+			if (tmpSet1.size() > retIndices.length + 1) {
+				Logger.getLogger(TablingSolver.class.getName()).log(Level.WARNING, "Too many candidates (setCell() - Hidden Single");
+			}
+			int ri = 0;
+			for (int i = 0; i < tmpSet1.size() && ri < retIndices.length; i++) {
+				retIndices[ri++] = entry.getEntryIndex(tmpSet1.get(i), false, cand);
+			}
+		}
+	}
+
 	/**
 	 * Compares two {@link SolutionStep SolutionSteps} that hold steps found by
 	 * tabling. The sort order:
@@ -25,7 +25,6 @@ import java.util.logging.Level;
 import java.util.logging.Logger;
 import sudoku.Candidate;
 import sudoku.ClipboardMode;
-import sudoku.Options;
 import sudoku.SolutionStep;
 import sudoku.SolutionType;
 import sudoku.Sudoku2;
@@ -372,7 +371,7 @@ public class UniquenessSolver extends AbstractSolver {
 	 */
 	private SolutionStep findUniquenessForStartCell(int index11, boolean avoidable, SolutionType type,
 			boolean onlyOne) {
-		boolean allowMissing = Options.getInstance().isAllowUniquenessMissingCandidates();
+		boolean allowMissing = getConfig().isAllowUniquenessMissingCandidates();
 //        System.out.println("index11 = " + index11 + ", cand1 = " + cand1 + ", cand2 = " + cand2);
 
 		// find a second cell within the same block that contains the same two
@@ -0,0 +1,217 @@
+/*
+ * Copyright (C) 2021 Aarre Laakso
+ *
+ * This file is part of HoDoKu.
+ *
+ * HoDoKu is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * HoDoKu is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with HoDoKu. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package sudoku;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import solver.SudokuSolver;
+import solver.SudokuSolverFactory;
+
+/**
+ * Console mode <code>/render</code>: draws every puzzle of a file with
+ * {@link SudokuRenderer} into a file of its own
+ * (<code>&lt;name&gt;_&lt;nr&gt;.&lt;format&gt;</code>, numbered from 1).
+ * Comment and empty lines are skipped.<br>
+ * The file is read in blocks of {@link #BATCH_SIZE} puzzles; the puzzles of a
+ * block are drawn and written by several threads, every thread has its own
+ * renderer. If the next step should be shown, every thread takes a
+ * {@link SudokuSolver} from {@link SudokuSolverFactory}.
+ *
+ * @author Aarre Laakso
+ */
+final class BatchRenderer {
+	/** Number of puzzles processed at once. */
+	private static final int BATCH_SIZE = 1024;
+
+	private final int threads;
+	private final SudokuRenderer.Format format;
+	/** One renderer per thread. */
+	private final SudokuRenderer[] renderers;
+	/** Highlight the next step of every puzzle. */
+	private final boolean showHint;
+
+	private final String[] lines = new String[BATCH_SIZE];
+	private final int[] numbers = new int[BATCH_SIZE];
+	private int anz = 0;
+
+	private File outDir;
+	private String baseName;
+	private int puzzleAnz = 0;
+	private int errorAnz = 0;
+
+	BatchRenderer(int threads, SudokuRenderer.Format format, int size, boolean showCandidates, boolean showHint) {
+		this.threads = Math.max(1, threads);
+		this.format = format;
+		this.showHint = showHint;
+		renderers = new SudokuRenderer[this.threads];
+		for (int i = 0; i < this.threads; i++) {
+			renderers[i] = new SudokuRenderer(size);
+			renderers[i].setShowCandidates(showCandidates);
+		}
+	}
+
+	/**
+	 * Draws all puzzles in <code>fileName</code>. The files are written to
+	 * <code>outDirName</code> (<code>null</code>: the directory of
+	 * <code>fileName</code>).
+	 *
+	 * @param fileName
+	 * @param outDirName
+	 */
+	void render(String fileName, String outDirName) {
+		long ticks = System.currentTimeMillis();
+		File inFile = new File(fileName);
+		outDir = outDirName != null ? new File(outDirName) : inFile.getAbsoluteFile().getParentFile();
+		baseName = inFile.getName();
+		if (baseName.lastIndexOf('.') > 0) {
+			baseName = baseName.substring(0, baseName.lastIndexOf('.'));
+		}
+		ExecutorService pool = threads > 1 ? Executors.newFixedThreadPool(threads) : null;
+		BufferedReader in = null;
+		try {
+			if (!outDir.isDirectory() && !outDir.mkdirs()) {
+				System.out.println("Cannot create directory " + outDir + "!");
+				return;
+			}
+			in = new BufferedReader(new FileReader(fileName));
+			String line = null;
+			while ((line = in.readLine()) != null) {
+				line = line.trim();
+				if (line.isEmpty() || line.startsWith("#")) {
+					continue;
+				}
+				puzzleAnz++;
+				lines[anz] = line;
+				numbers[anz] = puzzleAnz;
+				anz++;
+				if (anz == BATCH_SIZE) {
+					renderBatch(pool);
+				}
+			}
+			if (anz > 0) {
+				renderBatch(pool);
+			}
+
+			ticks = System.currentTimeMillis() - ticks;
+			System.out.println((puzzleAnz - errorAnz) + " puzzles rendered to " + outDir + " (" + ticks + "ms)!");
+			if (errorAnz > 0) {
+				System.out.println(errorAnz + " puzzles could not be rendered!");
+			}
+		} catch (Exception ex) {
+			Logger.getLogger(BatchRenderer.class.getName()).log(Level.SEVERE, "Error rendering puzzles", ex);
+		} finally {
+			if (pool != null) {
+				pool.shutdownNow();
+			}
+			try {
+				if (in != null) {
+					in.close();
+				}
+			} catch (Exception ex) {
+				Logger.getLogger(BatchRenderer.class.getName()).log(Level.SEVERE, "Error closing files", ex);
+			}
+		}
+	}
+
+	/**
+	 * Renders all puzzles of the current batch. Every thread gets a consecutive
+	 * part of the batch.
+	 *
+	 * @param pool
+	 * @throws Exception
+	 */
+	private void renderBatch(ExecutorService pool) throws Exception {
+		if (pool == null) {
+			errorAnz += render(0, 0, anz);
+		} else {
+			int chunk = (anz + threads - 1) / threads;
+			List<Callable<Integer>> tasks = new ArrayList<Callable<Integer>>();
+			for (int i = 0; i < threads && i * chunk < anz; i++) {
+				final int worker = i;
+				final int from = i * chunk;
+				final int to = Math.min(anz, from + chunk);
+				tasks.add(new Callable<Integer>() {
+					@Override
+					public Integer call() {
+						return render(worker, from, to);
+					}
+				});
+			}
+			for (Future<Integer> result : pool.invokeAll(tasks)) {
+				// rethrows exceptions of the workers
+				errorAnz += result.get();
+			}
+		}
+		anz = 0;
+	}
+
+	/**
+	 * Renders the puzzles <code>from</code> to <code>to - 1</code>.
+	 *
+	 * @param worker
+	 * @param from
+	 * @param to
+	 * @return The number of puzzles, that could not be parsed or written
+	 */
+	private int render(int worker, int from, int to) {
+		SudokuRenderer renderer = renderers[worker];
+		SudokuSolver solver = showHint ? SudokuSolverFactory.getInstance() : null;
+		Sudoku2 sudoku = new Sudoku2();
+		int errors = 0;
+		try {
+			for (int i = from; i < to; i++) {
+				File file = new File(outDir, String.format("%s_%05d.%s", baseName, numbers[i],
+						format.getExtension()));
+				SolutionStep step = null;
+				try {
+					sudoku.setSudoku(lines[i]);
+					step = solver != null ? solver.getHint(sudoku, false) : null;
+				} catch (Exception ex) {
+					// the line doesn't contain a valid puzzle
+					Logger.getLogger(BatchRenderer.class.getName()).log(Level.WARNING,
+							"Invalid puzzle " + numbers[i] + ": " + lines[i]);
+					errors++;
+					continue;
+				}
+				try {
+					renderer.write(sudoku, step, format, file);
+				} catch (Exception ex) {
+					Logger.getLogger(BatchRenderer.class.getName()).log(Level.SEVERE, "Error writing " + file, ex);
+					errors++;
+				}
+			}
+		} finally {
+			if (solver != null) {
+				SudokuSolverFactory.giveBack(solver);
+			}
+		}
+		return errors;
+	}
+}
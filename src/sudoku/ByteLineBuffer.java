@@ -0,0 +1,137 @@
+/*
+ * Copyright (C) 2021 Aarre Laakso
+ *
+ * This file is part of HoDoKu.
+ *
+ * HoDoKu is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * HoDoKu is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with HoDoKu. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package sudoku;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * A reusable output buffer for the batch solver: results are appended as bytes
+ * and written in one call (see {@link #writeTo(java.io.OutputStream)}), no
+ * Strings are created per puzzle. Text is written in the default charset of
+ * the platform (as by a <code>FileWriter</code>).
+ *
+ * @author Aarre Laakso
+ */
+final class ByteLineBuffer {
+	/** The line separator of the platform. */
+	private static final byte[] LINE_SEPARATOR = System.getProperty("line.separator").getBytes();
+
+	private byte[] data;
+	private int size = 0;
+
+	ByteLineBuffer(int initialSize) {
+		data = new byte[initialSize];
+	}
+
+	private void ensureCapacity(int additional) {
+		if (size + additional > data.length) {
+			byte[] newData = new byte[Math.max(data.length * 2, size + additional)];
+			System.arraycopy(data, 0, newData, 0, size);
+			data = newData;
+		}
+	}
+
+	ByteLineBuffer append(byte[] src, int offset, int length) {
+		ensureCapacity(length);
+		System.arraycopy(src, offset, data, size, length);
+		size += length;
+		return this;
+	}
+
+	ByteLineBuffer append(char ch) {
+		ensureCapacity(1);
+		data[size++] = (byte) ch;
+		return this;
+	}
+
+	/**
+	 * Appends <code>str</code>. Pure ASCII strings are copied directly, all
+	 * others are encoded.
+	 *
+	 * @param str
+	 * @return
+	 */
+	ByteLineBuffer append(String str) {
+		int length = str.length();
+		ensureCapacity(length);
+		for (int i = 0; i < length; i++) {
+			char ch = str.charAt(i);
+			if (ch >= 0x80) {
+				byte[] bytes = str.substring(i).getBytes();
+				return append(bytes, 0, bytes.length);
+			}
+			data[size++] = (byte) ch;
+		}
+		return this;
+	}
+
+	ByteLineBuffer append(int value) {
+		if (value < 0) {
+			append('-');
+			value = -value;
+		}
+		int digits = 1;
+		for (int tmp = value; tmp >= 10; tmp /= 10) {
+			digits++;
+		}
+		ensureCapacity(digits);
+		for (int i = size + digits - 1; i >= size; i--) {
+			data[i] = (byte) ('0' + value % 10);
+			value /= 10;
+		}
+		size += digits;
+		return this;
+	}
+
+	ByteLineBuffer newLine() {
+		return append(LINE_SEPARATOR, 0, LINE_SEPARATOR.length);
+	}
+
+	/**
+	 * The backing array (valid up to {@link #size()}); changes, when the buffer
+	 * grows.
+	 *
+	 * @return
+	 */
+	byte[] getData() {
+		return data;
+	}
+
+	int size() {
+		return size;
+	}
+
+	void reset() {
+		size = 0;
+	}
+
+	/**
+	 * Writes the content of the buffer and resets it.
+	 *
+	 * @param out
+	 * @throws IOException
+	 */
+	void writeTo(OutputStream out) throws IOException {
+		out.write(data, 0, size);
+		size = 0;
+	}
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright (C) 2021 Aarre Laakso
+ *
+ * This file is part of HoDoKu.
+ *
+ * HoDoKu is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * HoDoKu is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with HoDoKu. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package sudoku;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A set of 128 bit hashes (see {@link SudokuCanonicalizer#getHashHigh()}) kept
+ * outside the Java heap: open addressing with linear probing in direct
+ * {@link ByteBuffer}s of 16 bytes per entry. The table is split into segments,
+ * so it can hold more than the 2GB of a single buffer; it grows, when it is
+ * three quarters full.<br>
+ * Direct memory is limited by <code>-XX:MaxDirectMemorySize</code> (default:
+ * the maximum heap size).
+ *
+ * @author Aarre Laakso
+ */
+final class CanonicalHashSet {
+	/** Bytes per entry (two longs). */
+	private static final int ENTRY_SIZE = 16;
+	/** Entries per segment (2^23 entries = 128MB). */
+	private static final int SEGMENT_SHIFT = 23;
+	private static final long SEGMENT_MASK = (1L << SEGMENT_SHIFT) - 1;
+
+	private ByteBuffer[] segments;
+	/** Number of entries in the table, always a power of 2. */
+	private long capacity;
+	private long size = 0;
+
+	/**
+	 * Creates a set for at least <code>expectedSize</code> entries.
+	 *
+	 * @param expectedSize
+	 */
+	CanonicalHashSet(long expectedSize) {
+		long newCapacity = 1024;
+		while (newCapacity * 3 / 4 < expectedSize) {
+			newCapacity <<= 1;
+		}
+		allocate(newCapacity);
+	}
+
+	private void allocate(long newCapacity) {
+		capacity = newCapacity;
+		long segmentSize = Math.min(capacity, 1L << SEGMENT_SHIFT);
+		segments = new ByteBuffer[(int) (capacity / segmentSize)];
+		for (int i = 0; i < segments.length; i++) {
+			// direct buffers are zeroed: (0, 0) marks an empty entry
+			segments[i] = ByteBuffer.allocateDirect((int) (segmentSize * ENTRY_SIZE));
+		}
+	}
+
+	/**
+	 * Adds a hash to the set.
+	 *
+	 * @param high
+	 * @param low
+	 * @return <code>true</code>, if the hash was not yet in the set
+	 */
+	boolean add(long high, long low) {
+		if (high == 0 && low == 0) {
+			// reserved for empty entries
+			low = 1;
+		}
+		if (size >= capacity * 3 / 4) {
+			grow();
+		}
+		if (insert(high, low)) {
+			size++;
+			return true;
+		}
+		return false;
+	}
+
+	private boolean insert(long high, long low) {
+		long mask = capacity - 1;
+		long index = low & mask;
+		while (true) {
+			ByteBuffer segment = segments[(int) (index >>> SEGMENT_SHIFT)];
+			int offset = (int) (index & SEGMENT_MASK) * ENTRY_SIZE;
+			long entryHigh = segment.getLong(offset);
+			long entryLow = segment.getLong(offset + 8);
+			if (entryHigh == 0 && entryLow == 0) {
+				segment.putLong(offset, high);
+				segment.putLong(offset + 8, low);
+				return true;
+			}
+			if (entryHigh == high && entryLow == low) {
+				return false;
+			}
+			index = (index + 1) & mask;
+		}
+	}
+
+	/**
+	 * Doubles the capacity of the table and inserts all entries again.
+	 */
+	private void grow() {
+		ByteBuffer[] oldSegments = segments;
+		allocate(capacity * 2);
+		for (ByteBuffer segment : oldSegments) {
+			for (int offset = 0; offset < segment.capacity(); offset += ENTRY_SIZE) {
+				long high = segment.getLong(offset);
+				long low = segment.getLong(offset + 8);
+				if (high != 0 || low != 0) {
+					insert(high, low);
+				}
+			}
+		}
+	}
+
+	long size() {
+		return size;
+	}
+}
@@ -20,7 +20,18 @@
 package sudoku;
 
 import java.awt.EventQueue;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import solver.SolverConfig;
+import solver.SolverDeadline;
+import solver.SudokuSolver;
 import solver.SudokuSolverFactory;
 import solver.SudokuStepFinder;
 
@@ -41,10 +52,26 @@ public class FindAllSteps implements Runnable {
 //    private boolean forcingNets;
 //    private boolean krakenFish;
 
+	/** The first stage of the search (simple steps). */
+	private static final int FIRST_STAGE = 0;
+	/** The last stage of the search (forcing nets); the progress score follows. */
+	private static final int LAST_STAGE = 26;
+
+	/** The solver for the progress scores; its step finder does the search. */
+	private SudokuSolver solver;
 	private SudokuStepFinder stepFinder;
+	/** Number of threads for the search, 1 means "no parallel search". */
+	private int threads;
+	/** <code>true</code> if {@link #run()} is not executed in its own thread. */
+	private boolean calledDirectly = false;
 
 	public FindAllSteps() {
-		stepFinder = SudokuSolverFactory.getDefaultSolverInstance().getStepFinder();
+		solver = SudokuSolverFactory.getDefaultSolverInstance();
+		stepFinder = solver.getStepFinder();
+		threads = Options.getInstance().getAllStepsThreads();
+		if (threads <= 0) {
+			threads = Runtime.getRuntime().availableProcessors();
+		}
 	}
 
 	public FindAllSteps(List<SolutionStep> steps, Sudoku2 sudoku, FindAllStepsProgressDialog dlg) {
@@ -59,7 +86,25 @@ public class FindAllSteps implements Runnable {
 		this.dlg = dlg;
 	}
 
-	private void updateProgress(final String label, final int step) {
+	/**
+	 * Searches with <code>solver</code> instead of the default solver. The
+	 * search runs in the calling thread, without progress dialog and without
+	 * additional threads (used by {@link SolverServer}).
+	 * 
+	 * @param solver
+	 * @param steps
+	 * @param sudoku
+	 */
+	FindAllSteps(SudokuSolver solver, List<SolutionStep> steps, Sudoku2 sudoku) {
+		this(steps, sudoku, null);
+
+		this.solver = solver;
+		stepFinder = solver.getStepFinder();
+		threads = 1;
+		calledDirectly = true;
+	}
+
+	private void updateProgress(FindAllStepsProgressDialog dlg, final String label, final int step) {
 		if (dlg != null) {
 			dlg.updateProgress(label, step);
 		}
@@ -105,218 +150,244 @@ public class FindAllSteps implements Runnable {
 		}
 	}
 
-	@Override
-	public void run() {
-		int actStep = 0;
-		// boolean[] tmpCands = new boolean[9];
+	/**
+	 * Returns the (localized) name of a stage for the progress dialog.
+	 * 
+	 * @param stage
+	 * @return
+	 */
+	private String getStageName(int stage) {
+		java.util.ResourceBundle bundle = java.util.ResourceBundle.getBundle("intl/FindAllStepsProgressDialog");
+		if (stage == 0) {
+			return bundle.getString("FindAllStepsProgressDialog.simple_solutions");
+		} else if (stage <= 9) {
+			return bundle.getString("FindAllStepsProgressDialog.fish") + " " + stage;
+		} else if (stage <= 18) {
+			return bundle.getString("FindAllStepsProgressDialog.kraken_fish") + " " + (stage - 9);
+		}
+		switch (stage) {
+		case 19:
+			return bundle.getString("FindAllStepsProgressDialog.uniqueness");
+		case 20:
+			return bundle.getString("FindAllStepsProgressDialog.chains");
+		case 21:
+			return bundle.getString("FindAllStepsProgressDialog.nice_loops");
+		case 22:
+			return bundle.getString("FindAllStepsProgressDialog.grouped_nice_loops");
+		case 23:
+			return bundle.getString("FindAllStepsProgressDialog.templates");
+		case 24:
+			return bundle.getString("FindAllStepsProgressDialog.als");
+		case 25:
+			return bundle.getString("FindAllStepsProgressDialog.forcing_Chains");
+		case 26:
+			return bundle.getString("FindAllStepsProgressDialog.forcing_Nets");
+		default:
+			return bundle.getString("FindAllStepsProgressDialog.progress_Score");
+		}
+	}
+
+	/**
+	 * Executes one stage of the search. The stages are independent of each other,
+	 * they only read <code>sudoku</code>.
+	 * 
+	 * @param stage  The stage ({@link #FIRST_STAGE} to {@link #LAST_STAGE})
+	 * @param finder The step finder that does the actual work
+	 * @param sudoku The sudoku that should be searched
+	 * @param dlg    A progress dialog or <code>null</code>
+	 * @return All steps found in the stage
+	 */
+	private List<SolutionStep> findStage(int stage, SudokuStepFinder finder, Sudoku2 sudoku,
+			FindAllStepsProgressDialog dlg) {
+		List<SolutionStep> result = new ArrayList<SolutionStep>();
 		List<SolutionStep> steps1 = null;
-		// while (! Thread.currentThread().isInterrupted()) {
-		while (!Thread.interrupted()) {
-			switch (actStep) {
-			case 0:
-				updateProgress(java.util.ResourceBundle.getBundle("intl/FindAllStepsProgressDialog")
-						.getString("FindAllStepsProgressDialog.simple_solutions"), actStep);
-				steps1 = stepFinder.findAllFullHouses(sudoku);
-				steps.addAll(steps1);
-				steps1 = stepFinder.findAllHiddenXle(sudoku);
-				steps.addAll(steps1);
-				steps1 = stepFinder.findAllNakedXle(sudoku);
-				steps.addAll(steps1);
-				filterSteps(steps);
-				if (isAllStepsEnabled(SolutionType.LOCKED_CANDIDATES_1)
-						&& isAllStepsEnabled(SolutionType.LOCKED_CANDIDATES_2)) {
-					steps1 = stepFinder.findAllLockedCandidates(sudoku);
-					steps.addAll(steps1);
-				} else if (isAllStepsEnabled(SolutionType.LOCKED_CANDIDATES_1)) {
-					steps1 = stepFinder.findAllLockedCandidates1(sudoku);
-					steps.addAll(steps1);
-				} else if (isAllStepsEnabled(SolutionType.LOCKED_CANDIDATES_2)) {
-					steps1 = stepFinder.findAllLockedCandidates2(sudoku);
-					steps.addAll(steps1);
-				}
-				if (isAllStepsEnabled(SolutionType.SKYSCRAPER)) {
-					steps1 = stepFinder.findAllSkyScrapers(sudoku);
-					steps.addAll(steps1);
-				}
-				if (isAllStepsEnabled(SolutionType.EMPTY_RECTANGLE)) {
-					steps1 = stepFinder.findAllEmptyRectangles(sudoku);
-					steps.addAll(steps1);
-				}
-				if (isAllStepsEnabled(SolutionType.TWO_STRING_KITE)) {
-					steps1 = stepFinder.findAllTwoStringKites(sudoku);
-					steps.addAll(steps1);
-				}
-				if (isAllStepsEnabled(SolutionType.SUE_DE_COQ)) {
-					steps1 = stepFinder.getAllSueDeCoqs(sudoku);
-					steps.addAll(steps1);
-				}
-				break;
-			case 1:
-			case 2:
-			case 3:
-			case 4:
-			case 5:
-			case 6:
-			case 7:
-			case 8:
-			case 9:
-				// System.out.println("Fish search cand " + (actStep) + ": " +
-				// Options.getInstance().allStepsFishCandidates.charAt(actStep - 1));
-				updateProgress(java.util.ResourceBundle.getBundle("intl/FindAllStepsProgressDialog")
-						.getString("FindAllStepsProgressDialog.fish") + " " + actStep, actStep);
-				if ((testTypes == null && Options.getInstance().isAllStepsSearchFish()
-						&& Options.getInstance().getAllStepsFishCandidates().charAt(actStep - 1) == '1')
-						|| testTypes != null && isFishTestTypes()) {
-					boolean oldCheckTemplates = Options.getInstance().isCheckTemplates();
-					Options.getInstance().setCheckTemplates(Options.getInstance().isAllStepsCheckTemplates());
-					steps1 = stepFinder.getAllFishes(sudoku, Options.getInstance().getAllStepsMinFishSize(),
-							Options.getInstance().getAllStepsMaxFishSize(), Options.getInstance().getAllStepsMaxFins(),
-							Options.getInstance().getAllStepsMaxEndoFins(), dlg, actStep,
-							Options.getInstance().getAllStepsMaxFishType());
-					steps.addAll(steps1);
-					Options.getInstance().setCheckTemplates(oldCheckTemplates);
-				}
-				break;
-			case 10:
-			case 11:
-			case 12:
-			case 13:
-			case 14:
-			case 15:
-			case 16:
-			case 17:
-			case 18:
-				// System.out.println("Kraken Fish search cand " + (actStep - 9) + ": " +
-				// Options.getInstance().allStepsFishCandidates.charAt(actStep - 10));
-				if (isAllStepsEnabled(SolutionType.KRAKEN_FISH)
-						&& Options.getInstance().getAllStepsKrakenFishCandidates().charAt(actStep - 10) == '1') {
-					updateProgress(
-							java.util.ResourceBundle.getBundle("intl/FindAllStepsProgressDialog")
-									.getString("FindAllStepsProgressDialog.kraken_fish") + " " + (actStep - 9),
-							actStep);
-					steps1 = stepFinder.getAllKrakenFishes(sudoku, Options.getInstance().getAllStepsKrakenMinFishSize(),
-							Options.getInstance().getAllStepsKrakenMaxFishSize(),
-							Options.getInstance().getAllStepsMaxKrakenFins(),
-							Options.getInstance().getAllStepsMaxKrakenEndoFins(), dlg, actStep - 9,
-							Options.getInstance().getAllStepsKrakenMaxFishType());
-					steps.addAll(steps1);
-				}
-				break;
-			case 19:
-				updateProgress(java.util.ResourceBundle.getBundle("intl/FindAllStepsProgressDialog")
-						.getString("FindAllStepsProgressDialog.uniqueness"), actStep);
-				if (isAllStepsEnabled(SolutionType.UNIQUENESS_1) || isAllStepsEnabled(SolutionType.UNIQUENESS_2)
-						|| isAllStepsEnabled(SolutionType.UNIQUENESS_3) || isAllStepsEnabled(SolutionType.UNIQUENESS_4)
-						|| isAllStepsEnabled(SolutionType.UNIQUENESS_5) || isAllStepsEnabled(SolutionType.UNIQUENESS_6)
-						|| isAllStepsEnabled(SolutionType.HIDDEN_RECTANGLE)
-						|| isAllStepsEnabled(SolutionType.AVOIDABLE_RECTANGLE_1)
-						|| isAllStepsEnabled(SolutionType.AVOIDABLE_RECTANGLE_2)) {
-					steps1 = stepFinder.getAllUniqueness(sudoku);
-					filterSteps(steps1);
-					steps.addAll(steps1);
-				}
-				if (isAllStepsEnabled(SolutionType.BUG_PLUS_1)) {
-					stepFinder.setSudoku(sudoku);
-					SolutionStep result = stepFinder.getStep(SolutionType.BUG_PLUS_1);
-					if (result != null) {
-						steps.add(result);
-					}
-				}
-				steps1 = stepFinder.getAllWings(sudoku);
+		switch (stage) {
+		case 0:
+			updateProgress(dlg, getStageName(stage), stage);
+			steps1 = finder.findAllFullHouses(sudoku);
+			result.addAll(steps1);
+			steps1 = finder.findAllHiddenXle(sudoku);
+			result.addAll(steps1);
+			steps1 = finder.findAllNakedXle(sudoku);
+			result.addAll(steps1);
+			filterSteps(result);
+			if (isAllStepsEnabled(SolutionType.LOCKED_CANDIDATES_1)
+					&& isAllStepsEnabled(SolutionType.LOCKED_CANDIDATES_2)) {
+				steps1 = finder.findAllLockedCandidates(sudoku);
+				result.addAll(steps1);
+			} else if (isAllStepsEnabled(SolutionType.LOCKED_CANDIDATES_1)) {
+				steps1 = finder.findAllLockedCandidates1(sudoku);
+				result.addAll(steps1);
+			} else if (isAllStepsEnabled(SolutionType.LOCKED_CANDIDATES_2)) {
+				steps1 = finder.findAllLockedCandidates2(sudoku);
+				result.addAll(steps1);
+			}
+			if (isAllStepsEnabled(SolutionType.SKYSCRAPER)) {
+				steps1 = finder.findAllSkyScrapers(sudoku);
+				result.addAll(steps1);
+			}
+			if (isAllStepsEnabled(SolutionType.EMPTY_RECTANGLE)) {
+				steps1 = finder.findAllEmptyRectangles(sudoku);
+				result.addAll(steps1);
+			}
+			if (isAllStepsEnabled(SolutionType.TWO_STRING_KITE)) {
+				steps1 = finder.findAllTwoStringKites(sudoku);
+				result.addAll(steps1);
+			}
+			if (isAllStepsEnabled(SolutionType.SUE_DE_COQ)) {
+				steps1 = finder.getAllSueDeCoqs(sudoku);
+				result.addAll(steps1);
+			}
+			break;
+		case 1:
+		case 2:
+		case 3:
+		case 4:
+		case 5:
+		case 6:
+		case 7:
+		case 8:
+		case 9:
+			// System.out.println("Fish search cand " + (stage) + ": " +
+			// Options.getInstance().allStepsFishCandidates.charAt(stage - 1));
+			updateProgress(dlg, getStageName(stage), stage);
+			if ((testTypes == null && Options.getInstance().isAllStepsSearchFish()
+					&& Options.getInstance().getAllStepsFishCandidates().charAt(stage - 1) == '1')
+					|| testTypes != null && isFishTestTypes()) {
+				SolverConfig oldConfig = finder.isConfigPinned() ? finder.getConfig() : null;
+				finder.setConfig(finder.getConfig()
+						.withCheckTemplates(Options.getInstance().isAllStepsCheckTemplates()));
+				steps1 = finder.getAllFishes(sudoku, Options.getInstance().getAllStepsMinFishSize(),
+						Options.getInstance().getAllStepsMaxFishSize(), Options.getInstance().getAllStepsMaxFins(),
+						Options.getInstance().getAllStepsMaxEndoFins(), dlg, stage,
+						Options.getInstance().getAllStepsMaxFishType());
+				result.addAll(steps1);
+				finder.setConfig(oldConfig);
+			}
+			break;
+		case 10:
+		case 11:
+		case 12:
+		case 13:
+		case 14:
+		case 15:
+		case 16:
+		case 17:
+		case 18:
+			// System.out.println("Kraken Fish search cand " + (stage - 9) + ": " +
+			// Options.getInstance().allStepsFishCandidates.charAt(stage - 10));
+			if (isAllStepsEnabled(SolutionType.KRAKEN_FISH)
+					&& Options.getInstance().getAllStepsKrakenFishCandidates().charAt(stage - 10) == '1') {
+				updateProgress(dlg, getStageName(stage), stage);
+				steps1 = finder.getAllKrakenFishes(sudoku, Options.getInstance().getAllStepsKrakenMinFishSize(),
+						Options.getInstance().getAllStepsKrakenMaxFishSize(),
+						Options.getInstance().getAllStepsMaxKrakenFins(),
+						Options.getInstance().getAllStepsMaxKrakenEndoFins(), dlg, stage - 9,
+						Options.getInstance().getAllStepsKrakenMaxFishType());
+				result.addAll(steps1);
+			}
+			break;
+		case 19:
+			updateProgress(dlg, getStageName(stage), stage);
+			if (isAllStepsEnabled(SolutionType.UNIQUENESS_1) || isAllStepsEnabled(SolutionType.UNIQUENESS_2)
+					|| isAllStepsEnabled(SolutionType.UNIQUENESS_3) || isAllStepsEnabled(SolutionType.UNIQUENESS_4)
+					|| isAllStepsEnabled(SolutionType.UNIQUENESS_5) || isAllStepsEnabled(SolutionType.UNIQUENESS_6)
+					|| isAllStepsEnabled(SolutionType.HIDDEN_RECTANGLE)
+					|| isAllStepsEnabled(SolutionType.AVOIDABLE_RECTANGLE_1)
+					|| isAllStepsEnabled(SolutionType.AVOIDABLE_RECTANGLE_2)) {
+				steps1 = finder.getAllUniqueness(sudoku);
 				filterSteps(steps1);
-				steps.addAll(steps1);
-				if (isAllStepsEnabled(SolutionType.SIMPLE_COLORS)) {
-					steps1 = stepFinder.findAllSimpleColors(sudoku);
-					steps.addAll(steps1);
-				}
-				if (isAllStepsEnabled(SolutionType.MULTI_COLORS)) {
-					steps1 = stepFinder.findAllMultiColors(sudoku);
-					steps.addAll(steps1);
-				}
-				break;
-			case 20:
-				updateProgress(java.util.ResourceBundle.getBundle("intl/FindAllStepsProgressDialog")
-						.getString("FindAllStepsProgressDialog.chains"), actStep);
-				if (isAllStepsEnabled(SolutionType.X_CHAIN) || isAllStepsEnabled(SolutionType.XY_CHAIN)
-						|| isAllStepsEnabled(SolutionType.REMOTE_PAIR) || isAllStepsEnabled(SolutionType.TURBOT_FISH)) {
-					steps1 = stepFinder.getAllChains(sudoku);
-					filterSteps(steps1);
-					steps.addAll(steps1);
-				}
-				break;
-			case 21:
-				updateProgress(java.util.ResourceBundle.getBundle("intl/FindAllStepsProgressDialog")
-						.getString("FindAllStepsProgressDialog.nice_loops"), actStep);
-				if (isAllStepsEnabled(SolutionType.NICE_LOOP)) {
-					steps1 = stepFinder.getAllNiceLoops(sudoku);
-					steps.addAll(steps1);
-				}
-				break;
-			case 22:
-				updateProgress(java.util.ResourceBundle.getBundle("intl/FindAllStepsProgressDialog")
-						.getString("FindAllStepsProgressDialog.grouped_nice_loops"), actStep);
-				if (isAllStepsEnabled(SolutionType.GROUPED_NICE_LOOP)) {
-					steps1 = stepFinder.getAllGroupedNiceLoops(sudoku);
-					steps.addAll(steps1);
-				}
-				break;
-			case 23:
-				updateProgress(java.util.ResourceBundle.getBundle("intl/FindAllStepsProgressDialog")
-						.getString("FindAllStepsProgressDialog.templates"), actStep);
-				if (isAllStepsEnabled(SolutionType.TEMPLATE_DEL) || isAllStepsEnabled(SolutionType.TEMPLATE_SET)) {
-					steps1 = stepFinder.getAllTemplates(sudoku);
-					filterSteps(steps1);
-					steps.addAll(steps1);
-				}
-				break;
-			case 24:
-				updateProgress(java.util.ResourceBundle.getBundle("intl/FindAllStepsProgressDialog")
-						.getString("FindAllStepsProgressDialog.als"), actStep);
-				if (isAllStepsEnabled(SolutionType.ALS_XZ) || isAllStepsEnabled(SolutionType.ALS_XY_WING)
-						|| isAllStepsEnabled(SolutionType.ALS_XY_CHAIN)) {
-					steps1 = stepFinder.getAllAlses(sudoku, isAllStepsEnabled(SolutionType.ALS_XZ),
-							isAllStepsEnabled(SolutionType.ALS_XY_WING), isAllStepsEnabled(SolutionType.ALS_XY_CHAIN));
-					filterSteps(steps1);
-					steps.addAll(steps1);
-				}
-				if (isAllStepsEnabled(SolutionType.DEATH_BLOSSOM)) {
-					steps1 = stepFinder.getAllDeathBlossoms(sudoku);
-					filterSteps(steps1);
-					steps.addAll(steps1);
-				}
-				break;
-			case 25:
-				if (isAllStepsEnabled(SolutionType.FORCING_CHAIN)) {
-					updateProgress(java.util.ResourceBundle.getBundle("intl/FindAllStepsProgressDialog")
-							.getString("FindAllStepsProgressDialog.forcing_Chains"), actStep);
-					steps1 = stepFinder.getAllForcingChains(sudoku);
-					steps.addAll(steps1);
-				}
-				break;
-			case 26:
-				if (isAllStepsEnabled(SolutionType.FORCING_NET)) {
-					updateProgress(java.util.ResourceBundle.getBundle("intl/FindAllStepsProgressDialog")
-							.getString("FindAllStepsProgressDialog.forcing_Nets"), actStep);
-					steps1 = stepFinder.getAllForcingNets(sudoku);
-					steps.addAll(steps1);
-				}
-				break;
-			case 27:
-				updateProgress(java.util.ResourceBundle.getBundle("intl/FindAllStepsProgressDialog")
-						.getString("FindAllStepsProgressDialog.progress_Score"), actStep);
-				// calculate progress measure
-				SudokuSolverFactory.getDefaultSolverInstance().getProgressScore(sudoku, steps, dlg);
-				break;
-			default:
-				if (testTypes == null) {
-					Thread.currentThread().interrupt();
-				} else {
-					// called directly -> dont interrupt!
-					return;
+				result.addAll(steps1);
+			}
+			if (isAllStepsEnabled(SolutionType.BUG_PLUS_1)) {
+				finder.setSudoku(sudoku);
+				SolutionStep step = finder.getStep(SolutionType.BUG_PLUS_1);
+				if (step != null) {
+					result.add(step);
 				}
-				break;
 			}
-			actStep++;
+			steps1 = finder.getAllWings(sudoku);
+			filterSteps(steps1);
+			result.addAll(steps1);
+			if (isAllStepsEnabled(SolutionType.SIMPLE_COLORS)) {
+				steps1 = finder.findAllSimpleColors(sudoku);
+				result.addAll(steps1);
+			}
+			if (isAllStepsEnabled(SolutionType.MULTI_COLORS)) {
+				steps1 = finder.findAllMultiColors(sudoku);
+				result.addAll(steps1);
+			}
+			break;
+		case 20:
+			updateProgress(dlg, getStageName(stage), stage);
+			if (isAllStepsEnabled(SolutionType.X_CHAIN) || isAllStepsEnabled(SolutionType.XY_CHAIN)
+					|| isAllStepsEnabled(SolutionType.REMOTE_PAIR) || isAllStepsEnabled(SolutionType.TURBOT_FISH)) {
+				steps1 = finder.getAllChains(sudoku);
+				filterSteps(steps1);
+				result.addAll(steps1);
+			}
+			break;
+		case 21:
+			updateProgress(dlg, getStageName(stage), stage);
+			if (isAllStepsEnabled(SolutionType.NICE_LOOP)) {
+				steps1 = finder.getAllNiceLoops(sudoku);
+				result.addAll(steps1);
+			}
+			break;
+		case 22:
+			updateProgress(dlg, getStageName(stage), stage);
+			if (isAllStepsEnabled(SolutionType.GROUPED_NICE_LOOP)) {
+				steps1 = finder.getAllGroupedNiceLoops(sudoku);
+				result.addAll(steps1);
+			}
+			break;
+		case 23:
+			updateProgress(dlg, getStageName(stage), stage);
+			if (isAllStepsEnabled(SolutionType.TEMPLATE_DEL) || isAllStepsEnabled(SolutionType.TEMPLATE_SET)) {
+				steps1 = finder.getAllTemplates(sudoku);
+				filterSteps(steps1);
+				result.addAll(steps1);
+			}
+			break;
+		case 24:
+			updateProgress(dlg, getStageName(stage), stage);
+			if (isAllStepsEnabled(SolutionType.ALS_XZ) || isAllStepsEnabled(SolutionType.ALS_XY_WING)
+					|| isAllStepsEnabled(SolutionType.ALS_XY_CHAIN)) {
+				steps1 = finder.getAllAlses(sudoku, isAllStepsEnabled(SolutionType.ALS_XZ),
+						isAllStepsEnabled(SolutionType.ALS_XY_WING), isAllStepsEnabled(SolutionType.ALS_XY_CHAIN));
+				filterSteps(steps1);
+				result.addAll(steps1);
+			}
+			if (isAllStepsEnabled(SolutionType.DEATH_BLOSSOM)) {
+				steps1 = finder.getAllDeathBlossoms(sudoku);
+				filterSteps(steps1);
+				result.addAll(steps1);
+			}
+			break;
+		case 25:
+			if (isAllStepsEnabled(SolutionType.FORCING_CHAIN)) {
+				updateProgress(dlg, getStageName(stage), stage);
+				steps1 = finder.getAllForcingChains(sudoku);
+				result.addAll(steps1);
+			}
+			break;
+		case 26:
+			if (isAllStepsEnabled(SolutionType.FORCING_NET)) {
+				updateProgress(dlg, getStageName(stage), stage);
+				steps1 = finder.getAllForcingNets(sudoku);
+				result.addAll(steps1);
+			}
+			break;
+		}
+		return result;
+	}
+
+	@Override
+	public void run() {
+		if (threads > 1 && testTypes == null) {
+			runParallel();
+		} else {
+			runSerial();
 		}
 		// done!
 		if (dlg != null) {
@@ -331,6 +402,112 @@ public class FindAllSteps implements Runnable {
 		}
 	}
 
+	/**
+	 * Executes all stages one after another with the step finder of
+	 * {@link #solver}.
+	 */
+	private void runSerial() {
+		int actStep = FIRST_STAGE;
+		while (!Thread.interrupted()) {
+			if (actStep <= LAST_STAGE) {
+				steps.addAll(findStage(actStep, stepFinder, sudoku, dlg));
+			} else if (actStep == LAST_STAGE + 1) {
+				updateProgress(dlg, getStageName(actStep), actStep);
+				// calculate progress measure
+				solver.getProgressScore(sudoku, steps, dlg);
+			} else {
+				if (testTypes == null && !calledDirectly) {
+					Thread.currentThread().interrupt();
+				} else {
+					// called directly -> dont interrupt!
+					return;
+				}
+			}
+			actStep++;
+		}
+	}
+
+	/**
+	 * Executes all stages concurrently. Every stage gets its own
+	 * {@link SudokuStepFinder} (taken from {@link SudokuSolverFactory}) and its
+	 * own copy of the sudoku; all finders share the same {@link SolverConfig}.
+	 * The results are collected in stage order, so the list of steps is exactly
+	 * the same as in {@link #runSerial()}. The stages find disjoint sets of
+	 * steps, no duplicates have to be removed.<br>
+	 * If the search is cancelled, the stages are stopped by a shared
+	 * {@link SolverDeadline}; the method returns only after all stages have
+	 * finished and given back their solvers.
+	 */
+	private void runParallel() {
+		final SolverConfig config = SolverConfig.fromOptions();
+		// never expires, only cancelled
+		final SolverDeadline deadline = new SolverDeadline(0);
+		ForkJoinPool pool = new ForkJoinPool(threads);
+		try {
+			List<Future<List<SolutionStep>>> results = new ArrayList<Future<List<SolutionStep>>>();
+			for (int i = FIRST_STAGE; i <= LAST_STAGE; i++) {
+				final int stage = i;
+				results.add(pool.submit(new Callable<List<SolutionStep>>() {
+					@Override
+					public List<SolutionStep> call() {
+						SudokuSolver solver = SudokuSolverFactory.getInstance();
+						SudokuStepFinder finder = solver.getStepFinder();
+						try {
+							finder.setConfig(config);
+							finder.setDeadline(deadline);
+							return findStage(stage, finder, sudoku.clone(), null);
+						} finally {
+							finder.setDeadline(null);
+							finder.setConfig(null);
+							SudokuSolverFactory.giveBack(solver);
+						}
+					}
+				}));
+			}
+			for (int i = 0; i < results.size(); i++) {
+				updateProgress(dlg, getStageName(FIRST_STAGE + i), FIRST_STAGE + i);
+				steps.addAll(results.get(i).get());
+			}
+		} catch (InterruptedException ex) {
+			// search was cancelled
+			return;
+		} catch (ExecutionException ex) {
+			Logger.getLogger(getClass().getName()).log(Level.SEVERE, "Error in \"Find all steps\"", ex.getCause());
+			return;
+		} finally {
+			// stop all stages that are still running (cancelled or error)
+			deadline.cancel();
+			pool.shutdownNow();
+			awaitTermination(pool);
+		}
+		if (!Thread.currentThread().isInterrupted()) {
+			updateProgress(dlg, getStageName(LAST_STAGE + 1), LAST_STAGE + 1);
+			solver.getProgressScore(sudoku, steps, dlg, threads);
+		}
+	}
+
+	/**
+	 * Waits until all tasks of <code>pool</code> have finished. The wait cannot
+	 * be interrupted; an interrupt is restored afterwards.
+	 * 
+	 * @param pool
+	 */
+	private static void awaitTermination(ForkJoinPool pool) {
+		boolean interrupted = false;
+		while (true) {
+			try {
+				if (pool.awaitTermination(1, TimeUnit.SECONDS)) {
+					break;
+				}
+			} catch (InterruptedException ex) {
+				interrupted = true;
+			}
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
 	public List<SolutionStep> getSteps() {
 		return steps;
 	}
@@ -347,6 +524,14 @@ public class FindAllSteps implements Runnable {
 		this.testTypes = testStep;
 	}
 
+	public int getThreads() {
+		return threads;
+	}
+
+	public void setThreads(int threads) {
+		this.threads = threads;
+	}
+
 	public Sudoku2 getSudoku() {
 		return sudoku;
 	}
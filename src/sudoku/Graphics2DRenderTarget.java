@@ -0,0 +1,120 @@
+/*
+ * Copyright (C) 2021 Aarre Laakso
+ *
+ * This file is part of HoDoKu.
+ *
+ * HoDoKu is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * HoDoKu is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with HoDoKu. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package sudoku;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.CubicCurve2D;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.Line2D;
+import java.awt.geom.Path2D;
+import java.awt.geom.Rectangle2D;
+
+/**
+ * Draws into a {@link Graphics2D} (images, printing). Works without a display
+ * (<code>java.awt.headless</code>).
+ *
+ * @author Aarre Laakso
+ */
+final class Graphics2DRenderTarget implements RenderTarget {
+	private final Graphics2D g2;
+	/** The name of the font for values and candidates. */
+	private final String fontName;
+	private Font font = null;
+
+	Graphics2DRenderTarget(Graphics2D g2, String fontName) {
+		this.g2 = g2;
+		this.fontName = fontName;
+		g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+		g2.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+	}
+
+	@Override
+	public void fillRect(double x, double y, double width, double height, Color color) {
+		g2.setColor(color);
+		g2.fill(new Rectangle2D.Double(x, y, width, height));
+	}
+
+	@Override
+	public void drawRect(double x, double y, double width, double height, Color color, double lineWidth) {
+		g2.setColor(color);
+		g2.setStroke(new BasicStroke((float) lineWidth));
+		g2.draw(new Rectangle2D.Double(x, y, width, height));
+	}
+
+	@Override
+	public void drawLine(double x1, double y1, double x2, double y2, Color color, double lineWidth, boolean dashed) {
+		g2.setColor(color);
+		g2.setStroke(getStroke(lineWidth, dashed));
+		g2.draw(new Line2D.Double(x1, y1, x2, y2));
+	}
+
+	@Override
+	public void drawCurve(double x1, double y1, double cx1, double cy1, double cx2, double cy2, double x2, double y2,
+			Color color, double lineWidth, boolean dashed) {
+		g2.setColor(color);
+		g2.setStroke(getStroke(lineWidth, dashed));
+		g2.draw(new CubicCurve2D.Double(x1, y1, cx1, cy1, cx2, cy2, x2, y2));
+	}
+
+	@Override
+	public void fillOval(double x, double y, double width, double height, Color color) {
+		g2.setColor(color);
+		g2.fill(new Ellipse2D.Double(x, y, width, height));
+	}
+
+	@Override
+	public void fillPolygon(double[] x, double[] y, Color color) {
+		Path2D.Double polygon = new Path2D.Double();
+		polygon.moveTo(x[0], y[0]);
+		for (int i = 1; i < x.length; i++) {
+			polygon.lineTo(x[i], y[i]);
+		}
+		polygon.closePath();
+		g2.setColor(color);
+		g2.fill(polygon);
+	}
+
+	@Override
+	public void drawText(String text, double x, double y, double size, Color color) {
+		int fontSize = (int) Math.round(size);
+		if (font == null || font.getSize() != fontSize) {
+			font = new Font(fontName, Font.PLAIN, fontSize);
+		}
+		g2.setFont(font);
+		g2.setColor(color);
+		FontMetrics metrics = g2.getFontMetrics();
+		g2.drawString(text, (float) (x - metrics.stringWidth(text) / 2.0),
+				(float) (y + (metrics.getAscent() - metrics.getDescent()) / 2.0));
+	}
+
+	private BasicStroke getStroke(double lineWidth, boolean dashed) {
+		if (dashed) {
+			return new BasicStroke((float) lineWidth, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND, 10.0f,
+					new float[] { 5.0f }, 0.0f);
+		}
+		return new BasicStroke((float) lineWidth, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND);
+	}
+}
@@ -20,21 +20,28 @@
 package sudoku;
 
 import generator.BackgroundGeneratorThread;
+import generator.GeneratorPipeline;
 import generator.SudokuGenerator;
 import generator.SudokuGeneratorFactory;
 import java.io.BufferedReader;
+import java.io.BufferedOutputStream;
 import java.io.BufferedWriter;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
 import java.io.PrintWriter;
+import java.io.StringWriter;
 import java.net.URL;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.Deque;
 import java.util.EnumSet;
 import java.util.List;
 import java.util.Locale;
@@ -42,12 +49,24 @@ import java.util.Map;
 import java.util.Set;
 import java.util.SortedMap;
 import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.ConsoleHandler;
 import java.util.logging.FileHandler;
 import java.util.logging.Handler;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.logging.SimpleFormatter;
+import solver.RatingCache;
+import solver.SolverConfig;
+import solver.SolverDeadline;
+import solver.SolverMetrics;
+import solver.StepMetrics;
 import solver.SudokuSolver;
 import solver.SudokuSolverFactory;
 
@@ -77,7 +96,7 @@ public class Main {
 		return path;
 	}
 
-	void searchForType(List<StepType> typeList, DifficultyLevel level, String outFile) {
+	void searchForType(List<StepType> typeList, DifficultyLevel level, String outFile, int threads) {
 
 		System.out.println("Starting search for:");
 		if (typeList.size() > 0) {
@@ -90,7 +109,7 @@ public class Main {
 			System.out.println("   " + level.getName());
 		}
 		
-		SearchForTypeThread thread = new SearchForTypeThread(typeList, level, outFile);
+		SearchForTypeThread thread = new SearchForTypeThread(typeList, level, outFile, threads);
 		thread.start();
 		BufferedReader in = new BufferedReader(new InputStreamReader(System.in));
 		
@@ -159,6 +178,48 @@ public class Main {
 			boolean bruteForceTest, 
 			List<SolutionType> testTypes) {
 
+		batchSolve(
+			fileName, 
+			puzzleString, 
+			printSolution, 
+			printSolutionPath, 
+			printStatistic, 
+			cMode, 
+			types, 
+			outFile,
+			findAllSteps, 
+			bruteForceTest, 
+			testTypes,
+			1,
+			0
+		);
+	}
+
+	/**
+	 * Batch solves a file or a single puzzle. If <code>threads</code> is greater
+	 * than 1, the puzzles of a file are solved in parallel (only for plain batch
+	 * solving, output is still written in the order of the input file). If
+	 * <code>findAllSteps</code> is set, the puzzles are processed one after
+	 * another, but the search itself runs in parallel. If <code>timeout</code>
+	 * is greater than 0, every puzzle gets a time budget of <code>timeout</code>
+	 * ms (see {@link SolverDeadline}); puzzles exceeding it are reported
+	 * separately.
+	 */
+	public void batchSolve(
+			String fileName, 
+			String puzzleString, 
+			boolean printSolution, 
+			boolean printSolutionPath,
+			boolean printStatistic, 
+			ClipboardMode cMode, 
+			Set<SolutionType> types, 
+			String outFile, 
+			boolean findAllSteps,
+			boolean bruteForceTest, 
+			List<SolutionType> testTypes,
+			int threads,
+			long timeout) {
+
 		BatchSolveThread thread = new BatchSolveThread(
 			fileName, 
 			puzzleString, 
@@ -170,7 +231,9 @@ public class Main {
 			outFile, 
 			findAllSteps, 
 			bruteForceTest, 
-			testTypes
+			testTypes,
+			threads,
+			timeout
 		);
 
 		thread.start();
@@ -207,6 +270,14 @@ public class Main {
 		System.out.println(thread.getTemplateAnz() + " puzzles require templates!");
 		System.out.println(thread.getGivenUpAnz() + " puzzles unsolved!");
 		System.out.println(thread.getUnsolvedAnz() + " puzzles not solved logically!");
+		if (timeout > 0) {
+			System.out.println(thread.getTimedOutAnz() + " puzzles timed out (" + timeout + "ms)!");
+		}
+		RatingCache cache = SudokuSolverFactory.getRatingCache();
+		if (cache != null) {
+			System.out.println(cache.getHits() + " ratings taken from the cache, " + cache.getAdded()
+					+ " ratings added!");
+		}
 		System.out.println();
 
 		for (int i = 1; i < thread.getResultLength(); i++) {
@@ -218,7 +289,7 @@ public class Main {
 			System.out.println();
 			
 			try {
-				thread.printStatistic(null, false);
+				thread.printStatistic(null);
 			} catch (IOException ex) {
 				ex.printStackTrace();
 			}
@@ -650,7 +721,7 @@ public class Main {
 				if (arg.equals("/bs") || arg.equals("/vg") || arg.equals("/sc") || arg.equals("/sl")
 						|| arg.equals("/so") || arg.equals("/c") || arg.equals("/o") || arg.equals("/bsaf")
 						|| arg.equals("/bts") || arg.equals("/bt") || arg.equals("/test") || arg.equals("/testf")
-						|| arg.equals("/vf") || (arg.equals("/s") && (i + 1 < options.size())
+						|| arg.equals("/vf") || arg.equals("/threads") || arg.equals("/metrics") || arg.equals("/timeout") || arg.equals("/dedup") || arg.equals("/cache") || arg.equals("/server") || arg.equals("/render") || arg.equals("/rf") || arg.equals("/rs") || (arg.equals("/s") && (i + 1 < options.size())
 								&& options.get(i + 1).trim().charAt(0) != '/')) {
 					// args with parameters (only one parameter per arg permitted)
 					if (i + 1 >= options.size() || options.get(i + 1).trim().charAt(0) == '/') {
@@ -821,6 +892,45 @@ public class Main {
 				argMap.remove("/sl");
 			}
 
+			int threads = 1;
+			if (argMap.containsKey("/threads")) {
+
+				String arg = argMap.get("/threads");
+				if (arg.equalsIgnoreCase("auto")) {
+					threads = Runtime.getRuntime().availableProcessors();
+				} else {
+					try {
+						threads = Integer.parseInt(arg);
+					} catch (NumberFormatException ex) {
+						System.out.println("Invalid argument for /threads ('" + arg + "'): '1' used instead!");
+					}
+				}
+
+				if (threads < 1) {
+					threads = 1;
+				}
+
+				argMap.remove("/threads");
+			}
+
+			long timeout = 0;
+			if (argMap.containsKey("/timeout")) {
+
+				String arg = argMap.get("/timeout");
+				try {
+					timeout = Long.parseLong(arg);
+				} catch (NumberFormatException ex) {
+					System.out.println("Invalid argument for /timeout ('" + arg + "'): no time limit used!");
+				}
+
+				argMap.remove("/timeout");
+			}
+
+			if (argMap.containsKey("/metrics")) {
+				writeMetricsOnExit(argMap.get("/metrics"));
+				argMap.remove("/metrics");
+			}
+
 			if (argMap.containsKey("/so")) {
 				printIgnoredOptions("/so", argMap);
 				new Main().sortPuzzleFile(argMap.get("/so"), typeList, outFile);
@@ -830,6 +940,52 @@ public class Main {
 				return;
 			}
 
+			if (argMap.containsKey("/dedup")) {
+				printIgnoredOptions("/dedup", argMap);
+				new PuzzleDeduplicator(threads).dedup(argMap.get("/dedup"), outFile);
+				if (consoleFrame == null) {
+					System.exit(0);
+				}
+				return;
+			}
+
+			if (argMap.containsKey("/render")) {
+				SudokuRenderer.Format format = SudokuRenderer.Format.PNG;
+				if (argMap.containsKey("/rf")) {
+					String arg = argMap.get("/rf");
+					try {
+						format = SudokuRenderer.Format.valueOf(arg.toUpperCase());
+					} catch (IllegalArgumentException ex) {
+						System.out.println("Invalid argument for /rf ('" + arg + "'): 'png' used instead!");
+					}
+					argMap.remove("/rf");
+				}
+				int size = 600;
+				if (argMap.containsKey("/rs")) {
+					String arg = argMap.get("/rs");
+					try {
+						size = Integer.parseInt(arg);
+					} catch (NumberFormatException ex) {
+						System.out.println("Invalid argument for /rs ('" + arg + "'): '600' used instead!");
+					}
+					if (size < 100) {
+						size = 100;
+					}
+					argMap.remove("/rs");
+				}
+				boolean showCandidates = argMap.containsKey("/rc");
+				argMap.remove("/rc");
+				boolean showHint = argMap.containsKey("/rh");
+				argMap.remove("/rh");
+				printIgnoredOptions("/render", argMap);
+				new BatchRenderer(threads, format, size, showCandidates, showHint).render(argMap.get("/render"),
+						outFile);
+				if (consoleFrame == null) {
+					System.exit(0);
+				}
+				return;
+			}
+
 			if (argMap.containsKey("/s")) {
 
 				printIgnoredOptions("/s", argMap);
@@ -841,7 +997,7 @@ public class Main {
 					return;
 				}
 
-				new Main().searchForType(typeList, actLevel, outFile);
+				new Main().searchForType(typeList, actLevel, outFile, threads);
 
 				if (consoleFrame == null) {
 					System.exit(0);
@@ -939,11 +1095,44 @@ public class Main {
 				argMap.remove("/vg");
 			}
 
+			if (argMap.containsKey("/cache")) {
+				String dirName = argMap.get("/cache");
+				argMap.remove("/cache");
+				if (!argMap.containsKey("/bs") && !argMap.containsKey("/server")) {
+					System.out.println("/cache can only be used with /bs or /server: option ignored!");
+				} else if (printSolutionPath || printStatistics || outTypes != null) {
+					// the cache stores only the types of the steps
+					System.out.println("/cache cannot be used with /vp, /vst or /vg: option ignored!");
+				} else {
+					openRatingCache(dirName);
+				}
+			}
+
+			if (argMap.containsKey("/server")) {
+				printIgnoredOptions("/server", argMap);
+				String arg = argMap.get("/server");
+				int port = -1;
+				try {
+					port = Integer.parseInt(arg);
+				} catch (NumberFormatException ex) {
+					// handled below
+				}
+				if (port < 0 || port > 65535) {
+					System.out.println("Invalid argument for /server ('" + arg + "'): no port number!");
+				} else {
+					new SolverServer(port, threads, timeout).run();
+				}
+				if (consoleFrame == null) {
+					System.exit(0);
+				}
+				return;
+			}
+
 			if (argMap.containsKey("/bs")) {
 				printIgnoredOptions("/bs", argMap);
 				String fileName = argMap.get("/bs");
 				new Main().batchSolve(fileName, null, printSolution, printSolutionPath, printStatistics, clipboardMode,
-						outTypes, outFile, false);
+						outTypes, outFile, false, false, null, threads, timeout);
 				if (consoleFrame == null) {
 					System.exit(0);
 				}
@@ -955,7 +1144,7 @@ public class Main {
 				printIgnoredOptions("/bsaf", argMap);
 				String fileName = argMap.get("/bsaf");
 				new Main().batchSolve(fileName, null, printSolution, printSolutionPath, printStatistics, clipboardMode,
-						outTypes, outFile, true);
+						outTypes, outFile, true, false, null, threads, timeout);
 				if (consoleFrame == null) {
 					System.exit(0);
 				}
@@ -1030,7 +1219,7 @@ public class Main {
 			if (puzzleString != null) {
 				printIgnoredOptions("", argMap);
 				new Main().batchSolve(null, puzzleString, printSolution, printSolutionPath, printStatistics,
-						clipboardMode, outTypes, outFile, false);
+						clipboardMode, outTypes, outFile, false, false, null, 1, timeout);
 				if (consoleFrame == null) {
 					System.exit(0);
 				}
@@ -1103,6 +1292,64 @@ public class Main {
 //        }
 //    }
 
+	/**
+	 * Registers the metrics bean ({@link SolverMetrics}), switches on
+	 * allocation tracking and writes the metrics of all solvers
+	 * (see {@link SudokuSolverFactory#getMetrics()}) to <code>fileName</code>
+	 * ("stdout": console) when the program ends.
+	 *
+	 * @param fileName
+	 */
+	private static void writeMetricsOnExit(final String fileName) {
+		SolverMetrics.register();
+		if (StepMetrics.isAllocationTrackingSupported()) {
+			StepMetrics.setAllocationTracking(true);
+		}
+		Runtime.getRuntime().addShutdownHook(new Thread("metrics") {
+			@Override
+			public void run() {
+				String report = SudokuSolverFactory.getMetrics().getReport();
+				if (fileName.equalsIgnoreCase("stdout")) {
+					System.out.print(report);
+					System.out.flush();
+					return;
+				}
+				try {
+					PrintWriter out = new PrintWriter(new BufferedWriter(new FileWriter(fileName)));
+					out.print(report);
+					out.close();
+				} catch (IOException ex) {
+					System.err.println("Error writing metrics to " + fileName + ": " + ex);
+				}
+			}
+		});
+	}
+
+	/**
+	 * Opens the {@link RatingCache} in <code>dirName</code> for all solvers; it
+	 * is closed when the program ends.
+	 *
+	 * @param dirName
+	 */
+	private static void openRatingCache(String dirName) {
+		final RatingCache cache;
+		try {
+			cache = RatingCache.open(new File(dirName));
+		} catch (IOException ex) {
+			System.out.println("Error opening rating cache in " + dirName + ": " + ex.getMessage());
+			return;
+		}
+		System.out.println("Using rating cache '" + dirName + "' (" + cache.size() + " ratings"
+				+ (cache.isReadOnly() ? ", read only: used by another process)" : ")"));
+		SudokuSolverFactory.setRatingCache(cache);
+		Runtime.getRuntime().addShutdownHook(new Thread("rating cache") {
+			@Override
+			public void run() {
+				cache.close();
+			}
+		});
+	}
+
 	/**
 	 * Prints all remaining (unused) options in argMap except "option"
 	 * 
@@ -1207,6 +1454,17 @@ public class Main {
 				+ "  /lt: list internal names of techniques\r\n"
 				+ "  /so <file>: sort puzzle file created with /s, write output to <file>.out.txt\r\n"
 				+ "      or to a file given by /o; a filter can be applied with /sc\r\n"
+				+ "  /dedup <file>: copy <file> to <file>.out.txt (or a file given by /o) without\r\n"
+				+ "      puzzles that are isomorphic to an earlier puzzle (digits relabelled, rows,\r\n"
+				+ "      columns, bands or stacks swapped, transposed); uses /threads\r\n"
+				+ "  /render <file>: draw every puzzle in <file> into a file of its own\r\n"
+				+ "      (<file>_<nr>.<format> in the directory of <file> or in the directory\r\n"
+				+ "      given by /o); uses /threads\r\n"
+				+ "  /rf <png|svg|pdf>: format for /render (default: png)\r\n"
+				+ "  /rs <size>: width and height in pixels (points for pdf) for /render\r\n"
+				+ "      (default: 600)\r\n"
+				+ "  /rc: draw all candidates with /render\r\n"
+				+ "  /rh: highlight the next step of every puzzle with /render\r\n"
 				+ "  /s: create puzzles which contain steps according to /sc and/or /sl\r\n"
 				+ "      and write them to <step>[_<step>...].txt or a file given by /o\r\n"
 				+ "      (for compatibility reasons steps can be defined directly with /s)\r\n"
@@ -1225,6 +1483,21 @@ public class Main {
 				+ "      0: easy; 1: medium; 2: hard; 3: unfair; 4: extreme\r\n"
 				+ "  /bs <file>: batch solve puzzles in <file> (output written to <file>.out.txt\r\n"
 				+ "       or a file given by /o)\r\n"
+				+ "  /threads <n|'auto'>: solve the puzzles of /bs with <n> threads ('auto': one\r\n"
+				+ "       thread per processor); the output order is not changed; with /bsaf\r\n"
+				+ "       the techniques for every puzzle are searched with <n> threads; with /s\r\n"
+				+ "       puzzles are created and checked by <n> threads\r\n"
+				+ "  /timeout <ms>: time limit per puzzle for /bs and [puzzle]; if it is exceeded,\r\n"
+				+ "       the puzzle is finished with singles and brute force and marked as\r\n"
+				+ "       \"timeout\" (counted separately)\r\n"
+				+ "  /cache <dir>: store the ratings of /bs or /server in <dir> and reuse them in\r\n"
+				+ "       later runs with the same settings (not with /vp, /vst or /vg)\r\n"
+				+ "  /server <port>: answer requests on localhost:<port> until \"shutdown\" is\r\n"
+				+ "       received; one request per line: solve|rate|hint|findall\r\n"
+				+ "       [timeout=<ms>] <puzzle>; uses /threads workers and /timeout as\r\n"
+				+ "       default time limit; busy workers are reported as \"ERR busy\"\r\n"
+				+ "  /metrics <file|'stdout'>: write timing (p50/p99/max) and allocation metrics\r\n"
+				+ "       per technique and cache to <file> when the program ends\r\n"
 				+ "  /bsaf <file>: batch process puzzles in <file> (output as in /bs);\r\n"
 				+ "       for each puzzle \"Find all Steps\" is executed\r\n"
 				+ "  /bsa: execute \"Find all Steps\" for [puzzle] (output written to\r\n"
@@ -1277,14 +1550,90 @@ class SearchForTypeThread extends Thread {
 
 	private List<StepType> typeList;
 	private DifficultyLevel level;
-	private int anz = 0;
-	private int anzFound = 0;
+	private volatile int anz = 0;
+	private volatile int anzFound = 0;
 	private String outFile = null;
+	/** Number of generator threads. */
+	private int threads = 1;
 
-	SearchForTypeThread(List<StepType> typeList, DifficultyLevel level, String outFile) {
+	SearchForTypeThread(List<StepType> typeList, DifficultyLevel level, String outFile, int threads) {
 		this.typeList = typeList;
 		this.level = level;
 		this.outFile = outFile;
+		this.threads = threads;
+	}
+
+	/**
+	 * Creates one {@link PuzzleType} for every entry in {@link #typeList}.
+	 *
+	 * @return
+	 */
+	private PuzzleType[] createPuzzleTypes() {
+		PuzzleType[] puzzleTypes = new PuzzleType[typeList.size()];
+		int index = 0;
+		for (StepType tmpType : typeList) {
+			puzzleTypes[index] = new PuzzleType(tmpType);
+			index++;
+		}
+		return puzzleTypes;
+	}
+
+	/**
+	 * Writes one found puzzle to <code>out</code> and to the console.
+	 *
+	 * @param out
+	 * @param line
+	 * @throws IOException
+	 */
+	private void writeLine(BufferedWriter out, String line) throws IOException {
+		if (out != null) {
+			out.write(line);
+			out.newLine();
+			out.flush();
+		}
+		System.out.println(line);
+		anzFound++;
+	}
+
+	/**
+	 * Generates puzzles with {@link #threads} threads (see
+	 * {@link GeneratorPipeline}); every thread has its own generator, solver and
+	 * {@link PuzzleType PuzzleTypes}. The matches are written by this thread
+	 * until it is interrupted.
+	 *
+	 * @param out
+	 * @throws IOException
+	 */
+	private void runParallel(BufferedWriter out) throws IOException {
+		System.out.println("Using " + threads + " threads");
+		List<GeneratorPipeline.Worker> workers = new ArrayList<GeneratorPipeline.Worker>(threads);
+		for (int i = 0; i < threads; i++) {
+			final PuzzleType[] puzzleTypes = createPuzzleTypes();
+			workers.add(new GeneratorPipeline.Worker() {
+				@Override
+				public List<String> next(SudokuGenerator generator, SudokuSolver solver) {
+					return checkPuzzle(generator.generateSudoku(false), solver, puzzleTypes);
+				}
+			});
+		}
+		GeneratorPipeline pipeline = new GeneratorPipeline(workers);
+		pipeline.start();
+		try {
+			while (!isInterrupted()) {
+				String line = pipeline.poll(500);
+				if (line != null) {
+					writeLine(out, line);
+				} else if (!pipeline.isRunning()) {
+					break;
+				}
+				anz = pipeline.getAnz();
+			}
+		} catch (InterruptedException ex) {
+			// search stopped
+		} finally {
+			pipeline.stop();
+			anz = pipeline.getAnz();
+		}
 	}
 
 	private void appendPuzzleString(PuzzleType pType, boolean mode1) {
@@ -1309,13 +1658,9 @@ class SearchForTypeThread extends Thread {
 	@Override
 	public void run() {
 		// String path = m.getSrcDir() + "ar.txt";
-		PuzzleType[] puzzleTypes = new PuzzleType[typeList.size()];
 		StringBuilder pathBuffer = new StringBuilder();
-		int index = 0;
 		for (StepType tmpType : typeList) {
 			pathBuffer.append(tmpType.type.getArgName()).append("_");
-			puzzleTypes[index] = new PuzzleType(tmpType);
-			index++;
 		}
 		if (level == null) {
 			pathBuffer.deleteCharAt(pathBuffer.length() - 1);
@@ -1336,168 +1681,183 @@ class SearchForTypeThread extends Thread {
 			if (!pathBuffer.toString().equals("stdout")) {
 				out = new BufferedWriter(new FileWriter(pathBuffer.toString(), true));
 			}
-			SudokuGenerator generator = SudokuGeneratorFactory.getDefaultGeneratorInstance();
-			SudokuSolver solver = SudokuSolverFactory.getDefaultSolverInstance();
 			// einmal ein leeres Sudoku2 erzeugen, damit alles richtig initialisiert wird
 			new Sudoku2();
 
-			// System.out.println("level: " + level.getName());
-			while (!isInterrupted()) {
-				Sudoku2 newSudoku = generator.generateSudoku(false);
-				Sudoku2 clonedSudoku = newSudoku.clone();
-				solver.setSudoku(clonedSudoku);
-				solver.solve();
-				// System.out.println("result: " + clonedSudoku.isSolved() + "/" +
-				// clonedSudoku.getLevel().getName());
-				if (level != null) {
-					if (!clonedSudoku.isSolved()) {
-						// invalid: if a level is set, the sudoku must be solved
-						// System.out.println("INVALID: Sudoku not solved");
+			if (threads > 1) {
+				runParallel(out);
+			} else {
+				SudokuGenerator generator = SudokuGeneratorFactory.getDefaultGeneratorInstance();
+				SudokuSolver solver = SudokuSolverFactory.getDefaultSolverInstance();
+				PuzzleType[] puzzleTypes = createPuzzleTypes();
+				// System.out.println("level: " + level.getName());
+				while (!isInterrupted()) {
+					Sudoku2 newSudoku = generator.generateSudoku(false);
+					List<String> result = checkPuzzle(newSudoku, solver, puzzleTypes);
+					if (result == null) {
 						continue;
 					}
-					if (clonedSudoku.getLevel().getOrdinal() != level.getOrdinal()) {
-						// sudoku to difficult -> reject
-//                        System.out.println("INVALID: difficulty level " + clonedSudoku.getLevel().getName());
-						continue;
+					for (String line : result) {
+						writeLine(out, line);
 					}
+					anz++;
+//                    if ((getAnz() % 10) == 0) {
+//                        System.out.println(".");
+//                    }
 				}
+			}
+			if (out != null) {
+				out.close();
+			}
+		} catch (IOException ex) {
+			System.out.println("Error writing sudoku file");
+			ex.printStackTrace();
+		}
+	}
+
+	/**
+	 * Solves <code>newSudoku</code> and checks, if it fits {@link #level} and
+	 * {@link #typeList}.
+	 *
+	 * @param newSudoku
+	 * @param solver
+	 * @param puzzleTypes
+	 * @return One output line for every match or <code>null</code>, if the
+	 *         puzzle doesn't have the correct level
+	 */
+	private List<String> checkPuzzle(Sudoku2 newSudoku, SudokuSolver solver, PuzzleType[] puzzleTypes) {
+		List<String> result = new ArrayList<String>();
+		Sudoku2 clonedSudoku = newSudoku.clone();
+		solver.setSudoku(clonedSudoku);
+		solver.solve();
+		// System.out.println("result: " + clonedSudoku.isSolved() + "/" +
+		// clonedSudoku.getLevel().getName());
+		if (level != null) {
+			if (!clonedSudoku.isSolved()) {
+				// invalid: if a level is set, the sudoku must be solved
+				// System.out.println("INVALID: Sudoku not solved");
+				return null;
+			}
+			if (clonedSudoku.getLevel().getOrdinal() != level.getOrdinal()) {
+				// sudoku to difficult -> reject
+//                        System.out.println("INVALID: difficulty level " + clonedSudoku.getLevel().getName());
+				return null;
+			}
+		}
 //                System.out.println("VALID: difficulty level " + clonedSudoku.getLevel().getName());
-				if (puzzleTypes.length == 0) {
-					// no types, only level: this puzzle is acceptable
-					String txt = newSudoku.getSudoku(ClipboardMode.CLUES_ONLY);
-					if (out != null) {
-						out.write(txt + " #" + level.getName());
-						out.newLine();
-						out.flush();
+		if (puzzleTypes.length == 0) {
+			// no types, only level: this puzzle is acceptable
+			String txt = newSudoku.getSudoku(ClipboardMode.CLUES_ONLY);
+			result.add(txt + " #" + level.getName());
+		}
+		for (int i = 0; i < puzzleTypes.length; i++) {
+			puzzleTypes[i].reset();
+		}
+		List<SolutionStep> steps = solver.getSteps();
+		for (int i = 0; i < steps.size(); i++) {
+			SolutionType type = steps.get(i).getType();
+			for (int j = 0; j < puzzleTypes.length; j++) {
+				if (type.equals(puzzleTypes[j].type.type)) {
+					int anzCandDel = steps.get(i).getAnzCandidatesToDelete();
+					if (puzzleTypes[j].anzCandDel < anzCandDel) {
+						puzzleTypes[j].anzCandDel = anzCandDel;
+					}
+					StringBuilder stepName = new StringBuilder(" " + type.getArgName());
+					if (type.isFish()) {
+						if (steps.get(i).getEndoFins().size() > 0) {
+							stepName.append("e");
+						}
+						if (steps.get(i).getCannibalistic().size() > 0) {
+							stepName.append("c");
+						}
 					}
-					System.out.println(txt + " #" + level.getName());
-					anzFound++;
-				}
-				for (int i = 0; i < puzzleTypes.length; i++) {
-					puzzleTypes[i].reset();
-				}
-				List<SolutionStep> steps = solver.getSteps();
-				for (int i = 0; i < steps.size(); i++) {
-					SolutionType type = steps.get(i).getType();
-					for (int j = 0; j < puzzleTypes.length; j++) {
-						if (type.equals(puzzleTypes[j].type.type)) {
-							int anzCandDel = steps.get(i).getAnzCandidatesToDelete();
-							if (puzzleTypes[j].anzCandDel < anzCandDel) {
-								puzzleTypes[j].anzCandDel = anzCandDel;
+					stepName.append("(").append(anzCandDel).append(")");
+					if (puzzleTypes[j].immediatelyFollowed) {
+						// nothing between two occurences of type
+						// nothing special has to be done
+					} else {
+						// what was before type?
+						if (!puzzleTypes[j].typeSeen) {
+							appendPuzzleString(puzzleTypes[j], true);
+						} else {
+							// we are between two steps of <type>
+							appendPuzzleString(puzzleTypes[j], false);
+							// start from scratch
+							puzzleTypes[j].isPuzzleMode2 = -1;
+						}
+						puzzleTypes[j].typeSeen = true;
+						puzzleTypes[j].immediatelyFollowed = true;
+					}
+					puzzleTypes[j].puzzleString += stepName.toString();
+				} else {
+					puzzleTypes[j].immediatelyFollowed = false;
+					if (type.isSingle()) {
+						// best case
+						if (puzzleTypes[j].typeSeen) {
+							if (puzzleTypes[j].isPuzzleMode2 == -1) {
+								puzzleTypes[j].isPuzzleMode2 = 3;
 							}
-							StringBuilder stepName = new StringBuilder(" " + type.getArgName());
-							if (type.isFish()) {
-								if (steps.get(i).getEndoFins().size() > 0) {
-									stepName.append("e");
-								}
-								if (steps.get(i).getCannibalistic().size() > 0) {
-									stepName.append("c");
-								}
+						}
+						// has to be done in both cases
+						if (puzzleTypes[j].isPuzzleMode1 == -1) {
+							puzzleTypes[j].isPuzzleMode1 = 3;
+						}
+					} else if (type.isSSTS()) {
+						// step is SSTS -> can only be 2 or 1
+						if (puzzleTypes[j].typeSeen) {
+							if (puzzleTypes[j].isPuzzleMode2 == -1 || puzzleTypes[j].isPuzzleMode2 > 2) {
+								puzzleTypes[j].isPuzzleMode2 = 1;
 							}
-							stepName.append("(").append(anzCandDel).append(")");
-							if (puzzleTypes[j].immediatelyFollowed) {
-								// nothing between two occurences of type
-								// nothing special has to be done
-							} else {
-								// what was before type?
-								if (!puzzleTypes[j].typeSeen) {
-									appendPuzzleString(puzzleTypes[j], true);
-								} else {
-									// we are between two steps of <type>
-									appendPuzzleString(puzzleTypes[j], false);
-									// start from scratch
-									puzzleTypes[j].isPuzzleMode2 = -1;
-								}
-								puzzleTypes[j].typeSeen = true;
-								puzzleTypes[j].immediatelyFollowed = true;
+							if (puzzleTypes[j].isPuzzleMode1 > 1) {
+								puzzleTypes[j].isPuzzleMode1 = 1;
 							}
-							puzzleTypes[j].puzzleString += stepName.toString();
 						} else {
-							puzzleTypes[j].immediatelyFollowed = false;
-							if (type.isSingle()) {
-								// best case
-								if (puzzleTypes[j].typeSeen) {
-									if (puzzleTypes[j].isPuzzleMode2 == -1) {
-										puzzleTypes[j].isPuzzleMode2 = 3;
-									}
-								}
-								// has to be done in both cases
-								if (puzzleTypes[j].isPuzzleMode1 == -1) {
-									puzzleTypes[j].isPuzzleMode1 = 3;
-								}
-							} else if (type.isSSTS()) {
-								// step is SSTS -> can only be 2 or 1
-								if (puzzleTypes[j].typeSeen) {
-									if (puzzleTypes[j].isPuzzleMode2 == -1 || puzzleTypes[j].isPuzzleMode2 > 2) {
-										puzzleTypes[j].isPuzzleMode2 = 1;
-									}
-									if (puzzleTypes[j].isPuzzleMode1 > 1) {
-										puzzleTypes[j].isPuzzleMode1 = 1;
-									}
-								} else {
-									if (puzzleTypes[j].isPuzzleMode1 == 3 || puzzleTypes[j].isPuzzleMode1 == -1) {
-										puzzleTypes[j].isPuzzleMode1 = 2;
-									}
-								}
-							} else {
-								// worst case -> 'X'
-								if (puzzleTypes[j].typeSeen) {
-									puzzleTypes[j].isPuzzleMode2 = 0;
-								}
-								puzzleTypes[j].isPuzzleMode1 = 0;
+							if (puzzleTypes[j].isPuzzleMode1 == 3 || puzzleTypes[j].isPuzzleMode1 == -1) {
+								puzzleTypes[j].isPuzzleMode1 = 2;
 							}
 						}
+					} else {
+						// worst case -> 'X'
+						if (puzzleTypes[j].typeSeen) {
+							puzzleTypes[j].isPuzzleMode2 = 0;
+						}
+						puzzleTypes[j].isPuzzleMode1 = 0;
 					}
 				}
-				// now check, whether the puzzle fits the specification
-				for (int i = 0; i < puzzleTypes.length; i++) {
-					String txt = null;
-					if (puzzleTypes[i].typeSeen && puzzleTypes[i].isPuzzleMode1 >= puzzleTypes[i].type.puzzleType) {
-						// found a suitable sudoku, check candidates
-						if (puzzleTypes[i].type.compType != StepType.UNDEFINED) {
-							switch (puzzleTypes[i].type.compType) {
-							case StepType.EQUAL:
-								if (puzzleTypes[i].anzCandDel != puzzleTypes[i].type.compAnz) {
-									continue;
-								}
-								break;
-							case StepType.LT:
-								if (puzzleTypes[i].anzCandDel >= puzzleTypes[i].type.compAnz) {
-									continue;
-								}
-								break;
-							case StepType.GT:
-								if (puzzleTypes[i].anzCandDel <= puzzleTypes[i].type.compAnz) {
-									continue;
-								}
-								break;
-							}
+			}
+		}
+		// now check, whether the puzzle fits the specification
+		for (int i = 0; i < puzzleTypes.length; i++) {
+			String txt = null;
+			if (puzzleTypes[i].typeSeen && puzzleTypes[i].isPuzzleMode1 >= puzzleTypes[i].type.puzzleType) {
+				// found a suitable sudoku, check candidates
+				if (puzzleTypes[i].type.compType != StepType.UNDEFINED) {
+					switch (puzzleTypes[i].type.compType) {
+					case StepType.EQUAL:
+						if (puzzleTypes[i].anzCandDel != puzzleTypes[i].type.compAnz) {
+							continue;
 						}
-						appendPuzzleString(puzzleTypes[i], false);
-						if (txt == null) {
-							txt = newSudoku.getSudoku(ClipboardMode.CLUES_ONLY);
+						break;
+					case StepType.LT:
+						if (puzzleTypes[i].anzCandDel >= puzzleTypes[i].type.compAnz) {
+							continue;
 						}
-						if (out != null) {
-							out.write(txt + " #" + puzzleTypes[i].puzzleString);
-							out.newLine();
-							out.flush();
+						break;
+					case StepType.GT:
+						if (puzzleTypes[i].anzCandDel <= puzzleTypes[i].type.compAnz) {
+							continue;
 						}
-						System.out.println(txt + " #" + puzzleTypes[i].puzzleString);
-						anzFound++;
+						break;
 					}
 				}
-				anz++;
-//                if ((getAnz() % 10) == 0) {
-//                    System.out.println(".");
-//                }
-			}
-			if (out != null) {
-				out.close();
+				appendPuzzleString(puzzleTypes[i], false);
+				if (txt == null) {
+					txt = newSudoku.getSudoku(ClipboardMode.CLUES_ONLY);
+				}
+				result.add(txt + " #" + puzzleTypes[i].puzzleString);
 			}
-		} catch (IOException ex) {
-			System.out.println("Error writing sudoku file");
-			ex.printStackTrace();
 		}
+		return result;
 	}
 
 	public int getAnz() {
@@ -1511,6 +1871,24 @@ class SearchForTypeThread extends Thread {
 
 class BatchSolveThread extends Thread {
 
+	/**
+	 * Maximum number of solved puzzles per worker thread that may wait for being
+	 * written, before reading the puzzle file is paused.
+	 */
+	private static final int PENDING_PER_THREAD = 64;
+	/**
+	 * Number of puzzles per task in {@link #runFastParallel(sudoku.PuzzleLineReader, java.io.OutputStream)}
+	 * (a multiple of the progress interval of {@link #printProgress(long)}).
+	 */
+	private static final int FAST_BATCH_SIZE = 100;
+	/** Size of the output buffer of the fast path. */
+	private static final int FAST_OUTPUT_SIZE = 1 << 16;
+	private static final int NEEDS_GUESSING = 1;
+	private static final int NEEDS_TEMPLATES = 2;
+	private static final int GIVEN_UP = 4;
+	private static final int TIMED_OUT = 8;
+	private static final int INVALID_SOLUTION = 16;
+
 	private String fileName;
 	private String puzzleString;
 	private boolean printSolution;
@@ -1521,9 +1899,9 @@ class BatchSolveThread extends Thread {
 	private int templateAnz;
 	private int unsolvedAnz = 0;
 	private int givenUpAnz = 0;
+	private int timedOutAnz = 0;
 	private int count;
 	private long ticks;
-	private SudokuGenerator generator = SudokuGeneratorFactory.getDefaultGeneratorInstance();
 	private ClipboardMode clipboardMode;
 	private Set<SolutionType> types;
 	private boolean outputGrid = false;
@@ -1531,23 +1909,29 @@ class BatchSolveThread extends Thread {
 	private boolean findAllSteps = false;
 	private boolean bruteForceTest = false;
 	private List<SolutionType> testTypes = null;
+	private int threadCount = 1;
+	/** Time limit per puzzle in ms (0: no limit). */
+	private long timeout = 0;
 	private StepStatistic[] stepStatistics;
-	private StepStatistic[] singleStepStatistics;
 	private FindAllSteps findAllStepsInstance = null;
+	/** All workers of the current run; their results are merged at the end. */
+	private final List<BatchSolveWorker> workers = new ArrayList<BatchSolveWorker>();
 
 	BatchSolveThread(
-			String fn, 
-			String pStr, 
-			boolean ps, 
-			boolean pp, 
-			boolean pst, 
-			ClipboardMode cm, 
+			String fn,
+			String pStr,
+			boolean ps,
+			boolean pp,
+			boolean pst,
+			ClipboardMode cm,
 			Set<SolutionType> t,
-			String ofn, 
-			boolean fas, 
-			boolean bft, 
-			List<SolutionType> tt) {
-		
+			String ofn,
+			boolean fas,
+			boolean bft,
+			List<SolutionType> tt,
+			int tc,
+			long to) {
+
 		fileName = fn;
 		puzzleString = pStr;
 		printSolution = ps;
@@ -1555,80 +1939,88 @@ class BatchSolveThread extends Thread {
 		printStatistic = pst;
 		clipboardMode = cm;
 		types = t;
-		
+
 		if (clipboardMode != null && types != null) {
 			outputGrid = true;
 		}
-		
+
 		outFileName = ofn;
 		findAllSteps = fas;
 		bruteForceTest = bft;
 		testTypes = tt;
-		
+		threadCount = tc;
+		timeout = to;
+
 		if (bruteForceTest) {
 			findAllStepsInstance = new FindAllSteps();
 		}
 
 		if (printStatistic) {
-			stepStatistics = new StepStatistic[SolutionType.values().length];
-			singleStepStatistics = new StepStatistic[SolutionType.values().length];
-			for (int i = 0; i < stepStatistics.length; i++) {
-				stepStatistics[i] = new StepStatistic(SolutionType.values()[i]);
-				singleStepStatistics[i] = new StepStatistic(SolutionType.values()[i]);
-			}
+			stepStatistics = createStepStatistics();
+		}
+	}
+
+	static StepStatistic[] createStepStatistics() {
+		StepStatistic[] stat = new StepStatistic[SolutionType.values().length];
+		for (int i = 0; i < stat.length; i++) {
+			stat[i] = new StepStatistic(SolutionType.values()[i]);
 		}
+		return stat;
 	}
 
-	private void adjustStatistics(SolutionStep step) {
+	private void adjustStatistics(BatchSolveWorker worker, SolutionStep step) {
 		int anzCand = step.getAnzCandidatesToDelete();
 		int anzSet = step.getAnzSet();
-		stepStatistics[step.getType().ordinal()].anzSteps++;
-		stepStatistics[step.getType().ordinal()].anzCandDel += anzCand;
-		stepStatistics[step.getType().ordinal()].anzSet += anzSet;
-		singleStepStatistics[step.getType().ordinal()].anzSteps++;
-		singleStepStatistics[step.getType().ordinal()].anzCandDel += anzCand;
-		singleStepStatistics[step.getType().ordinal()].anzSet += anzSet;
+		worker.stepStatistics[step.getType().ordinal()].anzSteps++;
+		worker.stepStatistics[step.getType().ordinal()].anzCandDel += anzCand;
+		worker.stepStatistics[step.getType().ordinal()].anzSet += anzSet;
+		worker.singleStepStatistics[step.getType().ordinal()].anzSteps++;
+		worker.singleStepStatistics[step.getType().ordinal()].anzCandDel += anzCand;
+		worker.singleStepStatistics[step.getType().ordinal()].anzSet += anzSet;
 	}
 
-	private void clearSingleStepStatistics() {
-		for (int i = 0; i < singleStepStatistics.length; i++) {
-			singleStepStatistics[i].anzCandDel = 0;
-			singleStepStatistics[i].anzSet = 0;
-			singleStepStatistics[i].anzSteps = 0;
+	private void clearSingleStepStatistics(BatchSolveWorker worker) {
+		for (int i = 0; i < worker.singleStepStatistics.length; i++) {
+			worker.singleStepStatistics[i].anzCandDel = 0;
+			worker.singleStepStatistics[i].anzSet = 0;
+			worker.singleStepStatistics[i].anzSteps = 0;
 		}
 	}
 
-	public void printStatistic(PrintWriter out, boolean single) throws IOException {
+	/**
+	 * Prints the statistics for the whole run. Must not be called before all
+	 * workers have been merged.
+	 *
+	 * @param out
+	 * @throws IOException
+	 */
+	public void printStatistic(PrintWriter out) throws IOException {
 
 		if (out != null) {
-
-			if (!single) {
-				out.println();
-				out.println("Statistics total:");
-			} else {
-				out.println("    Statistics:");
-			}
-
+			out.println();
+			out.println("Statistics total:");
 		} else {
-
-			if (!single) {
-				System.out.println();
-				System.out.println("Statistics total:");
-			} else {
-				System.out.println("    Statistics:");
-			}
+			System.out.println();
+			System.out.println("Statistics total:");
 		}
 
-		if (single) {
-			printStatistic(out, singleStepStatistics, false);
-		} else {
-			printStatistic(out, stepStatistics, true);
-		}
+		printStatistic(out, stepStatistics, true);
 	}
 
-	private void printStatistic(PrintWriter out, StepStatistic[] stat, boolean total) throws IOException {
+	private void printSingleStatistic(PrintWriter out, BatchSolveWorker worker) throws IOException {
 
-		int anzSteps = 0;
+		if (out != null) {
+			out.println("    Statistics:");
+		} else {
+			System.out.println("    Statistics:");
+		}
+
+		printStatistic(out, worker.singleStepStatistics, false);
+	}
+
+	private void printStatistic(PrintWriter out, StepStatistic[] stat, boolean total) throws IOException {
+
+		int anzSteps = 0;
 		int anzSet = 0;
 		int anzCandDel = 0;
 		int anzInvalidSteps = 0;
@@ -1713,6 +2105,7 @@ class BatchSolveThread extends Thread {
 		templateAnz = 0;
 		unsolvedAnz = 0;
 		givenUpAnz = 0;
+		timedOutAnz = 0;
 		BufferedReader inFile = null;
 		PrintWriter outFile = null;
 		ticks = System.currentTimeMillis();
@@ -1720,291 +2113,780 @@ class BatchSolveThread extends Thread {
 
 		try {
 
-			if (fileName != null) {
-				inFile = new BufferedReader(new FileReader(fileName));
-			}
-
 			if (outFileName == null) {
 				outFileName = fileName + ".out.txt";
 			}
 
-			if (outFileName.equals("stdout")) {
-				outFile = null;
+			if (fileName != null && puzzleString == null && !printSolutionPath && !printStatistic && !outputGrid
+					&& !findAllSteps && !bruteForceTest) {
+				// only one result line per puzzle
+				runFast();
 			} else {
-				outFile = new PrintWriter(new BufferedWriter(new FileWriter(outFileName)));
-			}
 
-			String line = null;
-			SudokuSolver solver = SudokuSolverFactory.getDefaultSolverInstance();
-			// Sudoku2 sudoku = new Sudoku2(true);
-			Sudoku2 sudoku = new Sudoku2();
-			Sudoku2 tmpSudoku = null;
-			Sudoku2 solvedSudoku = null;
-			List<SolutionStep> allSteps = null;
+				if (fileName != null) {
+					inFile = new BufferedReader(new FileReader(fileName));
+				}
 
-			if (bruteForceTest) {
-				allSteps = new ArrayList<SolutionStep>();
-			}
+				if (outFileName.equals("stdout")) {
+					outFile = null;
+				} else {
+					outFile = new PrintWriter(new BufferedWriter(new FileWriter(outFileName)));
+				}
 
-			long outTicks = 0;
-			while (!isInterrupted() && 
-					(inFile != null && 
-					(line = inFile.readLine()) != null)	|| 
-					(puzzleString != null)) {
+				// "Find all steps" and the brute force test rely on the default solver
+				if (threadCount > 1 && inFile != null && !findAllSteps && !bruteForceTest) {
+					System.out.println("Using " + threadCount + " threads");
+					runParallel(inFile, outFile);
+				} else {
+					runSerial(inFile, outFile);
+				}
+			}
 
-				if (puzzleString != null) {
-					line = puzzleString;
-					puzzleString = null;
+			if (printStatistic) {
+				mergeWorkers();
+				printStatistic(outFile);
+			}
+		} catch (Exception ex) {
+			System.out.println("Error in batch solve:");
+			ex.printStackTrace();
+		} finally {
+			try {
+				// the results of all puzzles solved so far are kept, the pooled
+				// solvers and generators are given back
+				mergeWorkers();
+				if (inFile != null) {
+					inFile.close();
 				}
-				
+				if (outFile != null) {
+					outFile.close();
+				}
+			} catch (Exception ex) {
+				System.out.println("Error closing files:");
+				ex.printStackTrace();
+			}
+		}
+
+		if (isInterrupted()) {
+			System.out.println("Interrupted, shutting down...");
+		} else {
+			System.out.println("Done!");
+		}
+
+		ticks = System.currentTimeMillis() - getTicks();
+	}
+
+	/**
+	 * Solves all puzzles one after another using the default solver.
+	 *
+	 * @param inFile
+	 * @param outFile
+	 * @throws Exception
+	 */
+	private void runSerial(BufferedReader inFile, PrintWriter outFile) throws Exception {
+
+		BatchSolveWorker worker = new BatchSolveWorker(SudokuSolverFactory.getDefaultSolverInstance(),
+				SudokuGeneratorFactory.getDefaultGeneratorInstance(), false, printStatistic);
+		workers.add(worker);
+
+		String line = null;
+		long outTicks = 0;
+		while (!isInterrupted() &&
+				(inFile != null &&
+				(line = inFile.readLine()) != null)	||
+				(puzzleString != null)) {
+
+			if (puzzleString != null) {
+				line = puzzleString;
+				puzzleString = null;
+			}
+
 //                System.out.println("solving: " + line);
+			line = line.trim();
+			if (line.length() == 0) {
+				continue;
+			}
+
+			count++;
+			solvePuzzle(line, count, worker, outFile);
+			outTicks = printProgress(outTicks);
+		}
+	}
+
+	/**
+	 * Solves the puzzles with {@link #threadCount} worker threads. Every worker
+	 * uses its own {@link SudokuSolver} and {@link SudokuGenerator} from the
+	 * factories. The results are buffered and written in the order of the input
+	 * file.
+	 *
+	 * @param inFile
+	 * @param outFile
+	 * @throws Exception
+	 */
+	private void runParallel(BufferedReader inFile, final PrintWriter outFile) throws Exception {
+
+		final ThreadLocal<BatchSolveWorker> localWorker = createLocalWorkers();
+		ExecutorService pool = Executors.newFixedThreadPool(threadCount);
+		Deque<Future<String>> pending = new ArrayDeque<Future<String>>();
+		int maxPending = threadCount * PENDING_PER_THREAD;
+		int puzzleNumber = 0;
+		long outTicks = 0;
+
+		try {
+
+			String line = null;
+			while (!isInterrupted() && (line = inFile.readLine()) != null) {
+
 				line = line.trim();
 				if (line.length() == 0) {
 					continue;
 				}
-				
-//                System.out.println(line);
-				sudoku.setSudoku(line);
-				
-//                System.out.println("Sudoku: " + sudoku.getSudoku(ClipboardMode.VALUES_ONLY));
-				if (outputGrid || bruteForceTest) {
-					tmpSudoku = sudoku.clone();
+
+				final String puzzle = line;
+				final int nr = ++puzzleNumber;
+				pending.add(pool.submit(new Callable<String>() {
+					@Override
+					public String call() throws Exception {
+						StringWriter buffer = new StringWriter();
+						PrintWriter out = new PrintWriter(buffer);
+						solvePuzzle(puzzle, nr, localWorker.get(), out);
+						out.flush();
+						return buffer.toString();
+					}
+				}));
+
+				if (pending.size() >= maxPending) {
+					outTicks = writeResult(pending.poll(), outFile, outTicks);
 				}
+			}
 
-				if (bruteForceTest) {
-					solvedSudoku = sudoku.clone();
-					generator.validSolution(solvedSudoku);
+			while (!isInterrupted() && !pending.isEmpty()) {
+				outTicks = writeResult(pending.poll(), outFile, outTicks);
+			}
+
+		} finally {
+			pool.shutdownNow();
+			pool.awaitTermination(1, TimeUnit.MINUTES);
+		}
+	}
+
+	/**
+	 * One {@link BatchSolveWorker} per worker thread. All workers share one
+	 * immutable configuration.
+	 *
+	 * @return
+	 */
+	private ThreadLocal<BatchSolveWorker> createLocalWorkers() {
+
+		final SolverConfig config = SolverConfig.fromOptions();
+		return new ThreadLocal<BatchSolveWorker>() {
+			@Override
+			protected BatchSolveWorker initialValue() {
+				BatchSolveWorker worker = new BatchSolveWorker(SudokuSolverFactory.getInstance(),
+						SudokuGeneratorFactory.getInstance(), true, printStatistic);
+				worker.solver.setConfig(config);
+				synchronized (workers) {
+					workers.add(worker);
 				}
+				return worker;
+			}
+		};
+	}
+
+	/**
+	 * Fast path for plain batch solving: the input file is read through a
+	 * {@link PuzzleLineReader}, plain 81 character lines are parsed from the
+	 * bytes and the result lines are collected in {@link ByteLineBuffer}s; no
+	 * Strings are created per puzzle. With more than one thread the puzzles are
+	 * solved in blocks of {@link #FAST_BATCH_SIZE}, the output order is not
+	 * changed.
+	 *
+	 * @throws Exception
+	 */
+	private void runFast() throws Exception {
+
+		PuzzleLineReader in = new PuzzleLineReader(fileName);
+		OutputStream out = outFileName.equals("stdout") ? System.out
+				: new BufferedOutputStream(new FileOutputStream(outFileName), FAST_OUTPUT_SIZE);
 
+		try {
+			if (threadCount > 1) {
+				System.out.println("Using " + threadCount + " threads");
+				runFastParallel(in, out);
+			} else {
+				runFastSerial(in, out);
+			}
+		} finally {
+			out.flush();
+			in.close();
+			if (out != System.out) {
+				out.close();
+			}
+		}
+	}
+
+	private void runFastSerial(PuzzleLineReader in, OutputStream out) throws Exception {
+
+		BatchSolveWorker worker = new BatchSolveWorker(SudokuSolverFactory.getDefaultSolverInstance(),
+				SudokuGeneratorFactory.getDefaultGeneratorInstance(), false, false);
+		workers.add(worker);
+		ByteLineBuffer buffer = new ByteLineBuffer(FAST_OUTPUT_SIZE);
+
+		long outTicks = 0;
+		try {
+			while (!isInterrupted() && in.nextLine()) {
 				count++;
-				boolean needsGuessing = false;
-				boolean needsTemplates = false;
-				boolean givenUp = false;
-				boolean unsolved = false;
-				List<SolutionStep> steps = null;
-
-				if (findAllSteps) {
-					steps = new ArrayList<SolutionStep>();
-					Thread thread = new Thread(new FindAllSteps(steps, sudoku, null));
-					thread.start();
-					thread.join();
-					// System.out.println("fas: " + steps.size());
-				} else {
-					// only for now: check the solution
-					generator.validSolution(sudoku);
-					solver.setSudoku(sudoku);
-					solver.solve();
-//                    System.out.println("solved: " + sudoku.getSudoku(ClipboardMode.VALUES_ONLY));
-					steps = solver.getSteps();
-					for (int i = 0; i < steps.size(); i++) {
-						
-//                        System.out.println("      " + steps.get(i).toString(2));
-						if (steps.get(i).getType() == SolutionType.BRUTE_FORCE && !needsGuessing) {
-							needsGuessing = true;
-							unsolved = true;
-							bruteForceAnz++;
-						}
+				solvePuzzleFast(in.getBuffer(), in.getLineStart(), in.getLineLength(), count, worker, buffer);
+				if (buffer.size() >= FAST_OUTPUT_SIZE) {
+					buffer.writeTo(out);
+				}
+				outTicks = printProgress(outTicks);
+			}
+		} finally {
+			// never throw away results, that are already done
+			buffer.writeTo(out);
+		}
+	}
 
-						if ((steps.get(i).getType() == SolutionType.TEMPLATE_DEL
-								|| steps.get(i).getType() == SolutionType.TEMPLATE_SET) && !needsTemplates) {
-							needsTemplates = true;
-							unsolved = true;
-							templateAnz++;
-						}
+	private void runFastParallel(PuzzleLineReader in, OutputStream out) throws Exception {
 
-						if (steps.get(i).getType() == SolutionType.GIVE_UP && !givenUp) {
-							givenUp = true;
-							unsolved = true;
-							givenUpAnz++;
-						}
-					}
+		final ThreadLocal<BatchSolveWorker> localWorker = createLocalWorkers();
+		ExecutorService pool = Executors.newFixedThreadPool(threadCount);
+		Deque<Future<FastBatch>> pending = new ArrayDeque<Future<FastBatch>>();
+		// batches are reused after they have been written
+		Deque<FastBatch> unused = new ArrayDeque<FastBatch>();
+		int maxPending = threadCount * 4;
+		FastBatch batch = null;
+		int puzzleNumber = 0;
+		long outTicks = 0;
 
-					if (unsolved) {
-						unsolvedAnz++;
-					}
+		try {
 
-					// only for now: check the solution!
-					for (int i = 0; i < sudoku.getValues().length; i++) {
-						if (sudoku.getValue(i) != sudoku.getSolution(i)) {
-							System.out.println("Invalid solution: ");
-							System.out.println("   Sudoku: " + line);
-							System.out.println("   Solution:      " + Arrays.toString(sudoku.getValues()));
-							System.out.println("   True Solution: " + Arrays.toString(sudoku.getSolution()));
-						}
+			while (!isInterrupted() && in.nextLine()) {
+
+				if (batch == null) {
+					batch = unused.isEmpty() ? new FastBatch() : unused.poll();
+					batch.clear(puzzleNumber + 1);
+				}
+				batch.add(in.getBuffer(), in.getLineStart(), in.getLineLength());
+				puzzleNumber++;
+
+				if (batch.anz == FAST_BATCH_SIZE) {
+					pending.add(pool.submit(createFastTask(batch, localWorker)));
+					batch = null;
+					if (pending.size() >= maxPending) {
+						outTicks = writeFastBatch(pending.poll(), out, unused, outTicks);
 					}
-//                    System.out.println("solved!");
 				}
+			}
+
+			if (batch != null && !isInterrupted()) {
+				pending.add(pool.submit(createFastTask(batch, localWorker)));
+			}
 
-				String guess = needsGuessing ? " " + SolutionType.BRUTE_FORCE.getArgName() : "";
-				String template = needsTemplates ? " " + SolutionType.TEMPLATE_DEL.getArgName() : "";
-				String giveUp = givenUp ? " " + SolutionType.GIVE_UP.getArgName() : "";
+			while (!isInterrupted() && !pending.isEmpty()) {
+				outTicks = writeFastBatch(pending.poll(), out, unused, outTicks);
+			}
 
-				if (printSolution || bruteForceTest) {
-					solvedSudoku = sudoku.clone();
-					if (sudoku.isSolved()) {
-						line = sudoku.getSudoku(ClipboardMode.VALUES_ONLY);
-					} else {
-						// System.out.println("Sudoku2: " + sudoku.getSudoku(ClipboardMode.PM_GRID));
-						// System.out.println("SolvedSudoku: " +
-						// solvedSudoku.getSudoku(ClipboardMode.PM_GRID));
-						generator.validSolution(solvedSudoku);
-						// System.out.println("SolvedSudoku2: " +
-						// solvedSudoku.getSudoku(ClipboardMode.PM_GRID));
-						line = solvedSudoku.getSudoku(ClipboardMode.VALUES_ONLY);
-						// System.out.println("line: " + line);
+		} finally {
+			// after an error: write all batches, that are already done, in order
+			while (!pending.isEmpty() && pending.peek().isDone()) {
+				FastBatch done = null;
+				try {
+					done = pending.poll().get();
+				} catch (ExecutionException ex) {
+					break;
+				} catch (CancellationException ex) {
+					break;
+				}
+				done.out.writeTo(out);
+				count += done.anz;
+			}
+			pool.shutdownNow();
+			pool.awaitTermination(1, TimeUnit.MINUTES);
+		}
+	}
+
+	private Callable<FastBatch> createFastTask(final FastBatch batch,
+			final ThreadLocal<BatchSolveWorker> localWorker) {
+
+		return new Callable<FastBatch>() {
+			@Override
+			public FastBatch call() throws Exception {
+				BatchSolveWorker worker = localWorker.get();
+				byte[] lines = batch.lines.getData();
+				for (int i = 0; i < batch.anz; i++) {
+					solvePuzzleFast(lines, batch.starts[i], batch.lengths[i], batch.firstNr + i, worker, batch.out);
+				}
+				return batch;
+			}
+		};
+	}
+
+	private long writeFastBatch(Future<FastBatch> result, OutputStream out, Deque<FastBatch> unused, long outTicks)
+			throws Exception {
+
+		FastBatch batch = result.get();
+		batch.out.writeTo(out);
+		unused.add(batch);
+		count += batch.anz;
+		return printProgress(outTicks);
+	}
+
+	/**
+	 * A block of puzzles for {@link #runFastParallel(sudoku.PuzzleLineReader, java.io.OutputStream)}:
+	 * copies of the input lines and the result lines.
+	 */
+	private static class FastBatch {
+
+		final ByteLineBuffer lines = new ByteLineBuffer(FAST_BATCH_SIZE * 128);
+		final int[] starts = new int[FAST_BATCH_SIZE];
+		final int[] lengths = new int[FAST_BATCH_SIZE];
+		final ByteLineBuffer out = new ByteLineBuffer(FAST_BATCH_SIZE * 128);
+		/** Number of the first puzzle in the batch. */
+		int firstNr;
+		int anz;
+
+		void clear(int firstNr) {
+			this.firstNr = firstNr;
+			anz = 0;
+			lines.reset();
+			out.reset();
+		}
+
+		void add(byte[] line, int start, int length) {
+			starts[anz] = lines.size();
+			lengths[anz] = length;
+			lines.append(line, start, length);
+			anz++;
+		}
+	}
+
+	/**
+	 * Waits for the next result of a parallel run and writes it.
+	 *
+	 * @param result
+	 * @param outFile
+	 * @param outTicks
+	 * @return
+	 * @throws Exception
+	 */
+	private long writeResult(Future<String> result, PrintWriter outFile, long outTicks) throws Exception {
+
+		String text = result.get();
+		if (outFile != null) {
+			outFile.print(text);
+		} else {
+			System.out.print(text);
+		}
+
+		count++;
+		return printProgress(outTicks);
+	}
+
+	/**
+	 * Prints the progress every 100 puzzles (at most every two seconds).
+	 *
+	 * @param outTicks
+	 * @return
+	 */
+	private long printProgress(long outTicks) {
+
+		if ((count % 100) == 0) {
+			if (System.currentTimeMillis() - outTicks > 2000) {
+				outTicks = System.currentTimeMillis();
+				double ticks2 = outTicks - getTicks();
+//                        System.out.println(count + " (" + (ticks2 / count) + "ms per puzzle)");
+				System.out.printf("%d (%.03fms per puzzle\r\n", count, (ticks2 / count));
+			}
+		}
+
+		return outTicks;
+	}
+
+	/**
+	 * Adds the results of all workers to the totals of the run and gives the
+	 * solvers and generators back to their factories.
+	 */
+	private void mergeWorkers() {
+
+		synchronized (workers) {
+			for (BatchSolveWorker worker : workers) {
+
+				for (int i = 0; i < results.length; i++) {
+					results[i] += worker.results[i];
+				}
+
+				bruteForceAnz += worker.bruteForceAnz;
+				templateAnz += worker.templateAnz;
+				unsolvedAnz += worker.unsolvedAnz;
+				givenUpAnz += worker.givenUpAnz;
+				timedOutAnz += worker.timedOutAnz;
+
+				if (stepStatistics != null) {
+					for (int i = 0; i < stepStatistics.length; i++) {
+						stepStatistics[i].add(worker.stepStatistics[i]);
 					}
 				}
 
-				String out = line + " #" + count;
-				if (!findAllSteps) {
-					out += " " + solver.getLevel().getName() + " (" + solver.getScore() + ")" + guess + template
-							+ giveUp;
-					results[solver.getLevel().getOrdinal()]++;
+				if (worker.fromFactory) {
+					SudokuSolverFactory.getDefaultSolverInstance().addStatistics(worker.solver);
+					worker.solver.setConfig(null);
+					SudokuSolverFactory.giveBack(worker.solver);
+					SudokuGeneratorFactory.giveBack(worker.generator);
 				}
+			}
 
-				if (outFile != null) {
-					outFile.println(out);
-				} else {
-					System.out.println(out);
-				}
-
-				if (printSolutionPath || findAllSteps || printStatistic || bruteForceTest) {
-					steps = new ArrayList<SolutionStep>(steps);
-					for (int i = 0; i < steps.size(); i++) {
-						if (outputGrid || bruteForceTest) {
-							if (types != null && clipboardMode != null && types.contains(steps.get(i).getType())
-									&& (printSolutionPath || findAllSteps)) {
-								String grid = tmpSudoku.getSudoku(clipboardMode, steps.get(i));
-								String[] gridLines = grid.split("\r\n");
-								int end = clipboardMode == ClipboardMode.PM_GRID_WITH_STEP ? gridLines.length - 2
-										: gridLines.length;
-								for (int j = 0; j < end; j++) {
-									if (outFile != null) {
-										outFile.println("   " + gridLines[j]);
-									} else {
-										System.out.println("   " + gridLines[j]);
-									}
-								}
+			workers.clear();
+		}
+	}
+
+	/**
+	 * Solves one puzzle and writes all output for it to <code>outFile</code> (or
+	 * to the console, if <code>outFile</code> is <code>null</code>). All results
+	 * are stored in <code>worker</code>.
+	 *
+	 * @param line    The puzzle
+	 * @param nr      The number of the puzzle in the input
+	 * @param worker
+	 * @param outFile
+	 * @throws Exception
+	 */
+	private void solvePuzzle(String line, int nr, BatchSolveWorker worker, PrintWriter outFile) throws Exception {
+
+		SudokuSolver solver = worker.solver;
+		SudokuGenerator generator = worker.generator;
+		Sudoku2 sudoku = worker.sudoku;
+		Sudoku2 tmpSudoku = null;
+		Sudoku2 solvedSudoku = null;
+		List<SolutionStep> allSteps = null;
+
+		if (bruteForceTest) {
+			allSteps = new ArrayList<SolutionStep>();
+		}
+
+//                System.out.println(line);
+		sudoku.setSudoku(line);
+
+//                System.out.println("Sudoku: " + sudoku.getSudoku(ClipboardMode.VALUES_ONLY));
+		if (outputGrid || bruteForceTest) {
+			tmpSudoku = sudoku.clone();
+		}
+
+		if (bruteForceTest) {
+			solvedSudoku = sudoku.clone();
+			generator.validSolution(solvedSudoku);
+		}
+
+		boolean needsGuessing = false;
+		boolean needsTemplates = false;
+		boolean givenUp = false;
+		boolean timedOut = false;
+		List<SolutionStep> steps = null;
+
+		if (findAllSteps) {
+			steps = new ArrayList<SolutionStep>();
+			FindAllSteps findAll = new FindAllSteps(steps, sudoku, null);
+			// the stages of "Find all steps" are searched in parallel
+			findAll.setThreads(threadCount);
+			Thread thread = new Thread(findAll);
+			thread.start();
+			thread.join();
+			// System.out.println("fas: " + steps.size());
+		} else {
+			int result = solveAndCount(worker, sudoku);
+			steps = solver.getSteps();
+			needsGuessing = (result & NEEDS_GUESSING) != 0;
+			needsTemplates = (result & NEEDS_TEMPLATES) != 0;
+			givenUp = (result & GIVEN_UP) != 0;
+			timedOut = (result & TIMED_OUT) != 0;
+			if ((result & INVALID_SOLUTION) != 0) {
+				printInvalidSolution(line, sudoku);
+			}
+//                    System.out.println("solved!");
+		}
+
+		String guess = needsGuessing ? " " + SolutionType.BRUTE_FORCE.getArgName() : "";
+		String template = needsTemplates ? " " + SolutionType.TEMPLATE_DEL.getArgName() : "";
+		String giveUp = givenUp ? " " + SolutionType.GIVE_UP.getArgName() : "";
+
+		if (printSolution || bruteForceTest) {
+			solvedSudoku = sudoku.clone();
+			if (sudoku.isSolved()) {
+				line = sudoku.getSudoku(ClipboardMode.VALUES_ONLY);
+			} else {
+				// System.out.println("Sudoku2: " + sudoku.getSudoku(ClipboardMode.PM_GRID));
+				// System.out.println("SolvedSudoku: " +
+				// solvedSudoku.getSudoku(ClipboardMode.PM_GRID));
+				generator.validSolution(solvedSudoku);
+				// System.out.println("SolvedSudoku2: " +
+				// solvedSudoku.getSudoku(ClipboardMode.PM_GRID));
+				line = solvedSudoku.getSudoku(ClipboardMode.VALUES_ONLY);
+				// System.out.println("line: " + line);
+			}
+		}
+
+		String out = line + " #" + nr;
+		if (timedOut) {
+			// level and score are meaningless
+			out += " timeout";
+		} else if (!findAllSteps) {
+			out += " " + solver.getLevel().getName() + " (" + solver.getScore() + ")" + guess + template
+					+ giveUp;
+			worker.results[solver.getLevel().getOrdinal()]++;
+		}
+
+		if (outFile != null) {
+			outFile.println(out);
+		} else {
+			System.out.println(out);
+		}
+
+		if (printSolutionPath || findAllSteps || printStatistic || bruteForceTest) {
+			steps = new ArrayList<SolutionStep>(steps);
+			for (int i = 0; i < steps.size(); i++) {
+				if (outputGrid || bruteForceTest) {
+					if (types != null && clipboardMode != null && types.contains(steps.get(i).getType())
+							&& (printSolutionPath || findAllSteps)) {
+						String grid = tmpSudoku.getSudoku(clipboardMode, steps.get(i));
+						String[] gridLines = grid.split("\r\n");
+						int end = clipboardMode == ClipboardMode.PM_GRID_WITH_STEP ? gridLines.length - 2
+								: gridLines.length;
+						for (int j = 0; j < end; j++) {
+							if (outFile != null) {
+								outFile.println("   " + gridLines[j]);
+							} else {
+								System.out.println("   " + gridLines[j]);
 							}
+						}
+					}
 
-							if (bruteForceTest && !steps.get(i).getType().isSingle()) {
-								// get all steps for testType
+					if (bruteForceTest && !steps.get(i).getType().isSingle()) {
+						// get all steps for testType
 //                                System.out.println("Running: " + tmpSudoku.getSudoku(ClipboardMode.LIBRARY));
-								allSteps.clear();
-								findAllStepsInstance.setSteps(allSteps);
-								findAllStepsInstance.setSudoku(tmpSudoku);
-								findAllStepsInstance.setTestType(testTypes);
-								findAllStepsInstance.run();
-								// check them
-								for (SolutionStep act : allSteps) {
+						allSteps.clear();
+						findAllStepsInstance.setSteps(allSteps);
+						findAllStepsInstance.setSudoku(tmpSudoku);
+						findAllStepsInstance.setTestType(testTypes);
+						findAllStepsInstance.run();
+						// check them
+						for (SolutionStep act : allSteps) {
 //                                    System.out.println("   " + act);
-									if (!testTypes.contains(act.getType())) {
-										continue;
-									}
-
-									boolean invalid = false;
-									adjustStatistics(act);
-									if (!act.getValues().isEmpty()) {
-										// Set
-										for (int index : act.getIndices()) {
-											if (sudoku.getValue(index) != solvedSudoku.getValue(index)) {
-												invalid = true;
-												stepStatistics[act.getType().ordinal()].anzInvalidSet++;
-											}
-										}
-									}
-
-									for (Candidate cand : act.getCandidatesToDelete()) {
-										if (cand.getValue() == solvedSudoku.getValue(cand.getIndex())) {
-											invalid = true;
-											stepStatistics[act.getType().ordinal()].anzInvalidCandDel++;
-										}
-									}
+							if (!testTypes.contains(act.getType())) {
+								continue;
+							}
 
-									if (invalid) {
-										stepStatistics[act.getType().ordinal()].anzInvalidSteps++;
-										if (outFile != null) {
-											outFile.println("INVALID:");
-											outFile.println(sudoku.getSudoku(ClipboardMode.LIBRARY, act));
-										} else {
-											System.out.println("INVALID:");
-											System.out.println(sudoku.getSudoku(ClipboardMode.LIBRARY, act));
-										}
+							boolean invalid = false;
+							adjustStatistics(worker, act);
+							if (!act.getValues().isEmpty()) {
+								// Set
+								for (int index : act.getIndices()) {
+									if (sudoku.getValue(index) != solvedSudoku.getValue(index)) {
+										invalid = true;
+										worker.stepStatistics[act.getType().ordinal()].anzInvalidSet++;
 									}
 								}
 							}
-							solver.doStep(tmpSudoku, steps.get(i));
-						}
-
-						if (printStatistic && !bruteForceTest) {
-							adjustStatistics(steps.get(i));
-						}
 
-						if (printSolutionPath || findAllSteps) {
-							if (outFile != null) {
-								outFile.write("   ");
-								if (printStatistic) {
-									outFile.write(steps.get(i).getCandidateString(false, true) + ": ");
+							for (Candidate cand : act.getCandidatesToDelete()) {
+								if (cand.getValue() == solvedSudoku.getValue(cand.getIndex())) {
+									invalid = true;
+									worker.stepStatistics[act.getType().ordinal()].anzInvalidCandDel++;
 								}
-								outFile.println(steps.get(i).toString(2));
-							} else {
-								System.out.print("   ");
-								if (printStatistic) {
-									System.out.print(steps.get(i).getCandidateString(false, true) + ": ");
+							}
+
+							if (invalid) {
+								worker.stepStatistics[act.getType().ordinal()].anzInvalidSteps++;
+								if (outFile != null) {
+									outFile.println("INVALID:");
+									outFile.println(sudoku.getSudoku(ClipboardMode.LIBRARY, act));
+								} else {
+									System.out.println("INVALID:");
+									System.out.println(sudoku.getSudoku(ClipboardMode.LIBRARY, act));
 								}
-								System.out.println(steps.get(i).toString(2));
 							}
 						}
 					}
+					solver.doStep(tmpSudoku, steps.get(i));
+				}
+
+				if (printStatistic && !bruteForceTest) {
+					adjustStatistics(worker, steps.get(i));
+				}
 
-					if (printStatistic && (printSolutionPath || findAllSteps)) {
-						printStatistic(outFile, true);
-						clearSingleStepStatistics();
+				if (printSolutionPath || findAllSteps) {
+					if (outFile != null) {
+						outFile.write("   ");
+						if (printStatistic) {
+							outFile.write(steps.get(i).getCandidateString(false, true) + ": ");
+						}
+						outFile.println(steps.get(i).toString(2));
+					} else {
+						System.out.print("   ");
+						if (printStatistic) {
+							System.out.print(steps.get(i).getCandidateString(false, true) + ": ");
+						}
+						System.out.println(steps.get(i).toString(2));
 					}
 				}
+			}
+
+			if (printStatistic && (printSolutionPath || findAllSteps)) {
+				printSingleStatistic(outFile, worker);
+				clearSingleStepStatistics(worker);
+			}
+		}
 //                    if (printStatistic) {
 //                        System.out.print(count + " -");
 //                        printStatistic(null, true);
 //                        clearSingleStepStatistics();
 //                    }
+	}
 
-				if ((count % 100) == 0) {
-					if (System.currentTimeMillis() - outTicks > 2000) {
-						outTicks = System.currentTimeMillis();
-						double ticks2 = outTicks - getTicks();
-//                        System.out.println(count + " (" + (ticks2 / count) + "ms per puzzle)");
-						System.out.printf("%d (%.03fms per puzzle\r\n", count, (ticks2 / count));
-					}
-				}
-			}
 
-			if (printStatistic) {
-				printStatistic(outFile, false);
+	/**
+	 * Solves <code>sudoku</code> (givens only) with the solver of
+	 * <code>worker</code> and counts the result in <code>worker</code>.
+	 *
+	 * @param worker
+	 * @param sudoku
+	 * @return A combination of {@link #NEEDS_GUESSING}, {@link #NEEDS_TEMPLATES},
+	 *         {@link #GIVEN_UP}, {@link #TIMED_OUT} and {@link #INVALID_SOLUTION}
+	 */
+	private int solveAndCount(BatchSolveWorker worker, Sudoku2 sudoku) {
+
+		SudokuSolver solver = worker.solver;
+		// only for now: check the solution
+		worker.generator.validSolution(sudoku);
+		solver.setSudoku(sudoku);
+		if (timeout > 0) {
+			solver.setDeadline(new SolverDeadline(timeout));
+		}
+		solver.solve();
+		int result = 0;
+		if (timeout > 0) {
+			if (solver.isTimedOut()) {
+				result |= TIMED_OUT;
 			}
-		} catch (Exception ex) {
-			System.out.println("Error in batch solve:");
-			ex.printStackTrace();
-		} finally {
-			try {
-				if (inFile != null) {
-					inFile.close();
+			solver.setDeadline(null);
+		}
+//                    System.out.println("solved: " + sudoku.getSudoku(ClipboardMode.VALUES_ONLY));
+		List<SolutionStep> steps = solver.getSteps();
+		if ((result & TIMED_OUT) != 0) {
+			// the rest of the path is brute force: not counted as guessing
+			worker.timedOutAnz++;
+		} else {
+			for (int i = 0; i < steps.size(); i++) {
+
+//                        System.out.println("      " + steps.get(i).toString(2));
+				SolutionType type = steps.get(i).getType();
+				if (type == SolutionType.BRUTE_FORCE && (result & NEEDS_GUESSING) == 0) {
+					result |= NEEDS_GUESSING;
+					worker.bruteForceAnz++;
 				}
-				if (outFile != null) {
-					outFile.close();
+
+				if ((type == SolutionType.TEMPLATE_DEL || type == SolutionType.TEMPLATE_SET)
+						&& (result & NEEDS_TEMPLATES) == 0) {
+					result |= NEEDS_TEMPLATES;
+					worker.templateAnz++;
 				}
-			} catch (Exception ex) {
-				System.out.println("Error closing files:");
-				ex.printStackTrace();
+
+				if (type == SolutionType.GIVE_UP && (result & GIVEN_UP) == 0) {
+					result |= GIVEN_UP;
+					worker.givenUpAnz++;
+				}
+			}
+
+			if (result != 0) {
+				worker.unsolvedAnz++;
 			}
 		}
 
-		if (isInterrupted()) {
-			System.out.println("Interrupted, shutting down...");
+		// only for now: check the solution!
+		for (int i = 0; i < Sudoku2.LENGTH; i++) {
+			if (sudoku.getValue(i) != sudoku.getSolution(i)) {
+				result |= INVALID_SOLUTION;
+				break;
+			}
+		}
+		return result;
+	}
+
+	private void printInvalidSolution(String line, Sudoku2 sudoku) {
+
+		for (int i = 0; i < sudoku.getValues().length; i++) {
+			if (sudoku.getValue(i) != sudoku.getSolution(i)) {
+				System.out.println("Invalid solution: ");
+				System.out.println("   Sudoku: " + line);
+				System.out.println("   Solution:      " + Arrays.toString(sudoku.getValues()));
+				System.out.println("   True Solution: " + Arrays.toString(sudoku.getSolution()));
+			}
+		}
+	}
+
+	/**
+	 * Fast version of
+	 * {@link #solvePuzzle(java.lang.String, int, sudoku.BatchSolveWorker, java.io.PrintWriter)}
+	 * for plain batch solving (only the result line, optionally with the
+	 * solution): the puzzle is parsed directly from the input bytes (see
+	 * {@link Sudoku2#setSudoku(byte[], int, int)}, other formats are parsed as
+	 * usual) and the result line is appended to <code>out</code>.
+	 *
+	 * @param line
+	 * @param start
+	 * @param length
+	 * @param nr
+	 * @param worker
+	 * @param out
+	 */
+	private void solvePuzzleFast(byte[] line, int start, int length, int nr, BatchSolveWorker worker,
+			ByteLineBuffer out) {
+
+		Sudoku2 sudoku = worker.sudoku;
+		int result = 0;
+		try {
+			if (!sudoku.setSudoku(line, start, length)) {
+				sudoku.setSudoku(new String(line, start, length));
+			}
+			result = solveAndCount(worker, sudoku);
+		} catch (RuntimeException ex) {
+			// the line cannot be parsed or solved: report it and go on
+			System.out.println("Invalid puzzle #" + nr + ": " + new String(line, start, length));
+			out.append(line, start, length).append(" #").append(nr).append(" invalid");
+			out.newLine();
+			return;
+		}
+		if ((result & INVALID_SOLUTION) != 0) {
+			printInvalidSolution(new String(line, start, length), sudoku);
+		}
+
+		if (printSolution) {
+			char dot = Options.getInstance().isUseZeroInsteadOfDot() ? '0' : '.';
+			for (int i = 0; i < Sudoku2.LENGTH; i++) {
+				int value = sudoku.getValue(i);
+				out.append(value == 0 ? dot : (char) ('0' + value));
+			}
 		} else {
-			System.out.println("Done!");
+			out.append(line, start, length);
 		}
 
-		ticks = System.currentTimeMillis() - getTicks();
+		out.append(" #").append(nr);
+		if ((result & TIMED_OUT) != 0) {
+			out.append(" timeout");
+		} else {
+			SudokuSolver solver = worker.solver;
+			out.append(' ').append(solver.getLevel().getName()).append(" (").append(solver.getScore()).append(')');
+			if ((result & NEEDS_GUESSING) != 0) {
+				out.append(' ').append(SolutionType.BRUTE_FORCE.getArgName());
+			}
+			if ((result & NEEDS_TEMPLATES) != 0) {
+				out.append(' ').append(SolutionType.TEMPLATE_DEL.getArgName());
+			}
+			if ((result & GIVEN_UP) != 0) {
+				out.append(' ').append(SolutionType.GIVE_UP.getArgName());
+			}
+			worker.results[solver.getLevel().getOrdinal()]++;
+		}
+		out.newLine();
 	}
 
 	public int getBruteForceAnz() {
@@ -2019,6 +2901,10 @@ class BatchSolveThread extends Thread {
 		return unsolvedAnz;
 	}
 
+	public int getTimedOutAnz() {
+		return timedOutAnz;
+	}
+
 	public int getGivenUpAnz() {
 		return givenUpAnz;
 	}
@@ -2044,6 +2930,38 @@ class BatchSolveThread extends Thread {
 	}
 }
 
+/**
+ * Per thread state of a batch solve run: every worker owns its own solver,
+ * generator and sudoku and collects its own results, which are merged into
+ * {@link BatchSolveThread} after the run.
+ */
+class BatchSolveWorker {
+
+	SudokuSolver solver;
+	SudokuGenerator generator;
+	/** <code>true</code>, if solver and generator have to be given back. */
+	boolean fromFactory;
+	Sudoku2 sudoku = new Sudoku2();
+	int[] results = new int[Options.DEFAULT_DIFFICULTY_LEVELS.length];
+	int bruteForceAnz;
+	int templateAnz;
+	int unsolvedAnz;
+	int givenUpAnz;
+	int timedOutAnz;
+	StepStatistic[] stepStatistics;
+	StepStatistic[] singleStepStatistics;
+
+	BatchSolveWorker(SudokuSolver solver, SudokuGenerator generator, boolean fromFactory, boolean withStatistics) {
+		this.solver = solver;
+		this.generator = generator;
+		this.fromFactory = fromFactory;
+		if (withStatistics) {
+			stepStatistics = BatchSolveThread.createStepStatistics();
+			singleStepStatistics = BatchSolveThread.createStepStatistics();
+		}
+	}
+}
+
 class ShutDownThread extends Thread {
 
 	private Thread thread;
@@ -2269,4 +3187,13 @@ class StepStatistic {
 	StepStatistic(SolutionType type) {
 		this.type = type;
 	}
+
+	void add(StepStatistic other) {
+		anzSet += other.anzSet;
+		anzCandDel += other.anzCandDel;
+		anzSteps += other.anzSteps;
+		anzInvalidSteps += other.anzInvalidSteps;
+		anzInvalidSet += other.anzInvalidSet;
+		anzInvalidCandDel += other.anzInvalidCandDel;
+	}
 }
@@ -300,8 +300,10 @@ public final class Options {
 	public static final boolean ONLY_ONE_CHAIN_PER_STEP = true;
 	public static final boolean ALLOW_ALS_IN_TABLING_CHAINS = false;
 	public static final boolean ALL_STEPS_ALLOW_ALS_IN_TABLING_CHAINS = true;
+	public static final int TABLE_THREADS = 0; // number of threads for the forcing net tables (0: one per processor)
 	private int maxTableEntryLength = MAX_TABLE_ENTRY_LENGTH;
 	private int anzTableLookAhead = ANZ_TABLE_LOOK_AHEAD;
+	private int tableThreads = TABLE_THREADS;
 	private boolean onlyOneChainPerStep = ONLY_ONE_CHAIN_PER_STEP;
 	private boolean allowAlsInTablingChains = ALLOW_ALS_IN_TABLING_CHAINS;
 	private boolean allStepsAllowAlsInTablingChains = ALL_STEPS_ALLOW_ALS_IN_TABLING_CHAINS;
@@ -310,14 +312,17 @@ public final class Options {
 	public static final boolean ALLOW_ALS_OVERLAP = false; // allow ALS steps with overlap (runtime!)
 	public static final boolean ALL_STEPS_ONLY_ONE_ALS_PER_STEP = true; // only one step in every ALS elimination
 	public static final boolean ALL_STEPS_ALLOW_ALS_OVERLAP = true; // allow ALS steps with overlap (runtime!)
+	public static final int RC_THREADS = 0; // number of threads for the RC search (0: one per processor)
 	private boolean onlyOneAlsPerStep = ONLY_ONE_ALS_PER_STEP;
 	private boolean allowAlsOverlap = ALLOW_ALS_OVERLAP;
 	private boolean allStepsOnlyOneAlsPerStep = ALL_STEPS_ONLY_ONE_ALS_PER_STEP;
 	private boolean allStepsAllowAlsOverlap = ALL_STEPS_ALLOW_ALS_OVERLAP;
+	private int rcThreads = RC_THREADS;
 	// FishSolver
 	public static final int MAX_FINS = 5; // Maximale Anzahl Fins
 	public static final int MAX_ENDO_FINS = 2; // Maximale Anzahl Endo-Fins
 	public static final boolean CHECK_TEMPLATES = true; // Template-Check um Kandidaten von der Suche auszuschließen
+	public static final int TEMPLATE_THREADS = 0; // number of threads for the template check (0: one per processor)
 	public static final int KRAKEN_MAX_FISH_TYPE = 1; // 0: nur basic, 1: basic+franken, 2: basic+franken+mutant
 	public static final int KRAKEN_MAX_FISH_SIZE = 4; // number of units in base/cover sets
 	public static final int MAX_KRAKEN_FINS = 2; // Maximale Anzahl Fins für Kraken-Suche
@@ -327,6 +332,7 @@ public final class Options {
 	private int maxFins = MAX_FINS;
 	private int maxEndoFins = MAX_ENDO_FINS;
 	private boolean checkTemplates = CHECK_TEMPLATES;
+	private int templateThreads = TEMPLATE_THREADS;
 	private int krakenMaxFishType = KRAKEN_MAX_FISH_TYPE;
 	private int krakenMaxFishSize = KRAKEN_MAX_FISH_SIZE;
 	private int maxKrakenFins = MAX_KRAKEN_FINS;
@@ -354,6 +360,7 @@ public final class Options {
 	public static final int ALL_STEPS_SORT_MODE = 4; // sort by StepType
 	public static final int ALL_STEPS_ALS_CHAIN_LENGTH = 6; // maximum chain length in ALS-Chain search (all steps only)
 	public static final boolean ALL_STEPS_ALS_CHAIN_FORWARD_ONLY = true;
+	public static final int ALL_STEPS_THREADS = 0; // number of threads for "Find all steps" (0: one per processor)
 	private boolean allStepsSearchFish = ALL_STEPS_SEARCH_FISH;
 	private int allStepsMaxFishType = ALL_STEPS_MAX_FISH_TYPE;
 	private int allStepsMinFishSize = ALL_STEPS_MIN_FISH_SIZE;
@@ -370,6 +377,7 @@ public final class Options {
 	private String allStepsKrakenFishCandidates = ALL_STEPS_KRAKEN_FISH_CANDIDATES;
 	private int allStepsSortMode = ALL_STEPS_SORT_MODE;
 	private int allStepsAlsChainLength = ALL_STEPS_ALS_CHAIN_LENGTH;
+	private int allStepsThreads = ALL_STEPS_THREADS;
 	private boolean allStepsAlsChainForwardOnly = ALL_STEPS_ALS_CHAIN_FORWARD_ONLY;
 	// SudokuPanel
 	// Coloring Solver
@@ -622,6 +630,9 @@ public final class Options {
 	public static final int GENERATOR_PATTERN_INDEX = -1;
 	private ArrayList<GeneratorPattern> generatorPatterns = new ArrayList<GeneratorPattern>();
 	private int generatorPatternIndex = GENERATOR_PATTERN_INDEX;
+	// number of threads for the background creation of puzzles (0: one per processor)
+	public static final int GENERATOR_THREADS = 0;
+	private int generatorThreads = GENERATOR_THREADS;
 	// Check for available fonts
 	private static String[] availableFontNames = null;
 	// Singleton
@@ -1410,6 +1421,20 @@ public final class Options {
 		this.generatorPatternIndex = generatorPatternIndex;
 	}
 
+	/**
+	 * @return the generatorThreads
+	 */
+	public int getGeneratorThreads() {
+		return generatorThreads;
+	}
+
+	/**
+	 * @param generatorThreads the generatorThreads to set
+	 */
+	public void setGeneratorThreads(int generatorThreads) {
+		this.generatorThreads = generatorThreads;
+	}
+
 	/**
 	 * @return the showSudokuSolved
 	 */
@@ -1666,6 +1691,14 @@ public final class Options {
 		this.checkTemplates = checkTemplates;
 	}
 
+	public int getTemplateThreads() {
+		return templateThreads;
+	}
+
+	public void setTemplateThreads(int templateThreads) {
+		this.templateThreads = templateThreads;
+	}
+
 	public boolean toggleShowCandidates() {
 		return this.showCandidates = !this.showCandidates;
 	}
@@ -2002,6 +2035,14 @@ public final class Options {
 		this.anzTableLookAhead = anzTableLookAhead;
 	}
 
+	public int getTableThreads() {
+		return tableThreads;
+	}
+
+	public void setTableThreads(int tableThreads) {
+		this.tableThreads = tableThreads;
+	}
+
 	public Color[] getColoringColors() {
 		return coloringColors;
 	}
@@ -2222,6 +2263,14 @@ public final class Options {
 		this.allStepsCheckTemplates = allStepsCheckTemplates;
 	}
 
+	public int getAllStepsThreads() {
+		return allStepsThreads;
+	}
+
+	public void setAllStepsThreads(int allStepsThreads) {
+		this.allStepsThreads = allStepsThreads;
+	}
+
 	public int getAllStepsKrakenMaxFishType() {
 		return allStepsKrakenMaxFishType;
 	}
@@ -2294,6 +2343,14 @@ public final class Options {
 		this.allowAlsOverlap = allowAlsOverlap;
 	}
 
+	public int getRcThreads() {
+		return rcThreads;
+	}
+
+	public void setRcThreads(int rcThreads) {
+		this.rcThreads = rcThreads;
+	}
+
 	public boolean isAllStepsOnlyOneAlsPerStep() {
 		return allStepsOnlyOneAlsPerStep;
 	}
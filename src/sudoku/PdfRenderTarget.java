@@ -0,0 +1,192 @@
+/*
+ * Copyright (C) 2021 Aarre Laakso
+ *
+ * This file is part of HoDoKu.
+ *
+ * HoDoKu is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * HoDoKu is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with HoDoKu. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package sudoku;
+
+import java.awt.Color;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes the drawing as single page PDF document (vector graphics). The text
+ * uses the standard font Helvetica, which every PDF viewer has to provide, so
+ * no font has to be embedded. One pixel is one point (1/72 inch). Transparency
+ * is not supported.
+ *
+ * @author Aarre Laakso
+ */
+final class PdfRenderTarget implements RenderTarget {
+	/** Width of the digits in Helvetica relative to the font size. */
+	private static final double DIGIT_WIDTH = 0.556;
+	/** Control point distance for approximating a quarter circle. */
+	private static final double KAPPA = 0.5522847498;
+
+	private final int width;
+	private final int height;
+	/** The content stream of the page. */
+	private final StringBuilder content = new StringBuilder(16384);
+
+	PdfRenderTarget(int width, int height) {
+		this.width = width;
+		this.height = height;
+		// origin in the upper left corner, as in Java2D
+		content.append("1 0 0 -1 0 ").append(height).append(" cm\n");
+		content.append("1 J 1 j\n");
+	}
+
+	@Override
+	public void fillRect(double x, double y, double width, double height, Color color) {
+		setFill(color);
+		content.append(format(x)).append(' ').append(format(y)).append(' ').append(format(width)).append(' ')
+				.append(format(height)).append(" re f\n");
+	}
+
+	@Override
+	public void drawRect(double x, double y, double width, double height, Color color, double lineWidth) {
+		setStroke(color, lineWidth, false);
+		content.append(format(x)).append(' ').append(format(y)).append(' ').append(format(width)).append(' ')
+				.append(format(height)).append(" re S\n");
+	}
+
+	@Override
+	public void drawLine(double x1, double y1, double x2, double y2, Color color, double lineWidth, boolean dashed) {
+		setStroke(color, lineWidth, dashed);
+		moveTo(x1, y1);
+		lineTo(x2, y2);
+		content.append("S\n");
+	}
+
+	@Override
+	public void drawCurve(double x1, double y1, double cx1, double cy1, double cx2, double cy2, double x2, double y2,
+			Color color, double lineWidth, boolean dashed) {
+		setStroke(color, lineWidth, dashed);
+		moveTo(x1, y1);
+		curveTo(cx1, cy1, cx2, cy2, x2, y2);
+		content.append("S\n");
+	}
+
+	@Override
+	public void fillOval(double x, double y, double width, double height, Color color) {
+		setFill(color);
+		double rx = width / 2;
+		double ry = height / 2;
+		double cx = x + rx;
+		double cy = y + ry;
+		double kx = rx * KAPPA;
+		double ky = ry * KAPPA;
+		moveTo(cx + rx, cy);
+		curveTo(cx + rx, cy + ky, cx + kx, cy + ry, cx, cy + ry);
+		curveTo(cx - kx, cy + ry, cx - rx, cy + ky, cx - rx, cy);
+		curveTo(cx - rx, cy - ky, cx - kx, cy - ry, cx, cy - ry);
+		curveTo(cx + kx, cy - ry, cx + rx, cy - ky, cx + rx, cy);
+		content.append("f\n");
+	}
+
+	@Override
+	public void fillPolygon(double[] x, double[] y, Color color) {
+		setFill(color);
+		moveTo(x[0], y[0]);
+		for (int i = 1; i < x.length; i++) {
+			lineTo(x[i], y[i]);
+		}
+		content.append("h f\n");
+	}
+
+	@Override
+	public void drawText(String text, double x, double y, double size, Color color) {
+		setFill(color);
+		// the text matrix flips the text back; digits are about 0.7em high
+		content.append("BT /F1 ").append(format(size)).append(" Tf 1 0 0 -1 ")
+				.append(format(x - text.length() * DIGIT_WIDTH * size / 2)).append(' ')
+				.append(format(y + size * 0.35)).append(" Tm (").append(text).append(") Tj ET\n");
+	}
+
+	private void moveTo(double x, double y) {
+		content.append(format(x)).append(' ').append(format(y)).append(" m\n");
+	}
+
+	private void lineTo(double x, double y) {
+		content.append(format(x)).append(' ').append(format(y)).append(" l\n");
+	}
+
+	private void curveTo(double cx1, double cy1, double cx2, double cy2, double x, double y) {
+		content.append(format(cx1)).append(' ').append(format(cy1)).append(' ').append(format(cx2)).append(' ')
+				.append(format(cy2)).append(' ').append(format(x)).append(' ').append(format(y)).append(" c\n");
+	}
+
+	private void setFill(Color color) {
+		content.append(getColor(color)).append(" rg\n");
+	}
+
+	private void setStroke(Color color, double lineWidth, boolean dashed) {
+		content.append(getColor(color)).append(" RG ").append(format(lineWidth)).append(" w ")
+				.append(dashed ? "[5] 0 d\n" : "[] 0 d\n");
+	}
+
+	private static String getColor(Color color) {
+		return format(color.getRed() / 255.0) + " " + format(color.getGreen() / 255.0) + " "
+				+ format(color.getBlue() / 255.0);
+	}
+
+	private static String format(double value) {
+		return SudokuRenderer.formatNumber(value);
+	}
+
+	/**
+	 * The complete PDF document.
+	 *
+	 * @return
+	 */
+	byte[] getDocument() {
+		byte[] stream = content.toString().getBytes(StandardCharsets.US_ASCII);
+		String[] objects = { "<< /Type /Catalog /Pages 2 0 R >>", "<< /Type /Pages /Kids [3 0 R] /Count 1 >>",
+				"<< /Type /Page /Parent 2 0 R /MediaBox [0 0 " + width + " " + height
+						+ "] /Resources << /Font << /F1 5 0 R >> >> /Contents 4 0 R >>",
+				null, "<< /Type /Font /Subtype /Type1 /BaseFont /Helvetica /Encoding /WinAnsiEncoding >>" };
+		ByteArrayOutputStream out = new ByteArrayOutputStream(stream.length + 1024);
+		int[] offsets = new int[objects.length];
+		write(out, "%PDF-1.4\n");
+		for (int i = 0; i < objects.length; i++) {
+			offsets[i] = out.size();
+			write(out, (i + 1) + " 0 obj\n");
+			if (objects[i] == null) {
+				// the content stream
+				write(out, "<< /Length " + stream.length + " >>\nstream\n");
+				out.write(stream, 0, stream.length);
+				write(out, "\nendstream");
+			} else {
+				write(out, objects[i]);
+			}
+			write(out, "\nendobj\n");
+		}
+		int xref = out.size();
+		write(out, "xref\n0 " + (objects.length + 1) + "\n0000000000 65535 f \n");
+		for (int offset : offsets) {
+			write(out, String.format("%010d 00000 n \n", offset));
+		}
+		write(out, "trailer\n<< /Size " + (objects.length + 1) + " /Root 1 0 R >>\nstartxref\n" + xref + "\n%%EOF\n");
+		return out.toByteArray();
+	}
+
+	private static void write(ByteArrayOutputStream out, String text) {
+		byte[] bytes = text.getBytes(StandardCharsets.US_ASCII);
+		out.write(bytes, 0, bytes.length);
+	}
+}
@@ -0,0 +1,277 @@
+/*
+ * Copyright (C) 2021 Aarre Laakso
+ *
+ * This file is part of HoDoKu.
+ *
+ * HoDoKu is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * HoDoKu is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with HoDoKu. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package sudoku;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Console mode <code>/dedup</code>: copies a puzzle file and drops every
+ * puzzle, that is isomorphic to a puzzle earlier in the file. The puzzles are
+ * compared by the hash of their minlex form ({@link SudokuCanonicalizer}), the
+ * hashes are stored in a {@link CanonicalHashSet}. The order of the puzzles and
+ * the lines themselves (including comments) are not changed; lines that don't
+ * contain a puzzle (or a puzzle that cannot be parsed) are copied.<br>
+ * The file is read in blocks of {@link #BATCH_SIZE} lines; the minlex forms of
+ * a block are calculated by several threads.
+ *
+ * @author Aarre Laakso
+ */
+final class PuzzleDeduplicator {
+	/** Number of lines processed at once. */
+	private static final int BATCH_SIZE = 4096;
+	/** Estimated number of bytes per line (for the size of the hash set). */
+	private static final int BYTES_PER_LINE = 82;
+	/** The line separator of the platform. */
+	private static final byte[] LINE_SEPARATOR = System.getProperty("line.separator").getBytes();
+
+	private final int threads;
+	/** One canonicalizer per thread. */
+	private final SudokuCanonicalizer[] canonicalizers;
+	/** One sudoku per thread (for lines that are not plain 81 character lines). */
+	private final Sudoku2[] sudokus;
+	private final int[][] values;
+
+	private final ByteLineBuffer lines = new ByteLineBuffer(BATCH_SIZE * 128);
+	private final int[] starts = new int[BATCH_SIZE];
+	private final int[] lengths = new int[BATCH_SIZE];
+	private final long[] hashHigh = new long[BATCH_SIZE];
+	private final long[] hashLow = new long[BATCH_SIZE];
+	private final boolean[] isPuzzle = new boolean[BATCH_SIZE];
+	/** <code>true</code> if the line could not be parsed. */
+	private final boolean[] isInvalid = new boolean[BATCH_SIZE];
+	private int anz = 0;
+
+	private int puzzleAnz = 0;
+	private int duplicateAnz = 0;
+	private int invalidAnz = 0;
+
+	PuzzleDeduplicator(int threads) {
+		this.threads = Math.max(1, threads);
+		canonicalizers = new SudokuCanonicalizer[this.threads];
+		sudokus = new Sudoku2[this.threads];
+		values = new int[this.threads][81];
+		for (int i = 0; i < this.threads; i++) {
+			canonicalizers[i] = new SudokuCanonicalizer();
+			sudokus[i] = new Sudoku2();
+		}
+	}
+
+	/**
+	 * Removes all isomorphic duplicates from <code>fileName</code>. The output
+	 * is written to <code>outFileName</code> ("stdout" for the console,
+	 * <code>null</code> for <code>fileName.out.txt</code>).
+	 *
+	 * @param fileName
+	 * @param outFileName
+	 */
+	void dedup(String fileName, String outFileName) {
+		long ticks = System.currentTimeMillis();
+		ExecutorService pool = threads > 1 ? Executors.newFixedThreadPool(threads) : null;
+		PuzzleLineReader in = null;
+		OutputStream out = null;
+		try {
+			in = new PuzzleLineReader(fileName);
+			if (outFileName == null) {
+				outFileName = fileName + ".out.txt";
+			}
+			if (outFileName.equals("stdout")) {
+				out = System.out;
+			} else {
+				out = new BufferedOutputStream(new FileOutputStream(outFileName), 1 << 16);
+			}
+			CanonicalHashSet hashes = new CanonicalHashSet(new File(fileName).length() / BYTES_PER_LINE);
+
+			while (true) {
+				boolean more = in.nextLine();
+				if (more) {
+					starts[anz] = lines.size();
+					lengths[anz] = in.getLineLength();
+					lines.append(in.getBuffer(), in.getLineStart(), in.getLineLength());
+					anz++;
+				}
+				if (anz == BATCH_SIZE || (!more && anz > 0)) {
+					canonicalizeBatch(pool);
+					writeBatch(hashes, out);
+				}
+				if (!more) {
+					break;
+				}
+			}
+			out.flush();
+
+			ticks = System.currentTimeMillis() - ticks;
+			System.out.println(puzzleAnz + " puzzles read, " + duplicateAnz + " isomorphic puzzles removed, "
+					+ invalidAnz + " invalid lines copied (" + ticks + "ms)!");
+		} catch (Exception ex) {
+			Logger.getLogger(PuzzleDeduplicator.class.getName()).log(Level.SEVERE, "Error removing duplicates", ex);
+		} finally {
+			if (pool != null) {
+				pool.shutdownNow();
+			}
+			try {
+				if (in != null) {
+					in.close();
+				}
+				if (out != null && out != System.out) {
+					out.close();
+				}
+			} catch (Exception ex) {
+				Logger.getLogger(PuzzleDeduplicator.class.getName()).log(Level.SEVERE, "Error closing files", ex);
+			}
+		}
+	}
+
+	/**
+	 * Calculates the hashes of all lines in the current batch. Every thread gets
+	 * a consecutive part of the batch.
+	 *
+	 * @param pool
+	 * @throws Exception
+	 */
+	private void canonicalizeBatch(ExecutorService pool) throws Exception {
+		if (pool == null) {
+			canonicalize(0, 0, anz);
+			return;
+		}
+		int chunk = (anz + threads - 1) / threads;
+		List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+		for (int i = 0; i < threads && i * chunk < anz; i++) {
+			final int worker = i;
+			final int from = i * chunk;
+			final int to = Math.min(anz, from + chunk);
+			tasks.add(new Callable<Void>() {
+				@Override
+				public Void call() {
+					canonicalize(worker, from, to);
+					return null;
+				}
+			});
+		}
+		for (Future<Void> result : pool.invokeAll(tasks)) {
+			// rethrows exceptions of the workers
+			result.get();
+		}
+	}
+
+	/**
+	 * Calculates the hashes for the lines <code>from</code> to
+	 * <code>to - 1</code>.
+	 *
+	 * @param worker
+	 * @param from
+	 * @param to
+	 */
+	private void canonicalize(int worker, int from, int to) {
+		byte[] data = lines.getData();
+		int[] puzzle = values[worker];
+		for (int i = from; i < to; i++) {
+			isInvalid[i] = false;
+			try {
+				isPuzzle[i] = getValues(data, starts[i], lengths[i], worker, puzzle);
+			} catch (RuntimeException ex) {
+				// Sudoku2.setSudoku() cannot handle the line: copy it
+				isPuzzle[i] = false;
+				isInvalid[i] = true;
+			}
+			if (isPuzzle[i]) {
+				SudokuCanonicalizer canonicalizer = canonicalizers[worker];
+				canonicalizer.canonicalize(puzzle);
+				hashHigh[i] = canonicalizer.getHashHigh();
+				hashLow[i] = canonicalizer.getHashLow();
+			}
+		}
+	}
+
+	/**
+	 * Reads the values of the puzzle in a line. Plain 81 character lines are
+	 * parsed directly, all other formats are loaded by {@link Sudoku2}.
+	 *
+	 * @param data
+	 * @param start
+	 * @param length
+	 * @param worker
+	 * @param puzzle
+	 * @return <code>false</code>, if the line doesn't contain a puzzle
+	 */
+	private boolean getValues(byte[] data, int start, int length, int worker, int[] puzzle) {
+		if (data[start] == '#') {
+			return false;
+		}
+		boolean empty = true;
+		if (Sudoku2.isPlainLine(data, start, length)) {
+			for (int i = 0; i < 81; i++) {
+				byte ch = data[start + i];
+				puzzle[i] = ch == '.' ? 0 : ch - '0';
+				if (puzzle[i] != 0) {
+					empty = false;
+				}
+			}
+		} else {
+			Sudoku2 sudoku = sudokus[worker];
+			sudoku.setSudoku(new String(data, start, length));
+			for (int i = 0; i < 81; i++) {
+				puzzle[i] = sudoku.getValue(i);
+				if (puzzle[i] != 0) {
+					empty = false;
+				}
+			}
+		}
+		return !empty;
+	}
+
+	/**
+	 * Writes all lines of the batch, whose puzzles are not yet in
+	 * <code>hashes</code>.
+	 *
+	 * @param hashes
+	 * @param out
+	 * @throws Exception
+	 */
+	private void writeBatch(CanonicalHashSet hashes, OutputStream out) throws Exception {
+		byte[] data = lines.getData();
+		for (int i = 0; i < anz; i++) {
+			if (isPuzzle[i]) {
+				puzzleAnz++;
+				if (!hashes.add(hashHigh[i], hashLow[i])) {
+					duplicateAnz++;
+					continue;
+				}
+			} else if (isInvalid[i]) {
+				invalidAnz++;
+			}
+			out.write(data, starts[i], lengths[i]);
+			out.write(LINE_SEPARATOR);
+		}
+		lines.reset();
+		anz = 0;
+	}
+}
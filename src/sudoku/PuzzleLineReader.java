@@ -0,0 +1,155 @@
+/*
+ * Copyright (C) 2021 Aarre Laakso
+ *
+ * This file is part of HoDoKu.
+ *
+ * HoDoKu is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * HoDoKu is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with HoDoKu. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package sudoku;
+
+import java.io.Closeable;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Reads a puzzle file line by line without decoding it into Strings: the file
+ * is read through a {@link FileChannel} into one large buffer, every line is
+ * returned as a range in that buffer (leading and trailing whitespace removed,
+ * empty lines skipped). The range is valid until the next call to
+ * {@link #nextLine()}.<br>
+ * Used by the batch solver for files with millions of puzzles, together with
+ * {@link Sudoku2#setSudoku(byte[], int, int)}.
+ *
+ * @author Aarre Laakso
+ */
+final class PuzzleLineReader implements Closeable {
+	/** Initial size of the buffer; grows, if a line is longer. */
+	private static final int BUFFER_SIZE = 1 << 20;
+
+	private final FileChannel channel;
+	private ByteBuffer buffer;
+	/** The backing array of {@link #buffer}. */
+	private byte[] data;
+	/** Start of the unread data in {@link #data}. */
+	private int pos = 0;
+	/** End of the valid data in {@link #data}. */
+	private int limit = 0;
+	private boolean eof = false;
+	private int lineStart;
+	private int lineLength;
+
+	/**
+	 * Opens <code>fileName</code>.
+	 *
+	 * @param fileName
+	 * @throws IOException
+	 */
+	PuzzleLineReader(String fileName) throws IOException {
+		channel = new FileInputStream(fileName).getChannel();
+		buffer = ByteBuffer.allocate(BUFFER_SIZE);
+		data = buffer.array();
+	}
+
+	/**
+	 * Advances to the next non-empty line.
+	 *
+	 * @return <code>false</code> at the end of the file
+	 * @throws IOException
+	 */
+	boolean nextLine() throws IOException {
+		while (true) {
+			int end = pos;
+			while (end < limit && data[end] != '\n' && data[end] != '\r') {
+				end++;
+			}
+			if (end == limit && !eof) {
+				// line is incomplete: get more data
+				fill();
+				continue;
+			}
+			if (end == pos && end == limit) {
+				// eof
+				return false;
+			}
+			int start = pos;
+			pos = end < limit ? end + 1 : end;
+			// trim
+			while (start < end && (data[start] & 0xff) <= ' ') {
+				start++;
+			}
+			while (end > start && (data[end - 1] & 0xff) <= ' ') {
+				end--;
+			}
+			if (end > start) {
+				lineStart = start;
+				lineLength = end - start;
+				return true;
+			}
+		}
+	}
+
+	/**
+	 * Moves the unread data to the beginning of the buffer (the buffer is
+	 * enlarged, if it is full) and reads as much as possible.
+	 *
+	 * @throws IOException
+	 */
+	private void fill() throws IOException {
+		int rest = limit - pos;
+		if (rest == data.length) {
+			ByteBuffer newBuffer = ByteBuffer.allocate(data.length * 2);
+			System.arraycopy(data, 0, newBuffer.array(), 0, rest);
+			buffer = newBuffer;
+			data = buffer.array();
+		} else {
+			System.arraycopy(data, pos, data, 0, rest);
+		}
+		pos = 0;
+		limit = rest;
+		buffer.clear();
+		buffer.position(limit);
+		int read = channel.read(buffer);
+		if (read < 0) {
+			eof = true;
+		} else {
+			limit += read;
+		}
+	}
+
+	/**
+	 * The buffer containing the current line.
+	 *
+	 * @return
+	 */
+	byte[] getBuffer() {
+		return data;
+	}
+
+	int getLineStart() {
+		return lineStart;
+	}
+
+	int getLineLength() {
+		return lineLength;
+	}
+
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+}
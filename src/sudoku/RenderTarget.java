@@ -0,0 +1,73 @@
+/*
+ * Copyright (C) 2021 Aarre Laakso
+ *
+ * This file is part of HoDoKu.
+ *
+ * HoDoKu is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * HoDoKu is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with HoDoKu. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package sudoku;
+
+import java.awt.Color;
+
+/**
+ * The drawing primitives needed by {@link SudokuRenderer}. Coordinates are in
+ * pixels (points for PDF), the origin is the upper left corner.
+ *
+ * @author Aarre Laakso
+ */
+interface RenderTarget {
+
+	void fillRect(double x, double y, double width, double height, Color color);
+
+	void drawRect(double x, double y, double width, double height, Color color, double lineWidth);
+
+	void drawLine(double x1, double y1, double x2, double y2, Color color, double lineWidth, boolean dashed);
+
+	/**
+	 * Draws a cubic Bezier curve from <code>x1</code>/<code>y1</code> to
+	 * <code>x2</code>/<code>y2</code>.
+	 *
+	 * @param x1
+	 * @param y1
+	 * @param cx1
+	 * @param cy1
+	 * @param cx2
+	 * @param cy2
+	 * @param x2
+	 * @param y2
+	 * @param color
+	 * @param lineWidth
+	 * @param dashed
+	 */
+	void drawCurve(double x1, double y1, double cx1, double cy1, double cx2, double cy2, double x2, double y2,
+			Color color, double lineWidth, boolean dashed);
+
+	void fillOval(double x, double y, double width, double height, Color color);
+
+	void fillPolygon(double[] x, double[] y, Color color);
+
+	/**
+	 * Draws <code>text</code> (digits only) centered at <code>x</code>/
+	 * <code>y</code>.
+	 *
+	 * @param text
+	 * @param x
+	 * @param y
+	 * @param size  Font size in pixels
+	 * @param color
+	 */
+	void drawText(String text, double x, double y, double size, Color color);
+}
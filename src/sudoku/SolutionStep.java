@@ -18,12 +18,10 @@
  */
 package sudoku;
 
-import java.text.DecimalFormat;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
-import java.util.Set;
 import java.util.SortedMap;
 import java.util.SortedSet;
 import java.util.TreeMap;
@@ -45,7 +43,6 @@ public class SolutionStep implements Comparable<SolutionStep>, Cloneable {
 			java.util.ResourceBundle.getBundle("intl/SolutionStep").getString("SolutionStep.col"),
 			java.util.ResourceBundle.getBundle("intl/SolutionStep").getString("SolutionStep.cell") };
 	private static final String[] entityShortNames = { "b", "r", "c", "" };
-	private static final DecimalFormat FISH_FORMAT = new DecimalFormat("#00");
 	private SolutionType type;
 	private SolutionType subType; // for kraken fish: holds the underlying fish type
 	private int entity;
@@ -389,8 +386,7 @@ public class SolutionStep implements Comparable<SolutionStep>, Cloneable {
 	}
 
 	public String getCandidateString(boolean library, boolean statistics) {
-		Collections.sort(candidatesToDelete);
-		eliminateDoubleCandidatesToDelete();
+		sortCandidatesToDelete();
 		StringBuilder candBuff = new StringBuilder();
 		int lastCand = -1;
 		StringBuffer delPos = new StringBuffer();
@@ -433,15 +429,22 @@ public class SolutionStep implements Comparable<SolutionStep>, Cloneable {
 		}
 	}
 
-	private void eliminateDoubleCandidatesToDelete() {
-		Set<Candidate> candSet = new TreeSet<Candidate>();
+	/**
+	 * Sorts {@link #candidatesToDelete} (by value, then by index) and removes
+	 * duplicates. Done by {@link #getCandidateString()} as well.
+	 */
+	public void sortCandidatesToDelete() {
+		Collections.sort(candidatesToDelete);
+		// the list is sorted: duplicates are neighbours
+		int anz = 0;
 		for (int i = 0; i < candidatesToDelete.size(); i++) {
-			candSet.add(candidatesToDelete.get(i));
-		}
-		candidatesToDelete.clear();
-		for (Candidate cand : candSet) {
-			candidatesToDelete.add(cand);
+			Candidate cand = candidatesToDelete.get(i);
+			if (anz > 0 && cand.compareTo(candidatesToDelete.get(anz - 1)) == 0) {
+				continue;
+			}
+			candidatesToDelete.set(anz++, cand);
 		}
+		candidatesToDelete.subList(anz, candidatesToDelete.size()).clear();
 	}
 
 	public static String getCellPrint(int index) {
@@ -1360,7 +1363,7 @@ public class SolutionStep implements Comparable<SolutionStep>, Cloneable {
 		if (cells) {
 			tmp.append(getCompactCellPrint(set));
 		} else {
-			tmp.append(FISH_FORMAT.format(set.size()));
+			tmp.append(String.format("%02d", set.size()));
 		}
 		tmp.append(") ");
 	}
@@ -0,0 +1,433 @@
+/*
+ * Copyright (C) 2021 Aarre Laakso
+ *
+ * This file is part of HoDoKu.
+ *
+ * HoDoKu is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * HoDoKu is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with HoDoKu. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package sudoku;
+
+import generator.SudokuGenerator;
+import generator.SudokuGeneratorFactory;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import solver.SolverConfig;
+import solver.SolverDeadline;
+import solver.SolverMetrics;
+import solver.SudokuSolver;
+import solver.SudokuSolverFactory;
+
+/**
+ * Console mode <code>/server</code>: a solver process, that accepts requests
+ * on a local TCP port (bound to the loopback address only). Clients don't have
+ * to start a new JVM (and warm up the solvers) for every puzzle.<br>
+ * <br>
+ * The protocol is line based (ISO-8859-1, lines end with '\n'). A request
+ * consists of a command, an optional time limit and a puzzle in any format
+ * accepted by {@link Sudoku2#setSudoku(java.lang.String)}:
+ * <pre>
+ *   solve|rate|hint|findall [timeout=&lt;ms&gt;] &lt;puzzle&gt;
+ *   ping | quit | shutdown
+ * </pre>
+ * Every request is answered by one line starting with "OK" or "ERR":
+ * <ul>
+ * <li>solve: "OK &lt;solution&gt;" (81 digits)</li>
+ * <li>rate: "OK &lt;level&gt; (&lt;score&gt;)" or "OK timeout"</li>
+ * <li>hint: "OK &lt;step&gt;" or "OK none" (puzzle already solved)</li>
+ * <li>findall: "OK &lt;n&gt;" followed by n lines "&lt;progress
+ * score&gt;\t&lt;step&gt;"; " timeout" is appended to the first line, if the
+ * search was incomplete</li>
+ * <li>"ERR busy": all workers are busy and the queue is full (try again
+ * later)</li>
+ * <li>"ERR timeout": the time limit expired before the request was
+ * started</li>
+ * <li>"ERR &lt;message&gt;": invalid request or puzzle</li>
+ * </ul>
+ * "quit" closes the connection, "shutdown" stops the server. Requests longer
+ * than {@link #MAX_REQUEST_LENGTH} characters are answered with "ERR request
+ * too long", and the connection is closed.<br>
+ * <br>
+ * The requests are executed by a fixed number of worker threads; every
+ * request gets a {@link SudokuSolver} from {@link SudokuSolverFactory}. The
+ * queue in front of the workers is bounded: if it is full, the request is
+ * rejected at once instead of piling up. The time limit of a request (default:
+ * <code>/timeout</code>) starts when it is read, so it includes the time spent
+ * in the queue; when it expires, the solver finishes the puzzle with singles
+ * and brute force (see {@link SolverDeadline}).
+ *
+ * @author Aarre Laakso
+ */
+final class SolverServer {
+	/** Maximum number of waiting requests per worker thread. */
+	private static final int QUEUE_PER_THREAD = 4;
+	/** Maximum number of open connections. */
+	private static final int MAX_CONNECTIONS = 64;
+	private static final String TIMEOUT_PREFIX = "timeout=";
+	/**
+	 * Maximum length of a request line (a puzzle with all candidates needs about
+	 * 1500 characters).
+	 */
+	private static final int MAX_REQUEST_LENGTH = 8192;
+
+	private final int port;
+	private final int threads;
+	/** Default time limit per request in ms, 0 means "no limit". */
+	private final long timeout;
+	/** All solvers use the same configuration, taken when the server starts. */
+	private final SolverConfig config;
+	private ServerSocket serverSocket;
+	private ThreadPoolExecutor workers;
+	private ThreadPoolExecutor connections;
+	private volatile boolean running = false;
+
+	SolverServer(int port, int threads, long timeout) {
+		this.port = port;
+		this.threads = Math.max(1, threads);
+		this.timeout = timeout;
+		config = SolverConfig.fromOptions();
+	}
+
+	/**
+	 * Accepts connections until the server is shut down.
+	 */
+	void run() {
+		SolverMetrics.register();
+		workers = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<Runnable>(threads * QUEUE_PER_THREAD));
+		workers.prestartAllCoreThreads();
+		connections = new ThreadPoolExecutor(0, MAX_CONNECTIONS, 60L, TimeUnit.SECONDS,
+				new SynchronousQueue<Runnable>());
+		warmUp();
+		try {
+			serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+			running = true;
+			System.out.println("Solver server listening on " + serverSocket.getInetAddress().getHostAddress() + ":"
+					+ serverSocket.getLocalPort() + " (" + threads + " threads)");
+			while (running) {
+				final Socket socket;
+				try {
+					socket = serverSocket.accept();
+				} catch (SocketException ex) {
+					// socket was closed by shutdown()
+					break;
+				}
+				try {
+					connections.execute(new Runnable() {
+						@Override
+						public void run() {
+							serve(socket);
+						}
+					});
+				} catch (RejectedExecutionException ex) {
+					reject(socket);
+				}
+			}
+		} catch (IOException ex) {
+			Logger.getLogger(SolverServer.class.getName()).log(Level.SEVERE, "Error in solver server", ex);
+		} finally {
+			shutdown();
+			connections.shutdownNow();
+			workers.shutdownNow();
+		}
+	}
+
+	/**
+	 * Stops accepting connections; requests in progress are finished.
+	 */
+	void shutdown() {
+		running = false;
+		try {
+			if (serverSocket != null) {
+				serverSocket.close();
+			}
+		} catch (IOException ex) {
+			Logger.getLogger(SolverServer.class.getName()).log(Level.SEVERE, "Error closing server socket", ex);
+		}
+	}
+
+	/**
+	 * Creates one solver and one generator per worker in advance, so that the
+	 * first requests don't have to wait for them.
+	 */
+	private void warmUp() {
+		List<SudokuSolver> solvers = new ArrayList<SudokuSolver>();
+		List<SudokuGenerator> generators = new ArrayList<SudokuGenerator>();
+		for (int i = 0; i < threads; i++) {
+			solvers.add(SudokuSolverFactory.getInstance());
+			generators.add(SudokuGeneratorFactory.getInstance());
+		}
+		for (SudokuSolver solver : solvers) {
+			SudokuSolverFactory.giveBack(solver);
+		}
+		for (SudokuGenerator generator : generators) {
+			SudokuGeneratorFactory.giveBack(generator);
+		}
+	}
+
+	/**
+	 * Reads requests from <code>socket</code> and answers them one after
+	 * another until the client closes the connection.
+	 *
+	 * @param socket
+	 */
+	private void serve(Socket socket) {
+		try {
+			BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), "ISO-8859-1"));
+			Writer out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), "ISO-8859-1"));
+			StringBuilder buffer = new StringBuilder();
+			String line = null;
+			while ((line = readRequest(in, buffer)) != null) {
+				if (line.length() > MAX_REQUEST_LENGTH) {
+					out.write("ERR request too long\n");
+					out.flush();
+					break;
+				}
+				line = line.trim();
+				if (line.isEmpty()) {
+					continue;
+				}
+				if (line.equals("quit")) {
+					break;
+				}
+				if (line.equals("shutdown")) {
+					out.write("OK\n");
+					out.flush();
+					shutdown();
+					break;
+				}
+				out.write(handle(line));
+				out.flush();
+			}
+		} catch (IOException ex) {
+			// connection was closed by the client
+			Logger.getLogger(SolverServer.class.getName()).log(Level.FINE, "Connection closed", ex);
+		} finally {
+			close(socket);
+		}
+	}
+
+	/**
+	 * Reads one request line. At most {@link #MAX_REQUEST_LENGTH} + 1 characters
+	 * are stored: a longer line is returned truncated, the rest is not read.
+	 *
+	 * @param in
+	 * @param buffer
+	 * @return The line without the line end or <code>null</code>, if the client
+	 *         closed the connection
+	 * @throws IOException
+	 */
+	private static String readRequest(BufferedReader in, StringBuilder buffer) throws IOException {
+		buffer.setLength(0);
+		int ch;
+		while ((ch = in.read()) != -1) {
+			if (ch == '\n') {
+				return buffer.toString();
+			}
+			buffer.append((char) ch);
+			if (buffer.length() > MAX_REQUEST_LENGTH) {
+				return buffer.toString();
+			}
+		}
+		return buffer.length() > 0 ? buffer.toString() : null;
+	}
+
+	/**
+	 * Answers a connection that cannot be served.
+	 *
+	 * @param socket
+	 */
+	private void reject(Socket socket) {
+		try {
+			socket.getOutputStream().write("ERR too many connections\n".getBytes("ISO-8859-1"));
+		} catch (IOException ex) {
+			Logger.getLogger(SolverServer.class.getName()).log(Level.FINE, "Connection closed", ex);
+		} finally {
+			close(socket);
+		}
+	}
+
+	private void close(Socket socket) {
+		try {
+			socket.close();
+		} catch (IOException ex) {
+			Logger.getLogger(SolverServer.class.getName()).log(Level.FINE, "Error closing connection", ex);
+		}
+	}
+
+	/**
+	 * Parses a request and hands it over to the workers. The connection waits
+	 * for the result.
+	 *
+	 * @param line
+	 * @return The complete answer (one or more lines)
+	 */
+	private String handle(String line) {
+		String[] parts = line.split("\\s+", 2);
+		final String command = parts[0].toLowerCase();
+		if (command.equals("ping")) {
+			return "OK pong\n";
+		}
+		if (!command.equals("solve") && !command.equals("rate") && !command.equals("hint")
+				&& !command.equals("findall")) {
+			return "ERR unknown command '" + parts[0] + "'\n";
+		}
+		String puzzle = parts.length > 1 ? parts[1] : "";
+		long requestTimeout = timeout;
+		if (puzzle.startsWith(TIMEOUT_PREFIX)) {
+			parts = puzzle.split("\\s+", 2);
+			try {
+				requestTimeout = Long.parseLong(parts[0].substring(TIMEOUT_PREFIX.length()));
+			} catch (NumberFormatException ex) {
+				return "ERR invalid time limit '" + parts[0] + "'\n";
+			}
+			puzzle = parts.length > 1 ? parts[1] : "";
+		}
+		if (puzzle.isEmpty()) {
+			return "ERR no puzzle given\n";
+		}
+
+		final String sudokuString = puzzle;
+		final SolverDeadline deadline = requestTimeout > 0 ? new SolverDeadline(requestTimeout) : null;
+		Future<String> result = null;
+		try {
+			result = workers.submit(new Callable<String>() {
+				@Override
+				public String call() {
+					return process(command, sudokuString, deadline);
+				}
+			});
+		} catch (RejectedExecutionException ex) {
+			return "ERR busy\n";
+		}
+		try {
+			return result.get();
+		} catch (InterruptedException ex) {
+			// server is shutting down
+			if (deadline != null) {
+				deadline.cancel();
+			}
+			result.cancel(true);
+			return "ERR shutdown\n";
+		} catch (ExecutionException ex) {
+			Logger.getLogger(SolverServer.class.getName()).log(Level.SEVERE, "Error processing request: " + line,
+					ex.getCause());
+			return "ERR " + ex.getCause() + "\n";
+		}
+	}
+
+	/**
+	 * Executes one request (called by the workers).
+	 *
+	 * @param command
+	 * @param puzzle
+	 * @param deadline
+	 * @return
+	 */
+	private String process(String command, String puzzle, SolverDeadline deadline) {
+		if (deadline != null && deadline.isExpired()) {
+			// the time was spent in the queue
+			return "ERR timeout\n";
+		}
+		Sudoku2 sudoku = new Sudoku2();
+		try {
+			sudoku.setSudoku(puzzle);
+		} catch (RuntimeException ex) {
+			// Sudoku2 cannot parse the input: that's the client's problem, not
+			// an internal error
+			return "ERR invalid puzzle\n";
+		}
+		if (!sudoku.checkSudoku()) {
+			// givens that contradict each other: the solution check doesn't
+			// catch all of them
+			return "ERR invalid puzzle\n";
+		}
+		SudokuGenerator generator = SudokuGeneratorFactory.getInstance();
+		try {
+			if (!generator.validSolution(sudoku)) {
+				return "ERR puzzle has no unique solution\n";
+			}
+		} finally {
+			SudokuGeneratorFactory.giveBack(generator);
+		}
+
+		if (command.equals("solve")) {
+			StringBuilder tmp = new StringBuilder(90);
+			tmp.append("OK ");
+			for (int i = 0; i < Sudoku2.LENGTH; i++) {
+				tmp.append(sudoku.getSolution(i));
+			}
+			return tmp.append('\n').toString();
+		}
+
+		SudokuSolver solver = SudokuSolverFactory.getInstance();
+		try {
+			solver.setConfig(config);
+			solver.setDeadline(deadline);
+			if (command.equals("rate")) {
+				solver.setSudoku(sudoku);
+				solver.solve();
+				if (solver.isTimedOut()) {
+					// level and score are meaningless
+					return "OK timeout\n";
+				}
+				return "OK " + solver.getLevel().getName() + " (" + solver.getScore() + ")\n";
+			} else if (command.equals("hint")) {
+				SolutionStep step = solver.getHint(sudoku, false);
+				if (step == null) {
+					return "OK none\n";
+				}
+				return "OK " + step.toString(2) + (solver.getStepFinder().isDeadlineExpired() ? " timeout" : "") + "\n";
+			} else {
+				List<SolutionStep> steps = new ArrayList<SolutionStep>();
+				new FindAllSteps(solver, steps, sudoku).run();
+				StringBuilder tmp = new StringBuilder();
+				tmp.append("OK ").append(steps.size());
+				if (solver.getStepFinder().isDeadlineExpired()) {
+					tmp.append(" timeout");
+				}
+				tmp.append('\n');
+				for (SolutionStep step : steps) {
+					tmp.append(step.getProgressScore()).append('\t').append(step.toString(2)).append('\n');
+				}
+				return tmp.toString();
+			}
+		} finally {
+			solver.setDeadline(null);
+			solver.setConfig(null);
+			SudokuSolverFactory.giveBack(solver);
+		}
+	}
+}
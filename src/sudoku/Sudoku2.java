@@ -21,7 +21,10 @@ package sudoku;
 
 import generator.SudokuGenerator;
 import generator.SudokuGeneratorFactory;
-import java.io.ObjectInputStream;
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 import java.util.SortedSet;
 import java.util.TreeSet;
@@ -120,9 +123,10 @@ public class Sudoku2 implements Cloneable {
 	// Templates
 	//
 	/**
-	 * One template for every possible combination of 9 equal digits in the grid.
+	 * The number of templates: one template for every possible combination of 9
+	 * equal digits in the grid.
 	 */
-	public static SudokuSetBase[] templates = new SudokuSetBase[46656];
+	public static final int TEMPLATE_ANZ = 46656;
 	/** One bitmap with all buddies of each cell */
 	public static SudokuSet[] buddies = new SudokuSet[LENGTH];
 	/** The low order long from {@link #buddies} */
@@ -169,6 +173,13 @@ public class Sudoku2 implements Cloneable {
 	private byte[][] free = new byte[ALL_UNITS.length][UNITS + 1];
 	/** number of unfilled cells in the grid */
 	private int unsolvedCellsAnz;
+	/**
+	 * Set, if {@link #free} and the singles queues have not been adjusted for all
+	 * changes (candidate deleted from a cell without other candidates, methods
+	 * for the {@link BacktrackingSolver}, setters). Reset by
+	 * {@link #rebuildInternalData()}.
+	 */
+	private boolean freeInvalid = false;
 	/**
 	 * The values of the cells (0 means cell not set); if a cell is set, the
 	 * corresponding entry in {@link #cells} is deleted
@@ -199,6 +210,38 @@ public class Sudoku2 implements Cloneable {
 	/** A queue for newly detected Hidden Singles */
 	private SudokuSinglesQueue hsQueue = new SudokuSinglesQueue();
 
+	// Undo journal: while at least one mark is set (see mark()), all changes of
+	// the cells are recorded; rollBack() restores the state of a mark without
+	// copying the whole sudoku. The journal is never copied.
+	/** Flag for {@link #fixed} in an entry in {@link #journal}. */
+	private static final int JOURNAL_FIXED = 1 << 29;
+	/**
+	 * The old states of cells (index, {@link #cells}, {@link #userCells},
+	 * {@link #values} and {@link #fixed}), in the order in which they were
+	 * changed.
+	 */
+	private int[] journal = null;
+	/** Number of entries in {@link #journal}. */
+	private int journalSize = 0;
+	/** Number of marks set. */
+	private int markCount = 0;
+	/** For every mark: the size of {@link #journal} when the mark was set. */
+	private int[] markJournalSizes = null;
+	/** For every mark: {@link #unsolvedCellsAnz} when the mark was set. */
+	private int[] markUnsolvedCellsAnz = null;
+	/** For every mark: {@link #freeInvalid} when the mark was set. */
+	private boolean[] markFreeInvalid = null;
+	/**
+	 * For every mark: the contents of {@link #free} when the mark was set (most
+	 * changes of a cell change several entries in {@link #free}, copying it is
+	 * cheaper than recording them).
+	 */
+	private byte[][] markFree = null;
+	/** For every mark: the contents of the singles queues when the mark was set. */
+	private int[][] markQueues = null;
+	/** Set, if the sudoku was changed in a way the journal cannot record. */
+	private boolean journalBroken = false;
+
 	static {
 		// Buddies und Unit-Sets initialisieren
 		long ticks = System.currentTimeMillis();
@@ -207,7 +250,8 @@ public class Sudoku2 implements Cloneable {
 		ticks = System.currentTimeMillis() - ticks;
 		// System.out.println("Init buddies: " + ticks + "ms");
 
-		// Templates initialisieren
+		// Templates initialisieren (only the house templates, the digit
+		// templates are loaded on first use)
 		ticks = System.currentTimeMillis();
 		initTemplates();
 		ticks = System.currentTimeMillis() - ticks;
@@ -304,6 +348,14 @@ public class Sudoku2 implements Cloneable {
 			}
 			newSudoku.nsQueue = nsQueue.clone();
 			newSudoku.hsQueue = hsQueue.clone();
+			// the journal is not copied
+			newSudoku.journal = null;
+			newSudoku.markJournalSizes = null;
+			newSudoku.markUnsolvedCellsAnz = null;
+			newSudoku.markFreeInvalid = null;
+			newSudoku.markFree = null;
+			newSudoku.markQueues = null;
+			newSudoku.clearJournal();
 			// no deep copy required for level, it is constant
 		} catch (CloneNotSupportedException ex) {
 			Logger.getLogger(getClass().getName()).log(Level.SEVERE, "Error while cloning", ex);
@@ -317,6 +369,7 @@ public class Sudoku2 implements Cloneable {
 	 * @param src
 	 */
 	public void set(Sudoku2 src) {
+		invalidateJournal();
 		System.arraycopy(src.cells, 0, cells, 0, LENGTH);
 		System.arraycopy(src.userCells, 0, userCells, 0, LENGTH);
 		System.arraycopy(src.values, 0, values, 0, LENGTH);
@@ -326,6 +379,7 @@ public class Sudoku2 implements Cloneable {
 			System.arraycopy(src.free[i], 0, free[i], 0, UNITS + 1);
 		}
 		unsolvedCellsAnz = src.unsolvedCellsAnz;
+		freeInvalid = src.freeInvalid;
 		solutionSet = src.solutionSet;
 		score = src.score;
 		level = src.level; // no deep copy required, level is constant
@@ -346,12 +400,14 @@ public class Sudoku2 implements Cloneable {
 	 * @param src
 	 */
 	public void setBS(Sudoku2 src) {
+		invalidateJournal();
 		cells = Arrays.copyOf(src.cells, cells.length);
 		values = Arrays.copyOf(src.values, values.length);
 		for (int i = 0; i < free.length; i++) {
 			free[i] = Arrays.copyOf(src.free[i], free[i].length);
 		}
 		unsolvedCellsAnz = src.unsolvedCellsAnz;
+		freeInvalid = true;
 		nsQueue.clear();
 		hsQueue.clear();
 	}
@@ -360,6 +416,7 @@ public class Sudoku2 implements Cloneable {
 	 * Clears all candidates in the grid.
 	 */
 	public final void resetCandidates() {
+		invalidateJournal();
 
 		for (int i = 0; i < cells.length; i++) {
 			cells[i] = 0;
@@ -374,6 +431,7 @@ public class Sudoku2 implements Cloneable {
 	 * all candidates are possible), the queues are deleted.
 	 */
 	public final void clearSudoku() {
+		invalidateJournal();
 		
 		for (int i = 0; i < cells.length; i++) {
 			cells[i] = MAX_MASK;
@@ -428,6 +486,70 @@ public class Sudoku2 implements Cloneable {
 		setSudoku(init, true);
 	}
 
+	/**
+	 * Fast path for batch processing: loads a sudoku from a plain line of 81
+	 * givens ('1' - '9', '.' or '0' for empty cells) stored as ASCII bytes,
+	 * without creating any Strings. The givens may be followed by blanks and a
+	 * comment started with '#'. Unlike {@link #setSudoku(java.lang.String)} no
+	 * initial state is stored.
+	 * 
+	 * @param line
+	 * @param offset
+	 * @param length
+	 * @return <code>false</code> if the line has any other format (the sudoku is
+	 *         not changed)
+	 */
+	public boolean setSudoku(byte[] line, int offset, int length) {
+		
+		if (!isPlainLine(line, offset, length)) {
+			return false;
+		}
+		
+		clearSudoku();
+		for (int i = 0; i < LENGTH; i++) {
+			int digit = line[offset + i] - '0';
+			if (digit > 0) {
+				setCell(i, digit, true);
+			}
+		}
+		
+		// see setSudoku(String, boolean)
+		status = SudokuStatus.VALID;
+		statusGivens = SudokuStatus.VALID;
+		return true;
+	}
+
+	/**
+	 * Checks, if <code>line</code> can be loaded by
+	 * {@link #setSudoku(byte[], int, int)}.
+	 * 
+	 * @param line
+	 * @param offset
+	 * @param length
+	 * @return
+	 */
+	public static boolean isPlainLine(byte[] line, int offset, int length) {
+		
+		if (length < LENGTH) {
+			return false;
+		}
+		
+		for (int i = offset; i < offset + LENGTH; i++) {
+			byte ch = line[i];
+			if ((ch < '0' || ch > '9') && ch != '.') {
+				return false;
+			}
+		}
+		
+		// only blanks and a comment may follow
+		int i = offset + LENGTH;
+		while (i < offset + length && (line[i] == ' ' || line[i] == '\t')) {
+			i++;
+		}
+		
+		return i == offset + length || line[i] == '#';
+	}
+
 	/**
 	 * Loads a Sudoku from a String. Possible formats:
 	 * <ul>
@@ -1069,6 +1191,7 @@ public class Sudoku2 implements Cloneable {
 	 *
 	 */
 	public void rebuildInternalData() {
+		freeInvalid = false;
 		// delete the queues
 		nsQueue.clear();
 		hsQueue.clear();
@@ -1083,6 +1206,9 @@ public class Sudoku2 implements Cloneable {
 		for (int index = 0; index < values.length; index++) {
 			if (values[index] != 0) {
 				// just to be sure
+				if (markCount > 0 && cells[index] != 0) {
+					journalCell(index);
+				}
 				cells[index] = 0;
 			} else {
 				// one more unsolved cell
@@ -1607,6 +1733,9 @@ public class Sudoku2 implements Cloneable {
 	 * @param isFixed
 	 */
 	public void setIsFixed(int index, boolean isFixed) {
+		if (markCount > 0) {
+			journalCell(index);
+		}
 		fixed[index] = isFixed;
 	}
 
@@ -1830,6 +1959,9 @@ public class Sudoku2 implements Cloneable {
 	public boolean setCandidate(int index, int value, boolean set) {
 		if (set) {
 			if ((cells[index] & MASKS[value]) == 0) {
+				if (markCount > 0) {
+					journalCell(index);
+				}
 				cells[index] |= MASKS[value];
 				int newAnz = ANZ_VALUES[cells[index]];
 				if (newAnz == 1) {
@@ -1848,9 +1980,13 @@ public class Sudoku2 implements Cloneable {
 			}
 		} else {
 			if ((cells[index] & MASKS[value]) != 0) {
+				if (markCount > 0) {
+					journalCell(index);
+				}
 				cells[index] &= ~MASKS[value];
 				if (cells[index] == 0) {
 					// puzzle invalid
+					freeInvalid = true;
 					return false;
 				}
 				if (ANZ_VALUES[cells[index]] == 1) {
@@ -1887,6 +2023,9 @@ public class Sudoku2 implements Cloneable {
 	public boolean setCandidate(int index, int value, boolean set, boolean user) {
 		boolean ret = setCandidate(index, value, set);
 		if (user) {
+			if (markCount > 0) {
+				journalCell(index);
+			}
 			if (set) {
 				userCells[index] |= MASKS[value];
 			} else {
@@ -1961,7 +2100,10 @@ public class Sudoku2 implements Cloneable {
 	 * accordingly.<br>
 	 * Eliminating candidates in the buddies automatically makes the correct entries
 	 * in the Hidden Singles queue. If a cell is set, a manual check for Hidden
-	 * Singles in the cell's constraints is done.
+	 * Singles in the cell's constraints is done. If a value is removed,
+	 * {@link #free} and the queues are adjusted by the candidates that are added
+	 * again; {@link #rebuildInternalData()} is only necessary, if {@link #free}
+	 * could be wrong already (see {@link #freeInvalid}).
 	 * 
 	 * @param index
 	 * @param value
@@ -1978,6 +2120,9 @@ public class Sudoku2 implements Cloneable {
 		
 		boolean valid = true; // puzzle still valid after setting a cell?
 		int oldValue = values[index]; // needed for delete
+		if (markCount > 0) {
+			journalCell(index);
+		}
 		values[index] = value;
 		fixed[index] = isFixed;
 		
@@ -2003,6 +2148,9 @@ public class Sudoku2 implements Cloneable {
 				}
 				
 				if (user) {
+					if (markCount > 0) {
+						journalCell(buddyIndex);
+					}
 					userCells[buddyIndex] &= ~MASKS[value];
 				}
 			}
@@ -2025,8 +2173,11 @@ public class Sudoku2 implements Cloneable {
 			
 		} else {
 			
+			unsolvedCellsAnz++;
+			
 			// in the cell itself all candidates that are possible are set
-			// userCandidates is not changed
+			// userCandidates is not changed; setCandidate() adjusts free and
+			// the queues
 			for (int cand = 1; cand <= UNITS; cand++) {
 				if (isValidValue(index, cand)) {
 					setCandidate(index, cand);
@@ -2042,16 +2193,26 @@ public class Sudoku2 implements Cloneable {
 				}
 			}
 			
-			// the singles queues get invalid by deleting a value from a cell
-			// -> rebuild everything from scratch!
-			// adjusts unsolvedCellsAnz as well!
-			rebuildInternalData();
+			if (freeInvalid) {
+				// free has not been adjusted for all changes (puzzle invalid),
+				// the singles queues cannot be trusted either -> rebuild
+				// everything from scratch!
+				rebuildInternalData();
+			} else {
+				// the queues can contain Singles that are not valid anymore (old
+				// entries for the cell itself, Singles that have become invalid
+				// while the value was set) -> delete them
+				nsQueue.deleteInvalidSingles(cells, true);
+				hsQueue.deleteInvalidSingles(cells, false);
+			}
 		}
 		
 		return valid;
 	}
 
 	public void setCellBS(int index, int value) {
+		invalidateJournal();
+		freeInvalid = true;
 
 		values[index] = value;
 
@@ -2065,6 +2226,122 @@ public class Sudoku2 implements Cloneable {
 		}
 	}
 
+	/**
+	 * Sets a new mark in the undo journal. Until the journal is cleared (see
+	 * {@link #clearJournal()}) all changes made by {@link #setCell(int, int)},
+	 * {@link #setCandidate(int, int, boolean)} and the methods delegating to them
+	 * are recorded and can be undone by {@link #rollBack(int)}. Marks can be
+	 * nested.<br>
+	 * Methods that replace the whole sudoku (like {@link #set(sudoku.Sudoku2)} or
+	 * {@link #setSudoku(java.lang.String)}) cannot be undone; changes made
+	 * directly in the arrays returned by the getters are not recorded at all.
+	 *
+	 * @return The mark
+	 */
+	public int mark() {
+		if (journal == null) {
+			journal = new int[LENGTH * 16];
+			markJournalSizes = new int[LENGTH + 1];
+			markUnsolvedCellsAnz = new int[LENGTH + 1];
+			markFreeInvalid = new boolean[LENGTH + 1];
+			markQueues = new int[LENGTH + 1][];
+			markFree = new byte[LENGTH + 1][];
+		}
+		if (markCount == markJournalSizes.length) {
+			markJournalSizes = Arrays.copyOf(markJournalSizes, markCount * 2);
+			markUnsolvedCellsAnz = Arrays.copyOf(markUnsolvedCellsAnz, markCount * 2);
+			markFreeInvalid = Arrays.copyOf(markFreeInvalid, markCount * 2);
+			markQueues = Arrays.copyOf(markQueues, markCount * 2);
+			markFree = Arrays.copyOf(markFree, markCount * 2);
+		}
+		markJournalSizes[markCount] = journalSize;
+		markUnsolvedCellsAnz[markCount] = unsolvedCellsAnz;
+		markFreeInvalid[markCount] = freeInvalid;
+		int anz = 2 + nsQueue.size() + hsQueue.size();
+		if (markQueues[markCount] == null || markQueues[markCount].length < anz) {
+			markQueues[markCount] = new int[Math.max(anz, 16)];
+		}
+		int[] queues = markQueues[markCount];
+		queues[0] = nsQueue.save(queues, 2);
+		queues[1] = hsQueue.save(queues, 2 + queues[0]);
+		if (markFree[markCount] == null) {
+			markFree[markCount] = new byte[free.length * (UNITS + 1)];
+		}
+		byte[] freeCopy = markFree[markCount];
+		for (int i = 0; i < free.length; i++) {
+			System.arraycopy(free[i], 0, freeCopy, i * (UNITS + 1), UNITS + 1);
+		}
+		return markCount++;
+	}
+
+	/**
+	 * Undoes all changes made since <code>mark</code> was set. <code>mark</code>
+	 * stays valid, all marks set after it are deleted.
+	 *
+	 * @param mark
+	 * @return <code>false</code>, if the sudoku has been changed in a way that
+	 *         cannot be undone (the journal is cleared, the caller has to restore
+	 *         the sudoku by other means)
+	 */
+	public boolean rollBack(int mark) {
+		if (journalBroken || mark >= markCount) {
+			clearJournal();
+			return false;
+		}
+		int start = markJournalSizes[mark];
+		while (journalSize > start) {
+			int entry = journal[--journalSize];
+			int index = entry & 0x7f;
+			cells[index] = (short) ((entry >> 7) & MAX_MASK);
+			userCells[index] = (short) ((entry >> 16) & MAX_MASK);
+			values[index] = (entry >> 25) & 0x0f;
+			fixed[index] = (entry & JOURNAL_FIXED) != 0;
+		}
+		byte[] freeCopy = markFree[mark];
+		for (int i = 0; i < free.length; i++) {
+			System.arraycopy(freeCopy, i * (UNITS + 1), free[i], 0, UNITS + 1);
+		}
+		unsolvedCellsAnz = markUnsolvedCellsAnz[mark];
+		freeInvalid = markFreeInvalid[mark];
+		int[] queues = markQueues[mark];
+		nsQueue.restore(queues, 2, queues[0]);
+		hsQueue.restore(queues, 2 + queues[0], queues[1]);
+		markCount = mark + 1;
+		return true;
+	}
+
+	/**
+	 * Deletes all marks and stops recording changes.
+	 */
+	public void clearJournal() {
+		markCount = 0;
+		journalSize = 0;
+		journalBroken = false;
+	}
+
+	/**
+	 * Records the current state of cell <code>index</code> in {@link #journal}.
+	 *
+	 * @param index
+	 */
+	private void journalCell(int index) {
+		if (journalSize == journal.length) {
+			journal = Arrays.copyOf(journal, journalSize * 2);
+		}
+		journal[journalSize++] = index | (cells[index] << 7) | (userCells[index] << 16) | (values[index] << 25)
+				| (fixed[index] ? JOURNAL_FIXED : 0);
+	}
+
+	/**
+	 * Called by all methods whose changes cannot be recorded in the journal: if a
+	 * mark is set, the next {@link #rollBack(int)} fails.
+	 */
+	private void invalidateJournal() {
+		if (markCount > 0) {
+			journalBroken = true;
+		}
+	}
+
 	/**
 	 * Checks if a certain value is valid for a certain index.
 	 * 
@@ -2359,43 +2636,62 @@ public class Sudoku2 implements Cloneable {
 //    }
 
 	/**
-	 * Create all 46656 possible templates. Since the calculation has become
-	 * incredibly slow on Windows 7 64bit, the templates are read from a file.
+	 * Holds all templates. The templates are read when {@link #getTemplates()} is
+	 * called for the first time (class initialization is thread safe).
 	 */
-	private static void initTemplates() {
-		// alle 46656 möglichen Templates anlegen
+	private static class TemplatesHolder {
+		static final long[] TEMPLATES = readTemplates();
+	}
+
+	/**
+	 * Returns all {@link #TEMPLATE_ANZ} templates. Template <code>i</code> is
+	 * stored in two longs: the mask for cells 0 to 63 at index <code>2 * i</code>,
+	 * the mask for cells 64 to 80 at index <code>2 * i + 1</code> (see
+	 * {@link SudokuSetBase#getMask1()} and {@link SudokuSetBase#getMask2()}). The
+	 * array must not be changed.
+	 * 
+	 * @return
+	 */
+	public static long[] getTemplates() {
+		return TemplatesHolder.TEMPLATES;
+	}
+
+	/**
+	 * Reads all 46656 possible templates. Since the calculation has become
+	 * incredibly slow on Windows 7 64bit, the templates are read from a file
+	 * (two big endian longs per template).
+	 * 
+	 * @return
+	 */
+	private static long[] readTemplates() {
+		long[] templates = new long[TEMPLATE_ANZ * 2];
+		DataInputStream in = null;
 		try {
-			// System.out.println("Start Templates lesen...");
 			long ticks = System.currentTimeMillis();
-			ObjectInputStream in = new ObjectInputStream(Sudoku2.class.getResourceAsStream("/templates.dat"));
-			templates = (SudokuSetBase[]) in.readObject();
-			in.close();
+			in = new DataInputStream(new BufferedInputStream(Sudoku2.class.getResourceAsStream("/templates.bin")));
+			byte[] data = new byte[templates.length * 8];
+			in.readFully(data);
+			ByteBuffer.wrap(data).asLongBuffer().get(templates);
 			ticks = System.currentTimeMillis() - ticks;
 			// System.out.println("Templates lesen: " + ticks + "ms");
 		} catch (Exception ex) {
-			ex.printStackTrace();
-		}
-//        //Sudoku2 sudoku = new Sudoku2(false);
-//        Sudoku2 sudoku = new Sudoku2();
-//        SudokuSetBase set = new SudokuSetBase();
-//        initTemplatesRecursive(sudoku, 0, 0, 1, set);
-//        try {
-////            PrintWriter out = new PrintWriter(new FileWriter("templates.txt"));
-////            for (int i = 0; i < templates.length; i++) {
-////                if ((i % 2) == 0) {
-////                    out.print("        new SudokuSetBase(" + templates[i].mask1 + "L, " + templates[i].mask2 + "L),");
-////                } else {
-////                    out.println(" new SudokuSetBase(" + templates[i].mask1 + "L, " + templates[i].mask2 + "L),");
-////                }
-////            }
-////            out.close();
-//            ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream("templates.dat"));
-//            out.writeObject(templates);
-//            out.close();
-//        } catch (Exception ex) {
-//            ex.printStackTrace();
-//        }
+			Logger.getLogger(Sudoku2.class.getName()).log(Level.SEVERE, "Error reading templates", ex);
+		} finally {
+			if (in != null) {
+				try {
+					in.close();
+				} catch (IOException ex) {
+					// ignore
+				}
+			}
+		}
+		return templates;
+	}
 
+	/**
+	 * Initializes the templates for the houses.
+	 */
+	private static void initTemplates() {
 		// jetzt noch die Templates für die Häuser
 		for (int i = 0; i < ROWS.length; i++) {
 			for (int j = 0; j < ROWS[i].length; j++) {
@@ -2434,6 +2730,7 @@ public class Sudoku2 implements Cloneable {
 	 * Makes all cells editable; needed to edit a puzzle
 	 */
 	public void setNoClues() {
+		invalidateJournal();
 		for (int i = 0; i < fixed.length; i++) {
 			fixed[i] = false;
 		}
@@ -2449,6 +2746,7 @@ public class Sudoku2 implements Cloneable {
 	 * @param givens
 	 */
 	public void setGivens(String givens) {
+		invalidateJournal();
 		for (int i = 0; i < givens.length(); i++) {
 			char ch = givens.charAt(i);
 			if (Character.isDigit(ch) && ch != '0') {
@@ -2552,6 +2850,8 @@ public class Sudoku2 implements Cloneable {
 	 * @param values the values to set
 	 */
 	public void setValues(int[] values) {
+		invalidateJournal();
+		freeInvalid = true;
 		this.values = values;
 	}
 
@@ -2566,6 +2866,7 @@ public class Sudoku2 implements Cloneable {
 	 * @param solution the solution to set
 	 */
 	public void setSolution(int[] solution) {
+		invalidateJournal();
 		this.solution = solution;
 		solutionSet = true;
 	}
@@ -2595,6 +2896,7 @@ public class Sudoku2 implements Cloneable {
 	 * @param fixed the fixed to set
 	 */
 	public void setFixed(boolean[] fixed) {
+		invalidateJournal();
 		this.fixed = fixed;
 	}
 
@@ -2619,6 +2921,8 @@ public class Sudoku2 implements Cloneable {
 	 * @param cells the cells to set
 	 */
 	public void setCells(short[] cells) {
+		invalidateJournal();
+		freeInvalid = true;
 		this.cells = cells;
 	}
 
@@ -2633,6 +2937,7 @@ public class Sudoku2 implements Cloneable {
 	 * @param userCells the userCells to set
 	 */
 	public void setUserCells(short[] userCells) {
+		invalidateJournal();
 		this.userCells = userCells;
 	}
 
@@ -2647,6 +2952,8 @@ public class Sudoku2 implements Cloneable {
 	 * @param free the free to set
 	 */
 	public void setFree(byte[][] free) {
+		invalidateJournal();
+		freeInvalid = true;
 		this.free = free;
 	}
 
@@ -2661,6 +2968,7 @@ public class Sudoku2 implements Cloneable {
 	 * @param unsolvedCellsAnz the unsolvedCellsAnz to set
 	 */
 	public void setUnsolvedCellsAnz(int unsolvedCellsAnz) {
+		invalidateJournal();
 		this.unsolvedCellsAnz = unsolvedCellsAnz;
 	}
 
@@ -2675,6 +2983,7 @@ public class Sudoku2 implements Cloneable {
 	 * @param nsQueue the nsQueue to set
 	 */
 	public void setNsQueue(SudokuSinglesQueue nsQueue) {
+		invalidateJournal();
 		this.nsQueue = nsQueue;
 	}
 
@@ -2689,6 +2998,7 @@ public class Sudoku2 implements Cloneable {
 	 * @param hsQueue the hsQueue to set
 	 */
 	public void setHsQueue(SudokuSinglesQueue hsQueue) {
+		invalidateJournal();
 		this.hsQueue = hsQueue;
 	}
 
@@ -0,0 +1,321 @@
+/*
+ * Copyright (C) 2021 Aarre Laakso
+ *
+ * This file is part of HoDoKu.
+ *
+ * HoDoKu is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * HoDoKu is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with HoDoKu. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package sudoku;
+
+/**
+ * Calculates the minlex form of a sudoku: the lexicographically smallest grid
+ * (empty cells count as 0) that can be reached by transposition, permutation
+ * of bands, stacks, rows within a band and columns within a stack and by
+ * relabelling the digits. Two puzzles are isomorphic, if their minlex forms
+ * are equal.<br>
+ * The search starts with every row of the sudoku and its transposition as first
+ * row. The stacks and columns are chosen stack by stack to minimize the first
+ * row, then the other rows are chosen one after another. A branch is abandoned
+ * as soon as the grid becomes greater than the best grid found so far (the
+ * digits are always relabelled in the order of their first appearance, which
+ * gives the smallest labelling), so only a small part of the 3359232
+ * transformations is actually built.<br>
+ * The result is available as grid, as String and as 128 bit hash (two longs).
+ * <br>
+ * Instances are not thread safe, every thread needs its own canonicalizer.
+ *
+ * @author Aarre Laakso
+ */
+public final class SudokuCanonicalizer {
+	/** All permutations of three elements. */
+	private static final int[][] PERMS_3 = { { 0, 1, 2 }, { 0, 2, 1 }, { 1, 0, 2 }, { 1, 2, 0 }, { 2, 0, 1 },
+			{ 2, 1, 0 } };
+	/** The sudoku and its transposition. */
+	private final int[][] grids = new int[2][81];
+	/** The current grid (one transformation, may be incomplete). */
+	private final int[] cur = new int[81];
+	/** The smallest grid found so far, valid up to row {@link #bestRows}. */
+	private final int[] best = new int[81];
+	/** Number of rows in {@link #best}, that have already been set. */
+	private int bestRows;
+	/** The current grid ({@link #grids}). */
+	private int[] grid;
+	/** The current column permutation, new column -> old column. */
+	private final int[] colPerm = new int[9];
+	private final boolean[] stackUsed = new boolean[3];
+	/** The first row of the current grid (see {@link #searchColumns(int, int)}). */
+	private int firstRow;
+	/** The relabelling of the digits on every level of the search. */
+	private final int[][] labels = new int[10][10];
+	/** The relabelling of the digits while the first row is built. */
+	private final int[][] columnLabels = new int[4][10];
+	/** The next free label on every level of the search. */
+	private final int[] nextLabel = new int[10];
+	private final boolean[] rowUsed = new boolean[9];
+	private final boolean[] bandUsed = new boolean[3];
+	private long hashHigh;
+	private long hashLow;
+
+	/**
+	 * Calculates the minlex form of the values of <code>sudoku</code>.
+	 *
+	 * @param sudoku
+	 */
+	public void canonicalize(Sudoku2 sudoku) {
+		canonicalize(sudoku.getValues());
+	}
+
+	/**
+	 * Calculates the minlex form of <code>values</code> (81 cells, 0 means
+	 * empty).
+	 *
+	 * @param values
+	 */
+	public void canonicalize(int[] values) {
+		for (int row = 0; row < 9; row++) {
+			for (int col = 0; col < 9; col++) {
+				grids[0][row * 9 + col] = values[row * 9 + col];
+				grids[1][col * 9 + row] = values[row * 9 + col];
+			}
+		}
+		bestRows = 0;
+		for (int t = 0; t < grids.length; t++) {
+			grid = grids[t];
+			for (int row = 0; row < 9; row++) {
+				firstRow = row;
+				searchColumns(0, 0);
+			}
+		}
+		calculateHash();
+	}
+
+	/**
+	 * Builds the first row of the grid from {@link #firstRow}: every unused stack
+	 * in every column order is tried at position <code>stack</code>. When all
+	 * columns are set, the other rows are searched.
+	 *
+	 * @param stack
+	 * @param next
+	 */
+	private void searchColumns(int stack, int next) {
+		if (stack == 3) {
+			boolean less = bestRows == 0;
+			for (int col = 0; col < 9 && !less; col++) {
+				if (cur[col] != best[col]) {
+					// cannot be greater (checked in the loop below)
+					less = true;
+				}
+			}
+			if (less) {
+				System.arraycopy(cur, 0, best, 0, 9);
+				bestRows = 1;
+			}
+			System.arraycopy(columnLabels[stack], 0, labels[1], 0, 10);
+			nextLabel[1] = next;
+			int band = firstRow / 3;
+			bandUsed[band] = true;
+			rowUsed[firstRow] = true;
+			searchRows(1, band);
+			rowUsed[firstRow] = false;
+			bandUsed[band] = false;
+			return;
+		}
+		int[] label = columnLabels[stack + 1];
+		int base = stack * 3;
+		int rowBase = firstRow * 9;
+		for (int s = 0; s < 3; s++) {
+			if (stackUsed[s]) {
+				continue;
+			}
+			stackUsed[s] = true;
+			for (int[] perm : PERMS_3) {
+				System.arraycopy(columnLabels[stack], 0, label, 0, 10);
+				int newNext = next;
+				for (int c = 0; c < 3; c++) {
+					int col = s * 3 + perm[c];
+					colPerm[base + c] = col;
+					int value = grid[rowBase + col];
+					if (value != 0) {
+						if (label[value] == 0) {
+							label[value] = ++newNext;
+						}
+						value = label[value];
+					}
+					cur[base + c] = value;
+				}
+				// best can change in every branch: compare the whole prefix
+				int cmp = 0;
+				if (bestRows > 0) {
+					for (int col = 0; col < base + 3 && cmp == 0; col++) {
+						cmp = cur[col] - best[col];
+					}
+				}
+				if (cmp <= 0) {
+					searchColumns(stack + 1, newNext);
+				}
+			}
+			stackUsed[s] = false;
+		}
+	}
+
+	/**
+	 * Tries all rows allowed at <code>depth</code>: the first row of a band
+	 * can be taken from every unused band, the other rows only from the band of
+	 * the first row.
+	 *
+	 * @param depth
+	 * @param band
+	 */
+	private void searchRows(int depth, int band) {
+		if (depth == 9) {
+			return;
+		}
+		if (depth % 3 == 0) {
+			for (int b = 0; b < 3; b++) {
+				if (!bandUsed[b]) {
+					bandUsed[b] = true;
+					for (int r = 0; r < 3; r++) {
+						tryRow(depth, b * 3 + r, b);
+					}
+					bandUsed[b] = false;
+				}
+			}
+		} else {
+			for (int r = band * 3; r < band * 3 + 3; r++) {
+				if (!rowUsed[r]) {
+					tryRow(depth, r, band);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Puts <code>row</code> at position <code>depth</code> of the current
+	 * grid. If the grid becomes greater than {@link #best}, the search stops; if
+	 * it becomes smaller, it replaces {@link #best}.
+	 *
+	 * @param depth
+	 * @param row
+	 * @param band
+	 */
+	private void tryRow(int depth, int row, int band) {
+		int[] label = labels[depth + 1];
+		System.arraycopy(labels[depth], 0, label, 0, 10);
+		int next = nextLabel[depth];
+		boolean less = depth >= bestRows;
+		int base = depth * 9;
+		int rowBase = row * 9;
+		for (int col = 0; col < 9; col++) {
+			int value = grid[rowBase + colPerm[col]];
+			if (value != 0) {
+				if (label[value] == 0) {
+					label[value] = ++next;
+				}
+				value = label[value];
+			}
+			cur[base + col] = value;
+			if (!less) {
+				if (value > best[base + col]) {
+					return;
+				}
+				if (value < best[base + col]) {
+					less = true;
+				}
+			}
+		}
+		if (less) {
+			// new best grid; the rest of it has to be built again
+			System.arraycopy(cur, base, best, base, 9);
+			bestRows = depth + 1;
+		}
+		nextLabel[depth + 1] = next;
+		rowUsed[row] = true;
+		searchRows(depth + 1, band);
+		rowUsed[row] = false;
+	}
+
+	/**
+	 * Two independent 64 bit hashes over the minlex grid (16 cells per long).
+	 */
+	private void calculateHash() {
+		long high = 0x9E3779B97F4A7C15L;
+		long low = 0xC2B2AE3D27D4EB4FL;
+		for (int i = 0; i < 81; i += 16) {
+			long word = 0;
+			for (int j = i; j < i + 16 && j < 81; j++) {
+				word = (word << 4) | best[j];
+			}
+			high = mix(high ^ word);
+			low = mix(low + word * 0x165667B19E3779F9L);
+		}
+		hashHigh = high;
+		hashLow = low;
+	}
+
+	/**
+	 * The finalizer of SplitMix64.
+	 *
+	 * @param z
+	 * @return
+	 */
+	private static long mix(long z) {
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+
+	/**
+	 * The minlex grid of the last call to {@link #canonicalize(int[])}. The
+	 * array is reused.
+	 *
+	 * @return
+	 */
+	public int[] getCanonicalValues() {
+		return best;
+	}
+
+	/**
+	 * The minlex grid as 81 character String ('.' for empty cells).
+	 *
+	 * @return
+	 */
+	public String getCanonicalString() {
+		StringBuilder tmp = new StringBuilder(81);
+		for (int i = 0; i < 81; i++) {
+			tmp.append(best[i] == 0 ? '.' : (char) ('0' + best[i]));
+		}
+		return tmp.toString();
+	}
+
+	/**
+	 * The upper 64 bits of the 128 bit hash of the minlex grid.
+	 *
+	 * @return
+	 */
+	public long getHashHigh() {
+		return hashHigh;
+	}
+
+	/**
+	 * The lower 64 bits of the 128 bit hash of the minlex grid; can be used
+	 * alone as 64 bit hash.
+	 *
+	 * @return
+	 */
+	public long getHashLow() {
+		return hashLow;
+	}
+}
@@ -0,0 +1,610 @@
+/*
+ * Copyright (C) 2021 Aarre Laakso
+ *
+ * This file is part of HoDoKu.
+ *
+ * HoDoKu is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * HoDoKu is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with HoDoKu. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package sudoku;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.geom.Point2D;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import javax.imageio.ImageIO;
+
+/**
+ * Draws a {@link Sudoku2} without a {@link SudokuPanel}: as image (PNG), as
+ * SVG or as PDF document. The layout, the colors and the fonts are taken from
+ * {@link Options} and follow the printout of the panel: values, optionally
+ * all candidates and optionally a {@link SolutionStep} highlighted as in the
+ * hint display (candidates, fins, ALS, deletions and chains).<br>
+ * Filters, coloring and cursors belong to the GUI and are not drawn. The
+ * drawing itself is done by a {@link RenderTarget}, no display is needed
+ * (<code>java.awt.headless</code>).<br>
+ * Instances are not thread safe, every thread needs its own renderer.
+ *
+ * @author Aarre Laakso
+ */
+public final class SudokuRenderer {
+	/** The output formats. */
+	public enum Format {
+		PNG, SVG, PDF;
+
+		/**
+		 * The file extension for the format.
+		 *
+		 * @return
+		 */
+		public String getExtension() {
+			return name().toLowerCase();
+		}
+	}
+
+	/** Height of a digit relative to the font size (ascent - descent). */
+	private static final double DIGIT_HEIGHT = 0.75;
+	private static final double ARROW_LENGTH_FACTOR = 1.0 / 6.0;
+	private static final double ARROW_HEIGHT_FACTOR = 1.0 / 3.0;
+
+	/** Width and height of the drawing in pixels. */
+	private final int size;
+	private boolean showCandidates = false;
+
+	// layout, calculated in layout() (see SudokuPanel.calculateGridRegion())
+	private double strokeWidth;
+	private double boxStrokeWidth;
+	private int delta;
+	private int cellSize;
+	private int gridX;
+	private int gridY;
+	private int gridSize;
+	/** Diameter of the background circle of a candidate. */
+	private double ddy;
+	private double linkWidth;
+
+	// colors of the candidate, that is drawn at the moment
+	private Color hintColor;
+	private Color candColor;
+	/** All candidates, that can be in the way of a chain link. */
+	private final List<Point2D.Double> points = new ArrayList<Point2D.Double>();
+
+	/**
+	 * Creates a renderer for drawings <code>size</code> pixels wide and high.
+	 *
+	 * @param size
+	 */
+	public SudokuRenderer(int size) {
+		this.size = size;
+		layout();
+	}
+
+	public boolean isShowCandidates() {
+		return showCandidates;
+	}
+
+	/**
+	 * If set, all candidates of the empty cells are drawn; otherwise only the
+	 * values. If a step is shown, the candidates are always drawn.
+	 *
+	 * @param showCandidates
+	 */
+	public void setShowCandidates(boolean showCandidates) {
+		this.showCandidates = showCandidates;
+	}
+
+	/**
+	 * Draws <code>sudoku</code> as image.
+	 *
+	 * @param sudoku
+	 * @param step   The step to highlight (may be <code>null</code>)
+	 * @return
+	 */
+	public BufferedImage getImage(Sudoku2 sudoku, SolutionStep step) {
+		BufferedImage image = new BufferedImage(size, size, BufferedImage.TYPE_3BYTE_BGR);
+		Graphics2D g = image.createGraphics();
+		try {
+			render(sudoku, step, new Graphics2DRenderTarget(g, getFontName()));
+		} finally {
+			g.dispose();
+		}
+		return image;
+	}
+
+	/**
+	 * Draws <code>sudoku</code> as SVG document.
+	 *
+	 * @param sudoku
+	 * @param step   The step to highlight (may be <code>null</code>)
+	 * @return
+	 */
+	public String getSvg(Sudoku2 sudoku, SolutionStep step) {
+		SvgRenderTarget target = new SvgRenderTarget(size, size, getFontName());
+		render(sudoku, step, target);
+		return target.getDocument();
+	}
+
+	/**
+	 * Draws <code>sudoku</code> as PDF document (one page).
+	 *
+	 * @param sudoku
+	 * @param step   The step to highlight (may be <code>null</code>)
+	 * @return
+	 */
+	public byte[] getPdf(Sudoku2 sudoku, SolutionStep step) {
+		PdfRenderTarget target = new PdfRenderTarget(size, size);
+		render(sudoku, step, target);
+		return target.getDocument();
+	}
+
+	/**
+	 * Draws <code>sudoku</code> and writes it to <code>file</code>.
+	 *
+	 * @param sudoku
+	 * @param step   The step to highlight (may be <code>null</code>)
+	 * @param format
+	 * @param file
+	 * @throws IOException
+	 */
+	public void write(Sudoku2 sudoku, SolutionStep step, Format format, File file) throws IOException {
+		if (format == Format.PNG) {
+			if (!ImageIO.write(getImage(sudoku, step), "png", file)) {
+				throw new IOException("No PNG writer available");
+			}
+			return;
+		}
+		byte[] data = format == Format.SVG ? getSvg(sudoku, step).getBytes(StandardCharsets.UTF_8)
+				: getPdf(sudoku, step);
+		OutputStream out = new FileOutputStream(file);
+		try {
+			out.write(data);
+		} finally {
+			out.close();
+		}
+	}
+
+	private static String getFontName() {
+		return Options.getInstance().getDefaultValueFont().getName();
+	}
+
+	/**
+	 * Calculates the size of the cells and the lines like
+	 * <code>SudokuPanel.calculateGridRegion()</code>; the grid is centered.
+	 */
+	private void layout() {
+		Options options = Options.getInstance();
+		strokeWidth = 2.0 / 1000.0 * size;
+		if (size > 1000) {
+			strokeWidth *= 1.5;
+		}
+		boxStrokeWidth = strokeWidth * options.getBoxLineFactor();
+		int strokeWidthInt = (int) Math.round(boxStrokeWidth / 2);
+		delta = size / 100;
+		int deltaRand = Math.max(size / 100, strokeWidthInt);
+		if (options.getDrawMode() == 1) {
+			delta = 0;
+		}
+		cellSize = (size - 4 * delta - 2 * deltaRand) / Sudoku2.UNITS;
+		gridSize = cellSize * Sudoku2.UNITS + 4 * delta;
+		gridX = gridY = (size - gridSize) / 2;
+		ddy = cellSize * options.getCandidateFontFactor() * DIGIT_HEIGHT * options.getHintBackFactor();
+		linkWidth = Math.max(1.5, strokeWidth * 1.5);
+	}
+
+	private int getX(int col) {
+		return gridX + col * cellSize + (col / 3 + 1) * delta;
+	}
+
+	private int getY(int row) {
+		return gridY + row * cellSize + (row / 3 + 1) * delta;
+	}
+
+	/**
+	 * Draws <code>sudoku</code> on <code>target</code>.
+	 *
+	 * @param sudoku
+	 * @param step
+	 * @param target
+	 */
+	void render(Sudoku2 sudoku, SolutionStep step, RenderTarget target) {
+		Options options = Options.getInstance();
+		target.fillRect(0, 0, size, size, Color.WHITE);
+
+		double third = cellSize / 3.0;
+		double valueSize = cellSize * options.getValueFontFactor();
+		double candidateSize = cellSize * options.getCandidateFontFactor();
+		for (int index = 0; index < Sudoku2.LENGTH; index++) {
+			int x = getX(Sudoku2.getCol(index));
+			int y = getY(Sudoku2.getRow(index));
+			Color background = Sudoku2.getBlock(index) % 2 != 0 ? options.getAlternateCellColor()
+					: options.getDefaultCellColor();
+			target.fillRect(x, y, cellSize, cellSize, background);
+
+			int value = sudoku.getValue(index);
+			if (value != 0) {
+				Color color = sudoku.isFixed(index) ? options.getCellFixedValueColor() : options.getCellValueColor();
+				target.drawText(Integer.toString(value), x + cellSize / 2.0, y + cellSize / 2.0, valueSize, color);
+				continue;
+			}
+			if (!showCandidates && step == null) {
+				continue;
+			}
+			for (int cand = 1; cand <= Sudoku2.UNITS; cand++) {
+				if (!sudoku.isCandidate(index, cand)) {
+					continue;
+				}
+				getCandidateColors(step, index, cand);
+				double cx = x + ((cand - 1) % 3) * third + third / 2.0;
+				double cy = y + ((cand - 1) / 3) * third + third / 2.0;
+				if (hintColor != null) {
+					target.fillOval(cx - ddy / 2.0, cy - ddy / 2.0, ddy, ddy, hintColor);
+				}
+				target.drawText(Integer.toString(cand), cx, cy, candidateSize, candColor);
+			}
+		}
+
+		drawGrid(target);
+
+		if (step != null && !step.getChains().isEmpty() && !step.getType().isKrakenFish()) {
+			collectPoints(sudoku, step);
+			for (Chain chain : step.getChains()) {
+				drawChain(target, chain);
+			}
+		}
+	}
+
+	/**
+	 * Sets {@link #hintColor} and {@link #candColor} for a candidate like
+	 * <code>SudokuPanel.drawPage()</code> (with all chains shown).
+	 *
+	 * @param step
+	 * @param index
+	 * @param cand
+	 */
+	private void getCandidateColors(SolutionStep step, int index, int cand) {
+		Options options = Options.getInstance();
+		hintColor = null;
+		candColor = options.getCandidateColor();
+		if (step == null) {
+			return;
+		}
+		if (step.getIndices().indexOf(index) >= 0 && step.getValues().indexOf(cand) >= 0) {
+			hintColor = options.getHintCandidateBackColor();
+			candColor = options.getHintCandidateColor();
+		}
+		int alsIndex = step.getAlsIndex(index, -1);
+		if (alsIndex != -1 && !step.getType().isKrakenFish()) {
+			hintColor = options.getHintCandidateAlsBackColors()[alsIndex
+					% options.getHintCandidateAlsBackColors().length];
+			candColor = options.getHintCandidateAlsColors()[alsIndex % options.getHintCandidateAlsColors().length];
+		}
+		if (!step.getType().isKrakenFish()) {
+			for (Chain chain : step.getChains()) {
+				for (int j = chain.getStart(); j <= chain.getEnd(); j++) {
+					if (chain.getChain()[j] == Integer.MIN_VALUE) {
+						// end of a net branch
+						continue;
+					}
+					int chainEntry = Math.abs(chain.getChain()[j]);
+					if (Chain.getSCandidate(chainEntry) != cand) {
+						continue;
+					}
+					boolean inNode = Chain.getSCellIndex(chainEntry) == index;
+					if (Chain.getSNodeType(chainEntry) == Chain.GROUP_NODE) {
+						inNode |= Chain.getSCellIndex2(chainEntry) == index
+								|| Chain.getSCellIndex3(chainEntry) == index;
+					} else if (Chain.getSNodeType(chainEntry) != Chain.NORMAL_NODE) {
+						inNode = false;
+					}
+					if (inNode) {
+						if (Chain.isSStrong(chainEntry)) {
+							hintColor = options.getHintCandidateBackColor();
+							candColor = options.getHintCandidateColor();
+						} else {
+							hintColor = options.getHintCandidateFinBackColor();
+							candColor = options.getHintCandidateFinColor();
+						}
+					}
+				}
+			}
+		}
+		if (contains(step.getFins(), index, cand)) {
+			hintColor = options.getHintCandidateFinBackColor();
+			candColor = options.getHintCandidateFinColor();
+		}
+		if (contains(step.getEndoFins(), index, cand)) {
+			hintColor = options.getHintCandidateEndoFinBackColor();
+			candColor = options.getHintCandidateEndoFinColor();
+		}
+		if (step.getValues().contains(cand) && step.getColorCandidates().containsKey(index)) {
+			hintColor = options.getColoringColors()[step.getColorCandidates().get(index)];
+			candColor = options.getCandidateColor();
+		}
+		if (contains(step.getCandidatesToDelete(), index, cand)) {
+			hintColor = options.getHintCandidateDeleteBackColor();
+			candColor = options.getHintCandidateDeleteColor();
+		}
+		if (contains(step.getCannibalistic(), index, cand)) {
+			hintColor = options.getHintCandidateCannibalisticBackColor();
+			candColor = options.getHintCandidateCannibalisticColor();
+		}
+	}
+
+	private static boolean contains(List<Candidate> candidates, int index, int cand) {
+		for (Candidate candidate : candidates) {
+			if (candidate.getIndex() == index && candidate.getValue() == cand) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Draws the lines of the grid according to
+	 * {@link Options#getDrawMode()}.
+	 *
+	 * @param target
+	 */
+	private void drawGrid(RenderTarget target) {
+		Options options = Options.getInstance();
+		Color inner = options.getInnerGridColor();
+		Color outer = options.getGridColor();
+		int blockSize = 3 * cellSize;
+		for (int band = 0; band < 3; band++) {
+			for (int stack = 0; stack < 3; stack++) {
+				int x = getX(stack * 3);
+				int y = getY(band * 3);
+				for (int i = 1; i < 3; i++) {
+					target.drawLine(x, y + i * cellSize, x + blockSize, y + i * cellSize, inner, strokeWidth, false);
+					target.drawLine(x + i * cellSize, y, x + i * cellSize, y + blockSize, inner, strokeWidth, false);
+				}
+				if (options.getDrawMode() == 0) {
+					target.drawRect(x, y, blockSize, blockSize, inner, strokeWidth);
+				}
+			}
+		}
+		target.drawRect(gridX, gridY, gridSize, gridSize, outer, boxStrokeWidth);
+		for (int band = 0; band < 3; band++) {
+			for (int stack = 0; stack < 3; stack++) {
+				if (options.getDrawMode() == 0) {
+					target.drawRect(getX(stack * 3), getY(band * 3), blockSize, blockSize, outer, boxStrokeWidth);
+				}
+			}
+		}
+		if (options.getDrawMode() == 1) {
+			for (int i = 1; i < 3; i++) {
+				target.drawLine(gridX, gridY + i * blockSize, gridX + gridSize, gridY + i * blockSize, outer,
+						boxStrokeWidth, false);
+				target.drawLine(gridX + i * blockSize, gridY, gridX + i * blockSize, gridY + gridSize, outer,
+						boxStrokeWidth, false);
+			}
+		}
+	}
+
+	/**
+	 * The center of the position of candidate <code>cand</code> in cell
+	 * <code>index</code>.
+	 *
+	 * @param index
+	 * @param cand
+	 * @return
+	 */
+	private Point2D.Double getCandidatePoint(int index, int cand) {
+		double third = cellSize / 3.0;
+		return new Point2D.Double(getX(Sudoku2.getCol(index)) + ((cand - 1) % 3) * third + third / 2.0,
+				getY(Sudoku2.getRow(index)) + ((cand - 1) / 3) * third + third / 2.0);
+	}
+
+	/**
+	 * Collects all candidates, that should not be crossed by a chain link: the
+	 * nodes of the chains, the candidates to delete and the candidates of all
+	 * ALS.
+	 *
+	 * @param sudoku
+	 * @param step
+	 */
+	private void collectPoints(Sudoku2 sudoku, SolutionStep step) {
+		points.clear();
+		for (Chain chain : step.getChains()) {
+			for (int i = chain.getStart(); i <= chain.getEnd(); i++) {
+				int entry = Math.abs(chain.getChain()[i]);
+				points.add(getCandidatePoint(Chain.getSCellIndex(entry), Chain.getSCandidate(entry)));
+				if (Chain.getSNodeType(entry) == Chain.GROUP_NODE) {
+					if (Chain.getSCellIndex2(entry) != -1) {
+						points.add(getCandidatePoint(Chain.getSCellIndex2(entry), Chain.getSCandidate(entry)));
+					}
+					if (Chain.getSCellIndex3(entry) != -1) {
+						points.add(getCandidatePoint(Chain.getSCellIndex3(entry), Chain.getSCandidate(entry)));
+					}
+				}
+			}
+		}
+		for (Candidate cand : step.getCandidatesToDelete()) {
+			points.add(getCandidatePoint(cand.getIndex(), cand.getValue()));
+		}
+		for (AlsInSolutionStep als : step.getAlses()) {
+			for (int i = 0; i < als.getIndices().size(); i++) {
+				int index = als.getIndices().get(i);
+				for (int cand : sudoku.getAllCandidates(index)) {
+					points.add(getCandidatePoint(index, cand));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Draws the links of a chain (see <code>SudokuPanel.drawChain()</code>).
+	 *
+	 * @param target
+	 * @param chain
+	 */
+	private void drawChain(RenderTarget target, Chain chain) {
+		int[] ch = chain.getChain();
+		List<Point2D.Double> chainPoints = new ArrayList<Point2D.Double>(chain.getEnd() + 1);
+		for (int i = 0; i <= chain.getEnd(); i++) {
+			if (i < chain.getStart()) {
+				chainPoints.add(null);
+				continue;
+			}
+			int entry = Math.abs(ch[i]);
+			chainPoints.add(getCandidatePoint(Chain.getSCellIndex(entry), Chain.getSCandidate(entry)));
+		}
+		Color color = Options.getInstance().getArrowColor();
+		int oldEntry = 0;
+		int oldIndex = 0;
+		for (int i = chain.getStart(); i < chain.getEnd(); i++) {
+			if (ch[i + 1] == Integer.MIN_VALUE) {
+				// end point of a net branch
+				continue;
+			}
+			int index = i;
+			int entry = Math.abs(ch[i]);
+			int entry1 = Math.abs(ch[i + 1]);
+			if (ch[i] > 0 && ch[i + 1] < 0) {
+				oldEntry = entry;
+				oldIndex = i;
+			}
+			if ((ch[i] == Integer.MIN_VALUE && ch[i + 1] < 0) || (ch[i] < 0 && ch[i + 1] > 0)) {
+				entry = oldEntry;
+				index = oldIndex;
+			}
+			if (Chain.getSCellIndex(entry) == Chain.getSCellIndex(entry1)) {
+				// links within a cell are not drawn
+				continue;
+			}
+			drawArrow(target, chainPoints.get(index), chainPoints.get(i + 1), !Chain.isSStrong(entry1), color);
+		}
+	}
+
+	/**
+	 * Draws one link: a straight line or, if another candidate lies in the way,
+	 * a Bezier curve (see <code>SudokuPanel.drawArrow()</code>).
+	 *
+	 * @param target
+	 * @param from
+	 * @param to
+	 * @param dashed
+	 * @param color
+	 */
+	private void drawArrow(RenderTarget target, Point2D.Double from, Point2D.Double to, boolean dashed,
+			Color color) {
+		Point2D.Double p1 = (Point2D.Double) from.clone();
+		Point2D.Double p2 = (Point2D.Double) to.clone();
+		double length = p1.distance(p2);
+		double deltaX = p2.x - p1.x;
+		double deltaY = p2.y - p1.y;
+		double alpha = Math.atan2(deltaY, deltaX);
+		// the arrow starts and ends outside the background circles
+		double border = ddy / 2.0 + cellSize / 15.0;
+		p1.x += border * Math.cos(alpha);
+		p1.y += border * Math.sin(alpha);
+		p2.x -= border * Math.cos(alpha);
+		p2.y -= border * Math.sin(alpha);
+
+		boolean doesIntersect = length < 2.0 * ddy;
+		for (int i = 0; i < points.size() && !doesIntersect; i++) {
+			Point2D.Double point = points.get(i);
+			if (point.equals(from) || point.equals(to)) {
+				continue;
+			}
+			double dx2 = point.x - from.x;
+			double dy2 = point.y - from.y;
+			if (Math.signum(deltaX) == Math.signum(dx2) && Math.signum(deltaY) == Math.signum(dy2)
+					&& Math.abs(dx2) <= Math.abs(deltaX) && Math.abs(dy2) <= Math.abs(deltaY)) {
+				if (deltaX == 0.0 || deltaY == 0.0 || Math.abs(deltaX / deltaY - dx2 / dy2) < 0.1) {
+					doesIntersect = true;
+				}
+			}
+		}
+
+		double arrowLength = cellSize * ARROW_LENGTH_FACTOR;
+		double arrowHeight = arrowLength * ARROW_HEIGHT_FACTOR;
+		double aX = p2.x - Math.cos(alpha) * arrowLength;
+		double aY = p2.y - Math.sin(alpha) * arrowLength;
+		double aAlpha = alpha;
+		if (doesIntersect) {
+			double bezierLength = length < 2.0 * ddy ? length / 4.0 : cellSize / 3.0;
+			// the end points are rotated 45 degrees around the candidates
+			rotatePoint(from, p1, -Math.PI / 4.0);
+			rotatePoint(to, p2, Math.PI / 4.0);
+			double bX1 = p1.x + bezierLength * Math.cos(alpha - Math.PI / 4.0);
+			double bY1 = p1.y + bezierLength * Math.sin(alpha - Math.PI / 4.0);
+			double bX2 = p2.x - bezierLength * Math.cos(alpha + Math.PI / 4.0);
+			double bY2 = p2.y - bezierLength * Math.sin(alpha + Math.PI / 4.0);
+			target.drawCurve(p1.x, p1.y, bX1, bY1, bX2, bY2, p2.x, p2.y, color, linkWidth, dashed);
+			// the arrow head follows the tangent at the end of the curve
+			aAlpha = Math.atan2(p2.y - bY2, p2.x - bX2);
+			aX = p2.x - Math.cos(aAlpha) * arrowLength;
+			aY = p2.y - Math.sin(aAlpha) * arrowLength;
+		} else {
+			target.drawLine(p1.x, p1.y, p2.x, p2.y, color, linkWidth, dashed);
+		}
+
+		if (length > arrowLength * 2 + ddy) {
+			double daX = Math.sin(aAlpha) * arrowHeight;
+			double daY = Math.cos(aAlpha) * arrowHeight;
+			target.fillPolygon(new double[] { aX - daX, p2.x, aX + daX }, new double[] { aY + daY, p2.y, aY - daY },
+					color);
+		}
+	}
+
+	/**
+	 * Rotates <code>p2</code> by <code>angle</code> around <code>p1</code>.
+	 *
+	 * @param p1
+	 * @param p2
+	 * @param angle
+	 */
+	private static void rotatePoint(Point2D.Double p1, Point2D.Double p2, double angle) {
+		double x = p2.x - p1.x;
+		double y = p2.y - p1.y;
+		double sin = Math.sin(angle);
+		double cos = Math.cos(angle);
+		p2.x = x * cos - y * sin + p1.x;
+		p2.y = x * sin + y * cos + p1.y;
+	}
+
+	/**
+	 * Formats a coordinate for SVG and PDF: at most two decimals, no exponent,
+	 * independent of the locale.
+	 *
+	 * @param value
+	 * @return
+	 */
+	static String formatNumber(double value) {
+		long hundredths = Math.round(value * 100);
+		StringBuilder tmp = new StringBuilder(12);
+		if (hundredths < 0) {
+			tmp.append('-');
+			hundredths = -hundredths;
+		}
+		tmp.append(hundredths / 100);
+		int fraction = (int) (hundredths % 100);
+		if (fraction != 0) {
+			tmp.append('.').append(fraction / 10);
+			if (fraction % 10 != 0) {
+				tmp.append(fraction % 10);
+			}
+		}
+		return tmp.toString();
+	}
+}
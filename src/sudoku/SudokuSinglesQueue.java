@@ -208,6 +208,70 @@ public class SudokuSinglesQueue implements Cloneable {
 		}
 	}
 
+	/**
+	 * The number of Singles in the queue.
+	 *
+	 * @return
+	 */
+	public int size() {
+		return putIndex - getIndex;
+	}
+
+	/**
+	 * Stores all Singles in the queue in <code>buffer</code> (index and value in
+	 * one <code>int</code>), starting at <code>offset</code>. Used by the undo
+	 * journal of {@link Sudoku2}.
+	 *
+	 * @param buffer
+	 * @param offset
+	 * @return The number of entries written
+	 */
+	int save(int[] buffer, int offset) {
+		for (int i = getIndex; i < putIndex; i++) {
+			buffer[offset++] = (indices[i] << 4) | values[i];
+		}
+		return putIndex - getIndex;
+	}
+
+	/**
+	 * Replaces the contents of the queue with <code>anz</code> Singles stored by
+	 * {@link #save(int[], int)}.
+	 *
+	 * @param buffer
+	 * @param offset
+	 * @param anz
+	 */
+	void restore(int[] buffer, int offset, int anz) {
+		getIndex = 0;
+		putIndex = 0;
+		for (int i = 0; i < anz; i++) {
+			int entry = buffer[offset + i];
+			indices[putIndex] = entry >> 4;
+			values[putIndex++] = entry & 0x0f;
+		}
+	}
+
+	/**
+	 * Deletes all Singles whose value is not a candidate in its cell anymore. If
+	 * <code>nakedSingles</code> is set, the value has to be the only candidate in
+	 * the cell. The order of the remaining Singles is not changed.
+	 *
+	 * @param cells        The candidates of all cells (see
+	 *                     {@link Sudoku2#getCells()})
+	 * @param nakedSingles
+	 */
+	void deleteInvalidSingles(short[] cells, boolean nakedSingles) {
+		int newPutIndex = getIndex;
+		for (int i = getIndex; i < putIndex; i++) {
+			int cell = cells[indices[i]];
+			if (nakedSingles ? cell == Sudoku2.MASKS[values[i]] : (cell & Sudoku2.MASKS[values[i]]) != 0) {
+				indices[newPutIndex] = indices[i];
+				values[newPutIndex++] = values[i];
+			}
+		}
+		putIndex = newPutIndex;
+	}
+
 	/**
 	 * Deletes all entries in the queue.
 	 */
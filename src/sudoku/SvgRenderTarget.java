@@ -0,0 +1,145 @@
+/*
+ * Copyright (C) 2021 Aarre Laakso
+ *
+ * This file is part of HoDoKu.
+ *
+ * HoDoKu is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * HoDoKu is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with HoDoKu. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package sudoku;
+
+import java.awt.Color;
+
+/**
+ * Writes the drawing as SVG document. The text is written as text (not as
+ * outlines), the font is chosen by the viewer ("sans-serif" as fallback).
+ *
+ * @author Aarre Laakso
+ */
+final class SvgRenderTarget implements RenderTarget {
+	private final StringBuilder svg = new StringBuilder(16384);
+	private final String fontName;
+
+	SvgRenderTarget(int width, int height, String fontName) {
+		this.fontName = fontName;
+		svg.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+		svg.append("<svg xmlns=\"http://www.w3.org/2000/svg\" version=\"1.1\" width=\"").append(width)
+				.append("\" height=\"").append(height).append("\" viewBox=\"0 0 ").append(width).append(' ')
+				.append(height).append("\">\n");
+	}
+
+	@Override
+	public void fillRect(double x, double y, double width, double height, Color color) {
+		svg.append("<rect x=\"").append(format(x)).append("\" y=\"").append(format(y)).append("\" width=\"")
+				.append(format(width)).append("\" height=\"").append(format(height)).append('"');
+		appendFill(color);
+		svg.append("/>\n");
+	}
+
+	@Override
+	public void drawRect(double x, double y, double width, double height, Color color, double lineWidth) {
+		svg.append("<rect x=\"").append(format(x)).append("\" y=\"").append(format(y)).append("\" width=\"")
+				.append(format(width)).append("\" height=\"").append(format(height)).append("\" fill=\"none\"");
+		appendStroke(color, lineWidth, false);
+		svg.append("/>\n");
+	}
+
+	@Override
+	public void drawLine(double x1, double y1, double x2, double y2, Color color, double lineWidth, boolean dashed) {
+		svg.append("<line x1=\"").append(format(x1)).append("\" y1=\"").append(format(y1)).append("\" x2=\"")
+				.append(format(x2)).append("\" y2=\"").append(format(y2)).append('"');
+		appendStroke(color, lineWidth, dashed);
+		svg.append("/>\n");
+	}
+
+	@Override
+	public void drawCurve(double x1, double y1, double cx1, double cy1, double cx2, double cy2, double x2, double y2,
+			Color color, double lineWidth, boolean dashed) {
+		svg.append("<path d=\"M").append(format(x1)).append(',').append(format(y1)).append(" C")
+				.append(format(cx1)).append(',').append(format(cy1)).append(' ').append(format(cx2)).append(',')
+				.append(format(cy2)).append(' ').append(format(x2)).append(',').append(format(y2))
+				.append("\" fill=\"none\"");
+		appendStroke(color, lineWidth, dashed);
+		svg.append("/>\n");
+	}
+
+	@Override
+	public void fillOval(double x, double y, double width, double height, Color color) {
+		svg.append("<ellipse cx=\"").append(format(x + width / 2)).append("\" cy=\"").append(format(y + height / 2))
+				.append("\" rx=\"").append(format(width / 2)).append("\" ry=\"").append(format(height / 2))
+				.append('"');
+		appendFill(color);
+		svg.append("/>\n");
+	}
+
+	@Override
+	public void fillPolygon(double[] x, double[] y, Color color) {
+		svg.append("<polygon points=\"");
+		for (int i = 0; i < x.length; i++) {
+			if (i > 0) {
+				svg.append(' ');
+			}
+			svg.append(format(x[i])).append(',').append(format(y[i]));
+		}
+		svg.append('"');
+		appendFill(color);
+		svg.append("/>\n");
+	}
+
+	@Override
+	public void drawText(String text, double x, double y, double size, Color color) {
+		// digits are about as high as the cap height (0.7em)
+		svg.append("<text x=\"").append(format(x)).append("\" y=\"").append(format(y + size * 0.35))
+				.append("\" font-family=\"").append(fontName).append(", sans-serif\" font-size=\"")
+				.append(format(size)).append("\" text-anchor=\"middle\"");
+		appendFill(color);
+		svg.append('>').append(text).append("</text>\n");
+	}
+
+	private void appendFill(Color color) {
+		svg.append(" fill=\"").append(getColor(color)).append('"');
+		if (color.getAlpha() < 255) {
+			svg.append(" fill-opacity=\"").append(format(color.getAlpha() / 255.0)).append('"');
+		}
+	}
+
+	private void appendStroke(Color color, double lineWidth, boolean dashed) {
+		svg.append(" stroke=\"").append(getColor(color)).append("\" stroke-width=\"").append(format(lineWidth))
+				.append('"');
+		if (color.getAlpha() < 255) {
+			svg.append(" stroke-opacity=\"").append(format(color.getAlpha() / 255.0)).append('"');
+		}
+		if (dashed) {
+			svg.append(" stroke-dasharray=\"5\" stroke-linecap=\"round\"");
+		}
+	}
+
+	private static String getColor(Color color) {
+		return String.format("#%02x%02x%02x", color.getRed(), color.getGreen(), color.getBlue());
+	}
+
+	private static String format(double value) {
+		return SudokuRenderer.formatNumber(value);
+	}
+
+	/**
+	 * The complete SVG document.
+	 *
+	 * @return
+	 */
+	String getDocument() {
+		return svg.toString() + "</svg>\n";
+	}
+}